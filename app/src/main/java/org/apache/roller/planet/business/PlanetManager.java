@@ -20,6 +20,7 @@ package org.apache.roller.planet.business;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import org.apache.roller.RollerException;
 import org.apache.roller.planet.pojos.Planet;
 import org.apache.roller.planet.pojos.SubscriptionEntry;
@@ -100,6 +101,19 @@ public interface PlanetManager extends Manager {
     List<Subscription> getSubscriptions() throws RollerException;
     
     
+    /**
+     * Get subscriptions due for a refresh at the given time, soonest due first.
+     */
+    List<Subscription> getDueSubscriptions(Date now) throws RollerException;
+    
+    
+    /**
+     * Numbers about the refresh schedule of the subscriptions on it at the
+     * given time, in the same shape as the cache stats.
+     */
+    Map<String, Object> getRefreshScheduleStats(Date now) throws RollerException;
+    
+    
     /**
      * Get total number of subscriptions.
      */
@@ -179,6 +193,29 @@ public interface PlanetManager extends Manager {
                            Date endDate,
                            int offset, 
                            int len) throws RollerException;
+    
+    
+    /**
+     * Get Entries for a Group published before a given entry, in reverse
+     * chronological order.  For paging by the last entry of the previous
+     * page rather than by offset, which costs the same however deep.
+     *
+     * @param group Restrict to entries from one group.
+     * @param pubTime The pubTime of the last entry of the previous page.
+     * @param id The id of the last entry of the previous page.
+     * @param len Maximum number of results to return (for paging)
+     */
+    List<SubscriptionEntry> getEntriesBefore(PlanetGroup group,
+                           Date pubTime,
+                           String id,
+                           int len) throws RollerException;
+    
+    
+    /**
+     * Bring the cached group timelines up to date with the entries of a
+     * subscription, called once updated entries have been committed.
+     */
+    void updateTimelines(Subscription sub);
 
     /**
      * Add new PlanetGroup and add it to an existing planet.
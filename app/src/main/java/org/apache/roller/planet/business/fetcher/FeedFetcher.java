@@ -68,5 +68,22 @@ public interface FeedFetcher {
      * @throws FetcherException If there is an error fetching the subscription.
      */
     Subscription fetchSubscription(String feedURL, Date lastModified) throws FetcherException;
+    
+    
+    /**
+     * Conditionally refresh a stored subscription.
+     *
+     * Works like fetchSubscription(feedURL, lastModified) with the feed url and
+     * last updated date of the given subscription, but also uses the validators
+     * kept on it from its last fetch (ETag, Last-Modified and content hash) to
+     * skip feeds which haven't changed, and sets the validators of this fetch
+     * back on it.  The given subscription may be a detached copy, it is up to
+     * the caller to persist the validators.
+     *
+     * @param sub The subscription to refresh.
+     * @return Subscription The fetched subscription, or null if unchanged.
+     * @throws FetcherException If there is an error fetching the subscription.
+     */
+    Subscription fetchSubscription(Subscription sub) throws FetcherException;
 
 }
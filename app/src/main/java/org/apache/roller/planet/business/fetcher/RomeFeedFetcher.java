@@ -28,33 +28,64 @@ import com.rometools.rome.io.SyndFeedInput;
 import com.rometools.rome.io.XmlReader;
 import static io.github.pixee.security.Newlines.stripAll;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.xml.stream.XMLStreamException;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.text.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.planet.pojos.SubscriptionEntry;
 import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.weblogger.config.WebloggerConfig;
 
 import static java.net.http.HttpResponse.BodyHandlers.ofInputStream;
 
 
 /**
  * A FeedFetcher based on Apache ROME and {@link java.net.http.HttpClient}.
+ *
+ * Feeds are parsed with the {@link StreamingFeedParser} unless
+ * planet.fetcher.parser is set to rome.  Either way at most
+ * planet.fetcher.maxBytes of a feed are read and planet.fetcher.maxItems
+ * entries kept.
+ *
+ * Refreshes of a stored subscription are conditional: the ETag, Last-Modified
+ * and a hash of the content kept on the subscription from its last fetch are
+ * used to send If-None-Match/If-Modified-Since, and a feed which answers 304
+ * or serves the same content again is reported unchanged.
  */
 public class RomeFeedFetcher implements FeedFetcher {
     
     private static final Log log = LogFactory.getLog(RomeFeedFetcher.class);
     
+    // size of the rag_entry.guid column
+    static final int MAX_GUID_LENGTH = 255;
+    
+    // sizes of the rag_subscription etag and http_last_modified columns
+    private static final int MAX_ETAG_LENGTH = 255;
+    private static final int MAX_LAST_MODIFIED_LENGTH = 64;
+    
     // mutable, copy() first
     private static final HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                                 .timeout(Duration.ofSeconds(3))
@@ -62,10 +93,26 @@ public class RomeFeedFetcher implements FeedFetcher {
     
     private final HttpClient client;
     
+    // parse feeds with StreamingFeedParser rather than ROME
+    private final boolean streaming;
+    
+    // limits on what is read of a single feed
+    private final long maxBytes;
+    private final int maxItems;
+    
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder bytesFetched = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    
     public RomeFeedFetcher() {
         // immutable + thread safe, prefers HTTP/2, no redirects
         this.client = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(3)).build();
+        this.streaming = !"rome".equals(WebloggerConfig.getProperty("planet.fetcher.parser"));
+        this.maxBytes = WebloggerConfig.getIntProperty("planet.fetcher.maxBytes", 5 * 1024 * 1024);
+        this.maxItems = WebloggerConfig.getIntProperty("planet.fetcher.maxItems", 50);
     }
     
     /**
@@ -82,29 +129,81 @@ public class RomeFeedFetcher implements FeedFetcher {
      */
     @Override
     public Subscription fetchSubscription(String feedURL, Date lastModified) throws FetcherException {
+        return fetch(feedURL, lastModified, null);
+    }
+    
+    
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Subscription fetchSubscription(Subscription sub) throws FetcherException {
+        
+        if(sub == null) {
+            throw new IllegalArgumentException("subscription cannot be null");
+        }
+        
+        return fetch(sub.getFeedURL(), sub.getLastUpdated(), sub);
+    }
+    
+    
+    // fetch a feed, conditionally on the validators kept on stored if given
+    private Subscription fetch(String feedURL, Date lastModified, Subscription stored)
+            throws FetcherException {
 
         if(feedURL == null) {
             throw new IllegalArgumentException("feed url cannot be null");
         }
         
+        // validators are only of use if the subscription was fetched before
+        Subscription previous = stored != null && stored.getContentHash() != null ? stored : null;
+        
         // fetch the feed
         log.debug("Fetching feed: "+stripAll(feedURL));
-        SyndFeed feed;
+        Subscription newSub = new Subscription();
+        newSub.setFeedURL(feedURL);
+        List<SubscriptionEntry> entries;
+        String hash;
         try {
-            feed = fetchFeed(feedURL);
-        } catch (FeedException | IOException | InterruptedException ex) {
+            HttpResponse<InputStream> response = fetchFeed(feedURL, previous);
+            fetches.increment();
+            
+            try (CountingInputStream in = new CountingInputStream(response.body(), maxBytes)) {
+                if (previous != null && response.statusCode() == 304) {
+                    log.debug("Feed not modified: "+stripAll(feedURL));
+                    notModified.increment();
+                    bytesSaved.add(previous.getContentLength());
+                    return null;
+                }
+                
+                if (streaming) {
+                    entries = new StreamingFeedParser(maxItems).parse(in, newSub);
+                } else {
+                    entries = parseWithRome(in, newSub);
+                }
+                bytesFetched.add(in.count);
+                hash = contentHash(newSub, entries);
+                if (stored != null) {
+                    stored.setEtag(validator(response, "ETag", MAX_ETAG_LENGTH));
+                    stored.setHttpLastModified(validator(response, "Last-Modified", MAX_LAST_MODIFIED_LENGTH));
+                    stored.setContentLength((int) in.count);
+                }
+            }
+            
+        } catch (FeedException | XMLStreamException | IOException | InterruptedException ex) {
             throw new FetcherException("Error fetching subscription - "+feedURL, ex);
         }
         
-        log.debug("Feed pulled, extracting data into Subscription");
+        if (previous != null && hash.equals(previous.getContentHash())) {
+            log.debug("Feed content unchanged: "+stripAll(feedURL));
+            unchanged.increment();
+            return null;
+        }
+        if (stored != null) {
+            stored.setContentHash(hash);
+        }
         
-        // build planet subscription from fetched feed
-        Subscription newSub = new Subscription();
-        newSub.setFeedURL(feedURL);
-        newSub.setSiteURL(feed.getLink());
-        newSub.setTitle(feed.getTitle());
-        newSub.setAuthor(feed.getAuthor());
-        newSub.setLastUpdated(feed.getPublishedDate());
+        log.debug("Feed pulled, extracting data into Subscription");
         
         
         // normalize any data that couldn't be properly extracted
@@ -140,9 +239,7 @@ public class RomeFeedFetcher implements FeedFetcher {
         }
         
         // add entries
-        List<SyndEntry> feedEntries = feed.getEntries();
-        for (SyndEntry feedEntry : feedEntries) {
-            SubscriptionEntry newEntry = buildEntry(feedEntry);
+        for (SubscriptionEntry newEntry : entries) {
             
             // some kludge to handle feeds with no entry dates
             if (newEntry.getPubTime() == null) {
@@ -154,12 +251,67 @@ public class RomeFeedFetcher implements FeedFetcher {
             newSub.addEntry(newEntry);
         }
         
-        log.debug(feedEntries.size()+" entries included");
+        log.debug(entries.size()+" entries included");
         
         return newSub;
     }
     
     
+    // parse the whole feed into a ROME SyndFeed and keep the first maxItems entries
+    private List<SubscriptionEntry> parseWithRome(InputStream in, Subscription newSub)
+            throws IOException, FeedException {
+        
+        SyndFeed feed;
+        try (XmlReader reader = new XmlReader(in)) {
+            feed = new SyndFeedInput().build(reader);
+        }
+        
+        newSub.setSiteURL(feed.getLink());
+        newSub.setTitle(feed.getTitle());
+        newSub.setAuthor(feed.getAuthor());
+        newSub.setLastUpdated(feed.getPublishedDate());
+        
+        List<SubscriptionEntry> entries = new ArrayList<>();
+        for (SyndEntry feedEntry : feed.getEntries()) {
+            if (entries.size() >= maxItems) {
+                break;
+            }
+            SubscriptionEntry newEntry = buildEntry(feedEntry);
+            if (newEntry != null) {
+                entries.add(newEntry);
+            }
+        }
+        return entries;
+    }
+    
+    
+    // hex hash of everything we take from a feed, before any defaults are filled in
+    private static String contentHash(Subscription sub, List<SubscriptionEntry> entries) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every JVM is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+        update(digest, sub.getTitle(), sub.getSiteURL(), sub.getAuthor(), sub.getLastUpdated());
+        for (SubscriptionEntry entry : entries) {
+            update(digest, entry.getPermalink(), entry.getGuid(), entry.getTitle(), entry.getAuthor(),
+                    entry.getText(), entry.getCategoriesString(), entry.getPubTime(), entry.getUpdateTime());
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+    
+    
+    private static void update(MessageDigest digest, Object... values) {
+        for (Object value : values) {
+            Object v = value instanceof Date ? ((Date) value).getTime() : value;
+            digest.update(String.valueOf(v).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+    }
+    
+    
     // build a SubscriptionEntry from Rome SyndEntry and SyndFeed
     private SubscriptionEntry buildEntry(SyndEntry romeEntry) {
         
@@ -173,6 +325,11 @@ public class RomeFeedFetcher implements FeedFetcher {
         newEntry.setTitle(romeEntry.getTitle());
         newEntry.setPermalink(romeEntry.getLink());
         
+        // the rss guid or atom id identifies the entry across permalink changes
+        if (romeEntry.getUri() != null && romeEntry.getUri().length() <= MAX_GUID_LENGTH) {
+            newEntry.setGuid(romeEntry.getUri());
+        }
+        
         // Play some games to get the author
         DCModule entrydc = (DCModule)romeEntry.getModule(DCModule.URI);
         if (romeEntry.getAuthor() != null) {
@@ -226,14 +383,97 @@ public class RomeFeedFetcher implements FeedFetcher {
         return newEntry;
     }
     
-    private SyndFeed fetchFeed(String url) throws IOException, InterruptedException, FeedException {
+    // a validator header, dropped if it is too long to be stored
+    private static String validator(HttpResponse<?> response, String header, int max) {
+        return response.headers().firstValue(header).filter(v -> v.length() <= max).orElse(null);
+    }
+    
+    
+    private HttpResponse<InputStream> fetchFeed(String url, Subscription previous)
+            throws IOException, InterruptedException {
         
-        HttpRequest request = requestBuilder.copy().uri(URI.create(url)).build();
+        HttpRequest.Builder builder = requestBuilder.copy().uri(URI.create(url));
+        if (previous != null) {
+            if (previous.getEtag() != null) {
+                builder.header("If-None-Match", previous.getEtag());
+            }
+            if (previous.getHttpLastModified() != null) {
+                builder.header("If-Modified-Since", previous.getHttpLastModified());
+            }
+        }
+        HttpRequest request = builder.build();
+        try {
+            return client.send(request, ofInputStream());
+        } catch (ConnectException | HttpTimeoutException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            // the server may have closed a kept alive connection just as we reused it
+            log.debug("Retrying feed: " + stripAll(url), ex);
+            return client.send(request, ofInputStream());
+        }
+    }
+    
+    
+    /**
+     * Counters of conditional fetches, in the same shape as the cache stats.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fetches", fetches.sum());
+        stats.put("notModified", notModified.sum());
+        stats.put("unchanged", unchanged.sum());
+        stats.put("bytesFetched", bytesFetched.sum());
+        stats.put("bytesSaved", bytesSaved.sum());
+        return stats;
+    }
+    
+    
+    public void clearStats() {
+        fetches.reset();
+        notModified.reset();
+        unchanged.reset();
+        bytesFetched.reset();
+        bytesSaved.reset();
+    }
+    
+    
+    /**
+     * Counts what is read of a feed and gives up on feeds larger than allowed.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        
+        private final long max;
+        private long count = 0;
+        
+        private CountingInputStream(InputStream in, long max) {
+            super(in);
+            this.max = max;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counted(1);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counted(n);
+            }
+            return n;
+        }
         
-        try(XmlReader reader = new XmlReader(client.send(request, ofInputStream()).body())) {
-            return new SyndFeedInput().build(reader);
+        private void counted(int n) throws IOException {
+            count += n;
+            if (count > max) {
+                throw new IOException("Feed is larger than " + max + " bytes");
+            }
         }
-       
     }
     
 }
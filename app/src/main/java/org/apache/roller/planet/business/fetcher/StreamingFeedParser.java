@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.planet.business.fetcher;
+
+import com.rometools.rome.io.impl.DateParser;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.planet.pojos.SubscriptionEntry;
+
+
+/**
+ * Pulls what planet stores out of an RSS 0.9x/2.0, RSS 1.0 or Atom feed with
+ * a StAX reader, without building a document of the whole feed.
+ *
+ * Feeds list their newest items first, so parsing stops as soon as maxItems
+ * entries have been read and the rest of the feed is never looked at.  The
+ * fields extracted are the ones RomeFeedFetcher takes from a ROME SyndFeed.
+ */
+public class StreamingFeedParser {
+    
+    private static final String ATOM_10 = "http://www.w3.org/2005/Atom";
+    private static final String ATOM_03 = "http://purl.org/atom/ns#";
+    private static final String RSS_10 = "http://purl.org/rss/1.0/";
+    private static final String DC = "http://purl.org/dc/elements/1.1/";
+    private static final String CONTENT = "http://purl.org/rss/1.0/modules/content/";
+    
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+    static {
+        // feeds are untrusted, never resolve a DTD or external entity
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    }
+    
+    private final int maxItems;
+    
+    
+    public StreamingFeedParser(int maxItems) {
+        this.maxItems = maxItems;
+    }
+    
+    
+    /**
+     * Parse a feed, filling in the feed level fields of the given subscription.
+     *
+     * @return up to maxItems entries in feed order, entries without a link are left out
+     */
+    public List<SubscriptionEntry> parse(InputStream in, Subscription sub) throws XMLStreamException {
+        
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            reader.nextTag();
+            String root = reader.getLocalName();
+            if (!"rss".equals(root) && !"RDF".equals(root) && !"feed".equals(root)) {
+                throw new XMLStreamException("Not a feed, root element is " + root);
+            }
+            
+            Feed feed = new Feed();
+            List<SubscriptionEntry> entries = new ArrayList<>();
+            readContainer(reader, feed, entries);
+            
+            sub.setTitle(feed.title);
+            sub.setSiteURL(feed.link);
+            sub.setAuthor(feed.author);
+            sub.setLastUpdated(feed.published != null ? feed.published
+                    : feed.updated != null ? feed.updated : feed.dcDate);
+            return entries;
+        } finally {
+            reader.close();
+        }
+    }
+    
+    
+    // read the children of rss, channel, rdf:RDF or feed until done or full
+    private void readContainer(XMLStreamReader reader, Feed feed, List<SubscriptionEntry> entries)
+            throws XMLStreamException {
+        
+        while (entries.size() < maxItems && reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            String ns = reader.getNamespaceURI();
+            
+            if ("channel".equals(name) && isOwn(ns)) {
+                readContainer(reader, feed, entries);
+                if (entries.size() >= maxItems) {
+                    return;
+                }
+            } else if (("item".equals(name) || "entry".equals(name)) && isOwn(ns)) {
+                SubscriptionEntry entry = readEntry(reader);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            } else if (DC.equals(ns)) {
+                if ("creator".equals(name)) {
+                    feed.author = StringUtils.defaultIfEmpty(feed.author, readText(reader));
+                } else if ("date".equals(name)) {
+                    feed.dcDate = parseDate(readText(reader));
+                } else {
+                    skip(reader);
+                }
+            } else if (!isOwn(ns)) {
+                skip(reader);
+            } else if ("title".equals(name)) {
+                feed.title = readText(reader);
+            } else if ("link".equals(name)) {
+                if (feed.link == null || isAlternate(reader)) {
+                    feed.link = readLink(reader);
+                } else {
+                    skip(reader);
+                }
+            } else if ("pubDate".equals(name)) {
+                feed.published = parseDate(readText(reader));
+            } else if ("lastBuildDate".equals(name) || "updated".equals(name) || "modified".equals(name)) {
+                feed.updated = parseDate(readText(reader));
+            } else if ("managingEditor".equals(name)) {
+                feed.author = StringUtils.defaultIfEmpty(feed.author, readText(reader));
+            } else if ("author".equals(name)) {
+                feed.author = readAuthor(reader);
+            } else {
+                skip(reader);
+            }
+        }
+    }
+    
+    
+    private SubscriptionEntry readEntry(XMLStreamReader reader) throws XMLStreamException {
+        
+        String title = null;
+        String link = null;
+        String guid = null;
+        boolean guidIsPermalink = false;
+        String author = null;
+        String content = null;
+        String description = null;
+        Date published = null;
+        Date dcDate = null;
+        Date updated = null;
+        List<String> categories = new ArrayList<>();
+        
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            String ns = reader.getNamespaceURI();
+            
+            if (DC.equals(ns)) {
+                if ("creator".equals(name)) {
+                    author = author == null ? readText(reader) : author;
+                    continue;
+                } else if ("date".equals(name)) {
+                    dcDate = parseDate(readText(reader));
+                    continue;
+                } else if ("subject".equals(name)) {
+                    categories.add(readText(reader));
+                    continue;
+                }
+            } else if (CONTENT.equals(ns) && "encoded".equals(name)) {
+                content = readText(reader);
+                continue;
+            } else if (isOwn(ns)) {
+                switch (name) {
+                    case "title":
+                        title = readText(reader);
+                        continue;
+                    case "link":
+                        if (link == null || isAlternate(reader)) {
+                            link = readLink(reader);
+                        } else {
+                            skip(reader);
+                        }
+                        continue;
+                    case "guid":
+                        guidIsPermalink = !"false".equalsIgnoreCase(reader.getAttributeValue(null, "isPermaLink"));
+                        guid = readText(reader);
+                        continue;
+                    case "id":
+                        guid = readText(reader);
+                        continue;
+                    case "author":
+                        author = readAuthor(reader);
+                        continue;
+                    case "content":
+                        content = readText(reader);
+                        continue;
+                    case "description":
+                    case "summary":
+                        description = readText(reader);
+                        continue;
+                    case "pubDate":
+                    case "published":
+                    case "issued":
+                        published = parseDate(readText(reader));
+                        continue;
+                    case "updated":
+                    case "modified":
+                        updated = parseDate(readText(reader));
+                        continue;
+                    case "category": {
+                        String term = reader.getAttributeValue(null, "term");
+                        String text = readText(reader);
+                        categories.add(term != null ? term : text);
+                        continue;
+                    }
+                    default:
+                        break;
+                }
+            }
+            skip(reader);
+        }
+        
+        // rss items may only have a permalink guid
+        if (link == null && guidIsPermalink) {
+            link = guid;
+        }
+        
+        // if we don't have a permalink then we can't continue
+        if (link == null) {
+            return null;
+        }
+        
+        SubscriptionEntry entry = new SubscriptionEntry();
+        entry.setTitle(title);
+        entry.setPermalink(link);
+        String uri = guid != null ? guid : link;
+        if (uri.length() <= RomeFeedFetcher.MAX_GUID_LENGTH) {
+            entry.setGuid(uri);
+        }
+        entry.setAuthor(author);
+        if (updated != null) {
+            entry.setUpdateTime(new Timestamp(updated.getTime()));
+        }
+        if (published == null) {
+            published = dcDate;
+        }
+        entry.setPubTime(published != null ? new Timestamp(published.getTime()) : entry.getUpdateTime());
+        entry.setText(StringUtils.isBlank(content) ? StringUtils.defaultString(description) : content);
+        if (!categories.isEmpty()) {
+            entry.setCategoriesString(categories);
+        }
+        return entry;
+    }
+    
+    
+    // atom author is a person construct, rss author is text
+    private static String readAuthor(XMLStreamReader reader) throws XMLStreamException {
+        String text = null;
+        String name = null;
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text = text == null ? reader.getText() : text + reader.getText();
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("name".equals(reader.getLocalName())) {
+                    name = readText(reader);
+                } else {
+                    skip(reader);
+                }
+            }
+        }
+        return name != null ? name : StringUtils.trimToNull(text);
+    }
+    
+    
+    // atom links carry the url as href, rss links as text
+    private static String readLink(XMLStreamReader reader) throws XMLStreamException {
+        String href = reader.getAttributeValue(null, "href");
+        String text = readText(reader);
+        return StringUtils.trimToNull(href != null ? href : text);
+    }
+    
+    
+    private static boolean isAlternate(XMLStreamReader reader) {
+        String rel = reader.getAttributeValue(null, "rel");
+        return rel == null || "alternate".equals(rel);
+    }
+    
+    
+    /**
+     * Text of the current element.  Nested markup, as in atom xhtml content,
+     * is written back out as markup.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder sb = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    if (depth > 1) {
+                        escape(sb, reader.getText());
+                    } else {
+                        sb.append(reader.getText());
+                    }
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    sb.append('<').append(reader.getLocalName());
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        sb.append(' ').append(reader.getAttributeLocalName(i)).append("=\"");
+                        escape(sb, reader.getAttributeValue(i));
+                        sb.append('"');
+                    }
+                    sb.append('>');
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (--depth > 0) {
+                        sb.append("</").append(reader.getLocalName()).append('>');
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+    
+    
+    private static void escape(StringBuilder sb, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '&': sb.append("&amp;"); break;
+                case '"': sb.append("&quot;"); break;
+                default: sb.append(c);
+            }
+        }
+    }
+    
+    
+    // skip the current element and everything in it
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+    
+    
+    private static boolean isOwn(String ns) {
+        return ns == null || ns.isEmpty() || ATOM_10.equals(ns) || ATOM_03.equals(ns) || RSS_10.equals(ns);
+    }
+    
+    
+    private static Date parseDate(String text) {
+        return StringUtils.isBlank(text) ? null : DateParser.parseDate(text.trim(), Locale.US);
+    }
+    
+    
+    private static final class Feed {
+        private String title;
+        private String link;
+        private String author;
+        private Date published;
+        private Date updated;
+        private Date dcDate;
+    }
+    
+}
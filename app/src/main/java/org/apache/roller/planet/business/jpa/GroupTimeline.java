@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.planet.business.jpa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+
+/**
+ * The newest entries of a planet group, newest first.
+ *
+ * Holds only the pubTime, id and subscription of each entry, up to a fixed
+ * number of entries.  A timeline is either complete, holding every entry of
+ * the group, or a prefix of the full timeline: every entry of the group it
+ * doesn't hold is older than its oldest entry.
+ *
+ * Instances are immutable, updates produce a new timeline which keeps the
+ * load time of the one it was made from.
+ */
+final class GroupTimeline {
+
+    // newest first, ties broken by id so the order is total
+    static final Comparator<Item> NEWEST_FIRST = (a, b) -> {
+        int cmp = Long.compare(b.time, a.time);
+        return cmp != 0 ? cmp : b.id.compareTo(a.id);
+    };
+
+    private final Item[] items;
+    private final boolean complete;
+    private final long loaded;
+
+
+    GroupTimeline(List<Item> items, boolean complete, long loaded) {
+        this.items = items.toArray(new Item[0]);
+        this.complete = complete;
+        this.loaded = loaded;
+    }
+
+
+    int size() {
+        return items.length;
+    }
+
+
+    boolean isComplete() {
+        return complete;
+    }
+
+
+    /**
+     * When this timeline was loaded from the database.
+     */
+    long getLoaded() {
+        return loaded;
+    }
+
+
+    /**
+     * Number of leading entries published after the given date, all of them
+     * if the date is null.
+     */
+    int countNewerThan(Date date) {
+        if (date == null) {
+            return items.length;
+        }
+        long time = date.getTime();
+        int low = 0;
+        int high = items.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (items[mid].time > time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+
+    /**
+     * Position of the first entry which comes after the given one.
+     */
+    int positionAfter(Date pubTime, String id) {
+        Item key = new Item(pubTime.getTime(), id, null);
+        int low = 0;
+        int high = items.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (NEWEST_FIRST.compare(items[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+
+    List<String> getIds(int from, int to) {
+        List<String> ids = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            ids.add(items[i].id);
+        }
+        return ids;
+    }
+
+
+    /**
+     * Replace the entries of a subscription with its current ones.
+     *
+     * @return the updated timeline, or null if this timeline was not complete
+     *         and ended up too short to tell which entries belong in it
+     */
+    GroupTimeline merge(String subscriptionId, List<Item> entries, int capacity) {
+
+        List<Item> merged = new ArrayList<>(items.length + entries.size());
+        for (Item item : items) {
+            if (!item.subscriptionId.equals(subscriptionId)) {
+                merged.add(item);
+            }
+        }
+
+        // past the end of a partial timeline there may be newer entries of
+        // other subscriptions, so older entries can't be placed
+        Item oldest = complete || items.length == 0 ? null : items[items.length - 1];
+        for (Item item : entries) {
+            if (oldest == null || NEWEST_FIRST.compare(item, oldest) <= 0) {
+                merged.add(item);
+            }
+        }
+        merged.sort(NEWEST_FIRST);
+
+        if (merged.size() > capacity) {
+            return new GroupTimeline(merged.subList(0, capacity), false, loaded);
+        } else if (!complete && merged.size() < capacity) {
+            return null;
+        }
+        return new GroupTimeline(merged, complete, loaded);
+    }
+
+
+    /**
+     * An entry of the timeline, entries without a pubTime sort last.
+     */
+    static final class Item {
+        private final long time;
+        private final String id;
+        private final String subscriptionId;
+
+        Item(Date pubTime, String id, String subscriptionId) {
+            this(pubTime != null ? pubTime.getTime() : Long.MIN_VALUE, id, subscriptionId);
+        }
+
+        private Item(long time, String id, String subscriptionId) {
+            this.time = time;
+            this.id = id;
+            this.subscriptionId = subscriptionId;
+        }
+
+        boolean isDated() {
+            return time != Long.MIN_VALUE;
+        }
+    }
+
+}
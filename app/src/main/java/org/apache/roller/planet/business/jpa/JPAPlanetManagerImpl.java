@@ -20,9 +20,17 @@ package org.apache.roller.planet.business.jpa;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
@@ -40,6 +48,7 @@ import org.apache.roller.planet.business.AbstractManagerImpl;
 import org.apache.roller.util.RollerConstants;
 import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.business.jpa.JPAPersistenceStrategy;
+import org.apache.roller.weblogger.config.WebloggerConfig;
 
 /**
  * Manages Planet Roller objects and entry aggregations in a database.
@@ -53,6 +62,18 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
     
     /** The strategy for this manager. */
     private final JPAPersistenceStrategy strategy;
+    
+    /** Entries kept per group timeline, 0 to query every time. */
+    private final int timelineSize = WebloggerConfig.getIntProperty("planet.timeline.size", 500);
+    
+    /** How long a timeline is used before it is loaded again, so changes made by other cluster nodes show up. */
+    private final long timelineTtl = TimeUnit.SECONDS.toMillis(WebloggerConfig.getIntProperty("planet.timeline.ttl", 300));
+    
+    /** Timelines of the groups requested so far, by group id. */
+    private final Map<String, GroupTimeline> timelines = new ConcurrentHashMap<>();
+    
+    /** Bumped by every timeline update, to spot loads racing with one. */
+    private final AtomicLong timelineVersion = new AtomicLong();
 
     @com.google.inject.Inject  
     protected JPAPlanetManagerImpl(JPAPersistenceStrategy strategy) {
@@ -64,6 +85,7 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
     
     @Override
     public void saveGroup(PlanetGroup group) throws RollerException {
+        invalidateTimelines(Collections.singleton(group));
         strategy.store(group);
     }
     
@@ -90,6 +112,7 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
     
     @Override
     public void deleteGroup(PlanetGroup group) throws RollerException {
+        invalidateTimelines(Collections.singleton(group));
 
         group.getPlanet().getGroups().remove(group);
         strategy.store(group.getPlanet());
@@ -100,6 +123,7 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
     @Override
     public void deleteSubscription(Subscription sub)
     throws RollerException {
+        invalidateTimelines(sub.getGroups());
         strategy.remove(sub);
     }
     
@@ -255,6 +279,7 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
     @Override
     public void deleteEntries(Subscription sub) 
         throws RollerException {
+        invalidateTimelines(sub.getGroups());
         for (Object entry : sub.getEntries()) {
             strategy.remove(entry);
         }
@@ -268,6 +293,40 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
         return q.getResultList();
     }
 
+    @Override
+    public List<Subscription> getDueSubscriptions(Date now) throws RollerException {
+        TypedQuery<Subscription> q = strategy.getNamedQuery("Subscription.getDue", Subscription.class);
+        q.setParameter(1, new Timestamp(now.getTime()));
+        return q.getResultList();
+    }
+
+    @Override
+    public Map<String, Object> getRefreshScheduleStats(Date now) throws RollerException {
+        TypedQuery<Object[]> q = strategy.getNamedQuery("Subscription.getScheduleStats", Object[].class);
+        q.setParameter(1, new Timestamp(now.getTime()));
+        Object[] row = q.getSingleResult();
+        
+        long tracked = toLong(row[0]);
+        long intervals = toLong(row[3]);
+        Date nextDue = (Date) row[5];
+        Date oldestCheck = (Date) row[6];
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracked", tracked);
+        stats.put("due", toLong(row[1]));
+        stats.put("failing", toLong(row[2]));
+        stats.put("nextDueMinutes", nextDue != null
+                ? Math.max(0, TimeUnit.MILLISECONDS.toMinutes(nextDue.getTime() - now.getTime())) : 0);
+        stats.put("maxStalenessMinutes", oldestCheck != null
+                ? TimeUnit.MILLISECONDS.toMinutes(now.getTime() - oldestCheck.getTime()) : 0);
+        stats.put("avgIntervalMinutes", intervals > 0 ? toLong(row[4]) / intervals : 0);
+        return stats;
+    }
+    
+    // sums over no rows are null
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
     @Override
     public SubscriptionEntry getEntryById(String id) throws RollerException {
         return (SubscriptionEntry) strategy.load(SubscriptionEntry.class, id);
@@ -303,6 +362,52 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
             throw new WebloggerException("group cannot be null or empty");
         }
         
+        if (endDate == null && timelineSize > 0) {
+            GroupTimeline timeline = getTimeline(group);
+            int limit = timeline.countNewerThan(startDate);
+            int from = Math.max(offset, 0);
+            int to = len == -1 ? limit : Math.min(limit, from + len);
+            
+            // a start date falling inside the timeline means nothing newer is missing
+            if (timeline.isComplete() || limit < timeline.size() || (len != -1 && from + len <= limit)) {
+                return getEntriesById(group, timeline.getIds(Math.min(from, to), to));
+            }
+        }
+        
+        return queryEntries(group, startDate, endDate, null, offset, len, null);
+    }
+    
+    @Override
+    public List<SubscriptionEntry> getEntriesBefore(
+            PlanetGroup group, Date pubTime, String id, int len) throws RollerException {
+        
+        if (group == null) {
+            throw new WebloggerException("group cannot be null or empty");
+        }
+        if (pubTime == null || id == null) {
+            throw new WebloggerException("pubTime and id cannot be null");
+        }
+        
+        if (timelineSize > 0) {
+            GroupTimeline timeline = getTimeline(group);
+            int from = timeline.positionAfter(pubTime, id);
+            if (timeline.isComplete() || (len != -1 && from + len <= timeline.size())) {
+                int to = len == -1 ? timeline.size() : Math.min(timeline.size(), from + len);
+                return getEntriesById(group, timeline.getIds(from, to));
+            }
+        }
+        
+        return queryEntries(group, null, pubTime, id, 0, len, null);
+    }
+    
+    /**
+     * Query the entries of a group, newest first.  Entries published at
+     * endDate are included if they sort after endId, entries of subscriptions
+     * whose feed url starts with excludedFeedPrefix are left out.
+     */
+    protected List<SubscriptionEntry> queryEntries(PlanetGroup group, Date startDate, Date endDate,
+            String endId, int offset, int len, String excludedFeedPrefix) throws RollerException {
+        
         List<SubscriptionEntry> ret;
         try {
             long startTime = System.currentTimeMillis();
@@ -316,15 +421,25 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
             params.add(size++, group.getHandle());
             sb.append("WHERE g.handle = ?").append(size);
             
+            if (excludedFeedPrefix != null) {
+                params.add(size++, excludedFeedPrefix + "%");
+                sb.append(" AND e.subscription.feedURL NOT LIKE ?").append(size);
+            }
             if (startDate != null) {
                 params.add(size++, new Timestamp(startDate.getTime()));
                 sb.append(" AND e.pubTime > ?").append(size);
             }
-            if (endDate != null) {
+            if (endDate != null && endId != null) {
                 params.add(size++, new Timestamp(endDate.getTime()));
-                sb.append(" AND e.pubTime < :?").append(size);
+                params.add(size++, endId);
+                sb.append(" AND (e.pubTime < ?").append(size - 1);
+                sb.append(" OR (e.pubTime = ?").append(size - 1);
+                sb.append(" AND e.id < ?").append(size).append("))");
+            } else if (endDate != null) {
+                params.add(size++, new Timestamp(endDate.getTime()));
+                sb.append(" AND e.pubTime < ?").append(size);
             }
-            sb.append(" ORDER BY e.pubTime DESC");
+            sb.append(" ORDER BY e.pubTime DESC, e.id DESC");
             
             TypedQuery<SubscriptionEntry> query = strategy.getDynamicQuery(sb.toString(), SubscriptionEntry.class);
             for (int i=0; i<params.size(); i++) {
@@ -350,6 +465,130 @@ public class JPAPlanetManagerImpl extends AbstractManagerImpl implements PlanetM
         
         return ret;
     }
+    
+    /**
+     * Load the entries of a group by id, in the order given.  Entries which
+     * no longer exist are left out.
+     */
+    protected List<SubscriptionEntry> getEntriesById(PlanetGroup group, List<String> ids) throws RollerException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        TypedQuery<SubscriptionEntry> q = strategy.getNamedQuery(
+                "SubscriptionEntry.getByIds", SubscriptionEntry.class);
+        q.setParameter(1, ids);
+        Map<String, SubscriptionEntry> byId = new HashMap<>();
+        for (SubscriptionEntry entry : q.getResultList()) {
+            byId.put(entry.getId(), entry);
+        }
+        List<SubscriptionEntry> ret = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            SubscriptionEntry entry = byId.get(id);
+            if (entry != null) {
+                ret.add(entry);
+            }
+        }
+        return ret;
+    }
+    
+    /**
+     * Get the timeline of a group, loading it if it isn't cached or has expired.
+     */
+    private GroupTimeline getTimeline(PlanetGroup group) throws RollerException {
+        String key = group.getId();
+        GroupTimeline timeline = timelines.get(key);
+        if (timeline != null && (System.currentTimeMillis() - timeline.getLoaded() > timelineTtl
+                || !isTimelineCurrent(group, timeline.getLoaded()))) {
+            timelines.remove(key, timeline);
+            timeline = null;
+        }
+        if (timeline == null) {
+            long version = timelineVersion.get();
+            timeline = loadTimeline(group);
+            
+            // don't keep a timeline which may have missed an update made while loading
+            if (timelineVersion.get() == version) {
+                timelines.putIfAbsent(key, timeline);
+                if (timelineVersion.get() != version) {
+                    timelines.remove(key, timeline);
+                }
+            }
+        }
+        return timeline;
+    }
+    
+    /**
+     * False if entries of the group may have changed since its timeline was
+     * loaded at the given time other than through this manager.
+     */
+    protected boolean isTimelineCurrent(PlanetGroup group, long loaded) throws RollerException {
+        return true;
+    }
+    
+    /**
+     * Query the newest entries of a group as rows of id, pubTime and
+     * subscription id, newest first.
+     */
+    protected List<Object[]> queryTimeline(PlanetGroup group, int maxResults) throws RollerException {
+        TypedQuery<Object[]> q = strategy.getNamedQuery(
+                "SubscriptionEntry.getTimelineByGroupHandle", Object[].class);
+        q.setParameter(1, group.getHandle());
+        q.setMaxResults(maxResults);
+        return q.getResultList();
+    }
+    
+    private GroupTimeline loadTimeline(PlanetGroup group) throws RollerException {
+        long loaded = System.currentTimeMillis();
+        List<Object[]> rows = queryTimeline(group, timelineSize + 1);
+        
+        boolean complete = rows.size() <= timelineSize;
+        List<GroupTimeline.Item> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows.subList(0, Math.min(rows.size(), timelineSize))) {
+            GroupTimeline.Item item = new GroupTimeline.Item((Date) row[1], (String) row[0], (String) row[2]);
+            // where undated entries sort depends on the database, only keep them if we have them all
+            if (complete || item.isDated()) {
+                items.add(item);
+            }
+        }
+        items.sort(GroupTimeline.NEWEST_FIRST);
+        log.debug("Loaded timeline of " + items.size() + " entries for group " + group.getHandle());
+        return new GroupTimeline(items, complete, loaded);
+    }
+    
+    @Override
+    public void updateTimelines(Subscription sub) {
+        if (timelineSize <= 0) {
+            return;
+        }
+        List<GroupTimeline.Item> items = new ArrayList<>(sub.getEntries().size());
+        for (SubscriptionEntry entry : sub.getEntries()) {
+            items.add(new GroupTimeline.Item(entry.getPubTime(), entry.getId(), sub.getId()));
+        }
+        timelineVersion.incrementAndGet();
+        for (PlanetGroup group : sub.getGroups()) {
+            timelines.computeIfPresent(group.getId(),
+                    (id, timeline) -> timeline.merge(sub.getId(), items, timelineSize));
+        }
+    }
+    
+    /**
+     * Drop cached timelines once entries or group memberships changed other
+     * than through a subscription update are committed, they are loaded again
+     * when next used.  Dropping them earlier would let a concurrent request
+     * load them again from the data as it was before the commit.
+     */
+    private void invalidateTimelines(Collection<PlanetGroup> groups) {
+        List<String> ids = new ArrayList<>(groups.size());
+        for (PlanetGroup group : groups) {
+            ids.add(group.getId());
+        }
+        strategy.afterCommit(() -> {
+            timelineVersion.incrementAndGet();
+            for (String id : ids) {
+                timelines.remove(id);
+            }
+        });
+    }
 
     @Override
     public void saveNewPlanetGroup(Planet planet, PlanetGroup planetGroup) throws WebloggerException {
@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.planet.business.updater;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.RollerException;
+import org.apache.roller.planet.business.fetcher.FeedFetcher;
+import org.apache.roller.planet.pojos.PlanetGroup;
+import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.util.RollerConstants;
+import org.apache.roller.weblogger.business.Weblogger;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.business.runnable.ManagedExecutor;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+
+
+/**
+ * A FeedUpdater which fetches and parses feeds concurrently.
+ *
+ * Subscriptions are grouped by host and each host gets at most planet.updater.perHost
+ * lanes working through its feeds, so a planet with many feeds on one site does
+ * not hammer it.  Lanes run on a pool of planet.updater.threads threads, which
+ * is also the cap on fetches in flight.  Fetched feeds are handed to a small
+ * pool of planet.updater.writers threads which persist them in transactions of
+ * up to planet.updater.batchSize subscriptions, each writer using its own
+ * persistence session.  The outcome of every fetch, including unchanged and
+ * failed ones, goes through the writers so that they can save the refresh
+ * schedule of the subscription.
+ *
+ * Updating all subscriptions only updates those due according to the
+ * {@link RefreshSchedule}; updating a group or a single subscription works
+ * just like the SingleThreadedFeedUpdater.
+ */
+public class ConcurrentFeedUpdater extends SingleThreadedFeedUpdater {
+    
+    private static Log log = LogFactory.getLog(ConcurrentFeedUpdater.class);
+    
+    // marks the end of the fetched feeds for a writer
+    private static final Fetched DONE = new Fetched(null, null, false);
+    
+    private final int threads;
+    private final int perHost;
+    private final int writers;
+    private final int batchSize;
+    
+    
+    public ConcurrentFeedUpdater() {
+        this(WebloggerConfig.getIntProperty("planet.updater.threads", 8),
+                WebloggerConfig.getIntProperty("planet.updater.perHost", 2),
+                WebloggerConfig.getIntProperty("planet.updater.writers", 2),
+                WebloggerConfig.getIntProperty("planet.updater.batchSize", 20));
+    }
+    
+    public ConcurrentFeedUpdater(int threads, int perHost, int writers, int batchSize) {
+        this.threads = Math.max(1, threads);
+        this.perHost = Math.max(1, perHost);
+        this.writers = Math.max(1, writers);
+        this.batchSize = Math.max(1, batchSize);
+    }
+    
+    
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void updateSubscriptions() throws UpdaterException {
+        
+        updateProxySettings();
+        
+        log.debug("--- BEGIN --- Updating all subscriptions");
+        
+        long startTime = System.currentTimeMillis();
+        
+        try {
+            updateSubscriptions(getDueSubscriptions());
+        } catch (RollerException ex) {
+            throw new UpdaterException("Error getting subscriptions list", ex);
+        }
+        
+        long endTime = System.currentTimeMillis();
+        log.info("--- DONE --- Updated subscriptions in "
+                + ((endTime-startTime) / RollerConstants.SEC_IN_MS) + " seconds");
+        logChanges();
+    }
+    
+    
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void updateSubscriptions(PlanetGroup group) throws UpdaterException {
+        
+        if(group == null) {
+            throw new IllegalArgumentException("cannot update null group");
+        }
+        
+        updateProxySettings();
+        
+        log.debug("--- BEGIN --- Updating subscriptions in group = "+group.getHandle());
+        
+        long startTime = System.currentTimeMillis();
+        
+        updateSubscriptions(group.getSubscriptions());
+        
+        long endTime = System.currentTimeMillis();
+        log.info("--- DONE --- Updated subscriptions in "
+                + ((endTime-startTime) / RollerConstants.SEC_IN_MS) + " seconds");
+        logChanges();
+    }
+    
+    
+    protected void updateSubscriptions(Collection<Subscription> subscriptions) throws UpdaterException {
+        
+        // only ids and fetch state cross threads, never managed objects
+        Map<String, Queue<Job>> hosts = new LinkedHashMap<>();
+        for (Subscription sub : subscriptions) {
+            hosts.computeIfAbsent(hostOf(sub.getFeedURL()), k -> new ConcurrentLinkedQueue<>())
+                    .add(new Job(sub));
+        }
+        if (hosts.isEmpty()) {
+            return;
+        }
+        
+        Stats stats = new Stats();
+        BlockingQueue<Fetched> fetched = new ArrayBlockingQueue<>(batchSize * writers * 2);
+        FeedFetcher fetcher = WebloggerFactory.getWeblogger().getFeedFetcher();
+        
+        // queues hold every lane and writer, so nothing is ever rejected
+        int lanes = hosts.values().stream().mapToInt(jobs -> Math.min(perHost, jobs.size())).sum();
+        ExecutorService fetchPool = ManagedExecutor.fromConfig("planet.fetch", threads, lanes,
+                ManagedExecutor.Rejection.ABORT);
+        ExecutorService writerPool = ManagedExecutor.fromConfig("planet.write", writers, writers,
+                ManagedExecutor.Rejection.ABORT);
+        try {
+            List<Future<?>> writing = new ArrayList<>(writers);
+            for (int i = 0; i < writers; i++) {
+                writing.add(writerPool.submit(() -> write(fetched, stats)));
+            }
+            
+            List<Future<?>> fetching = new ArrayList<>();
+            for (Queue<Job> jobs : hosts.values()) {
+                for (int i = Math.min(perHost, jobs.size()); i > 0; i--) {
+                    fetching.add(fetchPool.submit(() -> {
+                        fetch(fetcher, jobs, fetched, writing, stats);
+                        return null;
+                    }));
+                }
+            }
+            
+            await(fetching);
+            for (int i = 0; i < writers; i++) {
+                handOff(fetched, DONE, writing);
+            }
+            await(writing);
+            
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UpdaterException("Interrupted while updating subscriptions", ex);
+        } finally {
+            fetchPool.shutdownNow();
+            writerPool.shutdownNow();
+        }
+        
+        log.info("Subscriptions: " + stats.updated + " updated, " + stats.unchanged
+                + " unchanged, " + stats.failed + " failed, across " + hosts.size() + " hosts");
+    }
+    
+    
+    // one lane for a host, fetch its feeds until there are none left
+    private void fetch(FeedFetcher fetcher, Queue<Job> jobs, BlockingQueue<Fetched> fetched,
+            List<Future<?>> writing, Stats stats) throws UpdaterException {
+        // fetching a local weblog feed uses this thread's persistence session
+        Weblogger roller = WebloggerFactory.getWeblogger();
+        Job job;
+        try {
+            while ((job = jobs.poll()) != null) {
+                Fetched result;
+                try {
+                    result = new Fetched(job, fetcher.fetchSubscription(job.probe), false);
+                    if (result.updatedSub == null) {
+                        stats.unchanged.incrementAndGet();
+                    }
+                } catch (Exception ex) {
+                    stats.failed.incrementAndGet();
+                    logFailure(job.feedURL, ex);
+                    result = new Fetched(job, null, true);
+                }
+                handOff(fetched, result, writing);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            roller.release();
+        }
+    }
+    
+    
+    // hand a fetch outcome to the writers, giving up if they have all stopped
+    private static void handOff(BlockingQueue<Fetched> fetched, Fetched item, List<Future<?>> writing)
+            throws InterruptedException, UpdaterException {
+        while (!fetched.offer(item, 1, TimeUnit.SECONDS)) {
+            if (writing.stream().allMatch(Future::isDone)) {
+                throw new UpdaterException("Subscription writers stopped, abandoning the remaining feeds");
+            }
+        }
+    }
+    
+    
+    // persist fetched feeds in batches until told we are done
+    private void write(BlockingQueue<Fetched> fetched, Stats stats) {
+        Weblogger roller = WebloggerFactory.getWeblogger();
+        List<Fetched> batch = new ArrayList<>(batchSize);
+        try {
+            boolean done = false;
+            while (!done) {
+                batch.add(fetched.take());
+                fetched.drainTo(batch, batchSize - 1);
+                
+                // a drain may pick up a marker meant for another writer, pass it on
+                int markers = 0;
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    if (batch.get(i) == DONE) {
+                        batch.remove(i);
+                        markers++;
+                    }
+                }
+                done = markers > 0;
+                for (int i = 1; i < markers; i++) {
+                    fetched.put(DONE);
+                }
+                
+                if (!batch.isEmpty()) {
+                    writeBatch(roller, batch, stats);
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            roller.release();
+        }
+    }
+    
+    
+    private void writeBatch(Weblogger roller, List<Fetched> batch, Stats stats) {
+        try {
+            List<EntryChanges> changes = new ArrayList<>(batch.size());
+            long now = System.currentTimeMillis();
+            for (Fetched item : batch) {
+                changes.add(apply(roller, item, now));
+            }
+            roller.flush();
+            changes.forEach(this::recordChanges);
+            for (Fetched item : batch) {
+                if (item.updatedSub != null) {
+                    stats.updated.incrementAndGet();
+                }
+            }
+            
+        } catch (Exception ex) {
+            // don't let one bad feed lose the whole batch, retry one at a time
+            log.debug("Batch failed, retrying subscriptions individually", ex);
+            roller.release();
+            for (Fetched item : batch) {
+                try {
+                    EntryChanges changes = apply(roller, item, System.currentTimeMillis());
+                    roller.flush();
+                    recordChanges(changes);
+                    if (item.updatedSub != null) {
+                        stats.updated.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    stats.failed.incrementAndGet();
+                    logFailure(item.job.feedURL, e);
+                    recordFailure(item.job.id);
+                }
+            }
+        } finally {
+            roller.release();
+        }
+    }
+    
+    
+    // apply the outcome of one fetch to its subscription and its schedule
+    private EntryChanges apply(Weblogger roller, Fetched item, long now) throws RollerException {
+        Subscription sub = roller.getPlanetManager().getSubscriptionById(item.job.id);
+        if (sub == null) {
+            log.warn("Subscription went missing while doing update: " + item.job.feedURL);
+            return null;
+        }
+        if (item.failed) {
+            RefreshSchedule.getInstance().failed(sub, now);
+            return null;
+        }
+        // keep the validators of this fetch, even if the feed was unchanged
+        sub.setEtag(item.job.probe.getEtag());
+        sub.setHttpLastModified(item.job.probe.getHttpLastModified());
+        sub.setContentHash(item.job.probe.getContentHash());
+        sub.setContentLength(item.job.probe.getContentLength());
+        EntryChanges changes = item.updatedSub != null ? applyUpdate(sub, item.updatedSub) : null;
+        schedule(sub, changes, now);
+        return changes;
+    }
+    
+    
+    private static void await(List<Future<?>> futures) throws InterruptedException, UpdaterException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                throw new UpdaterException("Error updating subscriptions", ex.getCause());
+            }
+        }
+    }
+    
+    
+    private static void logFailure(String feedURL, Throwable ex) {
+        if (log.isDebugEnabled()) {
+            log.debug("Error updating subscription - "+feedURL, ex);
+        } else {
+            log.warn("Error updating subscription - "+feedURL
+                    + " turn on debug logging for more info");
+        }
+    }
+    
+    
+    private static String hostOf(String feedURL) {
+        try {
+            String host = URI.create(feedURL).getHost();
+            if (host != null) {
+                return host.toLowerCase(Locale.ENGLISH);
+            }
+        } catch (IllegalArgumentException ignored) {
+            // fall through, the fetcher will report it
+        }
+        return feedURL;
+    }
+    
+    
+    private static final class Job {
+        private final String id;
+        private final String feedURL;
+        
+        // detached copy of what the fetcher needs, it sets the new validators on it
+        private final Subscription probe = new Subscription();
+        
+        private Job(Subscription sub) {
+            this.id = sub.getId();
+            this.feedURL = sub.getFeedURL();
+            probe.setFeedURL(sub.getFeedURL());
+            probe.setLastUpdated(sub.getLastUpdated());
+            probe.setEtag(sub.getEtag());
+            probe.setHttpLastModified(sub.getHttpLastModified());
+            probe.setContentHash(sub.getContentHash());
+            probe.setContentLength(sub.getContentLength());
+        }
+    }
+    
+    
+    // outcome of one fetch, updatedSub is null if unchanged or failed
+    private static final class Fetched {
+        private final Job job;
+        private final Subscription updatedSub;
+        private final boolean failed;
+        
+        private Fetched(Job job, Subscription updatedSub, boolean failed) {
+            this.job = job;
+            this.updatedSub = updatedSub;
+            this.failed = failed;
+        }
+    }
+    
+    
+    private static final class Stats {
+        private final AtomicInteger updated = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+    }
+    
+}
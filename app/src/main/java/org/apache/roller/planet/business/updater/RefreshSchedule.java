@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.planet.business.updater;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+
+
+/**
+ * Decides when each subscription is next due for a refresh.
+ *
+ * Every subscription gets its own refresh interval, between
+ * planet.schedule.minInterval and planet.schedule.maxInterval minutes.  Feeds
+ * which change are polled about twice per observed gap between changes,
+ * feeds which don't are polled less and less often, and feeds which fail
+ * back off exponentially.  Due times are jittered so that feeds added
+ * together drift apart.
+ *
+ * The schedule is kept on the subscriptions themselves, in the rag_subscription
+ * table, so it is shared by all cluster nodes and survives restarts, and
+ * finding the due subscriptions is an indexed query on nextDue.  The methods
+ * here only change the schedule properties, saving the subscription is up
+ * to the caller.  Subscriptions without a nextDue, such as those synced from
+ * local weblogs, are not on the schedule and are left alone.
+ */
+public final class RefreshSchedule {
+    
+    private static final RefreshSchedule INSTANCE = new RefreshSchedule(
+            TimeUnit.MINUTES.toMillis(WebloggerConfig.getIntProperty("planet.schedule.minInterval", 15)),
+            TimeUnit.MINUTES.toMillis(WebloggerConfig.getIntProperty("planet.schedule.defaultInterval", 60)),
+            TimeUnit.MINUTES.toMillis(WebloggerConfig.getIntProperty("planet.schedule.maxInterval", 1440)));
+    
+    // spread due times by up to this fraction of the interval either way
+    private static final double JITTER = 0.1;
+    
+    // cap on the exponent of the error backoff
+    private static final int MAX_BACKOFF_SHIFT = 6;
+    
+    private final long minInterval;
+    private final long defaultInterval;
+    private final long maxInterval;
+    
+    
+    public RefreshSchedule(long minInterval, long defaultInterval, long maxInterval) {
+        this.minInterval = minInterval;
+        this.maxInterval = Math.max(minInterval, maxInterval);
+        this.defaultInterval = clamp(defaultInterval);
+    }
+    
+    
+    public static RefreshSchedule getInstance() {
+        return INSTANCE;
+    }
+    
+    
+    /**
+     * Record a refresh which found new content.  The gap since the previous
+     * change is averaged with the gap the current interval was based on.
+     */
+    public void changed(Subscription sub, long now) {
+        if (sub.getNextDue() == null) {
+            return;
+        }
+        long interval = getInterval(sub);
+        if (sub.getLastChanged() != null) {
+            long gap = now - sub.getLastChanged().getTime();
+            long changeGap = sub.getRefreshInterval() > 0 ? (interval * 2 + gap) / 2 : gap;
+            interval = clamp(changeGap / 2);
+        }
+        sub.setLastChanged(new Date(now));
+        checked(sub, interval, now);
+    }
+    
+    
+    /**
+     * Record a refresh which found nothing new, the interval grows by half.
+     */
+    public void unchanged(Subscription sub, long now) {
+        if (sub.getNextDue() == null) {
+            return;
+        }
+        long interval = getInterval(sub);
+        checked(sub, sub.getRefreshInterval() > 0 ? clamp(interval * 3 / 2) : interval, now);
+    }
+    
+    
+    /**
+     * Record a failed refresh, the subscription backs off exponentially.
+     * Its interval is kept for when it recovers.
+     */
+    public void failed(Subscription sub, long now) {
+        if (sub.getNextDue() == null) {
+            return;
+        }
+        sub.setFailures(sub.getFailures() + 1);
+        long backoff = clamp(minInterval << Math.min(sub.getFailures(), MAX_BACKOFF_SHIFT));
+        sub.setNextDue(new Date(now + jitter(backoff)));
+    }
+    
+    
+    private void checked(Subscription sub, long interval, long now) {
+        sub.setFailures(0);
+        sub.setLastChecked(new Date(now));
+        sub.setRefreshInterval((int) TimeUnit.MILLISECONDS.toMinutes(interval));
+        sub.setNextDue(new Date(now + jitter(interval)));
+    }
+    
+    
+    // current interval of a subscription, the default if it was never refreshed
+    private long getInterval(Subscription sub) {
+        return sub.getRefreshInterval() > 0
+                ? clamp(TimeUnit.MINUTES.toMillis(sub.getRefreshInterval())) : defaultInterval;
+    }
+    
+    
+    private long clamp(long interval) {
+        return Math.max(minInterval, Math.min(maxInterval, interval));
+    }
+    
+    
+    private static long jitter(long interval) {
+        long spread = (long) (interval * JITTER);
+        return spread > 0 ? interval + ThreadLocalRandom.current().nextLong(-spread, spread + 1) : interval;
+    }
+    
+}
@@ -19,7 +19,16 @@
 package org.apache.roller.planet.business.updater;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.RollerException;
@@ -30,6 +39,7 @@ import org.apache.roller.planet.pojos.PlanetGroup;
 import org.apache.roller.planet.pojos.Subscription;
 import org.apache.roller.planet.pojos.SubscriptionEntry;
 import org.apache.roller.util.RollerConstants;
+import org.apache.roller.weblogger.business.Weblogger;
 import org.apache.roller.weblogger.business.WebloggerFactory;
 import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
 
@@ -40,6 +50,11 @@ import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
 public class SingleThreadedFeedUpdater implements FeedUpdater {
     
     private static Log log = LogFactory.getLog(SingleThreadedFeedUpdater.class);
+    
+    // entry changes of the current refresh
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder updated = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
 
     public SingleThreadedFeedUpdater() {
         // no-op
@@ -67,23 +82,55 @@ public class SingleThreadedFeedUpdater implements FeedUpdater {
             log.debug("Getting fetcher");
             FeedFetcher fetcher = WebloggerFactory.getWeblogger().getFeedFetcher();
             log.debug("Using fetcher class: " + fetcher.getClass().getName());
-            updatedSub = fetcher.fetchSubscription(sub.getFeedURL(), sub.getLastUpdated());
+            updatedSub = fetcher.fetchSubscription(sub);
             
         } catch (FetcherException ex) {
+            recordFailure(sub.getId());
             throw new UpdaterException("Error fetching updated subscription", ex);
         }
         
         log.debug("Got updatedSub = " + updatedSub);
 
+        EntryChanges changes = null;
+        try {
+            if (updatedSub != null) {
+                changes = applyUpdate(sub, updatedSub);
+            }
+            schedule(sub, changes, System.currentTimeMillis());
+            WebloggerFactory.getWeblogger().flush();
+            recordChanges(changes);
+        } catch(RollerException ex) {
+            recordFailure(sub.getId());
+            throw new UpdaterException("Error persisting updated subscription", ex);
+        }
+        
         // if sub was unchanged then we are done
-        if (updatedSub == null) {
+        if (changes == null) {
             return;
         }
         
+        long subEndTime = System.currentTimeMillis();
+        log.debug("updated feed -- "+sub.getFeedURL()+" -- in " +
+                ((subEndTime-subStartTime) / RollerConstants.SEC_IN_MS) + " seconds.  " + changes);
+    }
+    
+    
+    /**
+     * Copy a freshly fetched subscription onto its persistent counterpart and
+     * merge its entries: new entries are inserted, changed ones updated in
+     * place and entries no longer in the feed deleted, so unchanged entries
+     * keep their rows and ids.  Changes are saved but not flushed, that is
+     * left to the caller so that several updates can share a transaction.
+     *
+     * @return the entry changes made, or null if the feed hasn't changed
+     */
+    protected EntryChanges applyUpdate(Subscription sub, Subscription updatedSub) throws RollerException {
+        
         // if this subscription hasn't changed since last update then we're done
         if (sub.getLastUpdated() != null && updatedSub.getLastUpdated() != null &&
                 !updatedSub.getLastUpdated().after(sub.getLastUpdated())) {
             log.debug("Skipping update, feed hasn't changed - "+sub.getFeedURL());
+            return null;
         }
         
         // update subscription attributes
@@ -92,37 +139,168 @@ public class SingleThreadedFeedUpdater implements FeedUpdater {
         sub.setAuthor(updatedSub.getAuthor());
         sub.setLastUpdated(updatedSub.getLastUpdated());
         
-        // update subscription entries
-        int entries = 0;
+        // update subscription entries, keeping what we have if the feed is empty
+        EntryChanges changes = new EntryChanges(sub);
         Set<SubscriptionEntry> newEntries = updatedSub.getEntries();
         log.debug("newEntries.size() = " + newEntries.size());
-        if (!newEntries.isEmpty()) {
-            try {
-                PlanetManager pmgr = WebloggerFactory.getWeblogger().getPlanetManager();
-
-                // clear out old entries
-                pmgr.deleteEntries(sub);
-
-                // add fresh entries
-                sub.getEntries().clear();
-                sub.addEntries(newEntries);
-
-                // save and flush
-                pmgr.saveSubscription(sub);
-                WebloggerFactory.getWeblogger().flush();
-
-                log.debug("Added entries");
-                entries += newEntries.size();
-
-            } catch(RollerException ex) {
-                throw new UpdaterException("Error persisting updated subscription", ex);
+        if (newEntries.isEmpty()) {
+            return changes;
+        }
+        
+        // existing entries by guid, and by permalink for those stored without one
+        Map<String, SubscriptionEntry> byGuid = new HashMap<>();
+        Map<String, SubscriptionEntry> byPermalink = new HashMap<>();
+        for (SubscriptionEntry entry : sub.getEntries()) {
+            if (entry.getGuid() != null) {
+                byGuid.put(entry.getGuid(), entry);
             }
+            byPermalink.put(entry.getPermalink(), entry);
         }
         
-        long subEndTime = System.currentTimeMillis();
-        log.debug("updated feed -- "+sub.getFeedURL()+" -- in " +
-                ((subEndTime-subStartTime) / RollerConstants.SEC_IN_MS) + " seconds.  " + entries +
-                " entries updated.");
+        PlanetManager pmgr = WebloggerFactory.getWeblogger().getPlanetManager();
+        
+        Set<SubscriptionEntry> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SubscriptionEntry newEntry : newEntries) {
+            SubscriptionEntry existing = newEntry.getGuid() != null ? byGuid.get(newEntry.getGuid()) : null;
+            if (existing == null) {
+                existing = byPermalink.get(newEntry.getPermalink());
+            }
+            
+            if (existing != null && kept.contains(existing)) {
+                log.debug("Skipping duplicate entry - " + newEntry.getPermalink());
+            } else if (existing == null) {
+                sub.addEntry(newEntry);
+                pmgr.saveEntry(newEntry);
+                kept.add(newEntry);
+                changes.inserted++;
+            } else {
+                kept.add(existing);
+                if (!sameContent(existing, newEntry)) {
+                    // entries are hashed by permalink, so re-add if it changes
+                    sub.getEntries().remove(existing);
+                    copyContent(newEntry, existing);
+                    sub.getEntries().add(existing);
+                    changes.updated++;
+                }
+            }
+        }
+        
+        // remove entries which are no longer in the feed
+        for (Iterator<SubscriptionEntry> it = sub.getEntries().iterator(); it.hasNext();) {
+            SubscriptionEntry entry = it.next();
+            if (!kept.contains(entry)) {
+                it.remove();
+                pmgr.deleteEntry(entry);
+                changes.deleted++;
+            }
+        }
+        
+        log.debug("Merged entries - " + changes);
+        return changes;
+    }
+    
+    
+    private static boolean sameContent(SubscriptionEntry a, SubscriptionEntry b) {
+        return Objects.equals(a.getPermalink(), b.getPermalink())
+                && Objects.equals(a.getGuid(), b.getGuid())
+                && Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getAuthor(), b.getAuthor())
+                && Objects.equals(a.getText(), b.getText())
+                && Objects.equals(a.getCategoriesString(), b.getCategoriesString())
+                && sameTime(a.getPubTime(), b.getPubTime())
+                && sameTime(a.getUpdateTime(), b.getUpdateTime());
+    }
+    
+    
+    // stored timestamps may have lost precision, compare to the second
+    private static boolean sameTime(Date a, Date b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getTime() / RollerConstants.SEC_IN_MS == b.getTime() / RollerConstants.SEC_IN_MS;
+    }
+    
+    
+    private static void copyContent(SubscriptionEntry from, SubscriptionEntry to) {
+        to.setPermalink(from.getPermalink());
+        to.setGuid(from.getGuid());
+        to.setTitle(from.getTitle());
+        to.setAuthor(from.getAuthor());
+        to.setText(from.getText());
+        to.setCategoriesString(from.getCategoriesString());
+        to.setPubTime(from.getPubTime());
+        to.setUpdateTime(from.getUpdateTime());
+    }
+    
+    
+    /**
+     * The subscriptions due for a refresh according to their schedule.
+     */
+    protected List<Subscription> getDueSubscriptions() throws RollerException {
+        PlanetManager pmgr = WebloggerFactory.getWeblogger().getPlanetManager();
+        List<Subscription> due = pmgr.getDueSubscriptions(new Date());
+        log.info(due.size() + " subscriptions due for refresh");
+        return due;
+    }
+    
+    
+    /**
+     * Move a refreshed subscription along its schedule, an update which
+     * turned out not to be newer counts as unchanged.  Like applyUpdate()
+     * this changes the managed subscription without flushing.
+     */
+    protected void schedule(Subscription sub, EntryChanges changes, long now) {
+        if (changes != null) {
+            RefreshSchedule.getInstance().changed(sub, now);
+        } else {
+            RefreshSchedule.getInstance().unchanged(sub, now);
+        }
+    }
+    
+    
+    /**
+     * Record a failed refresh in the schedule of a subscription.  This
+     * starts from a fresh persistence session since the failure may have
+     * left the current one unusable.
+     */
+    protected void recordFailure(String id) {
+        Weblogger roller = WebloggerFactory.getWeblogger();
+        roller.release();
+        try {
+            Subscription sub = roller.getPlanetManager().getSubscriptionById(id);
+            if (sub != null) {
+                RefreshSchedule.getInstance().failed(sub, System.currentTimeMillis());
+                roller.flush();
+            }
+        } catch (RollerException ex) {
+            log.warn("Unable to record failed refresh of subscription " + id, ex);
+            roller.release();
+        }
+    }
+    
+    
+    /**
+     * Add the entry changes of a committed update to the totals of this
+     * refresh and pass them on to the group timelines.
+     */
+    protected void recordChanges(EntryChanges changes) {
+        if (changes != null) {
+            inserted.add(changes.inserted);
+            updated.add(changes.updated);
+            deleted.add(changes.deleted);
+            if (changes.inserted + changes.updated + changes.deleted > 0) {
+                WebloggerFactory.getWeblogger().getPlanetManager().updateTimelines(changes.subscription);
+            }
+        }
+    }
+    
+    
+    /**
+     * Log the entry changes of this refresh and start counting afresh.
+     */
+    protected void logChanges() {
+        log.info("Entries: " + inserted.sumThenReset() + " inserted, "
+                + updated.sumThenReset() + " updated, " + deleted.sumThenReset() + " deleted");
     }
     
     
@@ -140,8 +318,7 @@ public class SingleThreadedFeedUpdater implements FeedUpdater {
         
         try {
             // update all subscriptions in the system
-            PlanetManager pmgr = WebloggerFactory.getWeblogger().getPlanetManager();
-            updateSubscriptions(pmgr.getSubscriptions());
+            updateSubscriptions(getDueSubscriptions());
         } catch (RollerException ex) {
             throw new UpdaterException("Error getting subscriptions list", ex);
         }
@@ -149,6 +326,7 @@ public class SingleThreadedFeedUpdater implements FeedUpdater {
         long endTime = System.currentTimeMillis();
         log.info("--- DONE --- Updated subscriptions in "
                 + ((endTime-startTime) / RollerConstants.SEC_IN_MS) + " seconds");
+        logChanges();
     }
     
     
@@ -173,6 +351,7 @@ public class SingleThreadedFeedUpdater implements FeedUpdater {
         long endTime = System.currentTimeMillis();
         log.info("--- DONE --- Updated subscriptions in "
                 + ((endTime-startTime) / RollerConstants.SEC_IN_MS) + " seconds");
+        logChanges();
     }
     
     
@@ -221,7 +400,7 @@ public class SingleThreadedFeedUpdater implements FeedUpdater {
     
     
     // upate proxy settings for jvm based on planet configuration
-    private void updateProxySettings() {
+    protected void updateProxySettings() {
         String proxyHost = WebloggerRuntimeConfig.getProperty("planet.site.proxyhost");
         int proxyPort = WebloggerRuntimeConfig.getIntProperty("planet.site.proxyport");
         if (proxyHost != null && proxyPort > 0) {
@@ -234,4 +413,24 @@ public class SingleThreadedFeedUpdater implements FeedUpdater {
         System.setProperty("sun.net.client.defaultReadTimeout", "15000");
     }
     
+    
+    /**
+     * Entry changes made by merging one fetched subscription.
+     */
+    protected static final class EntryChanges {
+        private final Subscription subscription;
+        private int inserted = 0;
+        private int updated = 0;
+        private int deleted = 0;
+        
+        private EntryChanges(Subscription subscription) {
+            this.subscription = subscription;
+        }
+        
+        @Override
+        public String toString() {
+            return inserted + " entries inserted, " + updated + " updated, " + deleted + " deleted";
+        }
+    }
+    
 }
@@ -38,6 +38,19 @@ public class Subscription implements Serializable, Comparable<Subscription> {
     private Date lastUpdated;
     private int inboundlinks = 0;
     private int inboundblogs = 0;
+    
+    // refresh schedule, maintained by the feed updaters
+    private Date nextDue = new Date();
+    private Date lastChecked;
+    private Date lastChanged;
+    private int failures = 0;
+    private int refreshInterval = 0;
+    
+    // validators of the last fetch, for conditional refreshes
+    private String etag;
+    private String httpLastModified;
+    private String contentHash;
+    private int contentLength = 0;
 
     // associations
     private Set<PlanetGroup> groups = new HashSet<>();
@@ -166,6 +179,116 @@ public class Subscription implements Serializable, Comparable<Subscription> {
     }
 
 
+    /**
+     * When this subscription is next due for a refresh, null if it is not
+     * refreshed on the schedule.
+     */
+    public Date getNextDue() {
+        return nextDue;
+    }
+
+    public void setNextDue(Date nextDue) {
+        this.nextDue = nextDue;
+    }
+
+
+    /**
+     * When this subscription was last refreshed successfully.
+     */
+    public Date getLastChecked() {
+        return lastChecked;
+    }
+
+    public void setLastChecked(Date lastChecked) {
+        this.lastChecked = lastChecked;
+    }
+
+
+    /**
+     * When a refresh of this subscription last found new content.
+     */
+    public Date getLastChanged() {
+        return lastChanged;
+    }
+
+    public void setLastChanged(Date lastChanged) {
+        this.lastChanged = lastChanged;
+    }
+
+
+    /**
+     * Number of refreshes which have failed in a row.
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    public void setFailures(int failures) {
+        this.failures = failures;
+    }
+
+
+    /**
+     * Current refresh interval in minutes, 0 if never refreshed.
+     */
+    public int getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(int refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+
+    /**
+     * ETag the feed was last served with, sent back as If-None-Match.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+
+    /**
+     * Last-Modified header the feed was last served with, sent back as
+     * If-Modified-Since.
+     */
+    public String getHttpLastModified() {
+        return httpLastModified;
+    }
+
+    public void setHttpLastModified(String httpLastModified) {
+        this.httpLastModified = httpLastModified;
+    }
+
+
+    /**
+     * Hex SHA-256 of the content of the last fetch, null if never fetched.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+
+    /**
+     * Bytes read on the last fetch.
+     */
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(int contentLength) {
+        this.contentLength = contentLength;
+    }
+
+
     public Set<PlanetGroup> getGroups() {
         return groups;
     }
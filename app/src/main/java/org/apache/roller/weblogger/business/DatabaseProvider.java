@@ -21,14 +21,25 @@ package org.apache.roller.weblogger.business;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.PoolableConnection;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.apache.roller.weblogger.business.startup.StartupException;
 import org.apache.roller.weblogger.config.WebloggerConfig;
 
@@ -45,7 +56,7 @@ import org.apache.roller.weblogger.config.WebloggerConfig;
  * 
  * <p>Reads configuration properties from WebloggerConfig:</p>
  * <pre>
- * # Specify database configuration type of 'jndi' or 'jdbc'
+ * # Specify database configuration type of 'jndi', 'jdbc' or 'pooled'
  * database.configurationType=jndi
  * 
  * # For database configuration type 'jndi',this will be used
@@ -56,13 +67,22 @@ import org.apache.roller.weblogger.config.WebloggerConfig;
  * database.jdbc.connectionURL=
  * database.jdbc.username=
  * database.jdbc.password=
+ * 
+ * # For database configuration type of 'pooled' the jdbc settings are used
+ * # with a Commons DBCP connection pool
+ * database.pool.minSize=2
+ * database.pool.maxSize=20
+ * database.pool.acquireTimeout=30000
+ * database.pool.abandonedTimeout=0
+ * database.pool.statementCacheSize=50
+ * database.pool.logInterval=0
  * </pre>
  */
 public class DatabaseProvider  {
     
     private static final Log log = LogFactory.getLog(DatabaseProvider.class);
 
-    public enum ConfigurationType {JNDI_NAME, JDBC_PROPERTIES}
+    public enum ConfigurationType {JNDI_NAME, JDBC_PROPERTIES, JDBC_POOL}
     private ConfigurationType type = ConfigurationType.JNDI_NAME;
     private List<String> startupLog = new ArrayList<>();
     
@@ -74,6 +94,10 @@ public class DatabaseProvider  {
     private String jdbcPassword = null;
     private String jdbcUsername = null;
     private Properties props = null;
+    private PooledDataSource pooledDataSource = null;
+    
+    // logs the pool stats, if enabled
+    private ScheduledExecutorService poolMonitor = null;
     
     
     /**
@@ -86,6 +110,8 @@ public class DatabaseProvider  {
                 WebloggerConfig.getProperty("database.configurationType"); 
         if ("jdbc".equals(connectionTypeString)) {
             type = ConfigurationType.JDBC_PROPERTIES;
+        } else if ("pooled".equals(connectionTypeString)) {
+            type = ConfigurationType.JDBC_POOL;
         }
         jndiName =          WebloggerConfig.getProperty("database.jndi.name");
         jdbcDriverClass =   WebloggerConfig.getProperty("database.jdbc.driverClass");
@@ -96,7 +122,7 @@ public class DatabaseProvider  {
         successMessage("SUCCESS: Got parameters. Using configuration type " + type);
 
         // If we're doing JDBC then attempt to load JDBC driver class
-        if (getType() == ConfigurationType.JDBC_PROPERTIES) {
+        if (getType() != ConfigurationType.JNDI_NAME) {
             successMessage("-- Using JDBC driver class: "   + jdbcDriverClass);
             successMessage("-- Using JDBC connection URL: " + jdbcConnectionURL);
             successMessage("-- Using JDBC username: "       + jdbcUsername);
@@ -122,6 +148,35 @@ public class DatabaseProvider  {
                 }
             }
             
+            if (getType() == ConfigurationType.JDBC_POOL) {
+                try {
+                    pooledDataSource = createPooledDataSource(getJdbcConnectionURL(), props);
+                } catch (SQLException ex) {
+                    String errorMsg = 
+                        "ERROR: unable to open pooled database connections. "
+                       +"Likely problem: bad connection parameters or database unavailable.";
+                    errorMessage(errorMsg);
+                    throw new StartupException(errorMsg, ex, startupLog);
+                }
+                successMessage("-- Using connection pool: minSize=" + pooledDataSource.getMinIdle()
+                        + " maxSize=" + pooledDataSource.getMaxTotal()
+                        + " acquireTimeout=" + pooledDataSource.getMaxWaitDuration().toMillis()
+                        + " abandonedTimeout=" + WebloggerConfig.getIntProperty("database.pool.abandonedTimeout", 0)
+                        + " statementCacheSize=" + pooledDataSource.getMaxOpenPreparedStatements());
+                successMessage("SUCCESS: created connection pool");
+                
+                int logInterval = WebloggerConfig.getIntProperty("database.pool.logInterval", 0);
+                if (logInterval > 0) {
+                    poolMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "roller-database-pool-monitor");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    poolMonitor.scheduleAtFixedRate(() -> log.info("Connection pool: " + pooledDataSource.getStats()),
+                            logInterval, logInterval, TimeUnit.SECONDS);
+                }
+            }
+            
         // Else attempt to locate JNDI datasource
         } else { 
             String name = getFullJndiName();
@@ -153,6 +208,59 @@ public class DatabaseProvider  {
     }
     
     
+    /**
+     * Create a DBCP pool for the given url, configured from the
+     * database.pool.* properties.
+     *
+     * <p>The driver's own defaults for transaction isolation and catalog are
+     * read from one unpooled connection and set as the pool defaults, so a
+     * borrower that changes them does not pass its settings on to the next
+     * borrower of the same connection.</p>
+     */
+    static PooledDataSource createPooledDataSource(String url, Properties connectionProps)
+            throws SQLException {
+
+        PooledDataSource ds = new PooledDataSource();
+        ds.setUrl(url);
+        if (connectionProps != null) {
+            for (String name : connectionProps.stringPropertyNames()) {
+                ds.addConnectionProperty(name, connectionProps.getProperty(name));
+            }
+        }
+
+        int minSize = WebloggerConfig.getIntProperty("database.pool.minSize", 2);
+        ds.setInitialSize(minSize);
+        ds.setMinIdle(minSize);
+        ds.setMaxTotal(WebloggerConfig.getIntProperty("database.pool.maxSize", 20));
+        ds.setMaxWait(Duration.ofMillis(WebloggerConfig.getIntProperty("database.pool.acquireTimeout", 30000)));
+
+        int statementCacheSize = WebloggerConfig.getIntProperty("database.pool.statementCacheSize", 50);
+        ds.setPoolPreparedStatements(statementCacheSize > 0);
+        ds.setMaxOpenPreparedStatements(statementCacheSize > 0 ? statementCacheSize : -1);
+
+        int abandonedTimeout = WebloggerConfig.getIntProperty("database.pool.abandonedTimeout", 0);
+        if (abandonedTimeout > 0) {
+            ds.setLogAbandoned(true);
+            ds.setRemoveAbandonedOnBorrow(true);
+            ds.setRemoveAbandonedOnMaintenance(true);
+            ds.setRemoveAbandonedTimeout(Duration.ofSeconds(abandonedTimeout));
+            ds.setDurationBetweenEvictionRuns(Duration.ofSeconds(Math.max(1, abandonedTimeout / 2)));
+        }
+
+        // idle connections are validated before being handed out, returned
+        // connections have uncommitted work rolled back and their state reset
+        ds.setTestOnBorrow(true);
+        ds.setRollbackOnReturn(true);
+        ds.setDefaultAutoCommit(Boolean.TRUE);
+        ds.setDefaultReadOnly(Boolean.FALSE);
+        try (Connection con = DriverManager.getConnection(url, connectionProps)) {
+            ds.setDefaultTransactionIsolation(con.getTransactionIsolation());
+            ds.setDefaultCatalog(con.getCatalog());
+        }
+        return ds;
+    }
+    
+    
     private void successMessage(String msg) {
         startupLog.add(msg);
         log.info(msg);
@@ -176,7 +284,9 @@ public class DatabaseProvider  {
      * on which is configured.
      */
     public Connection getConnection() throws SQLException {
-        if (getType() == ConfigurationType.JDBC_PROPERTIES) {
+        if (getType() == ConfigurationType.JDBC_POOL) {
+            return pooledDataSource.getConnection();
+        } else if (getType() == ConfigurationType.JDBC_PROPERTIES) {
             return DriverManager.getConnection(getJdbcConnectionURL(), props);
         } else {
             return dataSource.getConnection();
@@ -187,6 +297,37 @@ public class DatabaseProvider  {
         return type;
     }
 
+    /**
+     * The connection pool, or null if not using configuration type 'pooled'.
+     */
+    public DataSource getPooledDataSource() {
+        return pooledDataSource;
+    }
+
+    /**
+     * Connection pool gauges and counters in the same shape as the cache
+     * stats, or null if not using configuration type 'pooled'.
+     */
+    public Map<String, Object> getPoolStats() {
+        return pooledDataSource != null ? pooledDataSource.getStats() : null;
+    }
+
+    /**
+     * Release pooled connections, if any.
+     */
+    public void shutdown() {
+        if (poolMonitor != null) {
+            poolMonitor.shutdownNow();
+        }
+        if (pooledDataSource != null) {
+            try {
+                pooledDataSource.close();
+            } catch (SQLException ex) {
+                log.warn("ERROR closing connection pool", ex);
+            }
+        }
+    }
+
     public String getJndiName() {
         return jndiName;
     }
@@ -214,4 +355,68 @@ public class DatabaseProvider  {
         return "java:comp/env/" + jndiName;
     }
 
+
+
+    /**
+     * DBCP data source that exposes the gauges of its object pool and a
+     * histogram of how long connections took to acquire.
+     */
+    static class PooledDataSource extends BasicDataSource {
+
+        // upper bounds of the acquisition latency histogram buckets
+        private static final long[] ACQUIRE_BUCKETS_MILLIS = {1, 10, 100, 1000};
+
+        private final Date startTime = new Date();
+
+        // connections acquired per bucket, the last one for slower ones
+        private final LongAdder[] acquireCounts = new LongAdder[ACQUIRE_BUCKETS_MILLIS.length + 1];
+
+        PooledDataSource() {
+            for (int i = 0; i < acquireCounts.length; i++) {
+                acquireCounts[i] = new LongAdder();
+            }
+        }
+
+        Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("startTime", startTime);
+            stats.put("active", getNumActive());
+            stats.put("idle", getNumIdle());
+            stats.put("maxSize", getMaxTotal());
+            GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+            if (pool != null) {
+                stats.put("waiting", pool.getNumWaiters());
+                stats.put("acquisitions", pool.getBorrowedCount());
+                stats.put("avgAcquireMillis", pool.getMeanBorrowWaitDuration().toMillis());
+                stats.put("maxAcquireMillis", pool.getMaxBorrowWaitDuration().toMillis());
+                stats.put("created", pool.getCreatedCount());
+                stats.put("destroyed", pool.getDestroyedCount());
+                stats.put("failedValidation", pool.getDestroyedByBorrowValidationCount());
+            }
+            for (int i = 0; i < ACQUIRE_BUCKETS_MILLIS.length; i++) {
+                stats.put("acquireUnder" + ACQUIRE_BUCKETS_MILLIS[i] + "ms", acquireCounts[i].sum());
+            }
+            stats.put("acquireOver" + ACQUIRE_BUCKETS_MILLIS[ACQUIRE_BUCKETS_MILLIS.length - 1] + "ms",
+                    acquireCounts[ACQUIRE_BUCKETS_MILLIS.length].sum());
+            return stats;
+        }
+
+        /**
+         * Borrow a connection, counting how long it took in the acquisition
+         * latency histogram.
+         */
+        @Override
+        public Connection getConnection() throws SQLException {
+            long start = System.nanoTime();
+            Connection con = super.getConnection();
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            int bucket = 0;
+            while (bucket < ACQUIRE_BUCKETS_MILLIS.length && millis >= ACQUIRE_BUCKETS_MILLIS[bucket]) {
+                bucket++;
+            }
+            acquireCounts[bucket].increment();
+            return con;
+        }
+    }
+
 }
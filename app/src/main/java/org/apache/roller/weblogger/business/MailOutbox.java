@@ -0,0 +1,516 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.weblogger.business.runnable.ManagedExecutor;
+import org.apache.roller.weblogger.business.startup.StartupException;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+import org.apache.roller.weblogger.util.MailUtil;
+
+
+/**
+ * Outbox for mail sent in the background.
+ *
+ * Messages are spooled to files in the outbox directory, so they survive a
+ * restart, and sent by a single worker thread which uses one connection to
+ * the mail server for all messages due.  Recipients are sent to in batches of
+ * limited size, and recipients which could not be sent to are retried with a
+ * delay doubling on every attempt, up to a maximum number of attempts.
+ *
+ * A message can carry a notification key, e.g. the entry commented on.
+ * Messages with the same key are coalesced into a digest while the first one
+ * is waiting to be sent, and messages under a key which was notified a short
+ * while ago are held back until the dedupe window has passed, collecting any
+ * further messages under that key.  So every recipient gets at most one
+ * message per key and window, and no message is lost.  Recipients of the
+ * messages added to a digest are only ever blind copied, so they don't learn
+ * each other's addresses; keys for messages to individual recipients should
+ * include the recipient.
+ */
+public class MailOutbox {
+
+    private static final Log LOG = LogFactory.getLog(MailOutbox.class);
+
+    private static final String SUFFIX = ".msg";
+
+    // the wrapper of an html message, left out when joining messages into a digest
+    private static final Pattern HTML_HEAD = Pattern.compile("^\\s*<html[^>]*>\\s*<body[^>]*>",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern HTML_TAIL = Pattern.compile("\\s*</body>\\s*</html>\\s*$",
+            Pattern.CASE_INSENSITIVE);
+
+    private final MailProvider mailProvider;
+    private final File dir;
+    private final int maxRecipients;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final long dedupeWindowMillis;
+
+    // time the last message under each key was due
+    private final Map<String, Long> notified = new ConcurrentHashMap<>();
+
+    // outbox files not yet being sent which messages under a key are added to
+    private final Map<String, File> digests = new HashMap<>();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    // a single thread sending, with room for one more round queued
+    private volatile ManagedExecutor worker = null;
+    private volatile ScheduledExecutorService timer = null;
+
+
+    /**
+     * Outbox in the configured directory, with its worker started.
+     */
+    public MailOutbox(MailProvider mailProvider) throws StartupException {
+        this(mailProvider, new File(WebloggerConfig.getProperty("mail.outbox.dir")),
+                WebloggerConfig.getIntProperty("mail.outbox.maxRecipients", 50),
+                WebloggerConfig.getIntProperty("mail.outbox.maxAttempts", 5),
+                TimeUnit.SECONDS.toMillis(Math.max(1, WebloggerConfig.getIntProperty("mail.outbox.retryDelaySecs", 60))),
+                TimeUnit.SECONDS.toMillis(WebloggerConfig.getIntProperty("mail.outbox.dedupeWindowSecs", 300)));
+        start();
+    }
+
+    MailOutbox(MailProvider mailProvider, File dir, int maxRecipients, int maxAttempts,
+            long retryDelayMillis, long dedupeWindowMillis) throws StartupException {
+        this.mailProvider = mailProvider;
+        this.dir = dir;
+        this.maxRecipients = Math.max(1, maxRecipients);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMillis = Math.max(1, retryDelayMillis);
+        this.dedupeWindowMillis = dedupeWindowMillis;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new StartupException("ERROR creating mail outbox directory: " + dir);
+        }
+    }
+
+
+    /**
+     * Start sending messages in the background, including any left in the
+     * outbox from before.
+     */
+    synchronized void start() {
+        if (worker == null) {
+            worker = new ManagedExecutor("mail", 1, 1, ManagedExecutor.Rejection.DISCARD);
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "roller-mail-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::requestDrain, 0, retryDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    /**
+     * Stop sending messages, those not sent yet stay in the outbox.
+     */
+    public synchronized void shutdown() {
+        if (worker != null) {
+            timer.shutdownNow();
+            worker.shutdownNow();
+            timer = null;
+            worker = null;
+        }
+    }
+
+
+    /**
+     * Add a message to the outbox, to be sent as soon as possible.
+     *
+     * @param from e-mail address of sender
+     * @param to e-mail address(es) of recipients
+     * @param cc e-mail address(es) of cc recipients
+     * @param bcc e-mail address(es) of bcc recipients
+     * @param subject subject of e-mail
+     * @param content the body of the e-mail
+     * @param mimeType type of message, i.e. text/plain or text/html
+     * @param key notification key, messages under it within the dedupe
+     *            window are coalesced into one, or null to send right away
+     * @return false if there were no recipients and the message was dropped
+     * @throws IOException if the message could not be written to the outbox
+     */
+    public boolean enqueue(String from, String[] to, String[] cc, String[] bcc, String subject,
+            String content, String mimeType, String key) throws IOException {
+
+        long now = System.currentTimeMillis();
+        Spooled message = new Spooled();
+        message.from = from;
+        message.subject = subject;
+        message.content = content;
+        message.mimeType = mimeType;
+        message.key = key;
+        message.addRecipients(message.to, to);
+        message.addRecipients(message.cc, cc);
+        message.addRecipients(message.bcc, bcc);
+        if (message.recipients.isEmpty()) {
+            LOG.debug("No recipients, dropping mail: " + subject);
+            return false;
+        }
+
+        if (key == null) {
+            write(newFile(now), message);
+        } else {
+            synchronized (digests) {
+                File digest = digests.get(key);
+                if (digest != null && digest.isFile()) {
+                    Spooled pending = read(digest);
+                    pending.add(message);
+                    write(digest, pending);
+                    LOG.debug("Added mail to digest: " + subject);
+                    return true;
+                }
+
+                // hold it back until the window of the last message under the key has passed
+                Long last = notified.get(key);
+                message.notBefore = last != null && now - last < dedupeWindowMillis ? last + dedupeWindowMillis : 0;
+                notified.put(key, Math.max(now, message.notBefore));
+                File file = newFile(now);
+                write(file, message);
+                digests.put(key, file);
+            }
+        }
+        requestDrain();
+        return true;
+    }
+
+
+    private File newFile(long now) {
+        return new File(dir, String.format("%013d-%06d%s", now, sequence.incrementAndGet() % 1000000, SUFFIX));
+    }
+
+
+    // stop adding to a digest which is about to be sent, and read what it holds by now
+    private Spooled closeDigest(File file, String key) throws IOException {
+        synchronized (digests) {
+            digests.remove(key, file);
+            return read(file);
+        }
+    }
+
+
+    // a round already queued will see the messages added since, so further requests are discarded
+    private void requestDrain() {
+        ManagedExecutor current = worker;
+        if (current != null) {
+            current.execute(this::drainQuietly);
+        }
+    }
+
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException ex) {
+            LOG.error("Unexpected error sending mail from outbox", ex);
+        }
+    }
+
+
+    /**
+     * Send the messages in the outbox which are due.
+     *
+     * @return the number of messages sent
+     */
+    synchronized int drain() {
+        long now = System.currentTimeMillis();
+        notified.values().removeIf(last -> now - last >= dedupeWindowMillis);
+
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null || files.length == 0) {
+            return 0;
+        }
+        Arrays.sort(files);
+
+        int sent = 0;
+        Transport transport = null;
+        try {
+            for (File file : files) {
+                Spooled message;
+                try {
+                    message = read(file);
+                    if (message.notBefore > now) {
+                        continue;
+                    }
+                    if (message.key != null) {
+                        message = closeDigest(file, message.key);
+                    }
+                } catch (IOException ex) {
+                    LOG.error("Dropping unreadable mail outbox file " + file, ex);
+                    delete(file);
+                    continue;
+                }
+
+                if (transport == null) {
+                    try {
+                        transport = mailProvider.getTransport();
+                    } catch (MessagingException ex) {
+                        LOG.warn("Unable to connect to mail server, leaving messages in outbox: " + ex.getMessage());
+                        break;
+                    }
+                }
+
+                try {
+                    send(transport, message);
+                    delete(file);
+                    sent++;
+                } catch (MessagingException ex) {
+                    retryLater(file, message, ex);
+                    if (!transport.isConnected()) {
+                        close(transport);
+                        transport = null;
+                    }
+                }
+            }
+        } finally {
+            close(transport);
+        }
+
+        if (sent > 0) {
+            LOG.debug("Sent " + sent + " messages from mail outbox");
+        }
+        return sent;
+    }
+
+
+    // send a message to its remaining recipients, batch by batch
+    private void send(Transport transport, Spooled message) throws MessagingException {
+
+        MimeMessage mime = MailUtil.createMessage(mailProvider.getSession(), message.from,
+                message.to.toArray(new String[0]), message.cc.toArray(new String[0]),
+                message.bcc.toArray(new String[0]), message.subject, message.content, message.mimeType);
+
+        while (!message.recipients.isEmpty()) {
+            List<String> batch = message.recipients.subList(0, Math.min(maxRecipients, message.recipients.size()));
+            Address[] addresses = new Address[batch.size()];
+            for (int i = 0; i < addresses.length; i++) {
+                addresses[i] = new InternetAddress(batch.get(i));
+            }
+            try {
+                MailUtil.sendMessage(transport, mime, addresses);
+                batch.clear();
+            } catch (SendFailedException ex) {
+                batch.clear();
+                Address[] unsent = ex.getValidUnsentAddresses();
+                if (unsent != null && unsent.length > 0) {
+                    // refused for now, try these again later
+                    for (int i = unsent.length - 1; i >= 0; i--) {
+                        message.recipients.add(0, unsent[i].toString());
+                    }
+                    throw ex;
+                }
+                LOG.warn("Mail server refused recipients of mail: " + message.subject);
+            }
+        }
+    }
+
+
+    private void retryLater(File file, Spooled message, MessagingException ex) {
+        message.attempts++;
+        if (message.attempts >= maxAttempts) {
+            LOG.error("Giving up on mail after " + message.attempts + " attempts, "
+                    + message.recipients.size() + " recipients not reached: " + message.subject, ex);
+            delete(file);
+            return;
+        }
+
+        long delay = retryDelayMillis << Math.min(message.attempts - 1, 10);
+        message.notBefore = System.currentTimeMillis() + delay;
+        LOG.warn("Error sending mail, attempt " + message.attempts + " will be retried in "
+                + TimeUnit.MILLISECONDS.toSeconds(delay) + " seconds: " + ex.getMessage());
+        try {
+            write(file, message);
+        } catch (IOException ioe) {
+            LOG.error("Error updating mail outbox file " + file, ioe);
+        }
+    }
+
+
+    private static void close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException ex) {
+                LOG.debug("Error closing mail transport", ex);
+            }
+        }
+    }
+
+
+    private static void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException ex) {
+            LOG.error("Error deleting mail outbox file " + file, ex);
+        }
+    }
+
+
+    // replace the file atomically, so that a crash can't leave half a message
+    private static void write(File file, Spooled message) throws IOException {
+        Properties props = new Properties();
+        put(props, "from", message.from);
+        put(props, "subject", message.subject);
+        put(props, "content", message.content);
+        put(props, "mimeType", message.mimeType);
+        put(props, "key", message.key);
+        put(props, "attempts", Integer.toString(message.attempts));
+        put(props, "notBefore", Long.toString(message.notBefore));
+        putAll(props, "to", message.to);
+        putAll(props, "cc", message.cc);
+        putAll(props, "bcc", message.bcc);
+        putAll(props, "rcpt", message.recipients);
+
+        Path tmp = new File(file.getParentFile(), file.getName() + ".tmp").toPath();
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, null);
+        }
+        Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    private static Spooled read(File file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            props.load(in);
+        }
+        Spooled message = new Spooled();
+        message.from = props.getProperty("from");
+        message.subject = props.getProperty("subject");
+        message.content = props.getProperty("content", "");
+        message.mimeType = props.getProperty("mimeType", "text/plain; charset=utf-8");
+        message.key = props.getProperty("key");
+        try {
+            message.attempts = Integer.parseInt(props.getProperty("attempts", "0"));
+            message.notBefore = Long.parseLong(props.getProperty("notBefore", "0"));
+        } catch (NumberFormatException ex) {
+            throw new IOException("Corrupt mail outbox file", ex);
+        }
+        message.to = getAll(props, "to");
+        message.cc = getAll(props, "cc");
+        message.bcc = getAll(props, "bcc");
+        message.recipients = getAll(props, "rcpt");
+        return message;
+    }
+
+
+    private static void put(Properties props, String key, String value) {
+        if (value != null) {
+            props.setProperty(key, value);
+        }
+    }
+
+
+    private static void putAll(Properties props, String key, List<String> values) {
+        for (int i = 0; i < values.size(); i++) {
+            props.setProperty(key + "." + i, values.get(i));
+        }
+    }
+
+
+    private static List<String> getAll(Properties props, String key) {
+        List<String> values = new ArrayList<>();
+        for (String value; (value = props.getProperty(key + "." + values.size())) != null;) {
+            values.add(value);
+        }
+        return values;
+    }
+
+
+    // a message in the outbox, with the recipients it still has to be sent to
+    private static final class Spooled {
+        private String from;
+        private List<String> to = new ArrayList<>();
+        private List<String> cc = new ArrayList<>();
+        private List<String> bcc = new ArrayList<>();
+        private String subject;
+        private String content;
+        private String mimeType;
+        private String key;
+        private List<String> recipients = new ArrayList<>();
+        private int attempts = 0;
+        private long notBefore = 0;
+
+        // add a later message under the same key, its recipients not already
+        // on this one as blind copies
+        private void add(Spooled other) {
+            if (mimeType != null && mimeType.startsWith("text/html")) {
+                Matcher tail = HTML_TAIL.matcher(content);
+                boolean wrapped = tail.find();
+                String part = HTML_HEAD.matcher(HTML_TAIL.matcher(other.content).replaceFirst("")).replaceFirst("");
+                content = (wrapped ? content.substring(0, tail.start()) : content) + "<hr />" + part
+                        + (wrapped ? "</body></html>" : "");
+            } else {
+                content = content + "\n\n----\n\n" + other.content;
+            }
+            addRecipients(bcc, other.to.toArray(new String[0]));
+            addRecipients(bcc, other.cc.toArray(new String[0]));
+            addRecipients(bcc, other.bcc.toArray(new String[0]));
+        }
+
+        private void addRecipients(List<String> list, String[] addresses) {
+            if (addresses == null) {
+                return;
+            }
+            for (String address : addresses) {
+                if (!contains(to, address) && !contains(cc, address) && !contains(bcc, address)) {
+                    list.add(address);
+                    recipients.add(address);
+                }
+            }
+        }
+
+        private static boolean contains(List<String> addresses, String address) {
+            for (String a : addresses) {
+                if (a.equalsIgnoreCase(address)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
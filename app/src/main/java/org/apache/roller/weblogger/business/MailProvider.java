@@ -81,24 +81,49 @@ public class MailProvider {
                 throw new StartupException("ERROR looking up mail-session with JNDI name: " + jndiName);
             }
         } else {
-            Properties props = new Properties();
-            props.setProperty("mail.smtp.host", mailHostname);
-            if (mailUsername != null && mailPassword != null) {
-                props.setProperty("mail.smtp.auth", "true");   
-            }
-            if (mailPort != -1) {
-                props.setProperty("mail.smtp.port", ""+mailPort);
-            }
-            session = Session.getDefaultInstance(props, null);
+            session = Session.getDefaultInstance(getProperties(), null);
         }
         
+        checkConnection();
+    }
+    
+    
+    /**
+     * Mail provider connecting to the given mail server, rather than the
+     * one configured.
+     */
+    public MailProvider(String hostname, int port, String username, String password) throws StartupException {
+        type = ConfigurationType.MAIL_PROPERTIES;
+        mailHostname = hostname;
+        mailPort = port;
+        mailUsername = username;
+        mailPassword = password;
+        session = Session.getInstance(getProperties(), null);
+        checkConnection();
+    }
+    
+    
+    private Properties getProperties() {
+        Properties props = new Properties();
+        props.setProperty("mail.smtp.host", mailHostname);
+        if (mailUsername != null && mailPassword != null) {
+            props.setProperty("mail.smtp.auth", "true");   
+        }
+        if (mailPort != -1) {
+            props.setProperty("mail.smtp.port", ""+mailPort);
+        }
+        return props;
+    }
+    
+    
+    // connect now so we fail early
+    private void checkConnection() throws StartupException {
         try {
             Transport transport = getTransport();
             transport.close();
         } catch (Exception e) {
             throw new StartupException("ERROR connecting to mail server", e);
         }
-        
     }
     
     
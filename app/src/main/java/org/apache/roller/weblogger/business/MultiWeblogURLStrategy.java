@@ -21,10 +21,13 @@ package org.apache.roller.weblogger.business;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.roller.weblogger.config.WebloggerConfig;
 import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
 import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
 import org.apache.roller.weblogger.util.URLUtilities;
 
 
@@ -33,6 +36,13 @@ import org.apache.roller.weblogger.util.URLUtilities;
  */
 public class MultiWeblogURLStrategy extends AbstractURLStrategy {
     
+    // upper bound on the number of weblogs we keep root urls for
+    private static final int MAX_PREFIXES = 10000;
+    
+    // root urls of weblogs, keyed by weblog handle
+    private final Map<String, WeblogPrefix> prefixes = new ConcurrentHashMap<>();
+    
+    
     public MultiWeblogURLStrategy() {}
     
     
@@ -52,27 +62,57 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
     public String getWeblogURL(Weblog weblog,
                                             String locale,
                                             boolean absolute) {
-
-        StringBuilder url = new StringBuilder();
-        if (absolute) {
-            String weblogAbsoluteURL =
-                WebloggerConfig.getProperty("weblog.absoluteurl." + weblog.getHandle());
-            if (weblogAbsoluteURL != null) {
-                url.append(weblogAbsoluteURL);
-            } else {
-                url.append(WebloggerRuntimeConfig.getAbsoluteContextURL());
-            }
-        } else {
-            url.append(WebloggerRuntimeConfig.getRelativeContextURL());
+        
+        if (locale == null) {
+            return getWeblogPrefix(weblog, absolute);
         }
-
-        url.append('/').append(weblog.getHandle()).append('/');
-
+        return weblogURL(weblog, locale, absolute).toString();
+    }
+    
+    
+    /**
+     * Start building a url below the root url of a given weblog.
+     *
+     * All urls of this strategy are built on top of this, appending to the
+     * returned builder rather than to a copy of the weblog url.
+     */
+    protected StringBuilder weblogURL(Weblog weblog, String locale, boolean absolute) {
+        
+        StringBuilder url = new StringBuilder(URL_BUFFER_SIZE);
+        url.append(getWeblogPrefix(weblog, absolute));
         if (locale != null) {
             url.append(locale).append('/');
         }
-
-        return url.toString();
+        return url;
+    }
+    
+    
+    /**
+     * Get the root url of a weblog without locale, computing it only when
+     * first asked for or when the site urls it is based on have changed.
+     */
+    private String getWeblogPrefix(Weblog weblog, boolean absolute) {
+        
+        String context = absolute ? WebloggerRuntimeConfig.getAbsoluteContextURL()
+                : WebloggerRuntimeConfig.getRelativeContextURL();
+        
+        WeblogPrefix prefix = prefixes.get(weblog.getHandle());
+        if (prefix == null || !prefix.isCurrent(context, absolute)) {
+            prefix = new WeblogPrefix(weblog.getHandle());
+            if (prefixes.size() >= MAX_PREFIXES) {
+                prefixes.clear();
+            }
+            prefixes.put(weblog.getHandle(), prefix);
+        }
+        return absolute ? prefix.absoluteURL : prefix.relativeURL;
+    }
+    
+    
+    /**
+     * Forget all precomputed weblog urls.
+     */
+    public void clearPrefixes() {
+        prefixes.clear();
     }
     
     
@@ -89,13 +129,24 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder url = new StringBuilder();
+        return weblogURL(weblog, locale, absolute)
+                .append("entry/").append(URLUtilities.encode(entryAnchor)).toString();
+    }
+    
+    
+    /**
+     * Get url for a given weblog entry, reusing the encoded anchor of the entry.
+     */
+    @Override
+    public String getWeblogEntryURL(WeblogEntry entry, String locale, boolean absolute) {
         
-        url.append(getWeblogURL(weblog, locale, absolute));
-        url.append("entry/").append(URLUtilities.encode(entryAnchor));
+        if(entry.getWebsite() == null || entry.getAnchor() == null) {
+            return null;
+        }
         
-    return url.toString();
-}
+        return weblogURL(entry.getWebsite(), locale, absolute)
+                .append("entry/").append(entry.getEncodedAnchor()).toString();
+    }
     
     
     /**
@@ -111,8 +162,7 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder url = new StringBuilder();
-        url.append(getWeblogURL(weblog, null, absolute));
+        StringBuilder url = weblogURL(weblog, null, absolute);
         url.append("mediaresource");
         url.append('/');
         url.append(URLUtilities.encode(fileAnchor));
@@ -176,11 +226,9 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder pathinfo = new StringBuilder(URL_BUFFER_SIZE);
+        StringBuilder pathinfo = weblogURL(weblog, locale, absolute);
         Map<String, String> params = new HashMap<>();
         
-        pathinfo.append(getWeblogURL(weblog, locale, absolute));
-        
         String cat;
         if("root".equals(category)) {
             cat = null;
@@ -231,11 +279,9 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder pathinfo = new StringBuilder(URL_BUFFER_SIZE);
+        StringBuilder pathinfo = weblogURL(weblog, locale, absolute);
         Map<String, String> params = new HashMap<>();
         
-        pathinfo.append(getWeblogURL(weblog, locale, absolute));
-        
         if(pageLink != null) {
             pathinfo.append("page/").append(pageLink);
             
@@ -279,9 +325,7 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder url = new StringBuilder(URL_BUFFER_SIZE);
-        
-        url.append(getWeblogURL(weblog, locale, absolute));
+        StringBuilder url = weblogURL(weblog, locale, absolute);
         url.append("feed/").append(type).append('/').append(format);
         
         Map<String, String> params = new HashMap<>();
@@ -317,9 +361,7 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder url = new StringBuilder(URL_BUFFER_SIZE);
-        
-        url.append(getWeblogURL(weblog, locale, absolute));
+        StringBuilder url = weblogURL(weblog, locale, absolute);
         url.append("search");
         
         Map<String, String> params = new HashMap<>();
@@ -349,9 +391,7 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder url = new StringBuilder(URL_BUFFER_SIZE);
-        
-        url.append(getWeblogURL(weblog, null, absolute));
+        StringBuilder url = weblogURL(weblog, null, absolute);
         url.append("resource/");
         
         if(filePath.startsWith("/")) {
@@ -416,9 +456,7 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder url = new StringBuilder(URL_BUFFER_SIZE);
-        
-        url.append(getWeblogURL(weblog, null, true));
+        StringBuilder url = weblogURL(weblog, null, true);
         url.append("feed/entries/atom");
         
         Map<String, String> params = Map.of("q", "{searchTerms}", "page", "{startPage}");
@@ -433,9 +471,7 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
             return null;
         }
         
-        StringBuilder url = new StringBuilder(URL_BUFFER_SIZE);
-        
-        url.append(getWeblogURL(weblog, null, true));
+        StringBuilder url = weblogURL(weblog, null, true);
         url.append("search");
         
         Map<String, String> params = Map.of("q", "{searchTerms}", "page", "{startPage}");
@@ -470,6 +506,31 @@ public class MultiWeblogURLStrategy extends AbstractURLStrategy {
         return WebloggerRuntimeConfig.getAbsoluteContextURL() + "/roller-services/oauth/accessToken";
     }
     
+    
+    /**
+     * Root urls of a weblog along with the site urls they were built from.
+     */
+    private static final class WeblogPrefix {
+        
+        private final String absoluteContext;
+        private final String relativeContext;
+        private final String absoluteURL;
+        private final String relativeURL;
+        
+        WeblogPrefix(String handle) {
+            absoluteContext = WebloggerRuntimeConfig.getAbsoluteContextURL();
+            relativeContext = WebloggerRuntimeConfig.getRelativeContextURL();
+            
+            // a weblog may be configured to live on its own domain
+            String weblogAbsoluteURL = WebloggerConfig.getProperty("weblog.absoluteurl." + handle);
+            absoluteURL = (weblogAbsoluteURL != null ? weblogAbsoluteURL : absoluteContext)
+                    + '/' + handle + '/';
+            relativeURL = relativeContext + '/' + handle + '/';
+        }
+        
+        boolean isCurrent(String context, boolean absolute) {
+            return Objects.equals(context, absolute ? absoluteContext : relativeContext);
+        }
+    }
+    
 }
-
-
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
 import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
 import org.apache.roller.weblogger.pojos.WeblogTheme;
 import org.apache.roller.weblogger.util.URLUtilities;
 
@@ -75,6 +76,25 @@ public class PreviewURLStrategy extends MultiWeblogURLStrategy {
     }
     
     
+    /**
+     * Preview urls carry query params, so urls below the weblog are built on
+     * the complete preview weblog url.
+     */
+    @Override
+    protected StringBuilder weblogURL(Weblog weblog, String locale, boolean absolute) {
+        return new StringBuilder(URL_BUFFER_SIZE).append(getWeblogURL(weblog, locale, absolute));
+    }
+    
+    
+    /**
+     * Get url for a given *preview* weblog entry.
+     */
+    @Override
+    public String getWeblogEntryURL(WeblogEntry entry, String locale, boolean absolute) {
+        return getWeblogEntryURL(entry.getWebsite(), locale, entry.getAnchor(), absolute);
+    }
+    
+    
     /**
      * Get url for a given *preview* weblog entry.  
      * Optionally for a certain locale.
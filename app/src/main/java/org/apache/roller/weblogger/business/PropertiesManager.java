@@ -60,6 +60,23 @@ public interface PropertiesManager {
     RuntimeConfigProperty getProperty(String name) throws WebloggerException;
     
     
+    /**
+     * Retrieve the value of a single property, or null if there is no such
+     * property.
+     *
+     * Values are served from an in-memory snapshot of all properties which is
+     * replaced whenever properties are saved and periodically re-read.
+     */
+    String getPropertyValue(String name) throws WebloggerException;
+    
+    
+    /**
+     * Discard the in-memory snapshot of property values so that it is re-read
+     * from the database, e.g. after properties were changed on another node.
+     */
+    void reloadProperties();
+    
+    
     /**
      * Retrieve a list of all properties
      */
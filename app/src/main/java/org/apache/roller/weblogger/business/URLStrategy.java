@@ -21,6 +21,7 @@ package org.apache.roller.weblogger.business;
 import java.util.List;
 import java.util.Map;
 import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
 
 
 /**
@@ -134,6 +135,15 @@ public interface URLStrategy {
                                                  boolean absolute);
     
     
+    /**
+     * Get url for a given weblog entry.  Implementations may make use of the
+     * url encoded anchor kept by the entry.
+     */
+    default String getWeblogEntryURL(WeblogEntry entry, String locale, boolean absolute) {
+        return getWeblogEntryURL(entry.getWebsite(), locale, entry.getAnchor(), absolute);
+    }
+    
+    
     /**
      * Get url for a single weblog entry comments on a given weblog.
      */
@@ -18,9 +18,11 @@
 
 package org.apache.roller.weblogger.business;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.pojos.CommentSearchCriteria;
 import org.apache.roller.weblogger.pojos.StatCount;
@@ -199,7 +201,33 @@ public interface WeblogEntryManager {
     List<WeblogEntryComment> getComments(CommentSearchCriteria csc) throws WebloggerException;
 
     /**
-     * Deletes comments that match paramters.
+     * Count comments matching criteria, offset and max results are ignored.
+     * @param csc CommentSearchCriteria object with fields indicating search criteria
+     * @return number of comments fitting search criteria
+     */
+    long getCommentCount(CommentSearchCriteria csc) throws WebloggerException;
+
+    /**
+     * Save a batch of changed comments.  Each affected weblog is marked as
+     * modified once, instead of once per comment.
+     * @return entries the comments belong to, to be reindexed and have their
+     * weblog caches invalidated once the changes are flushed
+     */
+    Set<WeblogEntry> saveComments(Collection<WeblogEntryComment> comments) throws WebloggerException;
+
+    /**
+     * Remove comments by id.  Comments are deleted in chunks with set-based
+     * deletes and each affected weblog is marked as modified once.
+     * @return entries the removed comments belonged to, to be reindexed and
+     * have their weblog caches invalidated once the changes are flushed
+     */
+    Set<WeblogEntry> removeComments(Collection<String> commentIds) throws WebloggerException;
+
+    /**
+     * Deletes comments that match paramters.  Like removeComments() this
+     * works in chunks, committing after each one, so that it does not need
+     * to load all matching comments.  Affected entries are reindexed once
+     * the last chunk is committed.
      * @param website    Website or null for all comments on site
      * @param entry      Entry or null to include all comments
      * @param startDate  Start date or null for no restriction
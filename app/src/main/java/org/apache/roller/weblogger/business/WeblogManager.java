@@ -94,6 +94,15 @@ public interface WeblogManager {
             throws WebloggerException;
     
     
+    /**
+     * Get enabled and active websites modified after a given time, least
+     * recently modified first.
+     * @param since Restrict to those modified after (or null for all)
+     * @return List of Weblog objects.
+     */
+    List<Weblog> getWeblogsModifiedSince(Date since) throws WebloggerException;
+    
+    
     /**
      * Get websites of a user.
      * @param user        Get all weblogs for this user
@@ -29,6 +29,7 @@ import org.apache.roller.weblogger.business.pings.PingTargetManager;
 import org.apache.roller.weblogger.business.plugins.PluginManager;
 import org.apache.roller.weblogger.business.runnable.ThreadManager;
 import org.apache.roller.weblogger.business.search.IndexManager;
+import org.apache.roller.weblogger.business.startup.WebloggerStartup;
 import org.apache.roller.weblogger.business.themes.ThemeManager;
 import org.apache.roller.weblogger.config.PingConfig;
 import org.apache.xmlrpc.util.SAXParsers;
@@ -421,6 +422,9 @@ public abstract class WebloggerImpl implements Weblogger {
             if (threadManager != null) {
                 threadManager.shutdown();
             }
+            if (WebloggerStartup.getMailOutbox() != null) {
+                WebloggerStartup.getMailOutbox().shutdown();
+            }
         } catch(Exception e) {
             log.error("Error calling Roller.shutdown()", e);
         }
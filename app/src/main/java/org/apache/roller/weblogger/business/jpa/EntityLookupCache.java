@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business.jpa;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.weblogger.WebloggerException;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+import org.apache.roller.weblogger.pojos.ThemeTemplate.ComponentType;
+import org.apache.roller.weblogger.pojos.User;
+import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogBookmark;
+import org.apache.roller.weblogger.pojos.WeblogBookmarkFolder;
+import org.apache.roller.weblogger.pojos.WeblogCategory;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
+import org.apache.roller.weblogger.pojos.WeblogEntryComment;
+import org.apache.roller.weblogger.pojos.WeblogTemplate;
+import org.apache.roller.weblogger.util.cache.Cache;
+import org.apache.roller.weblogger.util.cache.CacheHandler;
+import org.apache.roller.weblogger.util.cache.CacheManager;
+
+
+/**
+ * Bounded cache of natural key -> entity id lookups for the small set of hot
+ * entities re-read on nearly every request (weblogs by handle, users by name,
+ * weblog permissions, templates and categories).
+ *
+ * Only ids are cached, never managed entities.  A hit is resolved through
+ * {@link JPAPersistenceStrategy#load(Class, String)}, which is served from the
+ * EclipseLink shared object cache, so a warm lookup costs no SQL at all.
+ * Because the loaded entity is re-checked against the key before it is
+ * returned, a stale mapping simply degrades to a miss; the managers still
+ * remove keys in their save/remove methods so that stale mappings are rare.
+ *
+ * Hit/miss stats are reported through the CacheManager and so show up on the
+ * cache info admin page.
+ */
+public final class EntityLookupCache implements CacheHandler {
+
+    private static final Log log = LogFactory.getLog(EntityLookupCache.class);
+
+    // a unique identifier for this cache, this is used as the prefix for
+    // roller config properties that apply to this cache
+    public static final String CACHE_ID = "cache.entities";
+
+    private boolean cacheEnabled = true;
+    private Cache idCache = null;
+
+    // reference to our singleton instance
+    private static final EntityLookupCache singletonInstance = new EntityLookupCache();
+
+
+    private EntityLookupCache() {
+
+        cacheEnabled = WebloggerConfig.getBooleanProperty(CACHE_ID+".enabled");
+
+        Map<String, String> cacheProps = new HashMap<>();
+        cacheProps.put("id", CACHE_ID);
+        Enumeration<Object> allProps = WebloggerConfig.keys();
+        String prop;
+        while(allProps.hasMoreElements()) {
+            prop = (String) allProps.nextElement();
+
+            // we are only interested in props for this cache
+            if(prop.startsWith(CACHE_ID+".")) {
+                cacheProps.put(prop.substring(CACHE_ID.length()+1),
+                        WebloggerConfig.getProperty(prop));
+            }
+        }
+
+        log.info(cacheProps);
+
+        if(cacheEnabled) {
+            idCache = CacheManager.constructCache(this, cacheProps);
+        } else {
+            log.warn("Caching has been DISABLED");
+        }
+    }
+
+
+    public static EntityLookupCache getInstance() {
+        return singletonInstance;
+    }
+
+
+    /**
+     * Resolve a cached lookup.
+     *
+     * @param key lookup key, as built by one of the *Key() methods
+     * @param type entity class the cached id refers to
+     * @param strategy persistence strategy used to load the entity
+     * @param stillMatches check that the loaded entity still answers the key
+     * @return the entity, or null if the key is not cached or is stale
+     */
+    public <T> T get(String key, Class<T> type, JPAPersistenceStrategy strategy,
+            Predicate<T> stillMatches) throws WebloggerException {
+
+        if (!cacheEnabled) {
+            return null;
+        }
+
+        String id = (String) idCache.get(key);
+        if (id == null) {
+            log.debug("MISS "+key);
+            return null;
+        }
+
+        T entity = type.cast(strategy.load(type, id));
+        if (entity == null || !stillMatches.test(entity)) {
+            // mapping hit with lookup miss?  mapping must be old, remove it
+            log.debug("STALE "+key);
+            idCache.remove(key);
+            return null;
+        }
+
+        log.debug("HIT "+key);
+        return entity;
+    }
+
+
+    public void put(String key, String id) {
+
+        if (!cacheEnabled || id == null) {
+            return;
+        }
+
+        idCache.put(key, id);
+        log.debug("PUT "+key);
+    }
+
+
+    public void remove(String key) {
+
+        if (!cacheEnabled) {
+            return;
+        }
+
+        idCache.remove(key);
+        log.debug("REMOVE "+key);
+    }
+
+
+    public void clear() {
+
+        if (!cacheEnabled) {
+            return;
+        }
+
+        idCache.clear();
+        log.debug("CLEAR");
+    }
+
+
+    public static String weblogKey(String handle) {
+        return "weblog/" + handle;
+    }
+
+    public static String userKey(String userName) {
+        return "user/" + userName;
+    }
+
+    public static String permissionKey(String weblogHandle, String userName) {
+        return "perm/" + weblogHandle + "/" + userName;
+    }
+
+    public static String categoryKey(String weblogId, String name) {
+        return "category/" + weblogId + "/" + name;
+    }
+
+    public static String templateLinkKey(String weblogId, String link) {
+        return "template/" + weblogId + "/link/" + link;
+    }
+
+    public static String templateNameKey(String weblogId, String name) {
+        return "template/" + weblogId + "/name/" + name;
+    }
+
+    public static String templateActionKey(String weblogId, ComponentType action) {
+        return "template/" + weblogId + "/action/" + action;
+    }
+
+
+    /**
+     * Remove all lookup keys which may currently point at the given template.
+     */
+    public void removeTemplate(WeblogTemplate template) {
+        if (template.getWeblog() == null) {
+            return;
+        }
+        String weblogId = template.getWeblog().getId();
+        remove(templateLinkKey(weblogId, template.getLink()));
+        remove(templateNameKey(weblogId, template.getName()));
+        remove(templateActionKey(weblogId, template.getAction()));
+    }
+
+
+    @Override
+    public void invalidate(WeblogEntry entry) {
+        // entries are not cached here
+    }
+
+    @Override
+    public void invalidate(Weblog website) {
+        remove(weblogKey(website.getHandle()));
+    }
+
+    @Override
+    public void invalidate(WeblogBookmark bookmark) {
+        // bookmarks are not cached here
+    }
+
+    @Override
+    public void invalidate(WeblogBookmarkFolder folder) {
+        // folders are not cached here
+    }
+
+    @Override
+    public void invalidate(WeblogEntryComment comment) {
+        // comments are not cached here
+    }
+
+    @Override
+    public void invalidate(User user) {
+        remove(userKey(user.getUserName()));
+    }
+
+    @Override
+    public void invalidate(WeblogCategory category) {
+        if (category.getWeblog() != null) {
+            remove(categoryKey(category.getWeblog().getId(), category.getName()));
+        }
+    }
+
+    @Override
+    public void invalidate(WeblogTemplate template) {
+        removeTemplate(template);
+    }
+
+}
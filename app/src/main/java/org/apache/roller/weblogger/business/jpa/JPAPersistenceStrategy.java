@@ -18,8 +18,10 @@
 
 package org.apache.roller.weblogger.business.jpa;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Properties;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -52,6 +54,11 @@ public class JPAPersistenceStrategy {
      */
     private final ThreadLocal<EntityManager> threadLocalEntityManager = new ThreadLocal<>();
     
+    /**
+     * Actions to run once the thread's current transaction commits.
+     */
+    private final ThreadLocal<List<Runnable>> threadLocalAfterCommit = new ThreadLocal<>();
+    
     /**
      * The EntityManagerFactory for this Roller instance.
      */
@@ -93,6 +100,9 @@ public class JPAPersistenceStrategy {
 
             if (dbProvider.getType() == DatabaseProvider.ConfigurationType.JNDI_NAME) {
                 emfProps.setProperty("jakarta.persistence.nonJtaDataSource", dbProvider.getFullJndiName());
+            } else if (dbProvider.getType() == DatabaseProvider.ConfigurationType.JDBC_POOL) {
+                // hand the pool itself to the provider, which then does no pooling of its own
+                emfProps.put("jakarta.persistence.nonJtaDataSource", dbProvider.getPooledDataSource());
             } else {
                 emfProps.setProperty("jakarta.persistence.jdbc.driver", dbProvider.getJdbcDriverClass());
                 emfProps.setProperty("jakarta.persistence.jdbc.url", dbProvider.getJdbcConnectionURL());
@@ -130,11 +140,46 @@ public class JPAPersistenceStrategy {
      * @throws org.apache.roller.weblogger.WebloggerException on any error
      */
     public void flush() throws WebloggerException {
+        long start = QueryMetrics.isEnabled() ? System.nanoTime() : 0;
         try {
             EntityManager em = getEntityManager(true);
             em.getTransaction().commit();
         } catch (PersistenceException pe) {
+            threadLocalAfterCommit.remove();
             throw new WebloggerException(pe);
+        } finally {
+            if (QueryMetrics.isEnabled()) {
+                QueryMetrics.recordWrite("flush", System.nanoTime() - start);
+            }
+        }
+        runAfterCommitActions();
+    }
+    
+    /**
+     * Run an action once the current transaction commits, for example to
+     * drop cached state so it isn't reloaded from uncommitted data.  The
+     * action is dropped if the transaction is released without a commit.
+     */
+    public void afterCommit(Runnable action) {
+        List<Runnable> actions = threadLocalAfterCommit.get();
+        if (actions == null) {
+            actions = new ArrayList<>();
+            threadLocalAfterCommit.set(actions);
+        }
+        actions.add(action);
+    }
+    
+    private void runAfterCommitActions() {
+        List<Runnable> actions = threadLocalAfterCommit.get();
+        threadLocalAfterCommit.remove();
+        if (actions != null) {
+            for (Runnable action : actions) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.error("error running after commit action", e);
+                }
+            }
         }
     }
     
@@ -159,6 +204,7 @@ public class JPAPersistenceStrategy {
                 }
             }
             threadLocalEntityManager.remove();
+            threadLocalAfterCommit.remove();
         }
     }
     
@@ -169,11 +215,15 @@ public class JPAPersistenceStrategy {
      * @throws org.apache.roller.weblogger.WebloggerException on any error
      */
     public Object store(Object obj) throws WebloggerException {
+        long start = QueryMetrics.isEnabled() ? System.nanoTime() : 0;
         EntityManager em = getEntityManager(true);
         if (!em.contains(obj)) {
             // If entity is not managed we can assume it is new
             em.persist(obj);
         }
+        if (QueryMetrics.isEnabled()) {
+            QueryMetrics.recordWrite("store " + obj.getClass().getSimpleName(), System.nanoTime() - start);
+        }
         return obj;
     }
     
@@ -271,7 +321,7 @@ public class JPAPersistenceStrategy {
         // For performance, never flush/commit prior to running queries.
         // Roller code assumes this behavior
         q.setFlushMode(FlushModeType.COMMIT);
-        return q;
+        return instrument(q, queryName);
     }
 
     /**
@@ -288,7 +338,7 @@ public class JPAPersistenceStrategy {
         // For performance, never flush/commit prior to running queries.
         // Roller code assumes this behavior
         q.setFlushMode(FlushModeType.COMMIT);
-        return q;
+        return instrument(q, queryName);
     }
 
     /**
@@ -302,7 +352,7 @@ public class JPAPersistenceStrategy {
     public <T> TypedQuery<T> getNamedQueryCommitFirst(String queryName, Class<T> resultClass)
             throws WebloggerException {
         EntityManager em = getEntityManager(true);
-        return em.createNamedQuery(queryName, resultClass);
+        return instrument(em.createNamedQuery(queryName, resultClass), queryName);
     }
 
     /**
@@ -317,7 +367,7 @@ public class JPAPersistenceStrategy {
         // For performance, never flush/commit prior to running queries.
         // Roller code assumes this behavior
         q.setFlushMode(FlushModeType.COMMIT);
-        return q;
+        return instrument(q, queryString);
     }
 
     /**
@@ -334,7 +384,7 @@ public class JPAPersistenceStrategy {
         // For performance, never flush/commit prior to running queries.
         // Roller code assumes this behavior
         q.setFlushMode(FlushModeType.COMMIT);
-        return q;
+        return instrument(q, queryString);
     }
 
     /**
@@ -346,7 +396,18 @@ public class JPAPersistenceStrategy {
     public Query getNamedUpdate(String queryName)
     throws WebloggerException {
         EntityManager em = getEntityManager(true);
-        return em.createNamedQuery(queryName);
+        return instrument(em.createNamedQuery(queryName), queryName);
+    }
+
+    /**
+     * Wrap query for statement instrumentation, if enabled.
+     */
+    private static <T> TypedQuery<T> instrument(TypedQuery<T> q, String statement) {
+        return QueryMetrics.isEnabled() ? QueryMetrics.wrap(q, statement) : q;
+    }
+
+    private static Query instrument(Query q, String statement) {
+        return QueryMetrics.isEnabled() ? QueryMetrics.wrap(q, statement) : q;
     }
 
     public void shutdown() {
@@ -18,9 +18,11 @@
  */
 package org.apache.roller.weblogger.business.jpa;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,6 +30,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.business.InitializationException;
 import org.apache.roller.weblogger.business.PropertiesManager;
+import org.apache.roller.weblogger.config.WebloggerConfig;
 import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
 import org.apache.roller.weblogger.config.runtime.ConfigDef;
 import org.apache.roller.weblogger.config.runtime.DisplayGroup;
@@ -51,6 +54,14 @@ public class JPAPropertiesManagerImpl implements PropertiesManager {
 
     private final JPAPersistenceStrategy strategy;
     
+    // how long the in-memory snapshot of property values is used before it
+    // is re-read, so that changes saved on other cluster nodes are picked up
+    private final long snapshotTimeout = TimeUnit.SECONDS.toMillis(
+            WebloggerConfig.getIntProperty("cache.runtimeconfig.timeout", 60));
+    
+    // immutable snapshot of all property values, replaced on every save
+    private volatile Snapshot snapshot = null;
+    
     
     /**
      * Creates a new instance of JPAPropertiesManagerImpl
@@ -97,6 +108,24 @@ public class JPAPropertiesManagerImpl implements PropertiesManager {
     }
 
 
+    /**
+     * Retrieve the value of a single property from the in-memory snapshot.
+     */
+    @Override
+    public String getPropertyValue(String name) throws WebloggerException {
+        return getSnapshot().values.get(name);
+    }
+    
+    
+    /**
+     * Drop the in-memory snapshot, it is re-read on next access.
+     */
+    @Override
+    public void reloadProperties() {
+        snapshot = null;
+    }
+    
+    
     /**
      * Retrieve all properties.
      * 
@@ -130,6 +159,7 @@ public class JPAPropertiesManagerImpl implements PropertiesManager {
     public void saveProperty(RuntimeConfigProperty property) 
             throws WebloggerException {
         this.strategy.store(property);
+        updateSnapshot(Collections.singletonList(property));
     }
 
 
@@ -143,6 +173,55 @@ public class JPAPropertiesManagerImpl implements PropertiesManager {
         for (Object prop : properties.values()) {
             this.strategy.store(prop);
         }
+        updateSnapshot(properties.values());
+    }
+    
+    
+    /**
+     * The current snapshot, (re)loading it from the database if there is none
+     * yet or it has expired.
+     */
+    private Snapshot getSnapshot() throws WebloggerException {
+        Snapshot current = snapshot;
+        if (current == null || current.isExpired(snapshotTimeout)) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.isExpired(snapshotTimeout)) {
+                    Map<String, String> values = new HashMap<>();
+                    for (RuntimeConfigProperty prop : getProperties().values()) {
+                        values.put(prop.getName(), prop.getValue());
+                    }
+                    current = new Snapshot(values);
+                    snapshot = current;
+                    log.debug("Loaded runtime properties snapshot");
+                }
+            }
+        }
+        return current;
+    }
+    
+    
+    /**
+     * Swap in a snapshot including the saved values once the surrounding
+     * transaction commits, so a rolled back save is never seen.  If there is
+     * no snapshot by then the next access loads the committed values.
+     */
+    private void updateSnapshot(Iterable<RuntimeConfigProperty> saved) {
+        Map<String, String> savedValues = new HashMap<>();
+        for (RuntimeConfigProperty prop : saved) {
+            savedValues.put(prop.getName(), prop.getValue());
+        }
+        strategy.afterCommit(() -> publishSnapshot(savedValues));
+    }
+    
+    
+    private synchronized void publishSnapshot(Map<String, String> savedValues) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            Map<String, String> values = new HashMap<>(current.values);
+            values.putAll(savedValues);
+            snapshot = new Snapshot(values);
+        }
     }
     
 
@@ -198,4 +277,20 @@ public class JPAPropertiesManagerImpl implements PropertiesManager {
     @Override
     public void release() {}
 
+    
+    private static final class Snapshot {
+        
+        // values may be null, so no Map.copyOf()
+        private final Map<String, String> values;
+        private final long loadTime = System.currentTimeMillis();
+        
+        private Snapshot(Map<String, String> values) {
+            this.values = Collections.unmodifiableMap(values);
+        }
+        
+        private boolean isExpired(long timeout) {
+            return timeout > 0 && System.currentTimeMillis() - loadTime > timeout;
+        }
+    }
+    
 }
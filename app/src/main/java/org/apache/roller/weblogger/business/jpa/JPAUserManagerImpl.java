@@ -27,9 +27,7 @@ import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.business.UserManager;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -50,8 +48,8 @@ public class JPAUserManagerImpl implements UserManager {
 
     private final JPAPersistenceStrategy strategy;
     
-    // cached mapping of userNames -> userIds
-    private final Map<String, String> userNameToIdMap = Collections.synchronizedMap(new HashMap<>());
+    // cached mapping of userNames and permission keys -> ids
+    private final EntityLookupCache entityCache = EntityLookupCache.getInstance();
     
 
     @com.google.inject.Inject
@@ -70,6 +68,7 @@ public class JPAUserManagerImpl implements UserManager {
     @Override
     public void saveUser(User user) throws WebloggerException {
         this.strategy.store(user);
+        entityCache.remove(EntityLookupCache.userKey(user.getUserName()));
     }
 
     
@@ -81,11 +80,12 @@ public class JPAUserManagerImpl implements UserManager {
         List<WeblogPermission> perms = getWeblogPermissions(user);
         for (WeblogPermission perm : perms) {
             this.strategy.remove(perm);
+            entityCache.remove(EntityLookupCache.permissionKey(perm.getObjectId(), userName));
         }
         this.strategy.remove(user);
 
         // remove entry from cache mapping
-        this.userNameToIdMap.remove(userName);
+        entityCache.remove(EntityLookupCache.userKey(userName));
     }
 
     
@@ -164,20 +164,16 @@ public class JPAUserManagerImpl implements UserManager {
         
         // check cache first
         // NOTE: if we ever allow changing usernames then this needs updating
-        if(this.userNameToIdMap.containsKey(userName)) {
-
-            User user = this.getUser(
-                    this.userNameToIdMap.get(userName));
-            if (user != null) {
-                // only return the user if the enabled status matches
-                if(enabled == null || enabled.equals(user.getEnabled())) {
-                    log.debug("userNameToIdMap CACHE HIT - "+stripAll(userName));
-                    return user;
-                }
-            } else {
-                // mapping hit with lookup miss?  mapping must be old, remove it
-                this.userNameToIdMap.remove(userName);
+        String key = EntityLookupCache.userKey(userName);
+        User cachedUser = entityCache.get(key, User.class, strategy,
+                cached -> userName.equals(cached.getUserName()));
+        if (cachedUser != null) {
+            // only return the user if the enabled status matches
+            if(enabled == null || enabled.equals(cachedUser.getEnabled())) {
+                log.debug("userNameToIdMap CACHE HIT - "+stripAll(userName));
+                return cachedUser;
             }
+            return null;
         }
 
         // cache failed, do lookup
@@ -205,7 +201,7 @@ public class JPAUserManagerImpl implements UserManager {
         // add mapping to cache
         if(user != null) {
             log.debug("userNameToIdMap CACHE MISS - " + stripAll(userName));
-            this.userNameToIdMap.put(user.getUserName(), user.getId());
+            entityCache.put(key, user.getId());
         }
 
         return user;
@@ -383,15 +379,26 @@ public class JPAUserManagerImpl implements UserManager {
     
     @Override
     public WeblogPermission getWeblogPermission(Weblog weblog, User user) throws WebloggerException {
+        String key = EntityLookupCache.permissionKey(weblog.getHandle(), user.getUserName());
+        WeblogPermission perm = entityCache.get(key, WeblogPermission.class, strategy,
+                cached -> !cached.isPending()
+                        && user.getUserName().equals(cached.getUserName())
+                        && weblog.getHandle().equals(cached.getObjectId()));
+        if (perm != null) {
+            return perm;
+        }
+
         TypedQuery<WeblogPermission> q = strategy.getNamedQuery("WeblogPermission.getByUserName&WeblogId"
                 , WeblogPermission.class);
         q.setParameter(1, user.getUserName());
         q.setParameter(2, weblog.getHandle());
         try {
-            return q.getSingleResult();
+            perm = q.getSingleResult();
         } catch (NoResultException ignored) {
             return null;
         }
+        entityCache.put(key, perm.getId());
+        return perm;
     }
 
     @Override
@@ -409,6 +416,7 @@ public class JPAUserManagerImpl implements UserManager {
 
     @Override
     public void grantWeblogPermission(Weblog weblog, User user, List<String> actions) throws WebloggerException {
+        entityCache.remove(EntityLookupCache.permissionKey(weblog.getHandle(), user.getUserName()));
 
         // first, see if user already has a permission for the specified object
         TypedQuery<WeblogPermission> q = strategy.getNamedQuery("WeblogPermission.getByUserName&WeblogIdIncludingPending",
@@ -434,6 +442,7 @@ public class JPAUserManagerImpl implements UserManager {
     
     @Override
     public void grantWeblogPermissionPending(Weblog weblog, User user, List<String> actions) throws WebloggerException {
+        entityCache.remove(EntityLookupCache.permissionKey(weblog.getHandle(), user.getUserName()));
 
         // first, see if user already has a permission for the specified object
         TypedQuery<WeblogPermission> q = strategy.getNamedQuery("WeblogPermission.getByUserName&WeblogIdIncludingPending",
@@ -460,6 +469,7 @@ public class JPAUserManagerImpl implements UserManager {
     
     @Override
     public void confirmWeblogPermission(Weblog weblog, User user) throws WebloggerException {
+        entityCache.remove(EntityLookupCache.permissionKey(weblog.getHandle(), user.getUserName()));
 
         // get specified permission
         TypedQuery<WeblogPermission> q = strategy.getNamedQuery("WeblogPermission.getByUserName&WeblogIdIncludingPending",
@@ -481,6 +491,7 @@ public class JPAUserManagerImpl implements UserManager {
     
     @Override
     public void declineWeblogPermission(Weblog weblog, User user) throws WebloggerException {
+        entityCache.remove(EntityLookupCache.permissionKey(weblog.getHandle(), user.getUserName()));
 
         // get specified permission
         TypedQuery<WeblogPermission> q = strategy.getNamedQuery("WeblogPermission.getByUserName&WeblogIdIncludingPending",
@@ -500,6 +511,7 @@ public class JPAUserManagerImpl implements UserManager {
     
     @Override
     public void revokeWeblogPermission(Weblog weblog, User user, List<String> actions) throws WebloggerException {
+        entityCache.remove(EntityLookupCache.permissionKey(weblog.getHandle(), user.getUserName()));
 
         // get specified permission
         TypedQuery<WeblogPermission> q = strategy.getNamedQuery("WeblogPermission.getByUserName&WeblogIdIncludingPending",
@@ -70,6 +70,16 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
     // cached mapping of entryAnchors -> entryIds
     private final Map<String, String> entryAnchorToIdMap = Collections.synchronizedMap(new HashMap<String, String>());
     
+    // cached mapping of category names -> categoryIds
+    private final EntityLookupCache entityCache = EntityLookupCache.getInstance();
+    
+    // EclipseLink query hints for batch reading, ignored by other providers
+    private static final String BATCH_HINT = "eclipselink.batch";
+    private static final String BATCH_TYPE_HINT = "eclipselink.batch.type";
+    
+    // comments deleted per statement by the bulk comment methods
+    private static final int BULK_CHUNK_SIZE = 500;
+    
     private static final Comparator<TagStat> TAG_STAT_NAME_COMPARATOR = new TagStatComparator();
     
     private static final Comparator<TagStat> TAG_STAT_COUNT_REVERSE_COMPARATOR =
@@ -99,6 +109,7 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
         // update weblog last modified date.  date updated by saveWebsite()
         roller.getWeblogManager().saveWeblog(cat.getWeblog());
         this.strategy.store(cat);
+        entityCache.invalidate(cat);
     }
     
     /**
@@ -115,6 +126,7 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
 
         // remove cat
         this.strategy.remove(cat);
+        entityCache.invalidate(cat);
 
         if(cat.equals(cat.getWeblog().getBloggerCategory())) {
             cat.getWeblog().setBloggerCategory(null);
@@ -158,6 +170,7 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
     @Override
     public void saveComment(WeblogEntryComment comment) throws WebloggerException {
         this.strategy.store(comment);
+        comment.getWeblogEntry().setCommentCount(null);
         
         // update weblog last modified date.  date updated by saveWebsite()
         roller.getWeblogManager().saveWeblog(comment.getWeblogEntry().getWebsite());
@@ -169,6 +182,7 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
     @Override
     public void removeComment(WeblogEntryComment comment) throws WebloggerException {
         this.strategy.remove(comment);
+        comment.getWeblogEntry().setCommentCount(null);
         
         // update weblog last modified date.  date updated by saveWebsite()
         roller.getWeblogManager().saveWeblog(comment.getWeblogEntry().getWebsite());
@@ -471,7 +485,54 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
         }
         
         setFirstMax( query, wesc.getOffset(), wesc.getMaxResults() );
-        return query.getResultList();
+        
+        // read the requested collections for all entries with one IN query
+        // each, rather than one query per entry when the page touches them
+        Set<WeblogEntrySearchCriteria.Prefetch> prefetch = wesc.getPrefetch();
+        if (prefetch.contains(WeblogEntrySearchCriteria.Prefetch.TAGS)) {
+            query.setHint(BATCH_HINT, "e.tags");
+        }
+        if (prefetch.contains(WeblogEntrySearchCriteria.Prefetch.ATTRIBUTES)) {
+            query.setHint(BATCH_HINT, "e.entryAttributes");
+        }
+        if (prefetch.contains(WeblogEntrySearchCriteria.Prefetch.TAGS)
+                || prefetch.contains(WeblogEntrySearchCriteria.Prefetch.ATTRIBUTES)) {
+            query.setHint(BATCH_TYPE_HINT, "IN");
+        }
+        
+        List<WeblogEntry> entries = query.getResultList();
+        if (prefetch.contains(WeblogEntrySearchCriteria.Prefetch.COMMENT_COUNTS)) {
+            loadCommentCounts(entries);
+        }
+        return entries;
+    }
+    
+    /**
+     * Load the approved comment counts of a list of entries with a single
+     * aggregate query.
+     */
+    private void loadCommentCounts(List<WeblogEntry> entries) throws WebloggerException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        
+        List<String> ids = new ArrayList<>(entries.size());
+        for (WeblogEntry entry : entries) {
+            ids.add(entry.getId());
+        }
+        
+        TypedQuery<Object[]> q = strategy.getNamedQuery(
+                "WeblogEntryComment.getCountByEntryIds&Status", Object[].class);
+        q.setParameter(1, ids);
+        q.setParameter(2, ApprovalStatus.APPROVED);
+        Map<String, Integer> counts = new HashMap<>();
+        for (Object[] row : q.getResultList()) {
+            counts.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        
+        for (WeblogEntry entry : entries) {
+            entry.setCommentCount(counts.getOrDefault(entry.getId(), 0));
+        }
     }
     
     /**
@@ -629,10 +690,33 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
     @Override
     public List<WeblogEntryComment> getComments(CommentSearchCriteria csc) throws WebloggerException {
         
+        TypedQuery<WeblogEntryComment> query = getCommentQuery(csc, "c", WeblogEntryComment.class, true);
+        setFirstMax( query, csc.getOffset(), csc.getMaxResults());
+        return query.getResultList();
+        
+    }
+    
+    
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public long getCommentCount(CommentSearchCriteria csc) throws WebloggerException {
+        return getCommentQuery(csc, "COUNT(c)", Long.class, false).getSingleResult();
+    }
+    
+    
+    /**
+     * Build a comments query selecting the given expression for comments
+     * matching the search criteria.
+     */
+    private <T> TypedQuery<T> getCommentQuery(CommentSearchCriteria csc, String select,
+            Class<T> resultClass, boolean ordered) throws WebloggerException {
+        
         List<Object> params = new ArrayList<>();
         int size = 0;
         StringBuilder queryString = new StringBuilder();
-        queryString.append("SELECT c FROM WeblogEntryComment c ");
+        queryString.append("SELECT ").append(select).append(" FROM WeblogEntryComment c ");
         
         StringBuilder whereClause = new StringBuilder();
         if (csc.getEntry() != null) {
@@ -668,19 +752,52 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
         if(whereClause.length() != 0) {
             queryString.append(" WHERE ").append(whereClause);
         }
-        if (csc.isReverseChrono()) {
+        if (ordered && csc.isReverseChrono()) {
             queryString.append(" ORDER BY c.postTime DESC");
-        } else {
+        } else if (ordered) {
             queryString.append(" ORDER BY c.postTime ASC");
         }
         
-        TypedQuery<WeblogEntryComment> query = strategy.getDynamicQuery(queryString.toString(), WeblogEntryComment.class);
-        setFirstMax( query, csc.getOffset(), csc.getMaxResults());
+        TypedQuery<T> query = strategy.getDynamicQuery(queryString.toString(), resultClass);
         for (int i=0; i<params.size(); i++) {
             query.setParameter(i+1, params.get(i));
         }
-        return query.getResultList();
+        return query;
+    }
+    
+    
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Set<WeblogEntry> saveComments(Collection<WeblogEntryComment> comments)
+            throws WebloggerException {
+        
+        Set<WeblogEntry> entries = new LinkedHashSet<>();
+        for (WeblogEntryComment comment : comments) {
+            this.strategy.store(comment);
+            entries.add(comment.getWeblogEntry());
+        }
+        touchEntries(entries);
+        return entries;
+    }
+    
+    
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Set<WeblogEntry> removeComments(Collection<String> commentIds)
+            throws WebloggerException {
         
+        Set<String> entryIds = new HashSet<>();
+        List<String> ids = new ArrayList<>(commentIds);
+        for (int i = 0; i < ids.size(); i += BULK_CHUNK_SIZE) {
+            removeCommentChunk(ids.subList(i, Math.min(i + BULK_CHUNK_SIZE, ids.size())), entryIds);
+        }
+        Set<WeblogEntry> entries = new LinkedHashSet<>(loadEntries(entryIds));
+        touchEntries(entries);
+        return entries;
     }
     
     
@@ -696,9 +813,10 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
             Date    endDate,
             ApprovalStatus status) throws WebloggerException {
         
-        // TODO dynamic bulk delete query: I'd MUCH rather use a bulk delete,
-        // but MySQL says "General error, message from server: "You can't
-        // specify target table 'roller_comment' for update in FROM clause"
+        // A single bulk delete with the search criteria would need a join
+        // which MySQL refuses ("You can't specify target table 'roller_comment'
+        // for update in FROM clause"), so select ids a chunk at a time and
+        // delete by id instead.
         
         CommentSearchCriteria csc = new CommentSearchCriteria();
         csc.setWeblog(weblog);
@@ -708,16 +826,92 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
         csc.setEndDate(endDate);
         csc.setStatus(status);
 
-        List<WeblogEntryComment> comments = getComments(csc);
+        Set<String> entryIds = new HashSet<>();
         int count = 0;
-        for (WeblogEntryComment comment : comments) {
-            removeComment(comment);
-            count++;
+        while (true) {
+            TypedQuery<String> q = getCommentQuery(csc, "c.id", String.class, false);
+            q.setMaxResults(BULK_CHUNK_SIZE);
+            List<String> ids = q.getResultList();
+            if (ids.isEmpty()) {
+                break;
+            }
+            
+            int removed = removeCommentChunk(ids, entryIds);
+            count += removed;
+            
+            // commit each chunk so a large purge does not hold locks on
+            // the whole comment table until it is done
+            this.strategy.flush();
+            
+            if (removed == 0 || ids.size() < BULK_CHUNK_SIZE) {
+                break;
+            }
+        }
+        
+        List<WeblogEntry> entries = loadEntries(entryIds);
+        touchEntries(entries);
+        
+        // reindex only once the deletes are committed, the index operation
+        // reads the entry in its own session
+        this.strategy.flush();
+        for (WeblogEntry touched : entries) {
+            roller.getIndexManager().addEntryReIndexOperation(touched);
         }
         return count;
     }
     
     
+    /**
+     * Delete one chunk of comments by id, remembering which entries they
+     * belonged to.
+     */
+    private int removeCommentChunk(List<String> ids, Set<String> entryIds)
+            throws WebloggerException {
+        
+        TypedQuery<String> q = strategy.getNamedQuery(
+                "WeblogEntryComment.getEntryIdsByIds", String.class);
+        q.setParameter(1, ids);
+        entryIds.addAll(q.getResultList());
+        
+        Query delete = strategy.getNamedUpdate("WeblogEntryComment.removeByIds");
+        delete.setParameter(1, ids);
+        return delete.executeUpdate();
+    }
+    
+    
+    private List<WeblogEntry> loadEntries(Set<String> entryIds) throws WebloggerException {
+        List<WeblogEntry> entries = new ArrayList<>(entryIds.size());
+        for (String id : entryIds) {
+            WeblogEntry entry = getWeblogEntry(id);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+    
+    
+    /**
+     * After a batch of comment changes, update the last modified date of
+     * each affected weblog once.  Entries are not reindexed here since the
+     * changes are not committed yet.
+     */
+    private void touchEntries(Collection<WeblogEntry> entries)
+            throws WebloggerException {
+        
+        Set<Weblog> weblogs = new LinkedHashSet<>();
+        for (WeblogEntry entry : entries) {
+            entry.setCommentCount(null);
+            weblogs.add(entry.getWebsite());
+        }
+        
+        // update weblog last modified date.  date updated by saveWebsite()
+        for (Weblog weblog : weblogs) {
+            roller.getWeblogManager().saveWeblog(weblog);
+        }
+    }
+    
+    
     /**
      * @inheritDoc
      */
@@ -736,15 +930,26 @@ public class JPAWeblogEntryManagerImpl implements WeblogEntryManager {
     @Override
     public WeblogCategory getWeblogCategoryByName(Weblog weblog,
             String categoryName) throws WebloggerException {
+        String key = EntityLookupCache.categoryKey(weblog.getId(), categoryName);
+        WeblogCategory cat = entityCache.get(key, WeblogCategory.class, strategy,
+                cached -> categoryName.equals(cached.getName())
+                        && cached.getWeblog() != null
+                        && weblog.getId().equals(cached.getWeblog().getId()));
+        if (cat != null) {
+            return cat;
+        }
+
         TypedQuery<WeblogCategory> q = strategy.getNamedQuery(
                 "WeblogCategory.getByWeblog&Name", WeblogCategory.class);
         q.setParameter(1, weblog);
         q.setParameter(2, categoryName);
         try {
-            return q.getSingleResult();
+            cat = q.getSingleResult();
         } catch (NoResultException e) {
             return null;
         }
+        entityCache.put(key, cat.getId());
+        return cat;
     }
 
     /**
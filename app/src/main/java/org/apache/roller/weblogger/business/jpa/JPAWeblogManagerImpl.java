@@ -34,7 +34,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -80,8 +79,8 @@ public class JPAWeblogManagerImpl implements WeblogManager {
     private final Weblogger roller;
     private final JPAPersistenceStrategy strategy;
     
-    // cached mapping of weblogHandles -> weblogIds
-    private final Map<String, String> weblogHandleToIdMap = Collections.synchronizedMap(new HashMap<>());
+    // cached mapping of weblog handles and template keys -> ids
+    private final EntityLookupCache entityCache = EntityLookupCache.getInstance();
 
     @com.google.inject.Inject
     protected JPAWeblogManagerImpl(Weblogger roller, JPAPersistenceStrategy strat) {
@@ -103,6 +102,7 @@ public class JPAWeblogManagerImpl implements WeblogManager {
         
         weblog.setLastModified(new java.util.Date());
         strategy.store(weblog);
+        entityCache.remove(EntityLookupCache.weblogKey(weblog.getHandle()));
     }
     
     @Override
@@ -113,7 +113,7 @@ public class JPAWeblogManagerImpl implements WeblogManager {
         this.strategy.remove(weblog);
         
         // remove entry from cache mapping
-        this.weblogHandleToIdMap.remove(weblog.getHandle());
+        entityCache.remove(EntityLookupCache.weblogKey(weblog.getHandle()));
     }
     
     /**
@@ -178,6 +178,7 @@ public class JPAWeblogManagerImpl implements WeblogManager {
 
         for (WeblogTemplate template : templates) {
             this.strategy.remove(template);
+            entityCache.removeTemplate(template);
         }
         
         // remove folders (including bookmarks)
@@ -243,6 +244,7 @@ public class JPAWeblogManagerImpl implements WeblogManager {
     @Override
     public void saveTemplate(WeblogTemplate template) throws WebloggerException {
         this.strategy.store(template);
+        entityCache.removeTemplate(template);
         
         // update weblog last modified date.  date updated by saveWeblog()
         roller.getWeblogManager().saveWeblog(template.getWeblog());
@@ -259,6 +261,7 @@ public class JPAWeblogManagerImpl implements WeblogManager {
     @Override
     public void removeTemplate(WeblogTemplate template) throws WebloggerException {
         this.strategy.remove(template);
+        entityCache.removeTemplate(template);
         // update weblog last modified date.  date updated by saveWeblog()
         roller.getWeblogManager().saveWeblog(template.getWeblog());
     }
@@ -372,25 +375,20 @@ public class JPAWeblogManagerImpl implements WeblogManager {
         
         // check cache first
         // NOTE: if we ever allow changing handles then this needs updating
-        String blogID = this.weblogHandleToIdMap.get(handle);
-        if(blogID != null) {
-            
-            Weblog weblog = this.getWeblog(blogID);
-            if (weblog != null) {
-                // only return weblog if enabled status matches
-                if(visible == null || visible.equals(weblog.getVisible())) {
-                    log.debug("weblogHandleToId CACHE HIT - "+handle);
-                    return weblog;
-                }
-            } else {
-                // mapping hit with lookup miss?  mapping must be old, remove it
-                this.weblogHandleToIdMap.remove(handle);
+        String key = EntityLookupCache.weblogKey(handle);
+        Weblog weblog = entityCache.get(key, Weblog.class, strategy,
+                cached -> handle.equals(cached.getHandle()));
+        if (weblog != null) {
+            // only return weblog if enabled status matches
+            if(visible == null || visible.equals(weblog.getVisible())) {
+                log.debug("weblogHandleToId CACHE HIT - "+handle);
+                return weblog;
             }
+            return null;
         }
         
         TypedQuery<Weblog> query = strategy.getNamedQuery("Weblog.getByHandle", Weblog.class);
         query.setParameter(1, handle);
-        Weblog weblog;
         try {
             weblog = query.getSingleResult();
         } catch (NoResultException e) {
@@ -400,7 +398,7 @@ public class JPAWeblogManagerImpl implements WeblogManager {
         // add mapping to cache
         if(weblog != null) {
             log.debug("weblogHandleToId CACHE MISS - "+handle);
-            this.weblogHandleToIdMap.put(weblog.getHandle(), weblog.getId());
+            entityCache.put(key, weblog.getId());
         }
         
         if(weblog != null &&
@@ -533,15 +531,24 @@ public class JPAWeblogManagerImpl implements WeblogManager {
             throw new WebloggerException("templateLink is null");
         }
 
+        String key = EntityLookupCache.templateLinkKey(weblog.getId(), templateLink);
+        WeblogTemplate template = entityCache.get(key, WeblogTemplate.class, strategy,
+                cached -> isTemplateOf(cached, weblog) && templateLink.equals(cached.getLink()));
+        if (template != null) {
+            return template;
+        }
+
         TypedQuery<WeblogTemplate> query = strategy.getNamedQuery("WeblogTemplate.getByWeblog&Link",
                 WeblogTemplate.class);
         query.setParameter(1, weblog);
         query.setParameter(2, templateLink);
         try {
-            return query.getSingleResult();
+            template = query.getSingleResult();
         } catch (NoResultException e) {
             return null;
         }
+        entityCache.put(key, template.getId());
+        return template;
     }
     
     /**
@@ -559,15 +566,24 @@ public class JPAWeblogManagerImpl implements WeblogManager {
             throw new WebloggerException("Action name is null");
         }
         
+        String key = EntityLookupCache.templateActionKey(weblog.getId(), action);
+        WeblogTemplate template = entityCache.get(key, WeblogTemplate.class, strategy,
+                cached -> isTemplateOf(cached, weblog) && action.equals(cached.getAction()));
+        if (template != null) {
+            return template;
+        }
+
         TypedQuery<WeblogTemplate> query = strategy.getNamedQuery("WeblogTemplate.getByAction",
                 WeblogTemplate.class);
         query.setParameter(1, weblog);
         query.setParameter(2, action);
         try {
-            return query.getSingleResult();
+            template = query.getSingleResult();
         } catch (NoResultException e) {
             return null;
-        }        
+        }
+        entityCache.put(key, template.getId());
+        return template;
     }
     
     /**
@@ -585,15 +601,24 @@ public class JPAWeblogManagerImpl implements WeblogManager {
             throw new WebloggerException("Template name is null");
         }
         
+        String key = EntityLookupCache.templateNameKey(weblog.getId(), templateName);
+        WeblogTemplate template = entityCache.get(key, WeblogTemplate.class, strategy,
+                cached -> isTemplateOf(cached, weblog) && templateName.equals(cached.getName()));
+        if (template != null) {
+            return template;
+        }
+
         TypedQuery<WeblogTemplate> query = strategy.getNamedQuery("WeblogTemplate.getByWeblog&Name",
                 WeblogTemplate.class);
         query.setParameter(1, weblog);
         query.setParameter(2, templateName);
         try {
-            return query.getSingleResult();
+            template = query.getSingleResult();
         } catch (NoResultException e) {
             return null;
         }
+        entityCache.put(key, template.getId());
+        return template;
     }
 
     /**
@@ -627,6 +652,14 @@ public class JPAWeblogManagerImpl implements WeblogManager {
         return results;
     }
     
+    @Override
+    public List<Weblog> getWeblogsModifiedSince(Date since) throws WebloggerException {
+        TypedQuery<Weblog> query = strategy.getNamedQuery(
+                "Weblog.getByEnabledTrue&ActiveTrue&LastModifiedGreaterOrderByLastModified", Weblog.class);
+        query.setParameter(1, new Timestamp(since != null ? since.getTime() : 0));
+        return query.getResultList();
+    }
+    
     @Override
     public List<Weblog> getWeblogsByLetter(char letter, int offset, int length)
     throws WebloggerException {
@@ -705,6 +738,13 @@ public class JPAWeblogManagerImpl implements WeblogManager {
         return results.get(0);
     }
 
+    /**
+     * True if the template belongs to the given weblog.
+     */
+    private static boolean isTemplateOf(WeblogTemplate template, Weblog weblog) {
+        return template.getWeblog() != null && weblog.getId().equals(template.getWeblog().getId());
+    }
+
     /**
      * Returns true if alphanumeric or '_'.
      */
@@ -28,7 +28,6 @@ import org.apache.roller.planet.business.PlanetManager;
 import org.apache.roller.planet.business.PlanetURLStrategy;
 import org.apache.roller.planet.business.fetcher.FeedFetcher;
 import org.apache.roller.planet.business.jpa.JPAPlanetImpl;
-import org.apache.roller.planet.business.jpa.JPAPlanetManagerImpl;
 import org.apache.roller.weblogger.business.BookmarkManager;
 import org.apache.roller.weblogger.business.FileContentManager;
 import org.apache.roller.weblogger.business.FileContentManagerImpl;
@@ -51,6 +50,7 @@ import org.apache.roller.weblogger.business.search.IndexManager;
 import org.apache.roller.weblogger.business.search.lucene.LuceneIndexManager;
 import org.apache.roller.weblogger.business.themes.ThemeManager;
 import org.apache.roller.weblogger.business.themes.ThemeManagerImpl;
+import org.apache.roller.weblogger.planet.business.WebloggerPlanetManagerImpl;
 import org.apache.roller.weblogger.planet.business.WebloggerRomeFeedFetcher;
 
 
@@ -88,7 +88,7 @@ public class JPAWebloggerModule implements Module {
         binder.bind(URLStrategy.class).to(         MultiWeblogURLStrategy.class);
         binder.bind(PlanetURLStrategy.class).to(   MultiPlanetURLStrategy.class);
 		binder.bind(Planet.class).to(              JPAPlanetImpl.class);
-        binder.bind(PlanetManager.class).to(       JPAPlanetManagerImpl.class);   
+        binder.bind(PlanetManager.class).to(       WebloggerPlanetManagerImpl.class);   
         binder.bind(FeedFetcher.class).to(         WebloggerRomeFeedFetcher.class);
     }
     
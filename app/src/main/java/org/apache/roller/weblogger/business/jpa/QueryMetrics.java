@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business.jpa;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+
+
+/**
+ * Opt-in instrumentation of the statements issued through
+ * {@link JPAPersistenceStrategy}.
+ *
+ * When enabled via jpa.instrumentation.enabled, queries handed out by the
+ * strategy are wrapped so that executing them is counted and timed.  Writes,
+ * that is store() and flush(), are timed too but kept apart from the queries
+ * so they don't skew the query numbers.  Numbers are kept for the current
+ * request (between {@link #startRequest()} and {@link #endRequest()}, called
+ * by the PersistenceSessionFilter) and aggregated over all requests,
+ * including histograms of per-request query counts and query time.
+ *
+ * When disabled none of this code is on the hot path; the strategy only
+ * checks {@link #isEnabled()}.
+ */
+public final class QueryMetrics {
+
+    private static volatile boolean enabled =
+            WebloggerConfig.getBooleanProperty("jpa.instrumentation.enabled", false);
+
+    private static final int TOP_STATEMENTS =
+            WebloggerConfig.getIntProperty("jpa.instrumentation.topStatements", 10);
+
+    // histogram bucket upper bounds, last bucket is open ended
+    private static final long[] QUERY_COUNT_BUCKETS = {0, 5, 10, 25, 50, 100};
+    private static final long[] DB_TIME_MS_BUCKETS = {1, 5, 10, 50, 100, 500};
+
+    private static final ThreadLocal<RequestStats> CURRENT = new ThreadLocal<>();
+
+    private static final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private static final Map<String, StatementStats> writes = new ConcurrentHashMap<>();
+    private static final LongAdder requests = new LongAdder();
+    private static final LongAdder requestQueries = new LongAdder();
+    private static final LongAdder requestNanos = new LongAdder();
+    private static final LongAdder requestWrites = new LongAdder();
+    private static final LongAdder requestWriteNanos = new LongAdder();
+    private static volatile AtomicLongArray queryCountHistogram =
+            new AtomicLongArray(QUERY_COUNT_BUCKETS.length + 1);
+    private static volatile AtomicLongArray dbTimeHistogram =
+            new AtomicLongArray(DB_TIME_MS_BUCKETS.length + 1);
+    private static volatile Date startTime = new Date();
+
+    private static final Set<String> TIMED_METHODS = Set.of(
+            "getResultList", "getSingleResult", "getResultStream", "executeUpdate");
+
+
+    // a non-instantiable class
+    private QueryMetrics() {}
+
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+
+    /**
+     * Turn instrumentation on or off, for tests.  Only queries created
+     * afterwards are affected.
+     */
+    static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+
+    /**
+     * Begin collecting numbers for the request handled by this thread.
+     */
+    public static void startRequest() {
+        if (enabled) {
+            CURRENT.set(new RequestStats());
+        }
+    }
+
+
+    /**
+     * Stop collecting for the current thread and fold the request into the
+     * aggregate histograms.
+     *
+     * @return numbers for the request, or null if nothing was being collected
+     */
+    public static RequestStats endRequest() {
+        RequestStats stats = CURRENT.get();
+        if (stats == null) {
+            return null;
+        }
+        CURRENT.remove();
+
+        requests.increment();
+        requestQueries.add(stats.getQueryCount());
+        requestNanos.add(stats.totalNanos);
+        requestWrites.add(stats.getWriteCount());
+        requestWriteNanos.add(stats.writeNanos);
+        queryCountHistogram.incrementAndGet(bucket(QUERY_COUNT_BUCKETS, stats.getQueryCount()));
+        dbTimeHistogram.incrementAndGet(bucket(DB_TIME_MS_BUCKETS, stats.getTotalMillis()));
+        return stats;
+    }
+
+
+    /**
+     * Record one statement execution.
+     */
+    public static void record(String statement, long nanos) {
+        statements.computeIfAbsent(statement, k -> new StatementStats()).add(nanos);
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.add(statement, nanos);
+        }
+    }
+
+
+    /**
+     * Record one write, such as persisting an object or committing.
+     */
+    public static void recordWrite(String operation, long nanos) {
+        writes.computeIfAbsent(operation, k -> new StatementStats()).add(nanos);
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.addWrite(operation, nanos);
+        }
+    }
+
+
+    /**
+     * Wrap a query so that its execution is recorded under the given name.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TypedQuery<T> wrap(TypedQuery<T> query, String statement) {
+        return (TypedQuery<T>) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+                new Class<?>[] {TypedQuery.class}, new TimingHandler(query, statement));
+    }
+
+
+    /**
+     * Wrap an untyped query so that its execution is recorded under the given name.
+     */
+    public static Query wrap(Query query, String statement) {
+        return (Query) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+                new Class<?>[] {Query.class}, new TimingHandler(query, statement));
+    }
+
+
+    /**
+     * Aggregated stats in the same shape as the cache stats so they can be
+     * shown alongside them.
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("startTime", startTime);
+        long count = requests.sum();
+        stats.put("requests", count);
+        if (count > 0) {
+            stats.put("avgQueriesPerRequest", requestQueries.sum() / count);
+            stats.put("avgQueryMillisPerRequest",
+                    TimeUnit.NANOSECONDS.toMillis(requestNanos.sum()) / count);
+            stats.put("avgWritesPerRequest", requestWrites.sum() / count);
+            stats.put("avgWriteMillisPerRequest",
+                    TimeUnit.NANOSECONDS.toMillis(requestWriteNanos.sum()) / count);
+        }
+        stats.put("queriesPerRequest", histogram(QUERY_COUNT_BUCKETS, queryCountHistogram, ""));
+        stats.put("queryTimePerRequest", histogram(DB_TIME_MS_BUCKETS, dbTimeHistogram, "ms"));
+        putTop(stats, "top", statements);
+        putTop(stats, "topWrite", writes);
+        return stats;
+    }
+
+
+    /**
+     * Reset all aggregated numbers.
+     */
+    public static void clear() {
+        statements.clear();
+        writes.clear();
+        requests.reset();
+        requestQueries.reset();
+        requestNanos.reset();
+        requestWrites.reset();
+        requestWriteNanos.reset();
+        queryCountHistogram = new AtomicLongArray(QUERY_COUNT_BUCKETS.length + 1);
+        dbTimeHistogram = new AtomicLongArray(DB_TIME_MS_BUCKETS.length + 1);
+        startTime = new Date();
+    }
+
+
+    private static void putTop(Map<String, Object> stats, String prefix, Map<String, StatementStats> all) {
+        List<Map.Entry<String, StatementStats>> top = new ArrayList<>(all.entrySet());
+        top.sort(Comparator.comparingLong(
+                (Map.Entry<String, StatementStats> e) -> e.getValue().nanos.sum()).reversed());
+        int rank = 1;
+        for (Map.Entry<String, StatementStats> e : top.subList(0, Math.min(TOP_STATEMENTS, top.size()))) {
+            stats.put(prefix + rank++, e.getKey() + " count=" + e.getValue().count.sum()
+                    + " time=" + TimeUnit.NANOSECONDS.toMillis(e.getValue().nanos.sum()) + "ms");
+        }
+    }
+
+
+    private static int bucket(long[] bounds, long value) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (value <= bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length;
+    }
+
+
+    private static String histogram(long[] bounds, AtomicLongArray counts, String unit) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= bounds.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(i < bounds.length ? "<=" + bounds[i] : ">" + bounds[bounds.length - 1]);
+            sb.append(unit).append(": ").append(counts.get(i));
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Numbers collected for a single request.
+     */
+    public static final class RequestStats {
+
+        private final Map<String, long[]> statementTimes = new HashMap<>();
+        private final Map<String, long[]> writeTimes = new HashMap<>();
+        private int queryCount = 0;
+        private long totalNanos = 0;
+        private int writeCount = 0;
+        private long writeNanos = 0;
+
+        private void add(String statement, long nanos) {
+            queryCount++;
+            totalNanos += nanos;
+            add(statementTimes, statement, nanos);
+        }
+
+        private void addWrite(String operation, long nanos) {
+            writeCount++;
+            writeNanos += nanos;
+            add(writeTimes, operation, nanos);
+        }
+
+        private static void add(Map<String, long[]> times, String key, long nanos) {
+            long[] entry = times.computeIfAbsent(key, k -> new long[2]);
+            entry[0]++;
+            entry[1] += nanos;
+        }
+
+        public int getQueryCount() {
+            return queryCount;
+        }
+
+        /**
+         * Time spent in queries, not counting writes.
+         */
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+
+        public int getWriteCount() {
+            return writeCount;
+        }
+
+        public long getWriteMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(writeNanos);
+        }
+
+        /**
+         * The most expensive statements of the request, formatted for logging.
+         */
+        public String getTopStatements(int max) {
+            return top(statementTimes, max);
+        }
+
+        /**
+         * The most expensive writes of the request, formatted for logging.
+         */
+        public String getTopWrites(int max) {
+            return top(writeTimes, max);
+        }
+
+        private static String top(Map<String, long[]> times, int max) {
+            List<Map.Entry<String, long[]>> top = new ArrayList<>(times.entrySet());
+            top.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[1]).reversed());
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, long[]> e : top.subList(0, Math.min(max, top.size()))) {
+                sb.append(sb.length() == 0 ? "" : ", ").append(e.getKey())
+                        .append(" x").append(e.getValue()[0])
+                        .append(' ').append(TimeUnit.NANOSECONDS.toMillis(e.getValue()[1])).append("ms");
+            }
+            return sb.toString();
+        }
+    }
+
+
+    private static final class StatementStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private void add(long time) {
+            count.increment();
+            nanos.add(time);
+        }
+    }
+
+
+    /**
+     * Times the executing methods of a query and keeps fluent setters
+     * returning the proxy rather than the wrapped query.
+     */
+    private static final class TimingHandler implements InvocationHandler {
+
+        private final Object target;
+        private final String statement;
+
+        private TimingHandler(Object target, String statement) {
+            this.target = target;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean timed = TIMED_METHODS.contains(method.getName());
+            long start = timed ? System.nanoTime() : 0;
+            try {
+                Object result = method.invoke(target, args);
+                return result == target ? proxy : result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (timed) {
+                    record(statement, System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+}
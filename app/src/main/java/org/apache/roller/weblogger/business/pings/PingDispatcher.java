@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business.pings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.weblogger.business.runnable.ManagedExecutor;
+import org.apache.roller.weblogger.config.PingConfig;
+import org.apache.roller.weblogger.pojos.PingQueueEntry;
+
+
+/**
+ * Sends weblog update pings concurrently.
+ *
+ * Pings for the same weblog and ping target are coalesced into one.  Pings
+ * are then grouped by ping target and each target is worked through by one
+ * thread at a time, no faster than its maximum rate, so a slow target only
+ * holds up its own pings.  A target failing too many pings in a row is
+ * skipped until a cool down period has passed, after which a single ping
+ * decides whether it is skipped again.  Skipped pings are not sent.
+ *
+ * The failure state of targets is kept across calls to {@link #dispatch}.
+ */
+final class PingDispatcher {
+
+    private static final Log LOGGER = LogFactory.getLog(PingDispatcher.class);
+
+    enum Outcome { SENT, FAILED, SKIPPED }
+
+    private final int threads;
+    private final long minIntervalNanos;
+    private final int failureThreshold;
+    private final long coolDownMillis;
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+
+
+    PingDispatcher() {
+        this(PingConfig.getDispatchThreads(), PingConfig.getTargetPingsPerSecond(),
+                PingConfig.getTargetFailureThreshold(), TimeUnit.MINUTES.toMillis(PingConfig.getTargetCoolDownMins()));
+    }
+
+    PingDispatcher(int threads, int pingsPerSecond, int failureThreshold, long coolDownMillis) {
+        this.threads = Math.max(1, threads);
+        this.minIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, pingsPerSecond);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.coolDownMillis = coolDownMillis;
+    }
+
+
+    /**
+     * Send pings, returning once every one of them has an outcome.
+     */
+    void dispatch(Collection<Ping> pings) throws InterruptedException {
+
+        // one send per weblog and target, its outcome shared by any duplicates
+        Map<String, Map<String, Ping>> byTarget = new LinkedHashMap<>();
+        for (Ping ping : pings) {
+            Ping send = byTarget.computeIfAbsent(ping.targetUrl, k -> new LinkedHashMap<>())
+                    .putIfAbsent(ping.weblogUrl, ping);
+            if (send != null) {
+                send.duplicates.add(ping);
+            }
+        }
+        if (byTarget.isEmpty()) {
+            return;
+        }
+
+        List<Callable<Void>> lanes = new ArrayList<>(byTarget.size());
+        for (Map.Entry<String, Map<String, Ping>> entry : byTarget.entrySet()) {
+            lanes.add(() -> send(entry.getKey(), entry.getValue().values()));
+        }
+
+        // the queue holds every lane, so nothing is ever rejected
+        ExecutorService pool = ManagedExecutor.fromConfig("pings.dispatch", Math.min(threads, lanes.size()),
+                lanes.size(), ManagedExecutor.Rejection.ABORT);
+        try {
+            pool.invokeAll(lanes);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+
+    // send the pings of one target in turn
+    private Void send(String url, Collection<Ping> pings) {
+        Target target = targets.computeIfAbsent(url, k -> new Target());
+        for (Ping ping : pings) {
+            if (!target.allows(System.currentTimeMillis())) {
+                ping.complete(Outcome.SKIPPED, null);
+                continue;
+            }
+            try {
+                target.pace(minIntervalNanos);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                ping.complete(Outcome.SKIPPED, null);
+                continue;
+            }
+            try {
+                WeblogUpdatePinger.sendPing(url, ping.weblogName, ping.weblogUrl);
+                target.succeeded();
+                ping.complete(Outcome.SENT, null);
+            } catch (Exception ex) {
+                if (target.failed(System.currentTimeMillis(), failureThreshold, coolDownMillis)) {
+                    LOGGER.warn("Ping target " + url + " failed " + failureThreshold
+                            + " pings in a row, skipping it for " + TimeUnit.MILLISECONDS.toMinutes(coolDownMillis)
+                            + " minutes");
+                }
+                ping.complete(Outcome.FAILED, ex);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * A ping of a weblog to a ping target, and its outcome once dispatched.
+     */
+    static final class Ping {
+        private final PingQueueEntry entry;
+        private final String targetUrl;
+        private final String weblogName;
+        private final String weblogUrl;
+        private final List<Ping> duplicates = new ArrayList<>();
+        private Outcome outcome = null;
+        private Exception error = null;
+
+        Ping(PingQueueEntry entry, String targetUrl, String weblogName, String weblogUrl) {
+            this.entry = entry;
+            this.targetUrl = targetUrl;
+            this.weblogName = weblogName;
+            this.weblogUrl = weblogUrl;
+        }
+
+        private void complete(Outcome outcome, Exception error) {
+            this.outcome = outcome;
+            this.error = error;
+            for (Ping duplicate : duplicates) {
+                duplicate.complete(outcome, error);
+            }
+        }
+
+        PingQueueEntry getEntry() {
+            return entry;
+        }
+
+        Outcome getOutcome() {
+            return outcome;
+        }
+
+        Exception getError() {
+            return error;
+        }
+    }
+
+
+    // rate limit and failure state of a ping target
+    private static final class Target {
+        private long lastSent = 0;
+        private int failures = 0;
+        private long skipUntil = 0;
+
+        synchronized boolean allows(long now) {
+            return now >= skipUntil;
+        }
+
+        // wait until the next ping may be sent
+        synchronized void pace(long intervalNanos) throws InterruptedException {
+            long wait = lastSent + intervalNanos - System.nanoTime();
+            if (lastSent != 0 && wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            lastSent = System.nanoTime();
+        }
+
+        synchronized void succeeded() {
+            failures = 0;
+        }
+
+        // true if the target is now to be skipped
+        synchronized boolean failed(long now, int threshold, long coolDown) {
+            if (++failures >= threshold) {
+                skipUntil = now + coolDown;
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
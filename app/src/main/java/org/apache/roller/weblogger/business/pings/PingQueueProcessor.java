@@ -18,6 +18,7 @@
 
 package org.apache.roller.weblogger.business.pings;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -43,6 +44,8 @@ public final class PingQueueProcessor {
     
     private PingQueueManager pingQueueMgr;
     
+    private final PingDispatcher dispatcher = new PingDispatcher();
+    
     
     public static PingQueueProcessor getInstance() {
         return theInstance;
@@ -88,26 +91,30 @@ public final class PingQueueProcessor {
             return;
         }
         
-        // TODO: Group by ping target and ping all sites for that target?
-        // We're currently not taking advantage of grouping by ping target site and then sending
-        // all of the pings for that target at once.  If it becomes an efficiency issue, we should do
-        // that.
-        
         try {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Started processing ping queue.");
             }
             // Get all of the entries
             List<PingQueueEntry> entries = pingQueueMgr.getAllQueueEntries();
-            
-            // Process each entry
-            for (PingQueueEntry pingQueueEntry : entries) {
-                processQueueEntry(pingQueueEntry);
+
+            if (PingConfig.getLogPingsOnly()) {
+                for (PingQueueEntry pingQueueEntry : entries) {
+                    // Just log the ping and pretend it succeeded.
+                    LOGGER.info("Logging simulated ping for ping queue entry " + pingQueueEntry);
+                    pingQueueMgr.removeQueueEntry(pingQueueEntry);
+                }
+            } else {
+                processQueueEntries(entries);
             }
 
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Finished processing ping queue.");
             }
+        } catch (InterruptedException ex) {
+            // being shut down, leave the rest queued for the next round
+            LOGGER.info("Interrupted while processing ping queue, remaining pings stay queued.");
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             LOGGER.error("Unexpected exception processing ping queue!  Aborting this pass of ping queue processing.", ex);
         }
@@ -115,43 +122,53 @@ public final class PingQueueProcessor {
     
     
     /**
-     * Process an individual ping queue entry.
+     * Send the pings of the given queue entries, concurrently across ping targets, then remove or requeue the entries
+     * according to the outcome of their ping.  Entries of ping targets currently being skipped for failing stay queued
+     * without counting an attempt.
      *
-     * @param pingQueueEntry     the ping queue entry
+     * @param entries the ping queue entries
      * @throws WebloggerException only if there are problems processing the queue.  Exceptions from sending pings are
      *                         handled, not thrown.
      */
-    private void processQueueEntry(PingQueueEntry pingQueueEntry) throws WebloggerException {
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Processing ping queue entry: " + pingQueueEntry);
+    private void processQueueEntries(List<PingQueueEntry> entries) throws WebloggerException, InterruptedException {
+        // Read everything needed to send the pings while still on this thread
+        List<PingDispatcher.Ping> pings = new ArrayList<>(entries.size());
+        for (PingQueueEntry pingQueueEntry : entries) {
+            PingTarget pingTarget = pingQueueEntry.getPingTarget();
+            Weblog website = pingQueueEntry.getWebsite();
+            pings.add(new PingDispatcher.Ping(pingQueueEntry, pingTarget.getPingUrl(),
+                    website.getName(), website.getAbsoluteURL()));
         }
-        
-        PingTarget pingTarget = pingQueueEntry.getPingTarget();
-        Weblog website = pingQueueEntry.getWebsite();
-        boolean pingSucceeded = false;
-        if (PingConfig.getLogPingsOnly()) {
-            // Just log the ping and pretend it succeeded.
-            LOGGER.info("Logging simulated ping for ping queue entry " + pingQueueEntry);
-            pingSucceeded = true;
-        } else {
-            // Actually process the ping
-            try {
-                // Send the ping
-                WeblogUpdatePinger.sendPing(pingTarget, website);
-                // Consider successful ping transmission if we didn't get an exception.  We don't care here
-                // about the result of the ping if it was transmitted.
-                pingSucceeded = true;
-            } catch (Exception ex) {
-                // Handle the ping error, either removing or requeuing the ping queue entry.
-                handlePingError(pingQueueEntry, ex);
+
+        dispatcher.dispatch(pings);
+
+        int sent = 0;
+        int failed = 0;
+        int skipped = 0;
+        for (PingDispatcher.Ping ping : pings) {
+            PingQueueEntry pingQueueEntry = ping.getEntry();
+            switch (ping.getOutcome()) {
+                case SENT:
+                    // Consider successful ping transmission if we didn't get an exception.  We don't care here
+                    // about the result of the ping if it was transmitted.
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Processed ping: " + pingQueueEntry);
+                    }
+                    pingQueueMgr.removeQueueEntry(pingQueueEntry);
+                    sent++;
+                    break;
+                case FAILED:
+                    // Handle the ping error, either removing or requeuing the ping queue entry.
+                    handlePingError(pingQueueEntry, ping.getError());
+                    failed++;
+                    break;
+                default:
+                    skipped++;
             }
         }
-        // We do this outside of the previous try-catch because we don't want an exception here to be considered a ping error.
-        if (pingSucceeded) {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Processed ping: " + pingQueueEntry);
-            }
-            pingQueueMgr.removeQueueEntry(pingQueueEntry);
+        if (!pings.isEmpty()) {
+            LOGGER.info("Ping queue pass: " + sent + " sent, " + failed + " failed, " + skipped
+                    + " skipped for failing targets");
         }
     }
     
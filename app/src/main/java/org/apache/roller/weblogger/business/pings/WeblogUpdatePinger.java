@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility for sending a weblog update ping.
@@ -99,24 +100,39 @@ public final class WeblogUpdatePinger {
      * @throws XmlRpcException if the XML RPC client throws one
      */
     public static PingResult sendPing(PingTarget pingTarget, Weblog website) throws IOException, XmlRpcException {
-        String websiteUrl = website.getAbsoluteURL();
-        String pingTargetUrl = pingTarget.getPingUrl();
+        return sendPing(pingTarget.getPingUrl(), website.getName(), website.getAbsoluteURL());
+    }
+
+    /**
+     * Send a weblog update ping.
+     *
+     * @param pingTargetUrl      the url of the target site to ping
+     * @param websiteName        the name of the website that changed
+     * @param websiteUrl         the absolute url of the website that changed
+     * @return the result message string sent by the server.
+     * @throws IOException if an IOException occurs during the ping
+     * @throws XmlRpcException if the XML RPC client throws one
+     */
+    public static PingResult sendPing(String pingTargetUrl, String websiteName, String websiteUrl)
+            throws IOException, XmlRpcException {
         Set<String> variantOptions = PingConfig.getVariantOptions(pingTargetUrl);
 
         // Set up the ping parameters.
         List<String> params = new ArrayList<>();
         if (!variantOptions.contains("noname")) {
             // ping variant for icerocket and anyone with similar bug, where we must omit the blog name.
-            params.add(website.getName());
+            params.add(websiteName);
         }
         params.add(websiteUrl);
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Executing ping to '" + pingTargetUrl + "' for website '" + websiteUrl + "' (" + website.getName() + ")" + (variantOptions.isEmpty() ? "" : " with variant options " + variantOptions));
+            LOGGER.debug("Executing ping to '" + pingTargetUrl + "' for website '" + websiteUrl + "' (" + websiteName + ")" + (variantOptions.isEmpty() ? "" : " with variant options " + variantOptions));
         }
 
         // Send the ping.
         XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
         config.setServerURL(new URL(pingTargetUrl));
+        config.setConnectionTimeout((int) TimeUnit.SECONDS.toMillis(PingConfig.getTimeoutSecs()));
+        config.setReplyTimeout((int) TimeUnit.SECONDS.toMillis(PingConfig.getTimeoutSecs()));
         XmlRpcClient client = new XmlRpcClient();
         client.setConfig(config);
         PingResult pingResult = parseResult(client.execute("weblogUpdates.ping", params.toArray()));
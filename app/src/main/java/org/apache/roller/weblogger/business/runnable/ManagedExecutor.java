@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business.runnable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+
+
+/**
+ * A named thread pool with a fixed number of threads and a bounded queue,
+ * which keeps count of the tasks it ran and how long they waited and ran.
+ *
+ * Threads are daemon threads named after the pool and go away when idle.
+ * Once the queue is full further tasks are run by the submitting thread,
+ * rejected with a RejectedExecutionException, or discarded, depending on the
+ * rejection policy.
+ *
+ * Executors register themselves by name until they terminate, so that their
+ * gauges can be looked at in one place.
+ */
+public class ManagedExecutor extends ThreadPoolExecutor {
+
+    private static final Log LOG = LogFactory.getLog(ManagedExecutor.class);
+
+    private static final Map<String, ManagedExecutor> EXECUTORS = new ConcurrentSkipListMap<>();
+
+    /**
+     * What to do with a task once the queue is full.
+     */
+    public enum Rejection {
+        /** run it on the thread submitting it */
+        CALLER_RUNS,
+        /** throw a RejectedExecutionException */
+        ABORT,
+        /** drop it */
+        DISCARD
+    }
+
+    private final String name;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+
+    public ManagedExecutor(String name, int threads, int queueSize, Rejection rejection) {
+        super(Math.max(1, threads), Math.max(1, threads), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)));
+        this.name = name;
+
+        AtomicInteger count = new AtomicInteger();
+        setThreadFactory(r -> {
+            Thread thread = new Thread(r, "roller-" + name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        allowCoreThreadTimeOut(true);
+
+        RejectedExecutionHandler handler;
+        switch (rejection) {
+            case CALLER_RUNS:
+                handler = new CallerRunsPolicy();
+                break;
+            case DISCARD:
+                handler = new DiscardPolicy();
+                break;
+            default:
+                handler = new AbortPolicy();
+        }
+        setRejectedExecutionHandler((r, executor) -> {
+            rejected.increment();
+            handler.rejectedExecution(r, executor);
+        });
+
+        EXECUTORS.put(name, this);
+    }
+
+
+    /**
+     * Executor configured by the properties threads.[name].size,
+     * threads.[name].queue and threads.[name].rejection, the latter one of
+     * callerRuns, abort or discard.
+     */
+    public static ManagedExecutor fromConfig(String name, int threads, int queueSize, Rejection rejection) {
+        String prefix = "threads." + name + ".";
+        String policy = WebloggerConfig.getProperty(prefix + "rejection");
+        if (policy != null && !policy.isBlank()) {
+            try {
+                // callerRuns -> CALLER_RUNS
+                rejection = Rejection.valueOf(policy.trim().replaceAll("([a-z])([A-Z])", "$1_$2")
+                        .toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                LOG.warn("Unknown rejection policy for thread pool " + name + ": " + policy);
+            }
+        }
+        return new ManagedExecutor(name, WebloggerConfig.getIntProperty(prefix + "size", threads),
+                WebloggerConfig.getIntProperty(prefix + "queue", queueSize), rejection);
+    }
+
+
+    /**
+     * Executors which have not terminated yet, ordered by name.
+     */
+    public static Collection<ManagedExecutor> getExecutors() {
+        return new ArrayList<>(EXECUTORS.values());
+    }
+
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new Timed(command));
+    }
+
+
+    @Override
+    protected void terminated() {
+        EXECUTORS.remove(name, this);
+        super.terminated();
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+
+    /**
+     * Tasks waiting for a thread.
+     */
+    public int getQueuedCount() {
+        return getQueue().size();
+    }
+
+
+    /**
+     * Tasks run so far, including those run by the submitting thread.
+     */
+    public long getRunCount() {
+        return completed.sum();
+    }
+
+
+    /**
+     * Tasks which found the queue full so far.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+
+    public long getAverageWaitMillis() {
+        long runs = completed.sum();
+        return runs > 0 ? TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / runs) : 0;
+    }
+
+
+    public long getAverageRunMillis() {
+        long runs = completed.sum();
+        return runs > 0 ? TimeUnit.NANOSECONDS.toMillis(runNanos.sum() / runs) : 0;
+    }
+
+
+    public long getMaxRunMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxRunNanos.get());
+    }
+
+
+    /**
+     * Current gauges and counters as a string for logging.
+     */
+    public String getGauges() {
+        return name + "[active=" + getActiveCount() + ", queued=" + getQueuedCount()
+                + ", completed=" + getRunCount() + ", rejected=" + getRejectedCount()
+                + ", avgWait=" + getAverageWaitMillis() + "ms, avgRun=" + getAverageRunMillis()
+                + "ms, maxRun=" + getMaxRunMillis() + "ms]";
+    }
+
+
+    // a task which records how long it waited and ran
+    private final class Timed implements Runnable {
+        private final Runnable task;
+        private final long queued = System.nanoTime();
+
+        private Timed(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            waitNanos.add(start - queued);
+            try {
+                task.run();
+            } finally {
+                long time = System.nanoTime() - start;
+                runNanos.add(time);
+                maxRunNanos.accumulateAndGet(time, Math::max);
+                completed.increment();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+
+}
@@ -20,6 +20,7 @@ package org.apache.roller.weblogger.business.runnable;
 
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.Locale;
 import java.util.Properties;
 import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.config.WebloggerConfig;
@@ -110,6 +111,26 @@ public abstract class RollerTask implements Runnable {
     public abstract int getLeaseTime();
     
     
+    /**
+     * What kind of work this task is, which decides the thread pool it runs on.
+     *
+     * Configured as tasks.<taskname>.workload, maintenance by default.
+     *
+     * @return The workload of this task.
+     */
+    public ThreadManager.Workload getWorkload() {
+        String workload = WebloggerConfig.getProperty("tasks." + getName() + ".workload");
+        if (workload != null && !workload.isBlank()) {
+            try {
+                return ThreadManager.Workload.valueOf(workload.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                // fall back to the default
+            }
+        }
+        return ThreadManager.Workload.MAINTENANCE;
+    }
+    
+    
     /**
      * Get the properties from WebloggerConfig which pertain to this task.
      * 
@@ -21,9 +21,7 @@ package org.apache.roller.weblogger.business.runnable;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,8 +30,6 @@ import org.apache.roller.util.RollerConstants;
 import org.apache.roller.weblogger.business.WebloggerFactory;
 import org.apache.roller.weblogger.pojos.TaskLock;
 
-import static org.apache.roller.util.RollerConstants.GRACEFUL_SHUTDOWN_WAIT_IN_SECONDS;
-
 
 /**
  * Manages scheduling of periodic tasks.
@@ -44,13 +40,13 @@ import static org.apache.roller.util.RollerConstants.GRACEFUL_SHUTDOWN_WAIT_IN_S
  * the scheduler will launch any tasks that need to be executed.  
  * 
  * Tasks are executed each on their own thread, so this scheduler does not run
- * serially like a TimerTask.  The threads used for running tasks are managed
- * by an instance of a ThreadPoolExecutor.
+ * serially like a TimerTask.  The threads used for running tasks are those of
+ * the ThreadManager's pool for the workload of the task, a task is skipped
+ * until its next run if that pool is full.
  */
 public class TaskScheduler implements Runnable {
     
     private static Log log = LogFactory.getLog(TaskScheduler.class);
-    private final ExecutorService pool;
     private final List<RollerTask> tasks;
     
     
@@ -58,9 +54,6 @@ public class TaskScheduler implements Runnable {
         
         // store list of tasks available to run
         tasks = webloggerTasks;
-        
-        // use an expanding thread executor pool
-        pool = Executors.newCachedThreadPool();
     }
     
     
@@ -120,15 +113,6 @@ public class TaskScheduler implements Runnable {
                 break;
             }
         }
-
-        // thread interrupted
-        pool.shutdownNow();
-        try {
-            pool.awaitTermination(GRACEFUL_SHUTDOWN_WAIT_IN_SECONDS, TimeUnit.SECONDS);
-            log.debug("TaskScheduler executor was terminated successfully");
-        } catch (InterruptedException e) {
-            log.debug(e.getMessage(), e);
-        }
     }
     
     
@@ -187,8 +171,11 @@ public class TaskScheduler implements Runnable {
                 long differential = currentTime.getTime() - nextRunTime.getTime();
                 if (differential >= 0 && !needToWait) {
                     log.debug(task.getName()+": LAUNCHING task");
-                    pool.submit(task);
+                    tmgr.executeInBackground(task.getWorkload(), task);
                 }
+            } catch (RejectedExecutionException e) {
+                log.warn(task.getName() + ": skipped, the " + task.getWorkload().getPoolName()
+                        + " thread pool is full");
             } catch (ThreadDeath t) {
                 throw t;
             } catch (Throwable t) {
@@ -18,6 +18,7 @@
 
 package org.apache.roller.weblogger.business.runnable;
 
+import java.util.Locale;
 import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.business.InitializationException;
 import org.apache.roller.weblogger.pojos.TaskLock;
@@ -30,6 +31,20 @@ public interface ThreadManager {
     
     long MIN_RATE_INTERVAL_MINS = 1;
     
+    /**
+     * Kinds of work, each run on its own pool of threads.
+     */
+    enum Workload {
+        INDEX, PINGS, PLANET, MAINTENANCE;
+        
+        /**
+         * Name of the thread pool, as used in its properties.
+         */
+        public String getPoolName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+    
     
     /**
      * Initialize the thread management system.
@@ -40,7 +55,7 @@ public interface ThreadManager {
     
     
     /**
-     * Execute runnable in background (asynchronously).
+     * Execute runnable in background (asynchronously), as maintenance work.
      * @param runnable
      * @throws java.lang.InterruptedException
      */
@@ -49,12 +64,30 @@ public interface ThreadManager {
     
     
     /**
-     * Execute runnable in foreground (synchronously).
+     * Execute runnable in foreground (synchronously), as maintenance work.
      */
     void executeInForeground(Runnable runnable)
         throws InterruptedException;
     
     
+    /**
+     * Execute runnable in background (asynchronously) on the pool of the given workload.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException If the pool is full and rejects further work.
+     */
+    void executeInBackground(Workload workload, Runnable runnable);
+    
+    
+    /**
+     * Execute runnable on the pool of the given workload and wait for it to finish, for at most the
+     * configured foreground timeout after which it is left to finish in the background.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException If the pool is full and rejects further work.
+     */
+    void executeInForeground(Workload workload, Runnable runnable)
+        throws InterruptedException;
+    
+    
     /**
      * Lookup a TaskLock by name.
      * 
@@ -20,16 +20,20 @@ package org.apache.roller.weblogger.business.runnable;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.roller.util.RollerConstants;
 import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.business.InitializationException;
 import org.apache.roller.weblogger.config.WebloggerConfig;
@@ -41,6 +45,10 @@ import static org.apache.roller.util.RollerConstants.GRACEFUL_SHUTDOWN_WAIT_IN_S
 
 /**
  * Manage Roller's thread use.
+ *
+ * Each kind of work runs on its own bounded pool of threads, configured by the
+ * threads.[pool].* properties, so that a backlog of one kind of work can't
+ * starve the others or pile up threads.
  */
 @com.google.inject.Singleton
 public abstract class ThreadManagerImpl implements ThreadManager {
@@ -50,15 +58,38 @@ public abstract class ThreadManagerImpl implements ThreadManager {
     // our own scheduler thread
     private Thread schedulerThread = null;
     
-    // a simple thread executor
-    private final ExecutorService serviceScheduler;
+    // a pool of threads for each kind of work
+    private final Map<Workload, ManagedExecutor> executors = new EnumMap<>(Workload.class);
+    
+    // longest wait for work executed in the foreground
+    private final long foregroundTimeoutSecs;
+    
+    // logs the gauges of all pools, if enabled
+    private ScheduledExecutorService monitor = null;
     
     
     public ThreadManagerImpl() {
         
         LOG.info("Instantiating Thread Manager");
         
-        serviceScheduler = Executors.newCachedThreadPool();
+        for (Workload workload : Workload.values()) {
+            executors.put(workload, ManagedExecutor.fromConfig(
+                    workload.getPoolName(), 2, 100, ManagedExecutor.Rejection.CALLER_RUNS));
+        }
+        
+        foregroundTimeoutSecs = Math.max(1, WebloggerConfig.getIntProperty("threads.foregroundTimeoutSecs", 60));
+        
+        int logInterval = WebloggerConfig.getIntProperty("threads.logInterval", 0);
+        if (logInterval > 0) {
+            monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "roller-threads-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            monitor.scheduleAtFixedRate(() -> LOG.info("Thread pools: " + ManagedExecutor.getExecutors().stream()
+                    .map(ManagedExecutor::getGauges).collect(Collectors.joining(", "))),
+                    logInterval, logInterval, TimeUnit.SECONDS);
+        }
     }
     
     
@@ -125,20 +156,34 @@ public abstract class ThreadManagerImpl implements ThreadManager {
     @Override
     public void executeInBackground(Runnable runnable)
             throws InterruptedException {
-        serviceScheduler.submit(runnable);
+        executeInBackground(Workload.MAINTENANCE, runnable);
     }
     
     
     @Override
     public void executeInForeground(Runnable runnable)
             throws InterruptedException {
-        Future<?> task = serviceScheduler.submit(runnable);
-        
-        // since this task is really meant to be executed within this calling 
-        // thread, here we can add a little code here to loop until it realizes 
-        // the task is done
-        while(!task.isDone()) {
-            Thread.sleep(RollerConstants.HALF_SEC_IN_MS);
+        executeInForeground(Workload.MAINTENANCE, runnable);
+    }
+    
+    
+    @Override
+    public void executeInBackground(Workload workload, Runnable runnable) {
+        executors.get(workload).execute(runnable);
+    }
+    
+    
+    @Override
+    public void executeInForeground(Workload workload, Runnable runnable)
+            throws InterruptedException {
+        Future<?> task = executors.get(workload).submit(runnable);
+        try {
+            task.get(foregroundTimeoutSecs, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            LOG.error("Error executing " + runnable, e.getCause());
+        } catch (TimeoutException e) {
+            LOG.warn("Still executing " + runnable + " after " + foregroundTimeoutSecs
+                    + " seconds, leaving it to finish in the background");
         }
     }
     
@@ -149,9 +194,17 @@ public abstract class ThreadManagerImpl implements ThreadManager {
         LOG.debug("starting shutdown sequence");
         
         // trigger an immediate shutdown of any backgrounded tasks
-        serviceScheduler.shutdownNow();
+        if (monitor != null) {
+            monitor.shutdownNow();
+        }
+        for (ManagedExecutor executor : executors.values()) {
+            executor.shutdownNow();
+        }
         try {
-            serviceScheduler.awaitTermination(GRACEFUL_SHUTDOWN_WAIT_IN_SECONDS, TimeUnit.SECONDS);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(GRACEFUL_SHUTDOWN_WAIT_IN_SECONDS);
+            for (ManagedExecutor executor : executors.values()) {
+                executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
         } catch (InterruptedException e) {
             LOG.debug(e.getMessage(), e);
         }
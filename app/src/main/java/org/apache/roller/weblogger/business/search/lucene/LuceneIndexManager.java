@@ -29,6 +29,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.beanutils.ConstructorUtils;
@@ -52,6 +53,7 @@ import org.apache.roller.weblogger.business.URLStrategy;
 import org.apache.roller.weblogger.business.WeblogEntryManager;
 import org.apache.roller.weblogger.business.Weblogger;
 import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.business.runnable.ThreadManager;
 import org.apache.roller.weblogger.business.search.IndexManager;
 import org.apache.roller.weblogger.business.search.SearchResultList;
 import org.apache.roller.weblogger.config.WebloggerConfig;
@@ -289,10 +291,10 @@ public class LuceneIndexManager implements IndexManager {
             if (this.searchEnabled) {
                 logger.debug("Starting scheduled index operation: "
                         + op.getClass().getName());
-                roller.getThreadManager().executeInBackground(op);
+                roller.getThreadManager().executeInBackground(ThreadManager.Workload.INDEX, op);
             }
-        } catch (InterruptedException e) {
-            logger.error("Error executing operation", e);
+        } catch (RejectedExecutionException e) {
+            logger.error("Index thread pool is full, dropped operation: " + op.getClass().getName());
         }
     }
 
@@ -304,7 +306,7 @@ public class LuceneIndexManager implements IndexManager {
             // only if search is enabled
             if (this.searchEnabled) {
                 logger.debug("Executing index operation now: " + op.getClass().getName());
-                roller.getThreadManager().executeInForeground(op);
+                roller.getThreadManager().executeInForeground(ThreadManager.Workload.INDEX, op);
             }
         } catch (InterruptedException e) {
             logger.error("Error executing operation", e);
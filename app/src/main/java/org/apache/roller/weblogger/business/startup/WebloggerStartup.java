@@ -22,6 +22,7 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.weblogger.business.DatabaseProvider;
+import org.apache.roller.weblogger.business.MailOutbox;
 import org.apache.roller.weblogger.business.MailProvider;
 import org.apache.roller.weblogger.config.WebloggerConfig;
 
@@ -39,6 +40,7 @@ public final class WebloggerStartup {
     private static StartupException dbProviderException = null;
 
     private static MailProvider mailProvider = null;
+    private static MailOutbox mailOutbox = null;
 
 
     // non-instantiable
@@ -88,6 +90,16 @@ public final class WebloggerStartup {
     }
     
     
+    /**
+     * Get a reference to the outbox for mail sent in the background, if available.
+     *
+     * @return MailOutbox The mail outbox, or null if no mail provider is configured.
+     */
+    public static MailOutbox getMailOutbox() {
+        return mailOutbox;
+    }
+    
+    
     /**
      * Does the app need to create the database tables?
      */
@@ -180,6 +192,14 @@ public final class WebloggerStartup {
                     + "Reason: " + ex.getMessage());
             LOG.info("The cause of setting up mail provider error was: ", ex);
         }
+        if (mailProvider != null) {
+            try {
+                mailOutbox = new MailOutbox(mailProvider);
+            } catch(StartupException ex) {
+                LOG.warn("Failed to setup mail outbox, notifications will be sent directly.\n"
+                        + "Reason: " + ex.getMessage());
+            }
+        }
         
         // now we need to deal with database install/upgrade logic
         if ("manual".equals(WebloggerConfig.getProperty("installation.type"))) {
@@ -55,6 +55,36 @@ public final class PingConfig {
     private static final int QUEUE_PROCESSING_INTERVAL_MIN = 0;
     private static final int QUEUE_PROCESSING_INTERVAL_MAX = 120;
 
+    // Config property for the number of threads sending pings concurrently
+    private static final String DISPATCH_THREADS_PROP = "pings.dispatchThreads";
+    private static final int DISPATCH_THREADS_DEFAULT = 4;
+    private static final int DISPATCH_THREADS_MIN = 1;
+    private static final int DISPATCH_THREADS_MAX = 64;
+
+    // Config property for the maximum rate of pings sent to any one ping target
+    private static final String TARGET_PINGS_PER_SECOND_PROP = "pings.targetPingsPerSecond";
+    private static final int TARGET_PINGS_PER_SECOND_DEFAULT = 10;
+    private static final int TARGET_PINGS_PER_SECOND_MIN = 1;
+    private static final int TARGET_PINGS_PER_SECOND_MAX = 1000;
+
+    // Config property for the consecutive failures after which a ping target is skipped for a while
+    private static final String TARGET_FAILURE_THRESHOLD_PROP = "pings.targetFailureThreshold";
+    private static final int TARGET_FAILURE_THRESHOLD_DEFAULT = 3;
+    private static final int TARGET_FAILURE_THRESHOLD_MIN = 1;
+    private static final int TARGET_FAILURE_THRESHOLD_MAX = 100;
+
+    // Config property for how long a failing ping target is skipped
+    private static final String TARGET_COOL_DOWN_PROP = "pings.targetCoolDownMins";
+    private static final int TARGET_COOL_DOWN_DEFAULT = 30;
+    private static final int TARGET_COOL_DOWN_MIN = 1;
+    private static final int TARGET_COOL_DOWN_MAX = 1440;
+
+    // Config property for the connect and reply timeouts of a ping
+    private static final String TIMEOUT_PROP = "pings.timeoutSecs";
+    private static final int TIMEOUT_DEFAULT = 30;
+    private static final int TIMEOUT_MIN = 1;
+    private static final int TIMEOUT_MAX = 300;
+
     // PingConfig property for logging pings (not actually performing them).  Used for debugging.
     private static final String PINGS_LOG_ONLY_PROP = "pings.logOnly";
     private static final boolean PINGS_LOG_ONLY_DEFAULT = false;
@@ -125,6 +155,56 @@ public final class PingConfig {
     }
 
 
+    /**
+     * Get the number of threads sending pings concurrently.  Pings to the same ping target are sent one at a time.
+     *
+     * @return the configured (or default) number of ping dispatch threads
+     */
+    public static int getDispatchThreads() {
+        return getIntegerProperty(DISPATCH_THREADS_PROP, DISPATCH_THREADS_DEFAULT,
+                DISPATCH_THREADS_MIN, DISPATCH_THREADS_MAX);
+    }
+
+    /**
+     * Get the maximum number of pings sent to a single ping target per second.
+     *
+     * @return the configured (or default) per target ping rate
+     */
+    public static int getTargetPingsPerSecond() {
+        return getIntegerProperty(TARGET_PINGS_PER_SECOND_PROP, TARGET_PINGS_PER_SECOND_DEFAULT,
+                TARGET_PINGS_PER_SECOND_MIN, TARGET_PINGS_PER_SECOND_MAX);
+    }
+
+    /**
+     * Get the number of consecutive failed pings after which a ping target is skipped for the cool down period.
+     *
+     * @return the configured (or default) failure threshold
+     */
+    public static int getTargetFailureThreshold() {
+        return getIntegerProperty(TARGET_FAILURE_THRESHOLD_PROP, TARGET_FAILURE_THRESHOLD_DEFAULT,
+                TARGET_FAILURE_THRESHOLD_MIN, TARGET_FAILURE_THRESHOLD_MAX);
+    }
+
+    /**
+     * Get the time in minutes a failing ping target is skipped for.  Its queued pings are kept for later passes.
+     *
+     * @return the configured (or default) cool down period in minutes
+     */
+    public static int getTargetCoolDownMins() {
+        return getIntegerProperty(TARGET_COOL_DOWN_PROP, TARGET_COOL_DOWN_DEFAULT,
+                TARGET_COOL_DOWN_MIN, TARGET_COOL_DOWN_MAX);
+    }
+
+    /**
+     * Get the connect and reply timeouts in seconds of a single ping.
+     *
+     * @return the configured (or default) ping timeout in seconds
+     */
+    public static int getTimeoutSecs() {
+        return getIntegerProperty(TIMEOUT_PROP, TIMEOUT_DEFAULT, TIMEOUT_MIN, TIMEOUT_MAX);
+    }
+
+
     /**
      * Get the logs only setting.  Get configuration value determining whether pings are to be logged only (not sent).
      * This configuration setting is used for development and debugging.
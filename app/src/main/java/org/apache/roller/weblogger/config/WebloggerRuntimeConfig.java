@@ -28,7 +28,6 @@ import org.apache.roller.weblogger.config.runtime.RuntimeConfigDefs;
 import org.apache.roller.weblogger.config.runtime.RuntimeConfigDefsParser;
 import org.apache.roller.weblogger.business.PropertiesManager;
 import org.apache.roller.weblogger.business.WebloggerFactory;
-import org.apache.roller.weblogger.pojos.RuntimeConfigProperty;
 
 
 /**
@@ -49,6 +48,7 @@ public final class WebloggerRuntimeConfig {
     // special case for our context urls
     private static String relativeContextURL = null;
     private static String absoluteContextURL = null;
+    private static String localContextURL = null;
     
     
     // prevent instantiations
@@ -57,7 +57,8 @@ public final class WebloggerRuntimeConfig {
     
     /**
      * Retrieve a single property from the PropertiesManager ... returns null
-     * if there is an error
+     * if there is an error.  Values come from an in-memory snapshot, so this
+     * is cheap enough to call on every request.
      **/
     public static String getProperty(String name) {
         
@@ -65,10 +66,7 @@ public final class WebloggerRuntimeConfig {
         
         try {
             PropertiesManager pmgr = WebloggerFactory.getWeblogger().getPropertiesManager();
-            RuntimeConfigProperty prop = pmgr.getProperty(name);
-            if(prop != null) {
-                value = prop.getValue();
-            }
+            value = pmgr.getPropertyValue(name);
         } catch(Exception e) {
             log.warn("Trouble accessing property: "+name, e);
         }
@@ -211,6 +209,27 @@ public final class WebloggerRuntimeConfig {
     }
     
     
+    /**
+     * Special method which sets the non-persisted url of this server at the
+     * local address it receives requests on.
+     *
+     * This property is *not* persisted in any way.
+     */
+    public static void setLocalContextURL(String url) {
+        localContextURL = url;
+    }
+    
+    
+    /**
+     * Get the url of this server at its local address, bypassing any proxy,
+     * load balancer or CDN which "site.absoluteurl" may point to.  This is
+     * set by the InitFilter.
+     */
+    public static String getLocalContextURL() {
+        return localContextURL;
+    }
+    
+    
     /**
      * Convenience method for Roller classes trying to determine if a given
      * weblog handle represents the front page blog.
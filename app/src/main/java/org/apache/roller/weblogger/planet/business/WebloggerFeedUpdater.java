@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.planet.business;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.RollerException;
+import org.apache.roller.planet.business.PlanetManager;
+import org.apache.roller.planet.business.updater.ConcurrentFeedUpdater;
+import org.apache.roller.planet.business.updater.UpdaterException;
+import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.util.RollerConstants;
+import org.apache.roller.weblogger.business.WeblogManager;
+import org.apache.roller.weblogger.business.Weblogger;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+import org.apache.roller.weblogger.pojos.Weblog;
+
+
+/**
+ * Feed updater for the planet integrated with Weblogger.
+ *
+ * Subscriptions to local weblogs, with feed urls of the style
+ * weblogger:<blog handle>, are not fetched one at a time on the refresh
+ * schedule like remote feeds.  Those only in the "all" group need no
+ * updates at all, the {@link WebloggerPlanetManagerImpl} reads their entries
+ * straight from the weblogs.  For the others a single query finds the
+ * weblogs modified since the last sync and only those whose lastModified
+ * moved past the lastUpdated of their subscription have their latest entries
+ * copied over, read straight from the weblog.  Remote feeds are left to the
+ * ConcurrentFeedUpdater.
+ */
+public class WebloggerFeedUpdater extends ConcurrentFeedUpdater {
+
+    private static final Log log = LogFactory.getLog(WebloggerFeedUpdater.class);
+
+    static final String LOCAL_PREFIX = "weblogger:";
+
+    // weblogs modified shortly before the last sync are looked at again in
+    // case they were committed late or on a node with a skewed clock
+    private static final long OVERLAP = TimeUnit.MINUTES.toMillis(5);
+
+    // start of the last sync of local weblogs which went through
+    private static volatile Date lastSync = null;
+
+    private final int batchSize = Math.max(1, WebloggerConfig.getIntProperty("planet.updater.batchSize", 20));
+
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void updateSubscriptions() throws UpdaterException {
+
+        updateProxySettings();
+
+        log.debug("--- BEGIN --- Updating all subscriptions");
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            PlanetManager pmgr = WebloggerFactory.getWeblogger().getPlanetManager();
+            List<Subscription> local = new ArrayList<>();
+            for (Subscription sub : pmgr.getSubscriptions()) {
+                if (sub.getFeedURL().startsWith(LOCAL_PREFIX)) {
+                    local.add(sub);
+                }
+            }
+
+            try {
+                updateLocalSubscriptions(local);
+            } catch (RollerException ex) {
+                // try again from the same point next time
+                log.error("Error updating local weblog subscriptions", ex);
+                WebloggerFactory.getWeblogger().release();
+            }
+
+            List<Subscription> remote = new ArrayList<>();
+            for (Subscription sub : getDueSubscriptions()) {
+                if (!sub.getFeedURL().startsWith(LOCAL_PREFIX)) {
+                    remote.add(sub);
+                }
+            }
+            updateSubscriptions(remote);
+
+        } catch (RollerException ex) {
+            throw new UpdaterException("Error getting subscriptions list", ex);
+        }
+
+        long endTime = System.currentTimeMillis();
+        log.info("--- DONE --- Updated subscriptions in "
+                + ((endTime-startTime) / RollerConstants.SEC_IN_MS) + " seconds");
+        logChanges();
+    }
+
+
+    /**
+     * Bring subscriptions to local weblogs up to date with their weblogs.
+     *
+     * @param subscriptions managed subscriptions to local weblogs
+     * @return the number of subscriptions updated
+     */
+    int updateLocalSubscriptions(Collection<Subscription> subscriptions) throws RollerException {
+
+        long startTime = System.currentTimeMillis();
+        Weblogger roller = WebloggerFactory.getWeblogger();
+        WeblogManager wmgr = roller.getWeblogManager();
+
+        Map<String, Subscription> byFeedURL = new HashMap<>();
+        for (Subscription sub : subscriptions) {
+            if (!WebloggerPlanetManagerImpl.isReadDirectly(sub)) {
+                byFeedURL.put(sub.getFeedURL(), sub);
+            } else if (!sub.getEntries().isEmpty()) {
+                // copies stored before the all group was read directly
+                roller.getPlanetManager().deleteEntries(sub);
+            }
+        }
+        if (byFeedURL.isEmpty()) {
+            roller.flush();
+            lastSync = new Date(startTime);
+            return 0;
+        }
+
+        Date since = lastSync;
+        List<Weblog> modified = wmgr.getWeblogsModifiedSince(
+                since != null ? new Date(since.getTime() - OVERLAP) : null);
+
+        Map<Subscription, Weblog> changed = new LinkedHashMap<>();
+        for (Weblog weblog : modified) {
+            Subscription sub = byFeedURL.remove(LOCAL_PREFIX + weblog.getHandle());
+            if (sub != null && (sub.getLastUpdated() == null
+                    || weblog.getLastModified().after(sub.getLastUpdated()))) {
+                changed.put(sub, weblog);
+            }
+        }
+
+        // subscriptions added since the last sync, whose weblogs may not have changed since
+        if (since != null) {
+            for (Subscription sub : byFeedURL.values()) {
+                if (sub.getLastUpdated() == null || sub.getLastUpdated().getTime() <= 0) {
+                    Weblog weblog = wmgr.getWeblogByHandle(sub.getFeedURL().substring(LOCAL_PREFIX.length()));
+                    if (weblog != null && Boolean.TRUE.equals(weblog.getActive())) {
+                        changed.put(sub, weblog);
+                    }
+                }
+            }
+        }
+
+        List<EntryChanges> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<Subscription, Weblog> entry : changed.entrySet()) {
+            Subscription sub = entry.getKey();
+            batch.add(applyUpdate(sub, WebloggerRomeFeedFetcher.toSubscription(entry.getValue(), sub.getFeedURL())));
+            if (batch.size() == batchSize) {
+                roller.flush();
+                batch.forEach(this::recordChanges);
+                batch.clear();
+            }
+        }
+        roller.flush();
+        batch.forEach(this::recordChanges);
+
+        lastSync = new Date(startTime);
+
+        log.info("Local weblogs: " + changed.size() + " updated, " + modified.size() + " modified since "
+                + (since != null ? since : "startup") + ", " + subscriptions.size() + " subscribed");
+        return changed.size();
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.planet.business;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jakarta.persistence.TypedQuery;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.RollerException;
+import org.apache.roller.planet.business.jpa.JPAPlanetManagerImpl;
+import org.apache.roller.planet.pojos.PlanetGroup;
+import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.planet.pojos.SubscriptionEntry;
+import org.apache.roller.util.RollerConstants;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.business.jpa.JPAPersistenceStrategy;
+import org.apache.roller.weblogger.business.plugins.PluginManager;
+import org.apache.roller.weblogger.business.plugins.entry.WeblogEntryPlugin;
+import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
+import org.apache.roller.weblogger.pojos.WeblogEntry.PubStatus;
+
+
+/**
+ * Planet manager for the planet integrated with Weblogger.
+ *
+ * The "all" group of the default planet holds a subscription for every
+ * enabled and active local weblog.  Rather than serving it from copies of
+ * the weblogs' entries stored as planet entries, its entries are read
+ * straight from the published entries of those weblogs, merged with the
+ * stored entries of any remote subscriptions in the group.  Local
+ * subscriptions which belong to no other group therefore keep no entries of
+ * their own, see {@link #isReadDirectly(Subscription)}.
+ *
+ * The group is served from a timeline like any other group, holding the ids
+ * of both kinds of entries, so only the entries on the page asked for are
+ * read and run through the entry plugins.  The timeline is loaded again once
+ * a weblog was modified after it was loaded, as publishing an entry does.
+ */
+@com.google.inject.Singleton
+public class WebloggerPlanetManagerImpl extends JPAPlanetManagerImpl {
+
+    private static final Log log = LogFactory.getLog(WebloggerPlanetManagerImpl.class);
+
+    // the planet kept in sync with the local weblogs by SyncWebsitesTask
+    static final String DEFAULT_PLANET_ID = "zzz_default_planet_zzz";
+
+    static final String ALL_GROUP = "all";
+
+    // allowance for databases which keep timestamps to the second only
+    private static final long MODIFIED_SLACK_MILLIS = RollerConstants.SEC_IN_MS;
+
+    // timeline rows of id and pubTime, in the order of the group queries
+    private static final Comparator<Object[]> NEWEST_FIRST = Comparator
+            .comparing((Object[] row) -> (Date) row[1], Comparator.nullsLast(Comparator.<Date>reverseOrder()))
+            .thenComparing(row -> (String) row[0], Comparator.reverseOrder());
+
+    private final JPAPersistenceStrategy strategy;
+
+
+    @com.google.inject.Inject
+    protected WebloggerPlanetManagerImpl(JPAPersistenceStrategy strategy) {
+        super(strategy);
+        this.strategy = strategy;
+    }
+
+
+    /**
+     * True for the "all" group of the default planet.
+     */
+    static boolean isAllGroup(PlanetGroup group) {
+        return group != null && ALL_GROUP.equals(group.getHandle())
+                && group.getPlanet() != null && DEFAULT_PLANET_ID.equals(group.getPlanet().getId());
+    }
+
+
+    /**
+     * True if the entries of a subscription are read from its weblog rather
+     * than stored, which is the case for local weblogs only in the "all"
+     * group of the default planet.
+     */
+    public static boolean isReadDirectly(Subscription sub) {
+        if (!sub.getFeedURL().startsWith(WebloggerFeedUpdater.LOCAL_PREFIX) || sub.getGroups().isEmpty()) {
+            return false;
+        }
+        for (PlanetGroup group : sub.getGroups()) {
+            if (!isAllGroup(group)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    @Override
+    protected boolean isTimelineCurrent(PlanetGroup group, long loaded) throws RollerException {
+        if (!isAllGroup(group)) {
+            return super.isTimelineCurrent(group, loaded);
+        }
+        Date modified = strategy.getDynamicQuery(
+                "SELECT MAX(w.lastModified) FROM Weblog w", Date.class).getSingleResult();
+        return modified == null || modified.getTime() + MODIFIED_SLACK_MILLIS < loaded;
+    }
+
+
+    @Override
+    protected List<Object[]> queryTimeline(PlanetGroup group, int maxResults) throws RollerException {
+        if (!isAllGroup(group)) {
+            return super.queryTimeline(group, maxResults);
+        }
+
+        TypedQuery<Object[]> q = strategy.getDynamicQuery(
+                "SELECT p.id, p.pubTime, s.id FROM SubscriptionEntry p JOIN p.subscription s JOIN s.groups g "
+                + "WHERE g.id = ?1 AND s.feedURL NOT LIKE ?2 ORDER BY p.pubTime DESC, p.id DESC", Object[].class);
+        q.setParameter(1, group.getId());
+        q.setParameter(2, WebloggerFeedUpdater.LOCAL_PREFIX + "%");
+        q.setMaxResults(maxResults);
+
+        List<Object[]> rows = new ArrayList<>(q.getResultList());
+        rows.addAll(queryLocalRows(null, null, null, maxResults));
+        rows.sort(NEWEST_FIRST);
+        return rows.subList(0, Math.min(rows.size(), maxResults));
+    }
+
+
+    @Override
+    protected List<SubscriptionEntry> getEntriesById(PlanetGroup group, List<String> ids) throws RollerException {
+        if (!isAllGroup(group) || ids.isEmpty()) {
+            return super.getEntriesById(group, ids);
+        }
+
+        Map<String, SubscriptionEntry> byId = new HashMap<>();
+        for (SubscriptionEntry entry : super.getEntriesById(group, ids)) {
+            byId.put(entry.getId(), entry);
+        }
+        List<String> localIds = new ArrayList<>();
+        for (String id : ids) {
+            if (!byId.containsKey(id)) {
+                localIds.add(id);
+            }
+        }
+        for (SubscriptionEntry entry : getLocalEntries(localIds)) {
+            byId.put(entry.getId(), entry);
+        }
+
+        List<SubscriptionEntry> ret = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            SubscriptionEntry entry = byId.get(id);
+            if (entry != null) {
+                ret.add(entry);
+            }
+        }
+        return ret;
+    }
+
+
+    /**
+     * Entries past the timeline or within a date range, the local ones are
+     * paged by id and pubTime and only those on the page are read.
+     */
+    @Override
+    protected List<SubscriptionEntry> queryEntries(PlanetGroup group, Date startDate, Date endDate,
+            String endId, int offset, int len, String excludedFeedPrefix) throws RollerException {
+
+        if (!isAllGroup(group)) {
+            return super.queryEntries(group, startDate, endDate, endId, offset, len, excludedFeedPrefix);
+        }
+
+        // the page is taken from the newest offset + len entries of both sources
+        int from = Math.max(offset, 0);
+        int count = len == -1 ? -1 : from + len;
+
+        List<Object[]> rows = new ArrayList<>();
+        for (SubscriptionEntry entry : super.queryEntries(
+                group, startDate, endDate, endId, 0, count, WebloggerFeedUpdater.LOCAL_PREFIX)) {
+            rows.add(new Object[] {entry.getId(), entry.getPubTime(), entry});
+        }
+        rows.addAll(queryLocalRows(startDate, endDate, endId, count));
+        rows.sort(NEWEST_FIRST);
+
+        int to = count == -1 ? rows.size() : Math.min(rows.size(), count);
+        List<Object[]> page = rows.subList(Math.min(from, to), to);
+        List<String> ids = new ArrayList<>(page.size());
+        for (Object[] row : page) {
+            ids.add((String) row[0]);
+        }
+        return getEntriesById(group, ids);
+    }
+
+
+    /**
+     * Published entries of enabled and active weblogs as rows of id, pubTime
+     * and weblog id, newest first.  Bounds are as for the group queries.
+     */
+    private List<Object[]> queryLocalRows(Date startDate, Date endDate, String endId, int maxResults)
+            throws RollerException {
+
+        StringBuilder sb = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        params.add(PubStatus.PUBLISHED);
+        params.add(Boolean.TRUE);
+        int size = params.size();
+        sb.append("SELECT e.id, e.pubTime, e.website.id FROM WeblogEntry e ");
+        sb.append("WHERE e.status = ?1 AND e.website.visible = ?2 AND e.website.active = ?2");
+        if (startDate != null) {
+            params.add(size++, new Timestamp(startDate.getTime()));
+            sb.append(" AND e.pubTime > ?").append(size);
+        }
+        if (endDate != null && endId != null) {
+            params.add(size++, new Timestamp(endDate.getTime()));
+            params.add(size++, endId);
+            sb.append(" AND (e.pubTime < ?").append(size - 1);
+            sb.append(" OR (e.pubTime = ?").append(size - 1);
+            sb.append(" AND e.id < ?").append(size).append("))");
+        } else if (endDate != null) {
+            params.add(size++, new Timestamp(endDate.getTime()));
+            sb.append(" AND e.pubTime < ?").append(size);
+        }
+        sb.append(" ORDER BY e.pubTime DESC, e.id DESC");
+
+        TypedQuery<Object[]> q = strategy.getDynamicQuery(sb.toString(), Object[].class);
+        for (int i = 0; i < params.size(); i++) {
+            q.setParameter(i + 1, params.get(i));
+        }
+        if (maxResults != -1) {
+            q.setMaxResults(maxResults);
+        }
+        return q.getResultList();
+    }
+
+
+    /**
+     * The given weblog entries as planet entries, which are not persisted.
+     * Entries no longer published, or of weblogs no longer enabled and
+     * active, are left out.
+     */
+    private List<SubscriptionEntry> getLocalEntries(List<String> ids) throws RollerException {
+
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long startTime = System.currentTimeMillis();
+
+        TypedQuery<WeblogEntry> q = strategy.getDynamicQuery("SELECT e FROM WeblogEntry e WHERE e.id IN ?1 "
+                + "AND e.status = ?2 AND e.website.visible = ?3 AND e.website.active = ?3", WeblogEntry.class);
+        q.setParameter(1, ids);
+        q.setParameter(2, PubStatus.PUBLISHED);
+        q.setParameter(3, Boolean.TRUE);
+        List<WeblogEntry> rollerEntries = q.getResultList();
+
+        // one subscription and one set of plugins per weblog
+        PluginManager ppmgr = WebloggerFactory.getWeblogger().getPluginManager();
+        Map<String, Subscription> subs = new HashMap<>();
+        Map<String, Map<String, WeblogEntryPlugin>> plugins = new HashMap<>();
+
+        List<SubscriptionEntry> entries = new ArrayList<>(rollerEntries.size());
+        for (WeblogEntry rollerEntry : rollerEntries) {
+            Weblog weblog = rollerEntry.getWebsite();
+            Subscription sub = subs.computeIfAbsent(weblog.getId(), k -> {
+                Subscription newSub = WebloggerRomeFeedFetcher.newSubscription(
+                        weblog, WebloggerFeedUpdater.LOCAL_PREFIX + weblog.getHandle());
+                newSub.setNextDue(null);
+                return newSub;
+            });
+            SubscriptionEntry entry = WebloggerRomeFeedFetcher.toEntry(rollerEntry, ppmgr,
+                    plugins.computeIfAbsent(weblog.getId(), k -> ppmgr.getWeblogEntryPlugins(weblog)));
+            // keyed by the weblog entry so paging by the last entry works
+            entry.setId(rollerEntry.getId());
+            entry.setSubscription(sub);
+            entries.add(entry);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Read " + entries.size() + " local entries in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+        return entries;
+    }
+
+}
@@ -60,6 +60,17 @@ public class WebloggerRomeFeedFetcher extends RomeFeedFetcher {
     }
     
     
+    @Override
+    public Subscription fetchSubscription(Subscription sub) throws FetcherException {
+        
+        // local weblogs have no validators, their last modified date does
+        if (sub != null && sub.getFeedURL() != null && sub.getFeedURL().startsWith("weblogger:")) {
+            return fetchSubscription(sub.getFeedURL(), sub.getLastUpdated());
+        }
+        return super.fetchSubscription(sub);
+    }
+    
+    
     @Override
     public Subscription fetchSubscription(String feedURL, Date lastModified)
             throws FetcherException {
@@ -102,18 +113,18 @@ public class WebloggerRomeFeedFetcher extends RomeFeedFetcher {
             return null;
         }
         
-        // build planet subscription from weblog
-        Subscription newSub = new Subscription();
-        newSub.setFeedURL(feedURL);
-        newSub.setSiteURL(WebloggerFactory.getWeblogger().getUrlStrategy().getWeblogURL(localWeblog, null, true));
-        newSub.setTitle(localWeblog.getName());
-        newSub.setAuthor(localWeblog.getName());
-        newSub.setLastUpdated(localWeblog.getLastModified());
+        return toSubscription(localWeblog, feedURL);
+    }
+    
+    
+    /**
+     * Build a planet subscription holding the latest published entries of a
+     * local weblog.
+     */
+    static Subscription toSubscription(Weblog localWeblog, String feedURL)
+            throws FetcherException {
         
-        // must have a last updated time
-        if(newSub.getLastUpdated() == null) {
-            newSub.setLastUpdated(new Date());
-        }
+        Subscription newSub = newSubscription(localWeblog, feedURL);
         
         // lookup recent entries from weblog and add them to the subscription
         try {
@@ -136,31 +147,62 @@ public class WebloggerRomeFeedFetcher extends RomeFeedFetcher {
             PluginManager ppmgr = WebloggerFactory.getWeblogger().getPluginManager();
             Map<String, WeblogEntryPlugin> pagePlugins = ppmgr.getWeblogEntryPlugins(localWeblog);
             for ( WeblogEntry rollerEntry : entries ) {
-                SubscriptionEntry entry = new SubscriptionEntry();
-                String content;
-                if (!StringUtils.isEmpty(rollerEntry.getText())) {
-                    content = rollerEntry.getText();
-                } else {
-                    content = rollerEntry.getSummary();
-                }
-                content = ppmgr.applyWeblogEntryPlugins(pagePlugins, rollerEntry, content);
-                
-                entry.setAuthor(rollerEntry.getCreator().getScreenName());
-                entry.setTitle(rollerEntry.getTitle());
-                entry.setPubTime(rollerEntry.getPubTime());
-                entry.setText(content);
-                entry.setPermalink(rollerEntry.getPermalink());
-                entry.setCategoriesString(rollerEntry.getCategory().getName());
-                
-                newSub.addEntry(entry);
+                newSub.addEntry(toEntry(rollerEntry, ppmgr, pagePlugins));
             }
             
         } catch (WebloggerException ex) {
-            throw new FetcherException("Error processing entries for local weblog - "+weblogHandle, ex);
+            throw new FetcherException("Error processing entries for local weblog - "+localWeblog.getHandle(), ex);
         }
         
         // all done
         return newSub;
     }
+    
+    
+    /**
+     * Build a planet subscription for a local weblog, without entries.
+     */
+    static Subscription newSubscription(Weblog localWeblog, String feedURL) {
+        
+        Subscription newSub = new Subscription();
+        newSub.setFeedURL(feedURL);
+        newSub.setSiteURL(WebloggerFactory.getWeblogger().getUrlStrategy().getWeblogURL(localWeblog, null, true));
+        newSub.setTitle(localWeblog.getName());
+        newSub.setAuthor(localWeblog.getName());
+        newSub.setLastUpdated(localWeblog.getLastModified());
+        
+        // must have a last updated time
+        if(newSub.getLastUpdated() == null) {
+            newSub.setLastUpdated(new Date());
+        }
+        return newSub;
+    }
+    
+    
+    /**
+     * Build a planet entry from a published weblog entry, with the weblog's
+     * entry plugins applied to its content.
+     */
+    static SubscriptionEntry toEntry(WeblogEntry rollerEntry, PluginManager ppmgr,
+            Map<String, WeblogEntryPlugin> pagePlugins) {
+        
+        SubscriptionEntry entry = new SubscriptionEntry();
+        String content;
+        if (!StringUtils.isEmpty(rollerEntry.getText())) {
+            content = rollerEntry.getText();
+        } else {
+            content = rollerEntry.getSummary();
+        }
+        content = ppmgr.applyWeblogEntryPlugins(pagePlugins, rollerEntry, content);
+        
+        entry.setAuthor(rollerEntry.getCreator().getScreenName());
+        entry.setTitle(rollerEntry.getTitle());
+        entry.setPubTime(rollerEntry.getPubTime());
+        entry.setText(content);
+        entry.setPermalink(rollerEntry.getPermalink());
+        entry.setGuid(rollerEntry.getId());
+        entry.setCategoriesString(rollerEntry.getCategory().getName());
+        return entry;
+    }
         
 }
@@ -183,6 +183,8 @@ public class SyncWebsitesTask extends RollerTaskWithLeasing {
                         WebloggerFactory.getWeblogger().getUrlStrategy().getWeblogURL(weblog, null, true));
                     sub.setAuthor(weblog.getName());
                     sub.setLastUpdated(new Date(0));
+                    // synced from the weblog, not fetched on the refresh schedule
+                    sub.setNextDue(null);
                     pmgr.saveSubscription(sub);
 
                     sub.getGroups().add(group);
@@ -195,6 +197,7 @@ public class SyncWebsitesTask extends RollerTaskWithLeasing {
 
                     sub.setTitle(weblog.getName());
                     sub.setAuthor(weblog.getName());
+                    sub.setNextDue(null);
 
                     pmgr.saveSubscription(sub);
                 }
@@ -21,6 +21,7 @@ package org.apache.roller.weblogger.planet.ui;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.RollerException;
+import org.apache.roller.planet.business.PlanetManager;
 import org.apache.roller.planet.config.PlanetRuntimeConfig;
 import org.apache.roller.weblogger.business.PropertiesManager;
 import org.apache.roller.weblogger.business.WebloggerFactory;
@@ -35,6 +36,7 @@ import org.apache.struts2.dispatcher.HttpParameters;
 import org.apache.struts2.dispatcher.Parameter;
 
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -176,6 +178,20 @@ public class PlanetConfig extends PlanetUIAction implements HttpParametersAware
     }
 
     
+    /**
+     * Due queue length and staleness of the subscription refresh schedule.
+     */
+    public Map<String, Object> getRefreshSchedule() {
+        try {
+            PlanetManager pmgr = WebloggerFactory.getWeblogger().getPlanetManager();
+            return pmgr.getRefreshScheduleStats(new Date());
+        } catch (RollerException e) {
+            log.error("Error loading refresh schedule stats", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    
     public HttpParameters getParameters() {
         return parameters;
     }
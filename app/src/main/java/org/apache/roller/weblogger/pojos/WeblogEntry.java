@@ -20,8 +20,6 @@ package org.apache.roller.weblogger.pojos;
 
 import static io.github.pixee.security.Newlines.stripAll;
 import java.io.Serializable;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
@@ -55,6 +53,7 @@ import org.apache.roller.weblogger.config.WebloggerConfig;
 import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
 import org.apache.roller.weblogger.util.HTMLSanitizer;
 import org.apache.roller.weblogger.util.I18nMessages;
+import org.apache.roller.weblogger.util.URLUtilities;
 import org.apache.roller.weblogger.util.Utilities;
 
 /**
@@ -91,6 +90,9 @@ public class WeblogEntry implements Serializable {
     private String    creatorUserName = null;      
     private String    searchDescription = null;
 
+    // url encoded anchor, derived from the anchor on first use
+    private transient String encodedAnchor = null;
+
     // set to true when switching between pending/draft/scheduled and published
     // either the aggregate table needs the entry's tags added (for published)
     // or subtracted (anything else)
@@ -106,6 +108,11 @@ public class WeblogEntry implements Serializable {
     private Set<WeblogEntryTag> tagSet = new HashSet<>();
     private Set<WeblogEntryTag> removedTags = new HashSet<>();
     private Set<WeblogEntryTag> addedTags = new HashSet<>();
+
+    // approved comment count loaded in bulk for entry lists, null if not loaded.
+    // Not a stored column because comments are also removed with bulk deletes
+    // (see removeMatchingComments) which would leave a stored count stale.
+    private Integer commentCount = null;
     
     //----------------------------------------------------------- Construction
     
@@ -345,6 +352,19 @@ public class WeblogEntry implements Serializable {
     
     public void setAnchor(String anchor) {
         this.anchor = anchor;
+        this.encodedAnchor = null;
+    }
+    
+    /**
+     * The anchor url encoded for use in links, computed once per entry.
+     */
+    public String getEncodedAnchor() {
+        String encoded = encodedAnchor;
+        if (encoded == null && anchor != null) {
+            encoded = URLUtilities.encode(anchor);
+            encodedAnchor = encoded;
+        }
+        return encoded;
     }
     
     //-------------------------------------------------------------------------
@@ -736,8 +756,19 @@ public class WeblogEntry implements Serializable {
     }
     
     public int getCommentCount() {
+        if (commentCount != null) {
+            return commentCount;
+        }
         return getComments().size();
     }
+
+    /**
+     * Set the approved comment count when it was loaded together with other
+     * entries, or null to have it counted from the comments again.
+     */
+    public void setCommentCount(Integer commentCount) {
+        this.commentCount = commentCount;
+    }
     
     //------------------------------------------------------------------------
         
@@ -745,7 +776,7 @@ public class WeblogEntry implements Serializable {
      * Returns absolute entry permalink.
      */
     public String getPermalink() {
-        return WebloggerFactory.getWeblogger().getUrlStrategy().getWeblogEntryURL(getWebsite(), null, getAnchor(), true);
+        return WebloggerFactory.getWeblogger().getUrlStrategy().getWeblogEntryURL(this, null, true);
     }
     
     /**
@@ -754,8 +785,7 @@ public class WeblogEntry implements Serializable {
      */
     @Deprecated
     public String getPermaLink() {
-        String lAnchor = URLEncoder.encode(getAnchor(), StandardCharsets.UTF_8);
-        return "/" + getWebsite().getHandle() + "/entry/" + lAnchor;
+        return "/" + getWebsite().getHandle() + "/entry/" + getEncodedAnchor();
     }
     
     /**
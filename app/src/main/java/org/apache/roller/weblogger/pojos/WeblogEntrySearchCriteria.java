@@ -18,13 +18,17 @@
 package org.apache.roller.weblogger.pojos;
 
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import org.apache.roller.weblogger.pojos.WeblogEntry.PubStatus;
 
 public class WeblogEntrySearchCriteria {
 
     public enum SortOrder {ASCENDING, DESCENDING}
     public enum SortBy {PUBLICATION_TIME, UPDATE_TIME}
+    // Associations to load for the whole result list up front instead of per entry
+    public enum Prefetch {TAGS, ATTRIBUTES, COMMENT_COUNTS}
 
     // TODO: See if can switch from name of Category to Category object
 
@@ -55,6 +59,8 @@ public class WeblogEntrySearchCriteria {
 
     private int maxResults = -1;
 
+    private Set<Prefetch> prefetch = EnumSet.noneOf(Prefetch.class);
+
     public Weblog getWeblog() {
         return weblog;
     }
@@ -159,4 +165,15 @@ public class WeblogEntrySearchCriteria {
         this.maxResults = maxResults;
     }
 
+    public Set<Prefetch> getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(Set<Prefetch> prefetch) {
+        this.prefetch = EnumSet.noneOf(Prefetch.class);
+        if (prefetch != null) {
+            this.prefetch.addAll(prefetch);
+        }
+    }
+
 }
@@ -19,7 +19,6 @@
 package org.apache.roller.weblogger.pojos.wrapper;
 
 import java.util.List;
-import java.util.stream.Collectors;
 import org.apache.roller.weblogger.pojos.WeblogBookmarkFolder;
 
 
@@ -31,6 +30,9 @@ public final class WeblogBookmarkFolderWrapper {
     // keep a reference to the wrapped pojo
     private final WeblogBookmarkFolder pojo;
     
+    // bookmark wrappers, created on first use
+    private List<WeblogBookmarkWrapper> bookmarks = null;
+    
     // this is private so that we can force the use of the .wrap(pojo) method
     private WeblogBookmarkFolderWrapper(WeblogBookmarkFolder toWrap) {
         this.pojo = toWrap;
@@ -53,9 +55,10 @@ public final class WeblogBookmarkFolderWrapper {
     }
 
     public List<WeblogBookmarkWrapper> getBookmarks() {
-        return this.pojo.getBookmarks().stream()
-                .map(WeblogBookmarkWrapper::wrap)
-                .collect(Collectors.toList());
-    }    
+        if (bookmarks == null) {
+            bookmarks = WrappedList.of(this.pojo.getBookmarks(), WeblogBookmarkWrapper::wrap);
+        }
+        return bookmarks;
+    }
 
 }
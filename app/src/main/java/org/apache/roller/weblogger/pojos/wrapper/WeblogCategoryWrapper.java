@@ -19,7 +19,6 @@
 package org.apache.roller.weblogger.pojos.wrapper;
 
 import java.util.List;
-import java.util.stream.Collectors;
 import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.business.URLStrategy;
 import org.apache.roller.weblogger.pojos.WeblogCategory;
@@ -36,6 +35,9 @@ public final class WeblogCategoryWrapper {
     // url strategy to use for any url building
     private final URLStrategy urlStrategy;
     
+    // weblog wrapper, created on first use
+    private WeblogWrapper website = null;
+    
     
     // this is private so that we can force the use of the .wrap(pojo) method
     private WeblogCategoryWrapper(WeblogCategory toWrap, URLStrategy strat) {
@@ -74,13 +76,15 @@ public final class WeblogCategoryWrapper {
     }
 
     public WeblogWrapper getWebsite() {
-        return WeblogWrapper.wrap(this.pojo.getWeblog(), urlStrategy);
+        if (website == null) {
+            website = WeblogWrapper.wrap(this.pojo.getWeblog(), urlStrategy);
+        }
+        return website;
     }
 
     public List<WeblogEntryWrapper> retrieveWeblogEntries(boolean publishedOnly) throws WebloggerException {
-        return this.pojo.retrieveWeblogEntries(publishedOnly).stream()
-                .map(entry -> WeblogEntryWrapper.wrap(entry, urlStrategy))
-                .collect(Collectors.toList());
+        return WrappedList.of(this.pojo.retrieveWeblogEntries(publishedOnly),
+                entry -> WeblogEntryWrapper.wrap(entry, urlStrategy));
     }
     
     
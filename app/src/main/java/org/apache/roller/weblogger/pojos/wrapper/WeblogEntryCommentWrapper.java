@@ -39,6 +39,9 @@ public final class WeblogEntryCommentWrapper {
     // url strategy to use for any url building
     private final URLStrategy urlStrategy;
     
+    // entry wrapper, created on first use
+    private WeblogEntryWrapper weblogEntry = null;
+    
     
     // this is private so that we can force the use of the .wrap(pojo) method
     private WeblogEntryCommentWrapper(WeblogEntryComment toWrap, URLStrategy strat) {
@@ -63,7 +66,10 @@ public final class WeblogEntryCommentWrapper {
     
     
     public WeblogEntryWrapper getWeblogEntry() {
-        return WeblogEntryWrapper.wrap(this.pojo.getWeblogEntry(), urlStrategy);
+        if (weblogEntry == null) {
+            weblogEntry = WeblogEntryWrapper.wrap(this.pojo.getWeblogEntry(), urlStrategy);
+        }
+        return weblogEntry;
     }
     
     
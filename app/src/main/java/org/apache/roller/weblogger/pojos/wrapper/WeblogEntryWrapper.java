@@ -40,6 +40,16 @@ public final class WeblogEntryWrapper {
     // url strategy to use for any url building
     private final URLStrategy urlStrategy;
     
+    // nested wrappers, created on first use and kept for the life of this
+    // wrapper, which is typically a single request
+    private WeblogWrapper website = null;
+    private WeblogCategoryWrapper category = null;
+    private UserWrapper creator = null;
+    private List<WeblogCategoryWrapper> categories = null;
+    private List<WeblogEntryAttributeWrapper> entryAttributes = null;
+    private List<WeblogEntryTagWrapper> tags = null;
+    private List<WeblogEntryCommentWrapper> comments = null;
+    
     
     // this is private so that we can force the use of the .wrap(pojo) method
     private WeblogEntryWrapper(WeblogEntry toWrap, URLStrategy strat) {
@@ -63,24 +73,35 @@ public final class WeblogEntryWrapper {
     
     
     public WeblogCategoryWrapper getCategory() {
-        return WeblogCategoryWrapper.wrap(this.pojo.getCategory(), urlStrategy);
+        if (category == null) {
+            category = WeblogCategoryWrapper.wrap(this.pojo.getCategory(), urlStrategy);
+        }
+        return category;
     }
     
     
-    public List<WeblogCategoryWrapper> getCategories() {      
-        return this.pojo.getCategories().stream()
-                .map(cat -> WeblogCategoryWrapper.wrap(cat, urlStrategy))
-                .collect(Collectors.toList());
+    public List<WeblogCategoryWrapper> getCategories() {
+        if (categories == null) {
+            categories = WrappedList.of(this.pojo.getCategories(),
+                    cat -> WeblogCategoryWrapper.wrap(cat, urlStrategy));
+        }
+        return categories;
     }
     
     
     public WeblogWrapper getWebsite() {
-        return WeblogWrapper.wrap(this.pojo.getWebsite(), urlStrategy);
+        if (website == null) {
+            website = WeblogWrapper.wrap(this.pojo.getWebsite(), urlStrategy);
+        }
+        return website;
     }
     
     
     public UserWrapper getCreator() {
-        return UserWrapper.wrap(this.pojo.getCreator());
+        if (creator == null) {
+            creator = UserWrapper.wrap(this.pojo.getCreator());
+        }
+        return creator;
     }
     
     
@@ -117,9 +138,11 @@ public final class WeblogEntryWrapper {
     
     
     public List<WeblogEntryAttributeWrapper> getEntryAttributes() {
-        return this.pojo.getEntryAttributes().stream()
-                .map(WeblogEntryAttributeWrapper::wrap)
-                .collect(Collectors.toList());
+        if (entryAttributes == null) {
+            entryAttributes = WrappedList.of(this.pojo.getEntryAttributes(),
+                    WeblogEntryAttributeWrapper::wrap);
+        }
+        return entryAttributes;
     }
     
     
@@ -179,10 +202,12 @@ public final class WeblogEntryWrapper {
     
     
     public List<WeblogEntryTagWrapper> getTags() {
-        return this.pojo.getTags().stream()
-                .sorted(new WeblogEntryTagComparator()) // by name
-                .map(WeblogEntryTagWrapper::wrap)
-                .collect(Collectors.toList());
+        if (tags == null) {
+            tags = WrappedList.of(this.pojo.getTags().stream()
+                    .sorted(new WeblogEntryTagComparator()) // by name
+                    .collect(Collectors.toList()), WeblogEntryTagWrapper::wrap);
+        }
+        return tags;
     }
     
     
@@ -207,16 +232,17 @@ public final class WeblogEntryWrapper {
     
     
     public List<WeblogEntryCommentWrapper> getComments() {
-        return this.pojo.getComments().stream()
-                .map(comment -> WeblogEntryCommentWrapper.wrap(comment, urlStrategy))
-                .collect(Collectors.toList());
+        if (comments == null) {
+            comments = WrappedList.of(this.pojo.getComments(),
+                    comment -> WeblogEntryCommentWrapper.wrap(comment, urlStrategy));
+        }
+        return comments;
     }
     
     
     public List<WeblogEntryCommentWrapper> getComments(boolean ignoreSpam, boolean approvedOnly) {
-        return this.pojo.getComments(ignoreSpam, approvedOnly).stream()
-                .map(comment -> WeblogEntryCommentWrapper.wrap(comment, urlStrategy))
-                .collect(Collectors.toList());
+        return WrappedList.of(this.pojo.getComments(ignoreSpam, approvedOnly),
+                comment -> WeblogEntryCommentWrapper.wrap(comment, urlStrategy));
     }
     
     
@@ -28,7 +28,6 @@ import org.apache.roller.weblogger.business.URLStrategy;
 import org.apache.roller.weblogger.pojos.TagStat;
 import org.apache.roller.weblogger.util.HTMLSanitizer;
 
-import java.util.stream.Collectors;
 import org.apache.roller.weblogger.pojos.ThemeTemplate.ComponentType;
 import org.apache.roller.weblogger.pojos.Weblog;
 
@@ -43,6 +42,11 @@ public final class WeblogWrapper {
     
     // url strategy to use for any url building
     private final URLStrategy urlStrategy;
+    
+    // nested wrappers, created on first use and kept for the life of this
+    // wrapper, which is typically a single request
+    private UserWrapper creator = null;
+    private List<WeblogCategoryWrapper> weblogCategories = null;
 
     // this is private so that we can force the use of the .wrap(pojo) method
     private WeblogWrapper(Weblog toWrap, URLStrategy strat) {
@@ -76,9 +80,7 @@ public final class WeblogWrapper {
     
     
     public List<ThemeTemplateWrapper> getTemplates() throws WebloggerException {
-        return this.pojo.getTheme().getTemplates().stream()
-                .map(ThemeTemplateWrapper::wrap)
-                .collect(Collectors.toList());
+        return WrappedList.of(this.pojo.getTheme().getTemplates(), ThemeTemplateWrapper::wrap);
     }
     
     
@@ -101,7 +103,10 @@ public final class WeblogWrapper {
     }
 
     public UserWrapper getCreator() {
-        return UserWrapper.wrap(this.pojo.getCreator());
+        if (creator == null) {
+            creator = UserWrapper.wrap(this.pojo.getCreator());
+        }
+        return creator;
     }
     
     public Boolean getEnableBloggerApi() {
@@ -279,9 +284,11 @@ public final class WeblogWrapper {
 
 
     public List<WeblogCategoryWrapper> getWeblogCategories() {
-        return this.pojo.getWeblogCategories().stream()
-                .map(cat -> WeblogCategoryWrapper.wrap(cat, urlStrategy))
-                .collect(Collectors.toList());
+        if (weblogCategories == null) {
+            weblogCategories = WrappedList.of(this.pojo.getWeblogCategories(),
+                    cat -> WeblogCategoryWrapper.wrap(cat, urlStrategy));
+        }
+        return weblogCategories;
     }
 
     public WeblogCategoryWrapper getWeblogCategory(String categoryName) {
@@ -290,23 +297,20 @@ public final class WeblogWrapper {
 
     
     public List<WeblogEntryWrapper> getRecentWeblogEntries(String cat, int length) {
-        return this.pojo.getRecentWeblogEntries(cat, length).stream()
-                .map(entry -> WeblogEntryWrapper.wrap(entry, urlStrategy))
-                .collect(Collectors.toList());
+        return WrappedList.of(this.pojo.getRecentWeblogEntries(cat, length),
+                entry -> WeblogEntryWrapper.wrap(entry, urlStrategy));
     }
     
     
     public List<WeblogEntryWrapper> getRecentWeblogEntriesByTag(String tag, int length) {
-        return this.pojo.getRecentWeblogEntriesByTag(tag, length).stream()
-                .map(entry -> WeblogEntryWrapper.wrap(entry, urlStrategy))
-                .collect(Collectors.toList());
+        return WrappedList.of(this.pojo.getRecentWeblogEntriesByTag(tag, length),
+                entry -> WeblogEntryWrapper.wrap(entry, urlStrategy));
     }
     
     
     public List<WeblogEntryCommentWrapper> getRecentComments(int length) {
-        return this.pojo.getRecentComments(length).stream()
-                .map(wec -> WeblogEntryCommentWrapper.wrap(wec, urlStrategy))
-                .collect(Collectors.toList());
+        return WrappedList.of(this.pojo.getRecentComments(length),
+                wec -> WeblogEntryCommentWrapper.wrap(wec, urlStrategy));
     }
     
     
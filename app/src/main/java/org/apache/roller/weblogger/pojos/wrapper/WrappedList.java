@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.pojos.wrapper;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+
+/**
+ * Read-only list of wrappers over a list of pojos.
+ *
+ * Pojos are wrapped when an element is first accessed and the wrapper is
+ * kept, so walking the list more than once during a request hands out the
+ * same wrappers and a template which only looks at the first few elements
+ * does not pay for wrapping the rest.
+ */
+final class WrappedList<P, W> extends AbstractList<W> implements RandomAccess {
+    
+    private final List<P> pojos;
+    private final Function<P, W> wrapper;
+    private final Object[] wrapped;
+    
+    
+    private WrappedList(List<P> pojos, Function<P, W> wrapper) {
+        this.pojos = pojos;
+        this.wrapper = wrapper;
+        this.wrapped = new Object[pojos.size()];
+    }
+    
+    
+    /**
+     * View the given pojos as wrappers.  Lists without random access and other
+     * collections are copied once so that access by index stays cheap.
+     */
+    static <P, W> List<W> of(Collection<P> pojos, Function<P, W> wrapper) {
+        if (pojos == null || pojos.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (pojos instanceof List && pojos instanceof RandomAccess) {
+            return new WrappedList<>((List<P>) pojos, wrapper);
+        }
+        return new WrappedList<>(new ArrayList<>(pojos), wrapper);
+    }
+    
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public W get(int index) {
+        Object w = wrapped[index];
+        if (w == null) {
+            w = wrapper.apply(pojos.get(index));
+            wrapped[index] = w;
+        }
+        return (W) w;
+    }
+    
+    
+    @Override
+    public int size() {
+        return wrapped.length;
+    }
+    
+}
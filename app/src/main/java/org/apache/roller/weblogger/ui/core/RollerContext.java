@@ -219,6 +219,11 @@ public class RollerContext extends ContextLoaderListener
         WebloggerFactory.getWeblogger().shutdown();
         // do we need a more generic mechanism for presentation layer shutdown?
         CacheManager.shutdown();
+        try {
+            WebloggerStartup.getDatabaseProvider().shutdown();
+        } catch (IllegalStateException notPrepared) {
+            // no database provider, nothing to release
+        }
     }
 
     /**
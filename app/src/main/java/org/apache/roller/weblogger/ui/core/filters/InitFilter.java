@@ -69,6 +69,7 @@ public class InitFilter implements Filter {
                 // set them in our config
                 WebloggerRuntimeConfig.setAbsoluteContextURL(absPath);
                 WebloggerRuntimeConfig.setRelativeContextURL(relPath);
+                WebloggerRuntimeConfig.setLocalContextURL(getLocalUrl(request));
 
                 if (log.isDebugEnabled()) {
                     log.debug("relPath = " + relPath);
@@ -89,6 +90,15 @@ public class InitFilter implements Filter {
                 request.getRequestURI(), request.getRequestURL().toString());
     }
 
+    private static String getLocalUrl(HttpServletRequest request) {
+        String host = request.getLocalAddr();
+        if (host.indexOf(':') != -1) {
+            // IPv6 literal
+            host = "[" + host + "]";
+        }
+        return request.getScheme() + "://" + host + ":" + request.getLocalPort() + request.getContextPath();
+    }
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
     }
@@ -31,12 +31,17 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.business.jpa.QueryMetrics;
 
 
 /**
  * Sole responsibility is to ensure that each request's Roller
  * persistence session is released at end of the request.
  *
+ * Also marks the request boundary for statement instrumentation, when
+ * jpa.instrumentation.enabled is set, and logs per-request query counts
+ * at debug level.
+ *
  * @web.filter name="PersistenceSessionFilter"
  */
 public class PersistenceSessionFilter implements Filter {
@@ -56,6 +61,7 @@ public class PersistenceSessionFilter implements Filter {
         
         log.debug("Entered "+stripAll(request.getRequestURI()));
         
+        QueryMetrics.startRequest();
         try {
             chain.doFilter(request, response);
         } finally {
@@ -64,6 +70,16 @@ public class PersistenceSessionFilter implements Filter {
                 WebloggerFactory.getWeblogger().release();
             }
             
+            QueryMetrics.RequestStats stats = QueryMetrics.endRequest();
+            if (stats != null && log.isDebugEnabled()) {
+                log.debug("DB stats for " + stripAll(request.getRequestURI())
+                        + ": queries=" + stats.getQueryCount()
+                        + " time=" + stats.getTotalMillis() + "ms"
+                        + " top=[" + stats.getTopStatements(5) + "]"
+                        + " writes=" + stats.getWriteCount()
+                        + " writeTime=" + stats.getWriteMillis() + "ms"
+                        + " topWrites=[" + stats.getTopWrites(5) + "]");
+            }
         }
         
         log.debug("Exiting "+stripAll(request.getRequestURI()));
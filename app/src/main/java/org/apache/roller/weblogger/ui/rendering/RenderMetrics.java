@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+import org.apache.roller.weblogger.pojos.Template;
+
+
+/**
+ * Opt-in timing of template rendering, per template.
+ *
+ * When enabled via rendering.metrics.enabled, renderers report how long each
+ * template took and how many characters it produced.  Numbers are kept in
+ * one minute slots covering a sliding window of rendering.metrics.window
+ * minutes, with a histogram of render times per template from which
+ * percentiles are estimated.  They appear on the cache info page and are
+ * served as plain text by the RenderMetricsServlet.
+ *
+ * When disabled renderers only check {@link #isEnabled()}.
+ */
+public final class RenderMetrics {
+    
+    private static final boolean ENABLED =
+            WebloggerConfig.getBooleanProperty("rendering.metrics.enabled", false);
+    
+    private static final int WINDOW_MINUTES =
+            Math.max(1, WebloggerConfig.getIntProperty("rendering.metrics.window", 5));
+    
+    private static final int TOP_TEMPLATES =
+            WebloggerConfig.getIntProperty("rendering.metrics.topTemplates", 20);
+    
+    // histogram buckets grow by 25% starting at 100 microseconds, so that
+    // estimated percentiles are at most 25% too high, up to about two minutes
+    private static final double FIRST_BUCKET_MICROS = 100;
+    private static final double BUCKET_GROWTH = 1.25;
+    private static final int BUCKETS = 64;
+    
+    private static final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(WINDOW_MINUTES);
+    private static volatile Date startTime = new Date();
+    
+    
+    // a non-instantiable class
+    private RenderMetrics() {}
+    
+    
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+    
+    
+    /**
+     * Record one rendering of a template.
+     */
+    public static void record(Template template, long nanos, long chars) {
+        record(template.getId(), template.getName(), nanos, chars, System.currentTimeMillis());
+    }
+    
+    
+    static void record(String id, String name, long nanos, long chars, long now) {
+        long minute = TimeUnit.MILLISECONDS.toMinutes(now);
+        int index = (int) (minute % WINDOW_MINUTES);
+        
+        Slot slot = slots.get(index);
+        while (slot == null || slot.minute != minute) {
+            if (slot != null && slot.minute > minute) {
+                // a late report for a minute which has been replaced already
+                return;
+            }
+            Slot fresh = new Slot(minute);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                slot = fresh;
+            } else {
+                slot = slots.get(index);
+            }
+        }
+        
+        slot.templates.computeIfAbsent(id, k -> new TemplateStats(name)).add(nanos, chars);
+    }
+    
+    
+    /**
+     * Numbers for each template rendered during the window, most expensive
+     * in total first.
+     */
+    public static List<Summary> getSummaries() {
+        return getSummaries(System.currentTimeMillis());
+    }
+    
+    
+    static List<Summary> getSummaries(long now) {
+        long minute = TimeUnit.MILLISECONDS.toMinutes(now);
+        
+        Map<String, Summary> merged = new LinkedHashMap<>();
+        for (int i = 0; i < WINDOW_MINUTES; i++) {
+            Slot slot = slots.get(i);
+            if (slot == null || slot.minute <= minute - WINDOW_MINUTES || slot.minute > minute) {
+                continue;
+            }
+            for (Map.Entry<String, TemplateStats> e : slot.templates.entrySet()) {
+                merged.computeIfAbsent(e.getKey(), k -> new Summary(k, e.getValue().name))
+                        .add(e.getValue());
+            }
+        }
+        
+        List<Summary> summaries = new ArrayList<>(merged.values());
+        summaries.sort(Comparator.comparingLong(Summary::getTotalNanos).reversed());
+        return summaries;
+    }
+    
+    
+    /**
+     * Numbers in the same shape as the cache stats so they can be shown
+     * alongside them.
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("startTime", startTime);
+        stats.put("windowMinutes", WINDOW_MINUTES);
+        
+        List<Summary> summaries = getSummaries();
+        long renders = 0;
+        for (Summary summary : summaries) {
+            renders += summary.getCount();
+        }
+        stats.put("renders", renders);
+        
+        for (Summary summary : summaries.subList(0, Math.min(TOP_TEMPLATES, summaries.size()))) {
+            stats.put(summary.getName() + " [" + summary.getId() + "]", String.format(Locale.ENGLISH,
+                    "count=%d p50=%.1fms p95=%.1fms p99=%.1fms total=%dms avgChars=%d",
+                    summary.getCount(), summary.getPercentileMillis(50), summary.getPercentileMillis(95),
+                    summary.getPercentileMillis(99), TimeUnit.NANOSECONDS.toMillis(summary.getTotalNanos()),
+                    summary.getChars() / summary.getCount()));
+        }
+        return stats;
+    }
+    
+    
+    /**
+     * Reset all numbers.
+     */
+    public static void clear() {
+        for (int i = 0; i < WINDOW_MINUTES; i++) {
+            slots.set(i, null);
+        }
+        startTime = new Date();
+    }
+    
+    
+    private static int bucket(long nanos) {
+        double micros = nanos / 1000.0;
+        if (micros <= FIRST_BUCKET_MICROS) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(Math.log(micros / FIRST_BUCKET_MICROS) / Math.log(BUCKET_GROWTH));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+    
+    
+    private static double bucketMillis(int bucket) {
+        return FIRST_BUCKET_MICROS * Math.pow(BUCKET_GROWTH, bucket) / 1000.0;
+    }
+    
+    
+    /**
+     * Numbers for one template over the window.
+     */
+    public static final class Summary {
+        
+        private final String id;
+        private final String name;
+        private final long[] histogram = new long[BUCKETS];
+        private long count = 0;
+        private long totalNanos = 0;
+        private long chars = 0;
+        
+        private Summary(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+        
+        private void add(TemplateStats stats) {
+            count += stats.count.sum();
+            totalNanos += stats.nanos.sum();
+            chars += stats.chars.sum();
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] += stats.histogram.get(i);
+            }
+        }
+        
+        public String getId() {
+            return id;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+        
+        public long getChars() {
+            return chars;
+        }
+        
+        /**
+         * Estimate a percentile of the render time, as the upper bound of the
+         * histogram bucket it falls in.
+         */
+        public double getPercentileMillis(int percentile) {
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram[i];
+                if (seen >= rank && seen > 0) {
+                    return bucketMillis(i);
+                }
+            }
+            return 0;
+        }
+    }
+    
+    
+    private static final class Slot {
+        private final long minute;
+        private final Map<String, TemplateStats> templates = new ConcurrentHashMap<>();
+        
+        private Slot(long minute) {
+            this.minute = minute;
+        }
+    }
+    
+    
+    private static final class TemplateStats {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder chars = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        
+        private TemplateStats(String name) {
+            this.name = name;
+        }
+        
+        private void add(long time, long length) {
+            count.increment();
+            nanos.add(time);
+            chars.add(length);
+            histogram.incrementAndGet(bucket(time));
+        }
+    }
+    
+}
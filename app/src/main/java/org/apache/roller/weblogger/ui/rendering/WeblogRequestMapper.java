@@ -34,6 +34,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.roller.weblogger.config.WebloggerConfig;
 import org.apache.roller.weblogger.business.WebloggerFactory;
 import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.ui.rendering.util.WeblogRoute;
 
 
 /**
@@ -90,51 +91,37 @@ public class WeblogRequestMapper implements RequestMapper {
     public boolean handleRequest(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         
-        // kinda silly, but we need to keep track of whether or not the url had
-        // a trailing slash so that we can act accordingly
-        boolean trailingSlash = false;
-        
-        String weblogHandle = null;
-        String weblogLocale = null;
-        String weblogRequestContext = null;
-        String weblogRequestData = null;
-        
         log.debug("evaluating ["+stripAll(request.getRequestURI())+"]");
         
-        // figure out potential weblog handle
-        String servlet = request.getRequestURI();
-        String pathInfo = null;
-                
-        if(servlet != null && servlet.trim().length() > 1) {
-            
-            if(request.getContextPath() != null) {
-                servlet = servlet.substring(request.getContextPath().length());
-            }
-            
-            // strip off the leading slash
-            servlet = servlet.substring(1);
-            
-            // strip off trailing slash if needed
-            if(servlet.endsWith("/")) {
-                servlet = servlet.substring(0, servlet.length() - 1);
-                trailingSlash = true;
-            }
-            
-            if(servlet.indexOf('/') != -1) {
-                weblogHandle = servlet.substring(0, servlet.indexOf('/'));
-                pathInfo = servlet.substring(servlet.indexOf('/')+1);
-            } else {
-                weblogHandle = servlet;
-            }
+        // figure out potential weblog handle and the rest of the url,
+        // we expect /<weblog>/[locale/]<context>/<extra>/<info>
+        String path = request.getRequestURI();
+        if(path != null && request.getContextPath() != null) {
+            path = path.substring(request.getContextPath().length());
         }
+        WeblogRoute route = WeblogRoute.parse(path);
+        if(route == null) {
+            return false;
+        }
+        
+        String weblogHandle = route.getWeblogHandle();
+        String weblogLocale = route.getLocale();
+        String weblogRequestContext = route.getContext();
+        String weblogRequestData = route.getData();
+        
+        // kinda silly, but we need to keep track of whether or not the url had
+        // a trailing slash so that we can act accordingly
+        boolean trailingSlash = route.isTrailingSlash();
         
         log.debug("potential weblog handle = "+stripAll(weblogHandle));
         
         // check if it's a valid weblog handle
-        if(restricted.contains(weblogHandle) || !this.isWeblog(weblogHandle)) {
+        Weblog weblog = restricted.contains(weblogHandle) ? null : this.getWeblog(weblogHandle);
+        if(weblog == null) {
             log.debug("SKIPPED "+stripAll(weblogHandle));
             return false;
         }
+        route.setWeblog(weblog);
 
         // is there a special hostname for the specified hostname?
         String multiHostNameURL =  WebloggerConfig.getProperty("weblog.absoluteurl." + weblogHandle);
@@ -153,46 +140,6 @@ public class WeblogRequestMapper implements RequestMapper {
         
         log.debug("WEBLOG_URL "+stripAll(request.getServletPath()));
         
-        // parse the rest of the url and build forward url
-        if(pathInfo != null) {
-            
-            // parse the next portion of the url
-            // we expect [locale/]<context>/<extra>/<info>
-            String[] urlPath = pathInfo.split("/", 3);
-            
-            // if we have a locale, deal with it
-            if(this.isLocale(urlPath[0])) {
-                weblogLocale = urlPath[0];
-                
-                // no extra path info specified
-                if(urlPath.length == 2) {
-                    weblogRequestContext = urlPath[1];
-                    weblogRequestData = null;
-                    
-                // request contains extra path info
-                } else if(urlPath.length == 3) {
-                    weblogRequestContext = urlPath[1];
-                    weblogRequestData = urlPath[2];
-                }
-            
-            // otherwise locale is empty
-            } else {
-                weblogLocale = null;
-                weblogRequestContext = urlPath[0];
-                
-                // last part of request is extra path info
-                if(urlPath.length == 2) {
-                    weblogRequestData = urlPath[1];
-                    
-                // if we didn't have a locale then we have split too much
-                // so we reassemble the last 2 path elements together
-                } else if(urlPath.length == 3) {
-                    weblogRequestData = urlPath[1] + "/" + urlPath[2];
-                }
-            }
-            
-        }
-        
         // special handling for trailing slash issue
         // we need this because by http standards the urls /foo and /foo/ are
         // supposed to be considered different, so we must enforce that
@@ -234,8 +181,9 @@ public class WeblogRequestMapper implements RequestMapper {
             return false;
         }
         
-        // dispatch to forward url
+        // dispatch to forward url, the rendering servlet picks up the route
         log.debug("forwarding to "+stripAll(forwardUrl));
+        request.setAttribute(WeblogRoute.ATTRIBUTE, route);
         RequestDispatcher dispatch = request.getRequestDispatcher(forwardUrl);
         dispatch.forward(request, response);
         
@@ -411,58 +359,20 @@ public class WeblogRequestMapper implements RequestMapper {
     
     
     /**
-     * convenience method which determines if the given string is a valid
-     * weblog handle.
+     * convenience method which looks up the weblog for a potential weblog
+     * handle, returns null if it's not a valid weblog handle.
      */
-    private boolean isWeblog(String potentialHandle) {
+    private Weblog getWeblog(String potentialHandle) {
         
         log.debug("checking weblog handle "+stripAll(potentialHandle));
         
-        boolean isWeblog = false;
-        
         try {
-            Weblog weblog = WebloggerFactory.getWeblogger().getWeblogManager()
+            return WebloggerFactory.getWeblogger().getWeblogManager()
                     .getWeblogByHandle(potentialHandle);
-            
-            if(weblog != null) {
-                isWeblog = true;
-            }
         } catch(Exception ex) {
             // doesn't really matter to us why it's not a valid website
+            return null;
         }
-        
-        return isWeblog;
-    }
-    
-    
-    /**
-     * Convenience method which determines if the given string is a valid
-     * locale string.
-     */
-    private boolean isLocale(String potentialLocale) {
-        
-        boolean isLocale = false;
-        
-        // we only support 2 or 5 character locale strings, so check that first
-        if(potentialLocale != null && 
-                (potentialLocale.length() == 2 || potentialLocale.length() == 5)) {
-            
-            // now make sure that the format is proper ... e.g. "en_US"
-            // we are not going to be picky about capitalization
-            String[] langCountry = potentialLocale.split("_");
-            if(langCountry.length == 1 && 
-                    langCountry[0] != null && langCountry[0].length() == 2) {
-                isLocale = true;
-                
-            } else if(langCountry.length == 2 && 
-                    langCountry[0] != null && langCountry[0].length() == 2 && 
-                    langCountry[1] != null && langCountry[1].length() == 2) {
-                
-                isLocale = true;
-            }
-        }
-        
-        return isLocale;
     }
     
 }
@@ -36,7 +36,7 @@ import org.apache.roller.weblogger.ui.rendering.util.WeblogRequest;
  * 
  * Implemented by calling hybrid JSP tag.
  */
-public class CalendarModel implements Model {
+public class CalendarModel implements LazyModel {
     
     private static final Log log = LogFactory.getLog(CalendarModel.class);
     
@@ -27,7 +27,7 @@ import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
  * Model which provides access to application config data like site
  * config properties.
  */
-public class ConfigModel implements Model {
+public class ConfigModel implements SharedModel {
     
     /** Template context name to be used for model */
     @Override
@@ -18,21 +18,37 @@
 
 package org.apache.roller.weblogger.ui.rendering.model;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.weblogger.WebloggerException;
-import org.apache.roller.weblogger.util.Reflection;
 import org.apache.roller.weblogger.util.Utilities;
 
 
 /**
  * Helps with model loading process.
+ *
+ * The configured model classes are resolved once per models string into
+ * factories holding a constructor handle, so loading models on each request
+ * needs no reflective lookups.  {@link SharedModel}s are created once and
+ * reused, {@link LazyModel}s are only initialized when first referenced if
+ * loaded into a {@link ModelMap}.
  */
 public class ModelLoader {
     
     private static final Log log = LogFactory.getLog(ModelLoader.class);
     
+    // resolved factories, by models string
+    private static final Map<String, List<ModelFactory>> factories = new ConcurrentHashMap<>();
+    
+    
     /**
      * Convenience method to load a comma-separated list of page models.
      *
@@ -42,34 +58,159 @@ public class ModelLoader {
     public static void loadModels(String modelsString, Map<String, Object> modelMap,
             Map<String, Object> initData, boolean fail) throws WebloggerException {
         
+        for (ModelFactory factory : getFactories(modelsString, fail)) {
+            try {
+                if (factory.lazy && modelMap instanceof ModelMap) {
+                    ((ModelMap) modelMap).defer(factory.modelName, new Deferred(factory, initData));
+                } else {
+                    modelMap.put(factory.modelName, factory.create(initData));
+                }
+            } catch (WebloggerException re) {
+                if(fail) {
+                    throw re;
+                } else {
+                    log.warn("Error initializing model: " + factory.className);
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Resolve the factories for a models string, remembering the result
+     * unless some of the models could not be resolved.
+     */
+    private static List<ModelFactory> getFactories(String modelsString, boolean fail)
+            throws WebloggerException {
+        
+        if (modelsString == null) {
+            return Collections.emptyList();
+        }
+        
+        List<ModelFactory> resolved = factories.get(modelsString);
+        if (resolved != null) {
+            return resolved;
+        }
+        
+        resolved = new ArrayList<>();
+        boolean complete = true;
         String[] models = Utilities.stringToStringArray(modelsString, ",");
         if (models != null) {
             for (String model : models) {
                 try {
-                    Model pageModel = (Model) Reflection.newInstance(model);
-                    pageModel.init(initData);
-                    modelMap.put(pageModel.getModelName(), pageModel);
-                } catch (WebloggerException re) {
-                    if(fail) {
-                        throw re;
-                    } else {
-                        log.warn("Error initializing model: " + model);
-                    }
+                    resolved.add(new ModelFactory(model.trim()));
                 } catch (ClassNotFoundException cnfe) {
+                    complete = false;
                     if(fail) {
                         throw new WebloggerException("Error finding model: " + model, cnfe);
                     } else {
                         log.warn("Error finding model: " + model);
                     }
-                } catch (ReflectiveOperationException ex) {
+                } catch (ReflectiveOperationException | ClassCastException ex) {
+                    complete = false;
                     if(fail) {
                         throw new WebloggerException("Error instantiating model: " + model, ex);
                     } else {
                         log.warn("Error instantiating model: " + model);
                     }
+                } catch (WebloggerException re) {
+                    complete = false;
+                    if(fail) {
+                        throw re;
+                    } else {
+                        log.warn("Error initializing model: " + model);
+                    }
                 }
             }
         }
+        
+        resolved = Collections.unmodifiableList(resolved);
+        if (complete) {
+            factories.put(modelsString, resolved);
+        }
+        return resolved;
+    }
+    
+    
+    /**
+     * Creates the instances of one model class.
+     */
+    private static final class ModelFactory {
+        
+        private final String className;
+        private final String modelName;
+        private final MethodHandle constructor;
+        private final boolean lazy;
+        // the single instance of a SharedModel
+        private final Model sharedInstance;
+        
+        private ModelFactory(String className) throws ReflectiveOperationException, WebloggerException {
+            this.className = className;
+            
+            Class<? extends Model> modelClass = Class.forName(className).asSubclass(Model.class);
+            Constructor<? extends Model> ctor = modelClass.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            this.constructor = MethodHandles.lookup().unreflectConstructor(ctor);
+            this.lazy = LazyModel.class.isAssignableFrom(modelClass);
+            
+            // the model name is only available from an instance
+            Model prototype = newInstance();
+            this.modelName = prototype.getModelName();
+            
+            if (prototype instanceof SharedModel) {
+                prototype.init(Collections.emptyMap());
+                this.sharedInstance = prototype;
+            } else {
+                this.sharedInstance = null;
+            }
+        }
+        
+        private Model create(Map<String, Object> initData) throws WebloggerException {
+            if (sharedInstance != null) {
+                return sharedInstance;
+            }
+            Model model = newInstance();
+            model.init(initData);
+            return model;
+        }
+        
+        private Model newInstance() throws WebloggerException {
+            try {
+                return (Model) constructor.invoke();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new WebloggerException("Error instantiating model: " + className, t);
+            }
+        }
+    }
+    
+    
+    /**
+     * A model whose initialization has been deferred, see {@link ModelMap}.
+     */
+    static final class Deferred {
+        
+        private final ModelFactory factory;
+        private final Map<String, Object> initData;
+        
+        private Deferred(ModelFactory factory, Map<String, Object> initData) {
+            this.factory = factory;
+            this.initData = initData;
+        }
+        
+        /**
+         * @return the model, or null if it failed to initialize
+         */
+        Model init() {
+            try {
+                return factory.create(initData);
+            } catch (WebloggerException e) {
+                // rendering is already under way, carry on without the model
+                log.warn("Error initializing model: " + factory.className, e);
+                return null;
+            }
+        }
     }
     
 }
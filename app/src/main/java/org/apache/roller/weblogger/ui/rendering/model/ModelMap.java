@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.model;
+
+import java.util.HashMap;
+
+
+/**
+ * The map of objects made available to a renderer.
+ *
+ * Besides plain values it can hold models whose initialization has been
+ * deferred by the ModelLoader, those are initialized the first time they are
+ * looked up and replaced by the initialized model.  A model which fails to
+ * initialize is logged and replaced by null, like a model which failed to
+ * load up front.
+ */
+public class ModelMap extends HashMap<String, Object> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    
+    /**
+     * Add a model which is initialized on first lookup.
+     */
+    void defer(String name, ModelLoader.Deferred model) {
+        put(name, model);
+    }
+    
+    
+    @Override
+    public Object get(Object key) {
+        Object value = super.get(key);
+        if (value instanceof ModelLoader.Deferred) {
+            value = ((ModelLoader.Deferred) value).init();
+            put((String) key, value);
+        }
+        return value;
+    }
+    
+}
@@ -41,7 +41,7 @@ import org.apache.roller.weblogger.ui.rendering.util.WeblogRequest;
 /**
  * Model that provides access to planet aggregations, feeds and subscriptions.
  */
-public class PlanetModel implements Model {
+public class PlanetModel implements LazyModel {
     
     public static final String DEFAULT_PLANET_HANDLE = "default";   
     
@@ -50,6 +50,7 @@ public class PlanetModel implements Model {
     private WeblogRequest  weblogRequest = null; 
     private String         pageLink = null;
     private int            pageNum = 0;
+    private String         pageCursor = null;
     private Weblog         weblog = null;
     
     private URLStrategy    urlStrategy = null;
@@ -78,6 +79,7 @@ public class PlanetModel implements Model {
             ThemeTemplate weblogPage = ((WeblogPageRequest)weblogRequest).getWeblogPage();
             pageLink = (weblogPage != null) ? weblogPage.getLink() : null;
             pageNum = ((WeblogPageRequest)weblogRequest).getPageNum();
+            pageCursor = ((WeblogPageRequest)weblogRequest).getPageCursor();
         }  
         
         // look for url strategy
@@ -111,6 +113,7 @@ public class PlanetModel implements Model {
             pagerUrl,
             sinceDays,
             pageNum, 
+            pageCursor,
             length);
     }
     
@@ -133,6 +136,7 @@ public class PlanetModel implements Model {
             pagerUrl,
             sinceDays,
             pageNum, 
+            pageCursor,
             length);
     }
     
@@ -155,6 +159,7 @@ public class PlanetModel implements Model {
             pagerUrl,
             -1,
             pageNum, 
+            null,
             length);
     }
     
@@ -21,7 +21,9 @@ package org.apache.roller.weblogger.ui.rendering.pagers;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.planet.business.PlanetManager;
@@ -35,6 +37,11 @@ import org.apache.roller.weblogger.business.WebloggerFactory;
 
 /**
  * Paging through a collection of planet entries.
+ *
+ * Group pages are keyset paged: the link to the next page carries the
+ * pubTime and id of the last entry shown, as before=[pubTime]-[id], and the
+ * next page starts right after that entry however deep it is.  Without a
+ * cursor, as for feed pages and previous links, pages are found by offset.
  */
 public class PlanetEntriesPager extends AbstractPager<SubscriptionEntry> {
     
@@ -45,12 +52,19 @@ public class PlanetEntriesPager extends AbstractPager<SubscriptionEntry> {
     private int sinceDays = -1;
     private int length = 0;
     
+    // last entry of the previous page, if paging by cursor
+    private Date beforePubTime = null;
+    private String beforeId = null;
+    
     // the collection for the pager
     private List<SubscriptionEntry> entries = null;
     
     // are there more items?
     private boolean more = false;
     
+    // last entry of this page, where the next page starts
+    private SubscriptionEntry last = null;
+    
     
     public PlanetEntriesPager(
             URLStrategy    strat,
@@ -59,6 +73,7 @@ public class PlanetEntriesPager extends AbstractPager<SubscriptionEntry> {
             String         baseUrl,
             int            sinceDays,
             int            page,
+            String         before,
             int            length) {
         
         super(strat, baseUrl, page);
@@ -68,6 +83,19 @@ public class PlanetEntriesPager extends AbstractPager<SubscriptionEntry> {
         this.sinceDays = sinceDays;
         this.length = length;
         
+        // before is [pubTime millis]-[entry id], ignored if malformed
+        if (before != null && feedURL == null) {
+            String[] parts = before.split("-", 2);
+            if (parts.length == 2 && !parts[1].isEmpty()) {
+                try {
+                    this.beforePubTime = new Date(Long.parseLong(parts[0]));
+                    this.beforeId = parts[1];
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring bad page cursor: " + before);
+                }
+            }
+        }
+        
         // initialize the collection
         getItems();
     }
@@ -97,20 +125,28 @@ public class PlanetEntriesPager extends AbstractPager<SubscriptionEntry> {
                 if (feedURL != null) {
                     Subscription sub = planetManager.getSubscription(feedURL);
                     subEntries = planetManager.getEntries(sub, offset, length+1);
-                } else if (groupHandle != null) {
-                    PlanetGroup group = planetManager.getGroup(planet, groupHandle);
-                    subEntries = planetManager.getEntries(group, startDate, null, offset, length + 1);
                 } else {
-                    PlanetGroup group = planetManager.getGroup(planet, "all");
-                    subEntries = planetManager.getEntries(group, startDate, null, offset, length + 1);
+                    PlanetGroup group = planetManager.getGroup(planet,
+                            groupHandle != null ? groupHandle : "all");
+                    if (beforeId != null) {
+                        subEntries = planetManager.getEntriesBefore(group, beforePubTime, beforeId, length + 1);
+                    } else {
+                        subEntries = planetManager.getEntries(group, startDate, null, offset, length + 1);
+                    }
                 }
                 
                 // wrap 'em
                 int count = 0;
                 for (SubscriptionEntry entry : subEntries) {
+                    // newest first, so once one is too old the rest are too
+                    if (startDate != null && entry.getPubTime() != null
+                            && entry.getPubTime().before(startDate)) {
+                        break;
+                    }
                     // TODO needs pojo wrapping from planet
                     if (count++ < length) { 
                         results.add(entry);
+                        last = entry;
                     } else {
                         more = true;
                     }
@@ -127,6 +163,21 @@ public class PlanetEntriesPager extends AbstractPager<SubscriptionEntry> {
     }
     
 
+    /**
+     * Link to the next page, starting after the last entry of this one.
+     */
+    @Override
+    public String getNextLink() {
+        if (more && feedURL == null && last != null && last.getPubTime() != null) {
+            Map<String, String> params = new LinkedHashMap<>();
+            params.put("page", "" + (getPage() + 1));
+            params.put("before", last.getPubTime().getTime() + "-" + last.getId());
+            return createURL(getUrl(), params);
+        }
+        return super.getNextLink();
+    }
+    
+
     @Override
     public boolean hasMoreItems() {
         return more;
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -128,6 +129,7 @@ public class WeblogEntriesDayPager extends AbstractWeblogEntriesPager {
                 wesc.setLocale(locale);
                 wesc.setOffset(offset);
                 wesc.setMaxResults(length+1);
+                wesc.setPrefetch(EnumSet.allOf(WeblogEntrySearchCriteria.Prefetch.class));
                 Map<Date, List<WeblogEntry>> mmap =
                         WebloggerFactory.getWeblogger().getWeblogEntryManager().getWeblogEntryObjectMap(wesc);
 
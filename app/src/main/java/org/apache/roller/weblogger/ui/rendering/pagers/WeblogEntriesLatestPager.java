@@ -21,6 +21,7 @@ package org.apache.roller.weblogger.ui.rendering.pagers;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -81,6 +82,7 @@ public class WeblogEntriesLatestPager extends AbstractWeblogEntriesPager {
                 wesc.setLocale(locale);
                 wesc.setOffset(offset);
                 wesc.setMaxResults(length+1);
+                wesc.setPrefetch(EnumSet.allOf(WeblogEntrySearchCriteria.Prefetch.class));
                 Map<Date, List<WeblogEntry>> mmap = WebloggerFactory.getWeblogger().getWeblogEntryManager().getWeblogEntryObjectMap(wesc);
 
                 // need to wrap pojos
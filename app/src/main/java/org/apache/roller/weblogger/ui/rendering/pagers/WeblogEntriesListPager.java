@@ -22,6 +22,7 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -116,6 +117,7 @@ public class WeblogEntriesListPager extends AbstractPager<WeblogEntryWrapper> {
                 wesc.setLocale(locale);
                 wesc.setOffset(offset);
                 wesc.setMaxResults(length+1);
+                wesc.setPrefetch(EnumSet.allOf(WeblogEntrySearchCriteria.Prefetch.class));
                 List<WeblogEntry> rawEntries = WebloggerFactory.getWeblogger()
                         .getWeblogEntryManager().getWeblogEntries(wesc);
 
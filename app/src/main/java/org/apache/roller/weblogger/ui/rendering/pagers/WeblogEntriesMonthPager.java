@@ -118,6 +118,7 @@ public class WeblogEntriesMonthPager extends AbstractWeblogEntriesPager {
                 wesc.setLocale(locale);
                 wesc.setOffset(offset);
                 wesc.setMaxResults(length+1);
+                wesc.setPrefetch(EnumSet.allOf(WeblogEntrySearchCriteria.Prefetch.class));
                 Map<Date, List<WeblogEntry>> mmap = WebloggerFactory.getWeblogger()
                         .getWeblogEntryManager().getWeblogEntryObjectMap(wesc);
 
@@ -44,7 +44,9 @@ import org.apache.roller.weblogger.ui.rendering.Renderer;
 import org.apache.roller.weblogger.ui.rendering.RendererManager;
 import org.apache.roller.weblogger.ui.rendering.mobile.MobileDeviceRepository;
 import org.apache.roller.weblogger.ui.rendering.model.ModelLoader;
+import org.apache.roller.weblogger.ui.rendering.model.ModelMap;
 import org.apache.roller.weblogger.ui.rendering.model.SearchResultsFeedModel;
+import org.apache.roller.weblogger.ui.rendering.util.cache.HotCacheKeys;
 import org.apache.roller.weblogger.ui.rendering.util.cache.SiteWideCache;
 import org.apache.roller.weblogger.ui.rendering.util.cache.WeblogFeedCache;
 import org.apache.roller.weblogger.ui.rendering.util.ModDateHeaderUtil;
@@ -59,6 +61,7 @@ public class FeedServlet extends HttpServlet {
 
     private WeblogFeedCache weblogFeedCache = null;
     private SiteWideCache siteWideCache = null;
+    private HotCacheKeys hotCacheKeys = null;
 
 
     /**
@@ -76,6 +79,9 @@ public class FeedServlet extends HttpServlet {
 
         // get a reference to the site wide cache
         this.siteWideCache = SiteWideCache.getInstance();
+
+        // get a reference to the request counts used for cache warmup
+        this.hotCacheKeys = HotCacheKeys.getInstance();
     }
 
 
@@ -168,6 +174,7 @@ public class FeedServlet extends HttpServlet {
 
         if (cachedContent != null) {
             log.debug("HIT " + cacheKey);
+            recordHotKey(isSiteWide, cacheKey, request);
 
             response.setContentLength(cachedContent.getContent().length);
             response.getOutputStream().write(cachedContent.getContent());
@@ -217,7 +224,7 @@ public class FeedServlet extends HttpServlet {
         }
 
         // looks like we need to render content
-        HashMap<String, Object> model = new HashMap<>();
+        Map<String, Object> model = new ModelMap();
         String pageId;
         try {
             // determine what template to render with
@@ -338,8 +345,21 @@ public class FeedServlet extends HttpServlet {
         } else {
             weblogFeedCache.put(cacheKey, rendererOutput);
         }
+        if (response.getStatus() == HttpServletResponse.SC_OK) {
+            recordHotKey(isSiteWide, cacheKey, request);
+        }
 
         log.debug("Exiting");
     }
 
+
+    /**
+     * Count a request for a feed held in the cache, so the hottest feeds can
+     * be warmed up.
+     */
+    private void recordHotKey(boolean isSiteWide, String cacheKey, HttpServletRequest request) {
+        hotCacheKeys.record(isSiteWide ? SiteWideCache.CACHE_ID : WeblogFeedCache.CACHE_ID,
+                cacheKey, request);
+    }
+
 }
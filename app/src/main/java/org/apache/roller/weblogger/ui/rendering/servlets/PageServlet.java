@@ -44,10 +44,12 @@ import org.apache.roller.weblogger.ui.core.RollerContext;
 import org.apache.roller.weblogger.ui.rendering.Renderer;
 import org.apache.roller.weblogger.ui.rendering.RendererManager;
 import org.apache.roller.weblogger.ui.rendering.model.ModelLoader;
-import org.apache.roller.weblogger.ui.rendering.util.InvalidRequestException;
+import org.apache.roller.weblogger.ui.rendering.model.ModelMap;
 import org.apache.roller.weblogger.ui.rendering.util.ModDateHeaderUtil;
 import org.apache.roller.weblogger.ui.rendering.util.WeblogEntryCommentForm;
 import org.apache.roller.weblogger.ui.rendering.util.WeblogPageRequest;
+import org.apache.roller.weblogger.ui.rendering.mobile.MobileDeviceRepository.DeviceType;
+import org.apache.roller.weblogger.ui.rendering.util.cache.HotCacheKeys;
 import org.apache.roller.weblogger.ui.rendering.util.cache.SiteWideCache;
 import org.apache.roller.weblogger.ui.rendering.util.cache.WeblogPageCache;
 import org.apache.roller.weblogger.util.BannedwordslistChecker;
@@ -62,8 +64,10 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.jsp.JspFactory;
 import javax.servlet.jsp.PageContext;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -80,6 +84,17 @@ public class PageServlet extends HttpServlet {
     private boolean excludeOwnerPages = false;
     private WeblogPageCache weblogPageCache = null;
     private SiteWideCache siteWideCache = null;
+    private HotCacheKeys hotCacheKeys = null;
+    // running average size of the rendered output, by template id, for the
+    // most recently rendered templates only
+    private static final int MAX_RENDER_SIZES = 1000;
+    private final Map<String, Integer> renderSizes = Collections.synchronizedMap(
+            new LinkedHashMap<String, Integer>(MAX_RENDER_SIZES * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > MAX_RENDER_SIZES;
+                }
+            });
 
     // Development theme reloading
     Boolean themeReload = false;
@@ -103,6 +118,9 @@ public class PageServlet extends HttpServlet {
         // get a reference to the site wide cache
         this.siteWideCache = SiteWideCache.getInstance();
 
+        // get a reference to the request counts used for cache warmup
+        this.hotCacheKeys = HotCacheKeys.getInstance();
+
         // see if built-in referrer spam check is enabled
         this.processReferrers = WebloggerConfig
                 .getBooleanProperty("site.bannedwordslist.enable.referrers");
@@ -139,25 +157,10 @@ public class PageServlet extends HttpServlet {
 
         log.debug("Entering");
 
-        // do referrer processing, if it's enabled
-        // NOTE: this *must* be done first because it triggers a hibernate flush
-        // which will close the active session and cause lazy init exceptions
-        // otherwise
-        if (this.processReferrers) {
-            boolean spam = this.processReferrer(request);
-            if (spam) {
-                log.debug("spammer, giving 'em a 403");
-                if (!response.isCommitted()) {
-                    response.reset();
-                }
-                response.sendError(HttpServletResponse.SC_FORBIDDEN);
-                return;
-            }
-        }
-
         Weblog weblog;
         boolean isSiteWide;
 
+        // the request is parsed once and used for referrer processing as well
         WeblogPageRequest pageRequest;
         try {
             pageRequest = new WeblogPageRequest(request);
@@ -178,6 +181,19 @@ public class PageServlet extends HttpServlet {
             return;
         }
 
+        // do referrer processing, if it's enabled
+        if (this.processReferrers) {
+            boolean spam = this.processReferrer(request, pageRequest, isSiteWide);
+            if (spam) {
+                log.debug("spammer, giving 'em a 403");
+                if (!response.isCommitted()) {
+                    response.reset();
+                }
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+        }
+
         // determine the lastModified date for this content
         long lastModified = System.currentTimeMillis();
         if (isSiteWide) {
@@ -248,6 +264,7 @@ public class PageServlet extends HttpServlet {
 
             if (cachedContent != null) {
                 log.debug("HIT " + cacheKey);
+                recordHotKey(pageRequest, isSiteWide, cacheKey, request);
 
                 // allow for hit counting
                 if (!isSiteWide
@@ -440,7 +457,7 @@ public class PageServlet extends HttpServlet {
             }
         }
 
-        HashMap<String, Object> model = new HashMap<>();
+        Map<String, Object> model = new ModelMap();
         try {
             PageContext pageContext = JspFactory.getDefaultFactory()
                     .getPageContext(this, request, response, "", false,
@@ -504,38 +521,35 @@ public class PageServlet extends HttpServlet {
             return;
         }
 
-        // render content
+        // render content, streaming it to the client as it is produced while
+        // capturing it for the cache
+        boolean cacheable = (!this.excludeOwnerPages || !pageRequest.isLoggedIn())
+                && request.getAttribute("skipCache") == null;
+        response.setContentType(contentType);
         CachedContent rendererOutput = new CachedContent(
-                RollerConstants.TWENTYFOUR_KB_IN_BYTES, contentType);
+                cacheable ? estimateSize(page.getId()) : RollerConstants.FOUR_KB_IN_BYTES,
+                contentType, response.getOutputStream());
         try {
             log.debug("Doing rendering");
             renderer.render(model, rendererOutput.getCachedWriter());
 
             // flush rendered output and close
-            rendererOutput.flush();
             rendererOutput.close();
         } catch (Exception e) {
-            // bummer, error during rendering
+            // bummer, error during rendering, the captured output is dropped
             log.error("Error during rendering for page " + page.getId(), e);
 
             if (!response.isCommitted()) {
                 response.reset();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
             }
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
             return;
         }
 
-        // post rendering process
-        // flush rendered content to response
-        log.debug("Flushing response output");
-        response.setContentType(contentType);
-        response.setContentLength(rendererOutput.getContent().length);
-        response.getOutputStream().write(rendererOutput.getContent());
-
         // cache rendered content. only cache if user is not logged in?
-        if ((!this.excludeOwnerPages || !pageRequest.isLoggedIn())
-                && request.getAttribute("skipCache") == null) {
+        if (cacheable) {
             log.debug("PUT " + cacheKey);
+            recordSize(page.getId(), rendererOutput.getContent().length);
 
             // put it in the right cache
             if (isSiteWide) {
@@ -543,6 +557,9 @@ public class PageServlet extends HttpServlet {
             } else {
                 weblogPageCache.put(cacheKey, rendererOutput);
             }
+            if (response.getStatus() == HttpServletResponse.SC_OK) {
+                recordHotKey(pageRequest, isSiteWide, cacheKey, request);
+            }
         } else {
             log.debug("SKIPPED " + cacheKey);
         }
@@ -550,6 +567,22 @@ public class PageServlet extends HttpServlet {
         log.debug("Exiting");
     }
 
+    /**
+     * Initial capture buffer size for a template, the running average size of
+     * its rendered output plus some headroom so the buffer rarely has to grow.
+     */
+    private int estimateSize(String templateId) {
+        Integer average = renderSizes.get(templateId);
+        if (average == null) {
+            return RollerConstants.TWENTYFOUR_KB_IN_BYTES;
+        }
+        return average + average / 8;
+    }
+
+    private void recordSize(String templateId, int size) {
+        renderSizes.merge(templateId, size, (average, latest) -> average + (latest - average) / 4);
+    }
+
     /**
      * Handle POST requests.
      * 
@@ -569,6 +602,18 @@ public class PageServlet extends HttpServlet {
         this.doGet(request, response);
     }
 
+    /**
+     * Count an anonymous request for a page held in the cache, so the hottest
+     * pages can be warmed up.
+     */
+    private void recordHotKey(WeblogPageRequest pageRequest, boolean isSiteWide,
+            String cacheKey, HttpServletRequest request) {
+        if (!pageRequest.isLoggedIn() && pageRequest.getDeviceType() == DeviceType.standard) {
+            hotCacheKeys.record(isSiteWide ? SiteWideCache.CACHE_ID : WeblogPageCache.CACHE_ID,
+                    cacheKey, request);
+        }
+    }
+
     /**
      * Notify the hit tracker that it has an incoming page hit.
      */
@@ -584,24 +629,13 @@ public class PageServlet extends HttpServlet {
      * 
      * @return true if referrer was spam, false otherwise
      */
-    private boolean processReferrer(HttpServletRequest request) {
+    private boolean processReferrer(HttpServletRequest request,
+            WeblogPageRequest pageRequest, boolean isSiteWide) {
 
         log.debug("processing referrer for " + stripAll(request.getRequestURI()));
 
-        // bleh! because ref processing does a flush it will close
-        // our hibernate session and cause lazy init exceptions on
-        // objects we have fetched, so we need to use a separate
-        // page request object for this
-        WeblogPageRequest pageRequest;
-        try {
-            pageRequest = new WeblogPageRequest(request);
-        } catch (InvalidRequestException ex) {
-            return false;
-        }
-
         // if this came from site-wide frontpage then skip it
-        if (WebloggerRuntimeConfig.isSiteWideWeblog(pageRequest
-                .getWeblogHandle())) {
+        if (isSiteWide) {
             return false;
         }
 
@@ -34,6 +34,7 @@ import org.apache.roller.weblogger.ui.core.RollerContext;
 import org.apache.roller.weblogger.ui.rendering.Renderer;
 import org.apache.roller.weblogger.ui.rendering.RendererManager;
 import org.apache.roller.weblogger.ui.rendering.model.ModelLoader;
+import org.apache.roller.weblogger.ui.rendering.model.ModelMap;
 import org.apache.roller.weblogger.ui.rendering.util.WeblogPreviewRequest;
 import org.apache.roller.weblogger.util.cache.CachedContent;
 
@@ -208,7 +209,7 @@ public class PreviewServlet extends HttpServlet {
         }
         
         // looks like we need to render content
-        Map<String, Object> model = new HashMap<>();
+        Map<String, Object> model = new ModelMap();
         try {
             PageContext pageContext = JspFactory.getDefaultFactory().getPageContext(
                     this, request, response,"", false, RollerConstants.EIGHT_KB_IN_BYTES, true);
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.servlets;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.roller.weblogger.ui.rendering.RenderMetrics;
+import org.apache.roller.weblogger.ui.rendering.RenderMetrics.Summary;
+
+/**
+ * Serves the template render metrics as plain text, in the Prometheus text
+ * exposition format, so that they can be scraped by monitoring tools.
+ *
+ * Mapped below /roller-ui/admin so only admins may read it.  Responds with
+ * 404 unless rendering.metrics.enabled is set.
+ */
+public class RenderMetricsServlet extends HttpServlet {
+
+    private static final int[] PERCENTILES = {50, 95, 99};
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        if (!RenderMetrics.isEnabled()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        response.setHeader("Cache-Control", "no-cache");
+
+        PrintWriter out = response.getWriter();
+        Iterable<Summary> summaries = RenderMetrics.getSummaries();
+
+        out.println("# HELP roller_template_render_seconds Template render time over the sliding window.");
+        out.println("# TYPE roller_template_render_seconds summary");
+        for (Summary summary : summaries) {
+            String labels = labels(summary);
+            for (int percentile : PERCENTILES) {
+                out.printf(Locale.ENGLISH, "roller_template_render_seconds{%s,quantile=\"%s\"} %.6f%n",
+                        labels, percentile / 100.0, summary.getPercentileMillis(percentile) / 1000);
+            }
+            out.printf(Locale.ENGLISH, "roller_template_render_seconds_sum{%s} %.6f%n",
+                    labels, summary.getTotalNanos() / 1e9);
+            out.printf(Locale.ENGLISH, "roller_template_render_seconds_count{%s} %d%n",
+                    labels, summary.getCount());
+        }
+
+        out.println("# HELP roller_template_render_chars Characters produced by templates over the sliding window.");
+        out.println("# TYPE roller_template_render_chars gauge");
+        for (Summary summary : summaries) {
+            out.printf(Locale.ENGLISH, "roller_template_render_chars{%s} %d%n",
+                    labels(summary), summary.getChars());
+        }
+        out.flush();
+    }
+
+    private static String labels(Summary summary) {
+        return "template=\"" + escape(summary.getId()) + "\",name=\"" + escape(summary.getName()) + "\"";
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -44,6 +44,7 @@ import org.apache.roller.weblogger.pojos.WeblogTheme;
 import org.apache.roller.weblogger.ui.rendering.Renderer;
 import org.apache.roller.weblogger.ui.rendering.RendererManager;
 import org.apache.roller.weblogger.ui.rendering.model.ModelLoader;
+import org.apache.roller.weblogger.ui.rendering.model.ModelMap;
 import org.apache.roller.weblogger.ui.rendering.util.WeblogPageRequest;
 import org.apache.roller.weblogger.ui.rendering.util.WeblogSearchRequest;
 import org.apache.roller.weblogger.ui.rendering.util.cache.SiteWideCache;
@@ -154,7 +155,7 @@ public class SearchServlet extends HttpServlet {
         response.setContentType("text/html; charset=utf-8");
 
         // looks like we need to render content
-        Map<String, Object> model = new HashMap<>();
+        Map<String, Object> model = new ModelMap();
         try {
             PageContext pageContext = JspFactory.getDefaultFactory()
                     .getPageContext(this, request, response, "", false, RollerConstants.EIGHT_KB_IN_BYTES, true);
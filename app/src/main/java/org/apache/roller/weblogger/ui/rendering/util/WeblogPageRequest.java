@@ -61,6 +61,7 @@ public class WeblogPageRequest extends WeblogRequest {
     private String weblogDate = null;
     private List<String> tags = null;
     private int pageNum = 0;
+    private String pageCursor = null;
     private Map<String, String[]> customParams = Collections.emptyMap();
 
     // heavyweight attributes
@@ -247,6 +248,11 @@ public class WeblogPageRequest extends WeblogRequest {
             }
         }
 
+        // position after which a keyset paged list continues, see PlanetEntriesPager
+        if (request.getParameter("before") != null) {
+            this.pageCursor = request.getParameter("before");
+        }
+
         // build customParams Map, we remove built-in params because we only
         // want this map to represent params defined by the template author
         customParams = new HashMap<>(request.getParameterMap());
@@ -256,6 +262,7 @@ public class WeblogPageRequest extends WeblogRequest {
         customParams.remove("cat");
         customParams.remove("page");
         customParams.remove("tags");
+        customParams.remove("before");
 
         if (log.isDebugEnabled()) {
             log.debug("context = " + stripAll(this.context));
@@ -326,6 +333,14 @@ public class WeblogPageRequest extends WeblogRequest {
         this.pageNum = pageNum;
     }
 
+    public String getPageCursor() {
+        return pageCursor;
+    }
+
+    public void setPageCursor(String pageCursor) {
+        this.pageCursor = pageCursor;
+    }
+
     public Map<String, String[]> getCustomParams() {
         return customParams;
     }
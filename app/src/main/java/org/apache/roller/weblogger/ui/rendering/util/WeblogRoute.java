@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.util;
+
+import javax.servlet.ServletRequest;
+import org.apache.roller.weblogger.pojos.Weblog;
+
+
+/**
+ * The parts of a weblog url of the form
+ * /<weblogHandle>[/locale][/context[/extra/path/info]] as routed by the
+ * WeblogRequestMapper.
+ *
+ * The mapper parses the url once and keeps the result, along with the weblog
+ * it looked up, as a request attribute so that the rendering servlet it
+ * forwards to does not have to look the weblog up again.
+ *
+ * Parsing works on indexes into the url instead of splitting it, so the only
+ * strings created are the parts themselves.
+ */
+public final class WeblogRoute {
+    
+    /** Request attribute holding the route of the current request. */
+    public static final String ATTRIBUTE = WeblogRoute.class.getName();
+    
+    private final String weblogHandle;
+    private final String locale;
+    private final String context;
+    private final String data;
+    private final boolean trailingSlash;
+    
+    // looked up by the mapper
+    private Weblog weblog = null;
+    
+    
+    private WeblogRoute(String weblogHandle, String locale, String context,
+            String data, boolean trailingSlash) {
+        this.weblogHandle = weblogHandle;
+        this.locale = locale;
+        this.context = context;
+        this.data = data;
+        this.trailingSlash = trailingSlash;
+    }
+    
+    
+    /**
+     * Parse a url path relative to the webapp context.
+     *
+     * @return the route, or null if the path has no weblog handle
+     */
+    public static WeblogRoute parse(String path) {
+        
+        if (path == null || path.trim().length() <= 1) {
+            return null;
+        }
+        
+        // ignore the leading slash and remember a trailing one
+        int start = path.charAt(0) == '/' ? 1 : 0;
+        int end = path.length();
+        boolean trailingSlash = false;
+        if (end > start && path.charAt(end - 1) == '/') {
+            end--;
+            trailingSlash = true;
+        }
+        
+        int slash = path.indexOf('/', start);
+        if (slash < 0 || slash >= end) {
+            return new WeblogRoute(path.substring(start, end), null, null, null, trailingSlash);
+        }
+        String handle = path.substring(start, slash);
+        
+        // we expect [locale/]<context>/<extra>/<info>
+        String locale = null;
+        int pos = slash + 1;
+        int next = nextSlash(path, pos, end);
+        if (isLocale(path, pos, next)) {
+            locale = path.substring(pos, next);
+            if (next == end) {
+                return new WeblogRoute(handle, locale, null, null, trailingSlash);
+            }
+            pos = next + 1;
+            next = nextSlash(path, pos, end);
+        }
+        
+        String context = path.substring(pos, next);
+        String data = next < end ? path.substring(next + 1, end) : null;
+        return new WeblogRoute(handle, locale, context, data, trailingSlash);
+    }
+    
+    
+    /**
+     * The route of the given request, or null if it wasn't routed by the
+     * WeblogRequestMapper.
+     */
+    public static WeblogRoute get(ServletRequest request) {
+        Object route = request.getAttribute(ATTRIBUTE);
+        return route instanceof WeblogRoute ? (WeblogRoute) route : null;
+    }
+    
+    
+    /**
+     * Convenience method which determines if the given string is a valid
+     * locale string, e.g. "en" or "en_US".  We are not going to be picky
+     * about capitalization.
+     */
+    public static boolean isLocale(String potentialLocale) {
+        return potentialLocale != null && isLocale(potentialLocale, 0, potentialLocale.length());
+    }
+    
+    
+    private static boolean isLocale(String s, int from, int to) {
+        // we only support 2 or 5 character locale strings
+        int length = to - from;
+        if (length == 2) {
+            return s.charAt(from) != '_' && s.charAt(from + 1) != '_';
+        } else if (length == 5) {
+            return s.charAt(from) != '_' && s.charAt(from + 1) != '_'
+                    && s.charAt(from + 2) == '_'
+                    && s.charAt(from + 3) != '_' && s.charAt(from + 4) != '_';
+        }
+        return false;
+    }
+    
+    
+    private static int nextSlash(String path, int from, int end) {
+        int slash = path.indexOf('/', from);
+        return slash < 0 || slash > end ? end : slash;
+    }
+    
+    
+    public String getWeblogHandle() {
+        return weblogHandle;
+    }
+    
+    public String getLocale() {
+        return locale;
+    }
+    
+    /**
+     * The first path element after handle and locale, e.g. "entry", or null
+     * for the weblog homepage.
+     */
+    public String getContext() {
+        return context;
+    }
+    
+    /**
+     * Everything after the context, or null.
+     */
+    public String getData() {
+        return data;
+    }
+    
+    public boolean isTrailingSlash() {
+        return trailingSlash;
+    }
+    
+    public Weblog getWeblog() {
+        return weblog;
+    }
+    
+    public void setWeblog(Weblog weblog) {
+        this.weblog = weblog;
+    }
+    
+}
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.util.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+
+
+/**
+ * Keeps track of the most requested keys of the rendering caches.
+ *
+ * Request counts are estimated with a count-min sketch, which needs a fixed
+ * amount of memory no matter how many distinct pages are requested, and the
+ * top keys are kept along with the url which renders them.  The list is
+ * saved to disk so that it survives restarts, and is used by the
+ * {@link WeblogCacheWarmupTask} to render hot content before visitors ask
+ * for it.
+ */
+public final class HotCacheKeys {
+    
+    private static final Log log = LogFactory.getLog(HotCacheKeys.class);
+    
+    // prefix for the roller config properties of the tracker
+    public static final String CONFIG_ID = "cache.warmup";
+    
+    // requests carrying this header are made by the warmup task itself
+    public static final String WARMUP_HEADER = "X-Roller-Cache-Warmup";
+    
+    // sketch dimensions, about 0.05% overestimation with 98% confidence
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+    
+    private final boolean enabled;
+    private final int maxKeys;
+    private final String file;
+    
+    private final AtomicIntegerArray sketch = new AtomicIntegerArray(DEPTH * WIDTH);
+    private final Map<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+    
+    // smallest count in a full list of hot keys, what a new key has to beat
+    private volatile int threshold = 0;
+    
+    // reference to our singleton instance
+    private static final HotCacheKeys singletonInstance = new HotCacheKeys(
+            WebloggerConfig.getBooleanProperty(CONFIG_ID+".enabled", true),
+            WebloggerConfig.getIntProperty(CONFIG_ID+".keys", 100),
+            WebloggerConfig.getProperty(CONFIG_ID+".file"));
+    
+    
+    HotCacheKeys(boolean enabled, int maxKeys, String file) {
+        this.enabled = enabled && maxKeys > 0;
+        this.maxKeys = maxKeys;
+        this.file = file;
+        
+        if (this.enabled) {
+            load();
+        }
+    }
+    
+    
+    public static HotCacheKeys getInstance() {
+        return singletonInstance;
+    }
+    
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    
+    /**
+     * Count a request for content kept under the given key of a cache.
+     *
+     * Requests made by the warmup task are ignored, so are requests which
+     * were not made with GET.
+     */
+    public void record(String cacheId, String key, HttpServletRequest request) {
+        
+        if (!enabled || key == null || !"GET".equals(request.getMethod())
+                || request.getHeader(WARMUP_HEADER) != null) {
+            return;
+        }
+        
+        record(cacheId, key, requestPath(request));
+    }
+    
+    
+    void record(String cacheId, String key, String path) {
+        
+        // keys and paths are saved as tab separated lines
+        if (key.indexOf('\t') >= 0 || key.indexOf('\n') >= 0
+                || path.indexOf('\t') >= 0 || path.indexOf('\n') >= 0) {
+            return;
+        }
+        
+        int count = add(key);
+        
+        HotKey hot = hotKeys.get(key);
+        if (hot != null) {
+            hot.count = count;
+        } else if (hotKeys.size() < maxKeys || count > threshold) {
+            admit(new HotKey(cacheId, key, path, count));
+        }
+    }
+    
+    
+    /**
+     * The hot keys, most requested first.
+     */
+    public List<HotKey> getHotKeys() {
+        List<HotKey> keys = new ArrayList<>(hotKeys.values());
+        keys.sort(Comparator.comparingInt((HotKey k) -> k.count).reversed());
+        return keys;
+    }
+    
+    
+    /**
+     * Halve all counts so that the hot keys follow changes in traffic.
+     */
+    public void decay() {
+        
+        if (!enabled) {
+            return;
+        }
+        
+        for (int i = 0; i < sketch.length(); i++) {
+            int value;
+            do {
+                value = sketch.get(i);
+            } while (!sketch.compareAndSet(i, value, value >> 1));
+        }
+        for (HotKey hot : hotKeys.values()) {
+            hot.count >>= 1;
+        }
+        synchronized (this) {
+            threshold = minCount();
+        }
+    }
+    
+    
+    /**
+     * Write the hot keys to disk, replacing the previous list.
+     */
+    public void save() {
+        
+        if (!enabled || file == null) {
+            return;
+        }
+        
+        Path path = Paths.get(file);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (HotKey hot : getHotKeys()) {
+                    writer.write(hot.cacheId + "\t" + hot.count + "\t" + hot.path + "\t" + hot.key);
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            log.warn("Unable to save hot cache keys to "+file, ex);
+        }
+    }
+    
+    
+    /**
+     * Read hot keys saved by a previous run, seeding their counts.
+     */
+    private void load() {
+        
+        if (file == null || !Files.isReadable(Paths.get(file))) {
+            return;
+        }
+        
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null && hotKeys.size() < maxKeys) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length < 4) {
+                    continue;
+                }
+                try {
+                    int count = Integer.parseInt(parts[1]);
+                    for (int row = 0; row < DEPTH; row++) {
+                        sketch.addAndGet(index(parts[3], row), count);
+                    }
+                    admit(new HotKey(parts[0], parts[3], parts[2], count));
+                } catch (NumberFormatException ex) {
+                    log.debug("Ignoring bad line: "+line);
+                }
+            }
+            log.info("Loaded "+hotKeys.size()+" hot cache keys from "+file);
+        } catch (IOException ex) {
+            log.warn("Unable to load hot cache keys from "+file, ex);
+        }
+    }
+    
+    
+    /**
+     * Count the key in the sketch and return its estimated count.
+     */
+    private int add(String key) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, sketch.incrementAndGet(index(key, row)));
+        }
+        return estimate;
+    }
+    
+    
+    private synchronized void admit(HotKey candidate) {
+        
+        if (hotKeys.containsKey(candidate.key)) {
+            return;
+        }
+        
+        if (hotKeys.size() >= maxKeys) {
+            HotKey coldest = null;
+            for (HotKey hot : hotKeys.values()) {
+                if (coldest == null || hot.count < coldest.count) {
+                    coldest = hot;
+                }
+            }
+            if (coldest == null || coldest.count >= candidate.count) {
+                threshold = coldest == null ? 0 : coldest.count;
+                return;
+            }
+            hotKeys.remove(coldest.key);
+        }
+        hotKeys.put(candidate.key, candidate);
+        
+        threshold = hotKeys.size() < maxKeys ? 0 : minCount();
+    }
+    
+    
+    private int minCount() {
+        int min = Integer.MAX_VALUE;
+        for (HotKey hot : hotKeys.values()) {
+            min = Math.min(min, hot.count);
+        }
+        return hotKeys.size() < maxKeys || min == Integer.MAX_VALUE ? 0 : min;
+    }
+    
+    
+    private static int index(String key, int row) {
+        int h1 = key.hashCode();
+        int h2 = h1 * 0x9E3779B9;
+        h2 ^= h2 >>> 16;
+        return row * WIDTH + Math.floorMod(h1 + row * h2, WIDTH);
+    }
+    
+    
+    /**
+     * The path of the original request, relative to the context, including
+     * the query string.  Rendering servlets are usually reached through a
+     * forward so the forwarded request attributes are looked at first.
+     */
+    private static String requestPath(HttpServletRequest request) {
+        
+        String uri = (String) request.getAttribute(RequestDispatcher.FORWARD_REQUEST_URI);
+        String query;
+        if (uri != null) {
+            query = (String) request.getAttribute(RequestDispatcher.FORWARD_QUERY_STRING);
+        } else {
+            uri = request.getRequestURI();
+            query = request.getQueryString();
+        }
+        
+        String context = request.getContextPath();
+        if (context != null && uri.startsWith(context)) {
+            uri = uri.substring(context.length());
+        }
+        return query == null ? uri : uri + "?" + query;
+    }
+    
+    
+    /**
+     * A frequently requested cache key.
+     */
+    public static final class HotKey {
+        
+        private final String cacheId;
+        private final String key;
+        private final String path;
+        private volatile int count;
+        
+        HotKey(String cacheId, String key, String path, int count) {
+            this.cacheId = cacheId;
+            this.key = key;
+            this.path = path;
+            this.count = count;
+        }
+        
+        public String getCacheId() {
+            return cacheId;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        /**
+         * Path and query of a request rendering the key, relative to the
+         * context url.
+         */
+        public String getPath() {
+            return path;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+    }
+    
+}
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.util.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.util.RollerConstants;
+import org.apache.roller.weblogger.WebloggerException;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.business.runnable.RollerTask;
+import org.apache.roller.weblogger.business.runnable.ThreadManager;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
+import org.apache.roller.weblogger.ui.rendering.util.cache.HotCacheKeys.HotKey;
+
+
+/**
+ * A task which "warms up" the rendering layer caches with the content that
+ * is requested most, as tracked by {@link HotCacheKeys}.
+ *
+ * On its first run after startup every hot key saved by the previous run is
+ * rendered.  On later runs the hot keys are only rendered again if a large
+ * part of them has dropped out of the caches, as happens when the caches are
+ * flushed.  Content is rendered by requesting it from this server, at the
+ * local address requests arrive on rather than the public site url, so it
+ * goes through the same rendering and caching as any other request.
+ *
+ * Caches are local to each server so the task does not use a lease.  The
+ * scheduler only records the last run of leased tasks, so this task keeps
+ * track of its own runs and skips runs that come before its interval is up
+ * or while a previous warmup is still going.
+ */
+public class WeblogCacheWarmupTask extends RollerTask {
+    
+    private static final Log log = LogFactory.getLog(WeblogCacheWarmupTask.class);
+    
+    public static final String NAME = "WeblogCacheWarmupTask";
+    
+    // a unique id for this specific task instance
+    // this is meant to be unique for each client in a clustered environment
+    private String clientId = null;
+    
+    // a String description of when to start this task
+    private String startTimeDesc = "immediate";
+    
+    // interval at which the task is run, default is 5 minutes
+    private int interval = 5;
+    
+    // lease time given to task, also the longest a warmup may take
+    private int leaseTime = 30;
+    
+    // how many pages are rendered at the same time
+    private int concurrency = 2;
+    
+    // share of hot keys missing from the caches that triggers a warmup
+    private double coldRatio = 0.5;
+    
+    // nothing has been warmed since startup
+    private boolean firstRun = true;
+    
+    // when the last run started, the scheduler does not track it for us
+    private volatile long lastRun = 0;
+    
+    // set while a run is in progress
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    
+    
+    @Override
+    public String getClientId() {
+        return clientId;
+    }
+    
+    @Override
+    public Date getStartTime(Date currentTime) {
+        return getAdjustedTime(currentTime, startTimeDesc);
+    }
+    
+    @Override
+    public String getStartTimeDesc() {
+        return startTimeDesc;
+    }
+    
+    @Override
+    public int getInterval() {
+        return this.interval;
+    }
+    
+    @Override
+    public int getLeaseTime() {
+        return this.leaseTime;
+    }
+    
+    
+    @Override
+    public void init(String name) throws WebloggerException {
+        
+        // mandatory initialization
+        super.init(name);
+        
+        // get relevant props
+        Properties props = this.getTaskProperties();
+        
+        // extract clientId
+        String client = props.getProperty("clientId");
+        if(client != null) {
+            this.clientId = client;
+        }
+        
+        // extract start time
+        String startTimeStr = props.getProperty("startTime");
+        if(startTimeStr != null) {
+            this.startTimeDesc = startTimeStr;
+        }
+        
+        this.interval = intProperty(props, "interval", this.interval);
+        this.leaseTime = intProperty(props, "leaseTime", this.leaseTime);
+        this.concurrency = Math.max(1, intProperty(props, "concurrency", this.concurrency));
+        
+        // extract cold ratio
+        String coldRatioStr = props.getProperty("coldRatio");
+        if(coldRatioStr != null) {
+            try {
+                this.coldRatio = Double.parseDouble(coldRatioStr);
+            } catch (NumberFormatException ex) {
+                log.warn("Invalid coldRatio: "+coldRatioStr);
+            }
+        }
+    }
+    
+    
+    @Override
+    public void run() {
+        
+        long now = System.currentTimeMillis();
+        if (now < lastRun + interval * RollerConstants.MIN_IN_MS) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Previous warmup still running, skipping");
+            return;
+        }
+        try {
+            lastRun = now;
+            runWarmup();
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    
+    private void runWarmup() {
+        
+        HotCacheKeys hotCacheKeys = HotCacheKeys.getInstance();
+        if (!hotCacheKeys.isEnabled()) {
+            return;
+        }
+        
+        // until the first request has come in we may not know our own url
+        String siteURL = getLocalURL();
+        if (siteURL == null) {
+            log.debug("Local url not known yet, skipping warmup");
+            return;
+        }
+        
+        List<HotKey> hotKeys = hotCacheKeys.getHotKeys();
+        List<HotKey> coldKeys = new ArrayList<>();
+        for (HotKey hot : hotKeys) {
+            if (!isCached(hot)) {
+                coldKeys.add(hot);
+            }
+        }
+        
+        if (!coldKeys.isEmpty() && (firstRun || coldKeys.size() >= hotKeys.size() * coldRatio)) {
+            warmup(siteURL, coldKeys);
+        } else {
+            log.debug(coldKeys.size()+" of "+hotKeys.size()+" hot keys not cached, no warmup needed");
+        }
+        firstRun = false;
+        
+        hotCacheKeys.decay();
+        hotCacheKeys.save();
+    }
+    
+    
+    private void warmup(String siteURL, List<HotKey> keys) {
+        
+        long start = System.currentTimeMillis();
+        long deadline = start + leaseTime * RollerConstants.MIN_IN_MS;
+        
+        // a few lanes on the maintenance pool work through the keys
+        Queue<HotKey> pending = new ConcurrentLinkedQueue<>(keys);
+        AtomicInteger warmed = new AtomicInteger();
+        List<FutureTask<Void>> lanes = new ArrayList<>();
+        ThreadManager threadManager = WebloggerFactory.getWeblogger().getThreadManager();
+        try {
+            for (int i = Math.min(concurrency, keys.size()); i > 0; i--) {
+                FutureTask<Void> lane = new FutureTask<>(() -> {
+                    HotKey hot;
+                    while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()
+                            && (hot = pending.poll()) != null) {
+                        if (fetch(siteURL + hot.getPath())) {
+                            warmed.incrementAndGet();
+                        }
+                    }
+                }, null);
+                lanes.add(lane);
+                try {
+                    threadManager.executeInBackground(ThreadManager.Workload.MAINTENANCE, lane);
+                } catch (RejectedExecutionException ex) {
+                    // pool is full, warm up on this thread instead
+                    lane.run();
+                    break;
+                }
+            }
+            for (FutureTask<Void> lane : lanes) {
+                lane.get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException ex) {
+            log.warn("Warmup still running after "+leaseTime+" minutes, giving up");
+        } catch (ExecutionException ex) {
+            log.error("Error warming up caches", ex.getCause());
+        } finally {
+            for (FutureTask<Void> lane : lanes) {
+                lane.cancel(true);
+            }
+        }
+        
+        long time = (System.currentTimeMillis() - start) / RollerConstants.SEC_IN_MS;
+        log.info("Warmed up "+warmed.get()+" of "+keys.size()+" hot cache keys in "+time+" secs.");
+    }
+    
+    
+    /**
+     * The url this server is reached at directly, not through any load
+     * balancer or CDN in front of it.
+     */
+    private static String getLocalURL() {
+        String url = WebloggerConfig.getProperty("cache.warmup.url");
+        if (url != null && !url.isBlank()) {
+            return url;
+        }
+        return WebloggerRuntimeConfig.getLocalContextURL();
+    }
+    
+    
+    /**
+     * Request a page from this server, discarding the content.
+     */
+    private static boolean fetch(String url) {
+        try {
+            HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+            con.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(10));
+            con.setReadTimeout((int) TimeUnit.SECONDS.toMillis(60));
+            con.setInstanceFollowRedirects(false);
+            con.setRequestProperty(HotCacheKeys.WARMUP_HEADER, "true");
+            try (InputStream in = con.getResponseCode() < 400 ? con.getInputStream() : con.getErrorStream()) {
+                if (in != null) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            log.debug("Warmed "+url+" status "+con.getResponseCode());
+            return con.getResponseCode() == HttpURLConnection.HTTP_OK;
+        } catch (IOException ex) {
+            log.debug("Unable to warm "+url, ex);
+            return false;
+        }
+    }
+    
+    
+    private static boolean isCached(HotKey hot) {
+        switch (hot.getCacheId()) {
+            case WeblogPageCache.CACHE_ID:
+                return WeblogPageCache.getInstance().contains(hot.getKey());
+            case WeblogFeedCache.CACHE_ID:
+                return WeblogFeedCache.getInstance().contains(hot.getKey());
+            case SiteWideCache.CACHE_ID:
+                return SiteWideCache.getInstance().contains(hot.getKey());
+            default:
+                return true;
+        }
+    }
+    
+    
+    private static int intProperty(Properties props, String name, int defaultValue) {
+        String value = props.getProperty(name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                log.warn("Invalid "+name+": "+value);
+            }
+        }
+        return defaultValue;
+    }
+    
+}
@@ -114,6 +114,14 @@ public final class WeblogFeedCache {
     }
     
     
+    /**
+     * Is there content cached for the given key, without affecting stats.
+     */
+    public boolean contains(String key) {
+        return cacheEnabled && contentCache.contains(key);
+    }
+    
+    
     public void put(String key, Object value) {
         
         if (!cacheEnabled) {
@@ -112,6 +112,14 @@ public final class WeblogPageCache {
     }
     
     
+    /**
+     * Is there content cached for the given key, without affecting stats.
+     */
+    public boolean contains(String key) {
+        return cacheEnabled && contentCache.contains(key);
+    }
+    
+    
     public void put(String key, Object value) {
         
         if (!cacheEnabled) {
@@ -205,6 +213,9 @@ public final class WeblogPageCache {
         // add page number when applicable
         if(pageRequest.getWeblogAnchor() == null) {
             key.append("/page=").append(pageRequest.getPageNum());
+            if (pageRequest.getPageCursor() != null) {
+                key.append("/before=").append(pageRequest.getPageCursor());
+            }
         }
         
         // add login state
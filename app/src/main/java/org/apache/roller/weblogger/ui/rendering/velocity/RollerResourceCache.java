@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.velocity;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.weblogger.config.WebloggerConfig;
+import org.apache.roller.weblogger.pojos.User;
+import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogBookmark;
+import org.apache.roller.weblogger.pojos.WeblogBookmarkFolder;
+import org.apache.roller.weblogger.pojos.WeblogCategory;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
+import org.apache.roller.weblogger.pojos.WeblogEntryComment;
+import org.apache.roller.weblogger.pojos.WeblogTemplate;
+import org.apache.roller.weblogger.ui.rendering.mobile.MobileDeviceRepository.DeviceType;
+import org.apache.roller.weblogger.util.cache.Cache;
+import org.apache.roller.weblogger.util.cache.CacheHandler;
+import org.apache.roller.weblogger.util.cache.CacheManager;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.resource.Resource;
+import org.apache.velocity.runtime.resource.ResourceCache;
+import org.apache.velocity.runtime.resource.ResourceManager;
+
+
+/**
+ * Velocity resource cache holding parsed templates.
+ *
+ * Configured as the resource.manager.cache.class in velocity.properties so
+ * that the templates of every cacheable resource loader are kept here.  For
+ * weblog templates stored in the database this means steady state rendering
+ * never loads template source or re-parses it; edits are picked up through
+ * {@link #invalidate(WeblogTemplate)}, called by the CacheManager, and
+ * through the lastModified checks of the resource loaders.
+ *
+ * Being backed by a CacheManager cache, hit/miss stats show up on the cache
+ * info admin page.
+ */
+public class RollerResourceCache implements ResourceCache, CacheHandler {
+
+    private static final Log log = LogFactory.getLog(RollerResourceCache.class);
+
+    // a unique identifier for this cache, this is used as the prefix for
+    // roller config properties that apply to this cache
+    public static final String CACHE_ID = "cache.velocity";
+
+    private boolean cacheEnabled = true;
+    private Cache templateCache = null;
+
+
+    @Override
+    public void initialize(RuntimeServices rs) {
+
+        cacheEnabled = WebloggerConfig.getBooleanProperty(CACHE_ID+".enabled");
+
+        Map<String, String> cacheProps = new HashMap<>();
+        cacheProps.put("id", CACHE_ID);
+        Enumeration<Object> allProps = WebloggerConfig.keys();
+        String prop;
+        while(allProps.hasMoreElements()) {
+            prop = (String) allProps.nextElement();
+
+            // we are only interested in props for this cache
+            if(prop.startsWith(CACHE_ID+".")) {
+                cacheProps.put(prop.substring(CACHE_ID.length()+1),
+                        WebloggerConfig.getProperty(prop));
+            }
+        }
+
+        log.info(cacheProps);
+
+        if(cacheEnabled) {
+            templateCache = CacheManager.constructCache(this, cacheProps);
+        } else {
+            log.warn("Caching has been DISABLED");
+        }
+    }
+
+
+    @Override
+    public Resource get(Object key) {
+
+        if (!cacheEnabled) {
+            return null;
+        }
+
+        Resource resource = (Resource) templateCache.get(String.valueOf(key));
+
+        if(resource == null) {
+            log.debug("MISS "+key);
+        } else {
+            log.debug("HIT "+key);
+        }
+
+        return resource;
+    }
+
+
+    @Override
+    public Resource put(Object key, Resource resource) {
+
+        if (!cacheEnabled) {
+            return null;
+        }
+
+        templateCache.put(String.valueOf(key), resource);
+        log.debug("PUT "+key);
+        return null;
+    }
+
+
+    @Override
+    public Resource remove(Object key) {
+
+        if (!cacheEnabled) {
+            return null;
+        }
+
+        templateCache.remove(String.valueOf(key));
+        log.debug("REMOVE "+key);
+        return null;
+    }
+
+
+    @Override
+    public void clear() {
+        if (cacheEnabled) {
+            templateCache.clear();
+            log.debug("CLEAR");
+        }
+    }
+
+
+    /**
+     * The underlying cache does not expose its keys and Velocity only needs
+     * them for diagnostics, so this is always empty.
+     */
+    @Override
+    public Iterator<Object> enumerateKeys() {
+        return Collections.emptyIterator();
+    }
+
+
+    /**
+     * Drop every rendition of an edited or removed weblog template.
+     */
+    @Override
+    public void invalidate(WeblogTemplate template) {
+
+        if (!cacheEnabled || template.getId() == null) {
+            return;
+        }
+
+        // resource names are <template id>|<device type>, see RollerVelocity
+        for (DeviceType type : DeviceType.values()) {
+            templateCache.remove(ResourceManager.RESOURCE_TEMPLATE + template.getId() + "|" + type);
+        }
+        log.debug("INVALIDATED template "+template.getId());
+    }
+
+
+    @Override
+    public void invalidate(WeblogEntry entry) {}
+
+    @Override
+    public void invalidate(Weblog website) {}
+
+    @Override
+    public void invalidate(WeblogBookmark bookmark) {}
+
+    @Override
+    public void invalidate(WeblogBookmarkFolder folder) {}
+
+    @Override
+    public void invalidate(WeblogEntryComment comment) {}
+
+    @Override
+    public void invalidate(User user) {}
+
+    @Override
+    public void invalidate(WeblogCategory category) {}
+
+}
@@ -117,24 +117,42 @@ public class RollerResourceLoader extends ResourceLoader {
 	}
 
 	/**
-	 * Files loaded by this resource loader are not reloadable here, as they are
-	 * stored in custom themes and there is no way velocity can trigger a
-	 * reload.
+	 * Templates loaded by this resource loader are cached by velocity and
+	 * removed from that cache when they are saved, see RollerResourceCache.
+	 * As a fallback, for instance when another node saved the template, they
+	 * are also considered modified when their lastModified date changes.
 	 * 
 	 * @see org.apache.velocity.runtime.resource.loader.ResourceLoader#isSourceModified(org.apache.velocity.runtime.resource.Resource)
 	 */
     @Override
 	public boolean isSourceModified(Resource resource) {
-		return false;
+		return getLastModified(resource) != resource.getLastModified();
 	}
 
 	/**
-	 * Defaults to return 0.
+	 * The lastModified date of the template, or 0 if it no longer exists.
 	 * 
 	 * @see org.apache.velocity.runtime.resource.loader.ResourceLoader#getLastModified(org.apache.velocity.runtime.resource.Resource)
 	 */
     @Override
 	public long getLastModified(Resource resource) {
+
+		// resource names are <template>|<deviceType>
+		String name = resource.getName();
+		int bar = name.indexOf('|');
+		if (bar >= 0) {
+			name = name.substring(0, bar);
+		}
+
+		try {
+			WeblogTemplate page = WebloggerFactory.getWeblogger()
+					.getWeblogManager().getTemplate(name);
+			if (page != null && page.getLastModified() != null) {
+				return page.getLastModified().getTime();
+			}
+		} catch (WebloggerException ex) {
+			logger.debug("Error looking up template " + name, ex);
+		}
 		return 0;
 	}
 
@@ -67,6 +67,8 @@ public class RollerVelocity {
                 velocityProps.setProperty("resource.loader.class.modification_check_interval", "2");
                 velocityProps.setProperty("resource.loader.webapp.cache", "false");
                 velocityProps.setProperty("resource.loader.webapp.modification_check_interval", "2");
+                velocityProps.setProperty("resource.loader.theme.cache", "false");
+                velocityProps.setProperty("resource.loader.roller.cache", "false");
                 velocityProps.setProperty("velocimacro.library.autoreload", "true");
             }
            
@@ -139,22 +139,42 @@ public class ThemeResourceLoader extends ResourceLoader {
     }
 
     /**
-     * Files loaded by this resource loader are not reloadable here, as they are
-     * stored in shared themes and there is no way velocity can trigger a
-     * reload.
+     * Templates loaded by this resource loader are cached by velocity, they
+     * are considered modified once the theme they belong to has been reloaded
+     * from disk with a newer lastModified date.
      * 
      * @see org.apache.velocity.runtime.resource.loader.ResourceLoader#isSourceModified(org.apache.velocity.runtime.resource.Resource)
      */
     @Override
     public boolean isSourceModified(Resource resource) {
-        return false;
+        return getLastModified(resource) != resource.getLastModified();
     }
 
     /**
+     * The lastModified date of the theme the template belongs to, or 0 if the
+     * theme can no longer be found.
+     * 
      * @see org.apache.velocity.runtime.resource.loader.ResourceLoader#getLastModified(org.apache.velocity.runtime.resource.Resource)
      */
     @Override
     public long getLastModified(Resource resource) {
+
+        // resource names are <theme>:<template>|<deviceType>
+        String name = resource.getName();
+        int colon = name.indexOf(':');
+        if (colon < 1) {
+            return 0;
+        }
+
+        try {
+            Theme theme = WebloggerFactory.getWeblogger().getThemeManager()
+                    .getTheme(name.substring(0, colon));
+            if (theme.getLastModified() != null) {
+                return theme.getLastModified().getTime();
+            }
+        } catch (WebloggerException ex) {
+            logger.debug("Theme for " + name + " not found", ex);
+        }
         return 0;
     }
 
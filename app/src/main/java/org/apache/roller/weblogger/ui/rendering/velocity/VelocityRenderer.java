@@ -18,14 +18,16 @@
 
 package org.apache.roller.weblogger.ui.rendering.velocity;
 
+import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.roller.util.RollerConstants;
 import org.apache.roller.weblogger.pojos.Template;
+import org.apache.roller.weblogger.ui.rendering.RenderMetrics;
 import org.apache.roller.weblogger.ui.rendering.Renderer;
 import org.apache.roller.weblogger.ui.rendering.RenderingException;
 import org.apache.roller.weblogger.ui.rendering.mobile.MobileDeviceRepository;
@@ -46,7 +48,8 @@ public class VelocityRenderer implements Renderer {
     private final Template renderTemplate;
     private final MobileDeviceRepository.DeviceType deviceType;
 
-    // the velocity templates
+    // the velocity templates, nothing sets a decorator since themes no
+    // longer have them, so decorated rendering below is not used
     private org.apache.velocity.Template velocityTemplate = null;
     private org.apache.velocity.Template velocityDecorator = null;
 
@@ -63,9 +66,16 @@ public class VelocityRenderer implements Renderer {
         try {
             // make sure that we can locate the template
             // if we can't then this will throw an exception
+            long startTime = System.currentTimeMillis();
             velocityTemplate = RollerVelocity.getTemplate(template.getId(),
                     deviceType, "UTF-8");
 
+            // a cache miss loads and parses the template, a hit should be ~0
+            if (log.isDebugEnabled()) {
+                log.debug("Looked up [" + template.getId() + "] in "
+                        + (System.currentTimeMillis() - startTime) + " ms");
+            }
+
         } catch (ResourceNotFoundException ex) {
             // velocity couldn't find the resource so lets log a warning
             log.warn("Error creating renderer for " + template.getId()
@@ -113,7 +123,14 @@ public class VelocityRenderer implements Renderer {
                 return;
             }
 
-            long startTime = System.currentTimeMillis();
+            long startTime = System.nanoTime();
+
+            // count what we produce if render metrics are being kept
+            CountingWriter counter = null;
+            if (RenderMetrics.isEnabled()) {
+                counter = new CountingWriter(out);
+                out = counter;
+            }
 
             // convert model to Velocity Context
             Context ctx = new VelocityContext(model);
@@ -143,11 +160,16 @@ public class VelocityRenderer implements Renderer {
                 velocityTemplate.merge(ctx, out);
             }
 
-            long endTime = System.currentTimeMillis();
-            long renderTime = (endTime - startTime) / RollerConstants.SEC_IN_MS;
+            long renderTime = System.nanoTime() - startTime;
 
-            log.debug("Rendered [" + renderTemplate.getId() + "] in "
-                    + renderTime + " secs");
+            if (counter != null) {
+                RenderMetrics.record(renderTemplate, renderTime, counter.count);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Rendered [" + renderTemplate.getId() + "] in "
+                        + TimeUnit.NANOSECONDS.toMillis(renderTime) + " ms");
+            }
 
         } catch (VelocityException ex) {
 
@@ -204,4 +226,45 @@ public class VelocityRenderer implements Renderer {
 
     }
 
+    /**
+     * Passes output on while counting the characters written.
+     */
+    private static final class CountingWriter extends Writer {
+
+        private final Writer out;
+        private long count = 0;
+
+        private CountingWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
 }
@@ -19,9 +19,18 @@
 package org.apache.roller.weblogger.ui.struts2.admin;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import org.apache.roller.planet.business.fetcher.FeedFetcher;
+import org.apache.roller.planet.business.fetcher.RomeFeedFetcher;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.business.jpa.QueryMetrics;
+import org.apache.roller.weblogger.business.runnable.ManagedExecutor;
+import org.apache.roller.weblogger.business.startup.WebloggerStartup;
 import org.apache.roller.weblogger.pojos.GlobalPermission;
+import org.apache.roller.weblogger.ui.rendering.RenderMetrics;
 import org.apache.roller.weblogger.ui.struts2.util.UIAction;
 import org.apache.roller.weblogger.util.cache.CacheManager;
 import org.apache.struts2.convention.annotation.AllowedMethods;
@@ -33,6 +42,21 @@ import org.apache.struts2.convention.annotation.AllowedMethods;
 // TODO: make this work @AllowedMethods({"execute"})
 public class CacheInfo extends UIAction {
     
+    // pseudo cache id under which the statement instrumentation is shown
+    private static final String QUERY_METRICS_ID = "jpa.queries";
+    
+    // pseudo cache id under which the connection pool gauges are shown
+    private static final String CONNECTION_POOL_ID = "database.pool";
+    
+    // pseudo cache id under which template render times are shown
+    private static final String RENDER_METRICS_ID = "rendering.templates";
+
+    // pseudo cache id under which conditional feed fetch counters are shown
+    private static final String FEED_FETCHER_ID = "planet.fetcher";
+
+    // prefix of the pseudo cache ids under which each thread pool is shown
+    private static final String THREAD_POOL_PREFIX = "threads.";
+    
     // map of stats to display
     private Map<String, Map<String, Object>> stats = Collections.emptyMap();
     
@@ -60,7 +84,25 @@ public class CacheInfo extends UIAction {
     
     @Override
     public void myPrepare() {
-        setStats(CacheManager.getStats());
+        Map<String, Map<String, Object>> allStats = new TreeMap<>(CacheManager.getStats());
+        if (QueryMetrics.isEnabled()) {
+            allStats.put(QUERY_METRICS_ID, QueryMetrics.getStats());
+        }
+        Map<String, Object> poolStats = getPoolStats();
+        if (poolStats != null) {
+            allStats.put(CONNECTION_POOL_ID, poolStats);
+        }
+        if (RenderMetrics.isEnabled()) {
+            allStats.put(RENDER_METRICS_ID, RenderMetrics.getStats());
+        }
+        RomeFeedFetcher fetcher = getFeedFetcher();
+        if (fetcher != null) {
+            allStats.put(FEED_FETCHER_ID, fetcher.getStats());
+        }
+        for (ManagedExecutor executor : ManagedExecutor.getExecutors()) {
+            allStats.put(THREAD_POOL_PREFIX + executor.getName(), getThreadPoolStats(executor));
+        }
+        setStats(allStats);
     }
     
     
@@ -80,7 +122,20 @@ public class CacheInfo extends UIAction {
         
         // see if a specific cache was specified
         String handlerClass = getCache();
-        if(handlerClass != null && handlerClass.length() > 0) {
+        if(QUERY_METRICS_ID.equals(handlerClass)) {
+            QueryMetrics.clear();
+        } else if(RENDER_METRICS_ID.equals(handlerClass)) {
+            RenderMetrics.clear();
+        } else if(FEED_FETCHER_ID.equals(handlerClass)) {
+            RomeFeedFetcher fetcher = getFeedFetcher();
+            if (fetcher != null) {
+                fetcher.clearStats();
+            }
+        } else if(CONNECTION_POOL_ID.equals(handlerClass)) {
+            // pool counters are kept by the pool and cannot be reset
+        } else if(handlerClass != null && handlerClass.startsWith(THREAD_POOL_PREFIX)) {
+            // as are those of the thread pools
+        } else if(handlerClass != null && handlerClass.length() > 0) {
             CacheManager.clear(handlerClass);
         } else {
             CacheManager.clear();
@@ -93,6 +148,33 @@ public class CacheInfo extends UIAction {
     }
 
     
+    private static Map<String, Object> getPoolStats() {
+        return WebloggerStartup.isPrepared()
+                ? WebloggerStartup.getDatabaseProvider().getPoolStats() : null;
+    }
+
+    
+    private static Map<String, Object> getThreadPoolStats(ManagedExecutor executor) {
+        Map<String, Object> poolStats = new LinkedHashMap<>();
+        poolStats.put("threads", executor.getPoolSize());
+        poolStats.put("active", executor.getActiveCount());
+        poolStats.put("queued", executor.getQueuedCount());
+        poolStats.put("completed", executor.getRunCount());
+        poolStats.put("rejected", executor.getRejectedCount());
+        poolStats.put("avgWaitMillis", executor.getAverageWaitMillis());
+        poolStats.put("avgRunMillis", executor.getAverageRunMillis());
+        poolStats.put("maxRunMillis", executor.getMaxRunMillis());
+        return poolStats;
+    }
+
+    
+    private static RomeFeedFetcher getFeedFetcher() {
+        FeedFetcher fetcher = WebloggerFactory.isBootstrapped()
+                ? WebloggerFactory.getWeblogger().getFeedFetcher() : null;
+        return fetcher instanceof RomeFeedFetcher ? (RomeFeedFetcher) fetcher : null;
+    }
+
+    
     public Map<String, Map<String, Object>> getStats() {
         return stats;
     }
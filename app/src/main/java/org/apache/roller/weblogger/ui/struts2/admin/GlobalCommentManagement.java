@@ -23,8 +23,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -32,9 +34,11 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.business.WebloggerFactory;
 import org.apache.roller.weblogger.business.WeblogEntryManager;
+import org.apache.roller.weblogger.business.search.IndexManager;
 import org.apache.roller.weblogger.pojos.CommentSearchCriteria;
 import org.apache.roller.weblogger.pojos.GlobalPermission;
 import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
 import org.apache.roller.weblogger.pojos.WeblogEntryComment;
 import org.apache.roller.weblogger.pojos.WeblogEntryComment.ApprovalStatus;
 import org.apache.roller.weblogger.ui.struts2.pagers.CommentsPager;
@@ -196,10 +200,10 @@ public class GlobalCommentManagement extends UIAction implements ServletRequestA
             csc.setStatus(getBean().getStatus());
             csc.setReverseChrono(true);
 
-            List<WeblogEntryComment> allMatchingComments = wmgr.getComments(csc);
+            long matchingCount = wmgr.getCommentCount(csc);
 
-            if(allMatchingComments.size() > COUNT) {
-                setBulkDeleteCount(allMatchingComments.size());
+            if(matchingCount > COUNT) {
+                setBulkDeleteCount((int) matchingCount);
             }
             
         } catch (WebloggerException ex) {
@@ -253,19 +257,16 @@ public class GlobalCommentManagement extends UIAction implements ServletRequestA
         try {
             WeblogEntryManager wmgr = WebloggerFactory.getWeblogger().getWeblogEntryManager();
             
-            List<Weblog> flushList = new ArrayList<>();
+            // comments to remove and comments with a changed status, both
+            // are applied as one batch so weblogs are touched once each
+            List<String> removeIds = new ArrayList<>();
+            List<WeblogEntryComment> changedComments = new ArrayList<>();
             
             // delete all comments with delete box checked
             List<String> deletes = Arrays.asList(getBean().getDeleteComments());
             if (!deletes.isEmpty()) {
                 log.debug("Processing deletes - "+deletes.size());
-                
-                WeblogEntryComment deleteComment;
-                for (String deleteId : deletes) {
-                    deleteComment = wmgr.getComment(deleteId);
-                    flushList.add(deleteComment.getWeblogEntry().getWebsite());
-                    wmgr.removeComment(deleteComment);
-                }
+                removeIds.addAll(deletes);
             }
             
             // loop through IDs of all comments displayed on page
@@ -289,23 +290,35 @@ public class GlobalCommentManagement extends UIAction implements ServletRequestA
                         !ApprovalStatus.SPAM.equals(comment.getStatus())) {
                     log.debug("Marking as spam - " + comment.getId());
                     comment.setStatus(ApprovalStatus.SPAM);
-                    wmgr.saveComment(comment);
-                    
-                    flushList.add(comment.getWeblogEntry().getWebsite());
+                    changedComments.add(comment);
                 } else if(!spamIds.contains(id) &&
                         ApprovalStatus.SPAM.equals(comment.getStatus())) {
                     // Administrator unmarked as spam, so changing to DISAPPROVED
                     // as blogger still needs to approve it.
                     log.debug("Marking as disapproved - " + comment.getId());
                     comment.setStatus(ApprovalStatus.DISAPPROVED);
-                    wmgr.saveComment(comment);
-                    
-                    flushList.add(comment.getWeblogEntry().getWebsite());
+                    changedComments.add(comment);
                 }
             }
             
+            Set<WeblogEntry> reindexList = new HashSet<>();
+            if (!removeIds.isEmpty()) {
+                reindexList.addAll(wmgr.removeComments(removeIds));
+            }
+            if (!changedComments.isEmpty()) {
+                reindexList.addAll(wmgr.saveComments(changedComments));
+            }
+            
             WebloggerFactory.getWeblogger().flush();
             
+            // reindex affected entries now the changes are committed
+            IndexManager imgr = WebloggerFactory.getWeblogger().getIndexManager();
+            Set<Weblog> flushList = new HashSet<>();
+            for (WeblogEntry entry : reindexList) {
+                imgr.addEntryReIndexOperation(entry);
+                flushList.add(entry.getWebsite());
+            }
+            
             // notify caches of changes, flush weblogs affected by changes
             for (Weblog weblog : flushList) {
                 CacheManager.invalidate(weblog);
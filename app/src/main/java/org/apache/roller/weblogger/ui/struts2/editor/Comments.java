@@ -35,7 +35,6 @@ import org.apache.roller.weblogger.WebloggerException;
 import org.apache.roller.weblogger.business.WebloggerFactory;
 import org.apache.roller.weblogger.business.WeblogEntryManager;
 import org.apache.roller.weblogger.business.search.IndexManager;
-import org.apache.roller.weblogger.config.WebloggerConfig;
 import org.apache.roller.weblogger.pojos.CommentSearchCriteria;
 import org.apache.roller.weblogger.pojos.WeblogEntry;
 import org.apache.roller.weblogger.pojos.WeblogEntryComment;
@@ -188,9 +187,9 @@ public class Comments extends UIAction {
 
             CommentSearchCriteria csc = getCommentSearchCriteria();
 
-            List<WeblogEntryComment> allMatchingComments = wmgr.getComments(csc);
-            if (allMatchingComments.size() > COUNT) {
-                setBulkDeleteCount(allMatchingComments.size());
+            long matchingCount = wmgr.getCommentCount(csc);
+            if (matchingCount > COUNT) {
+                setBulkDeleteCount((int) matchingCount);
             }
 
         } catch (WebloggerException ex) {
@@ -222,30 +221,13 @@ public class Comments extends UIAction {
         try {
             WeblogEntryManager wmgr = WebloggerFactory.getWeblogger().getWeblogEntryManager();
 
-            // if search is enabled, we will need to re-index all entries with
-            // comments that have been deleted, so build a list of those entries
-            Set<WeblogEntry> reindexEntries = new HashSet<>();
-            if (WebloggerConfig.getBooleanProperty("search.enabled")) {
-
-                CommentSearchCriteria csc = getCommentSearchCriteria();
-
-                List<WeblogEntryComment> targetted = wmgr.getComments(csc);
-                for (WeblogEntryComment comment : targetted) {
-                    reindexEntries.add(comment.getWeblogEntry());
-                }
-            }
-
+            // entries losing comments are reindexed by the manager once
+            // the deletes are committed
             int deleted = wmgr.removeMatchingComments(getActionWeblog(), null,
                     getBean().getSearchString(), getBean().getStartDate(),
                     getBean().getEndDate(), getBean().getStatus());
 
-            // if we've got entries to reindex then do so
-            if (!reindexEntries.isEmpty()) {
-                IndexManager imgr = WebloggerFactory.getWeblogger().getIndexManager();
-                for (WeblogEntry entry : reindexEntries) {
-                    imgr.addEntryReIndexOperation(entry);
-                }
-            }
+            CacheManager.invalidate(getActionWeblog());
 
             addMessage("commentManagement.deleteSuccess",
                     Integer.toString(deleted));
@@ -271,12 +253,11 @@ public class Comments extends UIAction {
         try {
             WeblogEntryManager wmgr = WebloggerFactory.getWeblogger().getWeblogEntryManager();
 
-            List<WeblogEntryComment> flushList = new ArrayList<>();
-
-            // if search is enabled, we will need to re-index all entries with
-            // comments that have been approved, so build a list of those
-            // entries
-            Set<WeblogEntry> reindexList = new HashSet<>();
+            // comments to remove and comments with a changed status, both
+            // are applied as one batch so caches, weblog modification dates
+            // and search index entries are updated once rather than per comment
+            List<String> removeIds = new ArrayList<>();
+            List<WeblogEntryComment> changedComments = new ArrayList<>();
 
             // delete all comments with delete box checked
             List<String> deletes = Arrays.asList(getBean().getDeleteComments());
@@ -290,9 +271,7 @@ public class Comments extends UIAction {
                     // make sure comment is tied to action weblog
                     if (getActionWeblog().equals(
                             deleteComment.getWeblogEntry().getWebsite())) {
-                        flushList.add(deleteComment);
-                        reindexList.add(deleteComment.getWeblogEntry());
-                        wmgr.removeComment(deleteComment);
+                        removeIds.add(deleteComment.getId());
                     }
                 }
             }
@@ -332,33 +311,38 @@ public class Comments extends UIAction {
 
                         log.debug("Marking as approved - " + comment.getId());
                         comment.setStatus(ApprovalStatus.APPROVED);
-                        wmgr.saveComment(comment);
-
-                        flushList.add(comment);
-                        reindexList.add(comment.getWeblogEntry());
+                        changedComments.add(comment);
 
                     } else if (spamIds.contains(ids[i])) {
                         log.debug("Marking as spam - " + comment.getId());
                         comment.setStatus(ApprovalStatus.SPAM);
-                        wmgr.saveComment(comment);
-
-                        flushList.add(comment);
-                        reindexList.add(comment.getWeblogEntry());
+                        changedComments.add(comment);
 
                     } else if (!ApprovalStatus.DISAPPROVED.equals(comment
                             .getStatus())) {
                         log.debug("Marking as disapproved - " + comment.getId());
                         comment.setStatus(ApprovalStatus.DISAPPROVED);
-                        wmgr.saveComment(comment);
-
-                        flushList.add(comment);
-                        reindexList.add(comment.getWeblogEntry());
+                        changedComments.add(comment);
                     }
                 }
             }
 
+            Set<WeblogEntry> reindexList = new HashSet<>();
+            if (!removeIds.isEmpty()) {
+                reindexList.addAll(wmgr.removeComments(removeIds));
+            }
+            if (!changedComments.isEmpty()) {
+                reindexList.addAll(wmgr.saveComments(changedComments));
+            }
+
             WebloggerFactory.getWeblogger().flush();
 
+            // if we've got entries to reindex then do so
+            IndexManager imgr = WebloggerFactory.getWeblogger().getIndexManager();
+            for (WeblogEntry entry : reindexList) {
+                imgr.addEntryReIndexOperation(entry);
+            }
+
             // notify caches of changes by flushing whole site because we can't
             // invalidate deleted comment objects (JPA nulls the fields out).
             CacheManager.invalidate(getActionWeblog());
@@ -371,15 +355,6 @@ public class Comments extends UIAction {
                         resources);
             }
 
-            // if we've got entries to reindex then do so
-            if (!reindexList.isEmpty()) {
-                IndexManager imgr = WebloggerFactory.getWeblogger()
-                        .getIndexManager();
-                for (WeblogEntry entry : reindexList) {
-                    imgr.addEntryReIndexOperation(entry);
-                }
-            }
-
             addMessage("commentManagement.updateSuccess");
 
             // reset form and load fresh comments list
@@ -19,6 +19,7 @@
 package org.apache.roller.weblogger.util;
 
 import static io.github.pixee.security.Newlines.stripAll;
+import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -40,6 +41,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.weblogger.WebloggerException;
+import org.apache.roller.weblogger.business.MailOutbox;
 import org.apache.roller.weblogger.business.MailProvider;
 import org.apache.roller.weblogger.business.WebloggerFactory;
 import org.apache.roller.weblogger.business.WeblogManager;
@@ -62,6 +64,9 @@ public class MailUtil {
     
     private static final String EMAIL_ADDR_REGEXP = "^.*@.*[.].{2,}$";
     
+    private static final String TEXT_MIME_TYPE = "text/plain; charset=utf-8";
+    private static final String HTML_MIME_TYPE = "text/html; charset=utf-8";
+    
     
     /**
      * Ideally mail senders should call this first to avoid errors that occur 
@@ -131,8 +136,7 @@ public class MailUtil {
                     new Object[] { userName, userName, editURL })
                     );
             content = sb.toString();
-            MailUtil.sendTextMessage(
-                    from, to, cc, bcc, subject, content);
+            queueMessage(from, to, cc, bcc, subject, content, TEXT_MIME_TYPE, null);
         } catch (MessagingException e) {
             log.error("ERROR: Problem sending pending entry notification email.");
         }
@@ -440,50 +444,34 @@ public class MailUtil {
                 from = user.getEmailAddress();
             }
 
-            boolean isHtml = !isPlainText;
+            String mimeType = isPlainText ? TEXT_MIME_TYPE : HTML_MIME_TYPE;
             
             if (commentObject.getPending() || weblog.getEmailComments()) {
-                if(isHtml) {
-                    sendHTMLMessage(
-                            from,
-                            new String[]{user.getEmailAddress()},
-                            null,
-                            null,
-                            subject,
-                            ownermsg.toString());
-                } else {
-                    sendTextMessage(
-                            from,
-                            new String[]{user.getEmailAddress()},
-                            null,
-                            null,
-                            subject,
-                            ownermsg.toString());
-                }
+                queueMessage(
+                        from,
+                        new String[]{user.getEmailAddress()},
+                        null,
+                        null,
+                        subject,
+                        ownermsg.toString(),
+                        mimeType,
+                        null);
             }
 
-            // now send to subscribers
+            // now send to subscribers, at most once a while for each entry
             if (notifySubscribers && !subscribers.isEmpty()) {
                 // Form array of commenter addrs
                 String[] commenterAddrs = subscribers.toArray(String[]::new);
 
-                if (isHtml) {
-                    sendHTMLMessage(
-                            from, 
-                            null,
-                            null,
-                            commenterAddrs,
-                            subject, 
-                            msg.toString());
-                } else {
-                    sendTextMessage(
-                            from, 
-                            null,
-                            null,
-                            commenterAddrs,
-                            subject, 
-                            msg.toString());
-                }
+                queueMessage(
+                        from, 
+                        null,
+                        null,
+                        commenterAddrs,
+                        subject, 
+                        msg.toString(),
+                        mimeType,
+                        "comment:" + entry.getId());
             }
         } catch (Exception e) {
             log.warn("Exception sending comment notification mail", e);
@@ -540,7 +528,8 @@ public class MailUtil {
         
         // send message to author of approved comment
         try {
-            sendTextMessage(from, new String[] {cd.getEmail()}, null, null, subject, msg.toString());
+            queueMessage(from, new String[] {cd.getEmail()}, null, null, subject, msg.toString(),
+                    TEXT_MIME_TYPE, "approval:" + entry.getId() + ":" + cd.getEmail());
         } catch (Exception e) {
             log.warn("Exception sending comment mail: " + e.getMessage());
             // This will log the stack trace if debug is enabled
@@ -553,6 +542,37 @@ public class MailUtil {
     }
     
     
+    /**
+     * Queue a message for sending in the background, or send it straight away
+     * if there is no mail outbox.
+     *
+     * @param from e-mail address of sender
+     * @param to e-mail address(es) of recipients
+     * @param cc e-mail address(es) of cc recipients
+     * @param bcc e-mail address(es) of bcc recipients
+     * @param subject subject of e-mail
+     * @param content the body of the e-mail
+     * @param mimeType type of message, i.e. text/plain or text/html
+     * @param key notification key, recipients who were sent a message with
+     *            the same key a short while ago are left out, or null
+     * @throws MessagingException if the message was sent straight away and failed
+     */
+    public static void queueMessage(String from, String[] to, String[] cc, String[] bcc, String subject,
+            String content, String mimeType, String key) throws MessagingException {
+        
+        MailOutbox outbox = WebloggerStartup.getMailOutbox();
+        if (outbox != null) {
+            try {
+                outbox.enqueue(from, to, cc, bcc, subject, content, mimeType, key);
+                return;
+            } catch (IOException e) {
+                log.warn("Unable to queue mail, sending it now: " + e.getMessage());
+            }
+        }
+        sendMessage(from, to, cc, bcc, subject, content, mimeType);
+    }
+    
+    
     // agangolli: Incorporated suggested changes from Ken Blackler.
     
     /**
@@ -574,7 +594,33 @@ public class MailUtil {
             return;
         }
         
-        Session session = mailProvider.getSession();
+        MimeMessage message = createMessage(mailProvider.getSession(), from, to, cc, bcc, subject, content, mimeType);
+        
+        Transport transport = mailProvider.getTransport();
+        try {
+            sendMessage(transport, message, message.getAllRecipients());
+        } finally {
+            transport.close();
+        }
+    }
+    
+    
+    /**
+     * Create a message with a pre-defined mime-type.
+     *
+     * @param session the mail session
+     * @param from e-mail address of sender
+     * @param to e-mail address(es) of recipients
+     * @param cc e-mail address(es) of cc recipients
+     * @param bcc e-mail address(es) of bcc recipients
+     * @param subject subject of e-mail
+     * @param content the body of the e-mail
+     * @param mimeType type of message, i.e. text/plain or text/html
+     * @throws MessagingException if an address is not valid
+     */
+    public static MimeMessage createMessage(Session session, String from, String[] to, String[] cc, String[] bcc,
+            String subject, String content, String mimeType) throws MessagingException {
+        
         MimeMessage message = new MimeMessage(session);
         
         // n.b. any default from address is expected to be determined by caller.
@@ -625,40 +671,54 @@ public class MailUtil {
         message.setContent(content, mimeType);
         message.setSentDate(new java.util.Date());
         
-        // First collect all the addresses together.
-        Address[] remainingAddresses = message.getAllRecipients();
-        int nAddresses = remainingAddresses.length;
+        return message;
+    }
+    
+    
+    /**
+     * Send a message over a connected transport to the given recipients, which need not be those of the message.
+     * Recipients the mail server refuses are skipped, the message is still sent to the others.
+     *
+     * @param transport connected transport, left open
+     * @param message the message
+     * @param recipients the recipients to send the message to
+     * @throws SendFailedException if the message could not be sent to some of the recipients, its valid unsent
+     *                             addresses are those which might still be sent to later
+     * @throws MessagingException if the message could not be sent
+     */
+    public static void sendMessage(Transport transport, Message message, Address[] recipients)
+            throws MessagingException {
+        
+        Address[] remainingAddresses = recipients;
+        Address[] unsentAddresses = null;
+        int nAddresses;
         boolean bFailedToSome = false;
         
         SendFailedException sendex = new SendFailedException("Unable to send message to some recipients");
         
-        Transport transport = mailProvider.getTransport();
-        
         // Try to send while there remain some potentially good addresses
-        try { 
-            do {
-                // Avoid a loop if we are stuck
-                nAddresses = remainingAddresses.length;
+        do {
+            // Avoid a loop if we are stuck
+            nAddresses = remainingAddresses.length;
 
-                try {
-                    // Send to the list of remaining addresses, ignoring the addresses attached to the message
-                    transport.sendMessage(message, remainingAddresses);
-                } catch(SendFailedException ex) {
-                    bFailedToSome=true;
-                    sendex.setNextException(ex);
+            try {
+                // Send to the list of remaining addresses, ignoring the addresses attached to the message
+                transport.sendMessage(message, remainingAddresses);
+                unsentAddresses=null;
+            } catch(SendFailedException ex) {
+                bFailedToSome=true;
+                sendex.setNextException(ex);
 
-                    // Extract the remaining potentially good addresses
-                    remainingAddresses=ex.getValidUnsentAddresses();
-                }
-            } while (remainingAddresses!=null && remainingAddresses.length>0 
-                    && remainingAddresses.length!=nAddresses);
-            
-        } finally {
-            transport.close();
-        }
+                // Extract the remaining potentially good addresses
+                remainingAddresses=ex.getValidUnsentAddresses();
+                unsentAddresses=remainingAddresses;
+            }
+        } while (remainingAddresses!=null && remainingAddresses.length>0 
+                && remainingAddresses.length!=nAddresses);
         
         if (bFailedToSome) {
-            throw sendex;
+            throw new SendFailedException(sendex.getMessage(), sendex.getNextException(),
+                    null, unsentAddresses, null);
         }
     }
     
@@ -676,7 +736,7 @@ public class MailUtil {
      */
     public static void sendTextMessage(String from, String[] to, String[] cc, String[] bcc,
                                        String subject, String content) throws MessagingException {
-        sendMessage(from, to, cc, bcc, subject, content, "text/plain; charset=utf-8");
+        sendMessage(from, to, cc, bcc, subject, content, TEXT_MIME_TYPE);
     }
 
     /**
@@ -690,7 +750,7 @@ public class MailUtil {
      */
     public static void sendHTMLMessage(String from, String[] to, String[] cc, String[] bcc, String subject,
                                        String content) throws MessagingException {
-        sendMessage(from, to, cc, bcc, subject, content, "text/html; charset=utf-8");
+        sendMessage(from, to, cc, bcc, subject, content, HTML_MIME_TYPE);
     }
 
     /**
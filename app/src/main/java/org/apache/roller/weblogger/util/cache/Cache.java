@@ -44,6 +44,13 @@ public interface Cache {
     Object get(String key);
     
     
+    /**
+     * check if an unexpired item is in the cache, without counting it as a
+     * hit or a miss.
+     */
+    boolean contains(String key);
+    
+    
     /**
      * remove an item from the cache.
      */
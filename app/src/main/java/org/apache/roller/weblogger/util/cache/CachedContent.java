@@ -3,6 +3,7 @@ package org.apache.roller.weblogger.util.cache;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Serializable;
@@ -37,6 +38,19 @@ public class CachedContent implements AutoCloseable, Serializable {
     }
     
     public CachedContent(int size, String contentType) {
+        this(size, contentType, null);
+    }
+    
+    /**
+     * Construct a CachedContent which also streams everything written to it
+     * on to the given client stream as it is produced, so the client does not
+     * have to wait for the content to be complete.
+     *
+     * The captured content is authoritative: once writing to the client
+     * fails, for example because it went away, the content is still captured
+     * but no longer passed on.  The client stream is flushed but never closed.
+     */
+    public CachedContent(int size, String contentType, OutputStream client) {
         // construct output stream
         if(size > 0) {
             this.outstream = new ByteArrayOutputStream(size);
@@ -45,7 +59,11 @@ public class CachedContent implements AutoCloseable, Serializable {
         }
         
         // construct writer from output stream
-        this.cachedWriter = new PrintWriter(new OutputStreamWriter(this.outstream, UTF_8));
+        OutputStream target = this.outstream;
+        if(client != null) {
+            target = new TeeOutputStream(this.outstream, client);
+        }
+        this.cachedWriter = new PrintWriter(new OutputStreamWriter(target, UTF_8));
         this.contentType = contentType;
     }
     
@@ -126,4 +144,59 @@ public class CachedContent implements AutoCloseable, Serializable {
         log.debug("CLOSED");
     }
     
+    
+    /**
+     * Writes to the capture first and then, best effort, to the client.
+     */
+    private static final class TeeOutputStream extends OutputStream {
+        
+        private final OutputStream capture;
+        private OutputStream client;
+        
+        private TeeOutputStream(OutputStream capture, OutputStream client) {
+            this.capture = capture;
+            this.client = client;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            capture.write(b);
+            if(client != null) {
+                try {
+                    client.write(b);
+                } catch (IOException e) {
+                    clientFailed(e);
+                }
+            }
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            capture.write(b, off, len);
+            if(client != null) {
+                try {
+                    client.write(b, off, len);
+                } catch (IOException e) {
+                    clientFailed(e);
+                }
+            }
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            if(client != null) {
+                try {
+                    client.flush();
+                } catch (IOException e) {
+                    clientFailed(e);
+                }
+            }
+        }
+        
+        private void clientFailed(IOException e) {
+            log.debug("Client stream failed, capturing only", e);
+            client = null;
+        }
+    }
+    
 }
@@ -93,4 +93,11 @@ public class ExpiringLRUCacheImpl extends LRUCacheImpl {
         return value;
     }
     
+    
+    @Override
+    public synchronized boolean contains(String key) {
+        ExpiringCacheEntry entry = (ExpiringCacheEntry) peek(key);
+        return entry != null && !entry.hasExpired();
+    }
+    
 }
@@ -90,6 +90,20 @@ public class LRUCacheImpl implements Cache {
     }
     
     
+    @Override
+    public synchronized boolean contains(String key) {
+        return this.cache.containsKey(key);
+    }
+    
+    
+    /**
+     * Retrieve an entry without touching the metrics.
+     */
+    protected synchronized Object peek(String key) {
+        return this.cache.get(key);
+    }
+    
+    
     @Override
     public synchronized void remove(String key) {
         
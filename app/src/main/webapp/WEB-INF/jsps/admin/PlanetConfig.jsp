@@ -71,3 +71,16 @@
      <input class="btn btn-default" type="submit" value="<s:text name="generic.save"/>"/>
 
 </s:form>
+
+
+<h2><s:text name="planetConfig.schedule"/></h2>
+<p><s:text name="planetConfig.schedule.prompt"/></p>
+
+<table class="table table-bordered">
+    <s:iterator var="stat" value="refreshSchedule">
+        <tr>
+            <td><s:text name="%{'planetConfig.schedule.' + #stat.key}"/></td>
+            <td><s:property value="#stat.value"/></td>
+        </tr>
+    </s:iterator>
+</table>
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.planet.business;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.planet.business.fetcher.RomeFeedFetcher;
+import org.apache.roller.planet.business.updater.ConcurrentFeedUpdater;
+import org.apache.roller.planet.pojos.Planet;
+import org.apache.roller.planet.pojos.PlanetGroup;
+import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.planet.pojos.SubscriptionEntry;
+import org.apache.roller.weblogger.TestUtils;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the concurrent feed updater and conditional fetching against a local
+ * server serving many feeds from two hosts.
+ */
+public class ConcurrentFeedUpdaterTest {
+    
+    public static Log log = LogFactory.getLog(ConcurrentFeedUpdaterTest.class);
+    
+    private static final int FEEDS = 200;
+    private static final int PER_HOST = 2;
+    
+    private HttpServer server = null;
+    private ExecutorService serverExecutor = null;
+    private final AtomicInteger requests = new AtomicInteger();
+    // requests being served and the most at once, per Host header
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger revision = new AtomicInteger();
+    
+    private Planet testPlanet = null;
+    private PlanetGroup testGroup = null;
+    private final List<String> subIds = new ArrayList<>();
+    
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/feed/", exchange -> {
+            String host = String.valueOf(exchange.getRequestHeaders().getFirst("Host"));
+            int now = inFlight.computeIfAbsent(host, k -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.computeIfAbsent(host, k -> new AtomicInteger()).accumulateAndGet(now, Math::max);
+            requests.incrementAndGet();
+            try {
+                // a little latency so that fetches overlap
+                Thread.sleep(5);
+                String path = exchange.getRequestURI().getPath();
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                
+                // every fourth feed sends no validators at all
+                if (Integer.parseInt(id) % 4 != 3) {
+                    String etag = "\"" + id + "-" + revision.get() + "\"";
+                    if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        exchange.sendResponseHeaders(304, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("ETag", etag);
+                }
+                byte[] body = rss(id, revision.get()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/rss+xml");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.get(host).decrementAndGet();
+                exchange.close();
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        int port = server.getAddress().getPort();
+        
+        TestUtils.setupWeblogger();
+        
+        testPlanet = TestUtils.setupPlanet("concurrentUpdaterPlanet");
+        testGroup = TestUtils.setupGroup(testPlanet, "concurrentUpdaterGroup");
+        for (int i = 0; i < FEEDS; i++) {
+            // half the feeds on each of two host names
+            String host = i % 2 == 0 ? "localhost" : "127.0.0.1";
+            Subscription sub = TestUtils.setupSubscription("http://" + host + ":" + port + "/feed/" + i);
+            testGroup.getSubscriptions().add(sub);
+            sub.getGroups().add(testGroup);
+            subIds.add(sub.getId());
+        }
+        WebloggerFactory.getWeblogger().getPlanetManager().saveGroup(testGroup);
+        WebloggerFactory.getWeblogger().flush();
+    }
+    
+    @AfterEach
+    public void tearDown() throws Exception {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        for (String id : subIds) {
+            TestUtils.teardownSubscription(id);
+        }
+        TestUtils.teardownGroup(testGroup.getId());
+        TestUtils.teardownPlanet(testPlanet.getId());
+    }
+    
+
+    @Test
+    public void testUpdateSubscriptions() throws Exception {
+        
+        PlanetManager mgr = WebloggerFactory.getWeblogger().getPlanetManager();
+        ConcurrentFeedUpdater updater = new ConcurrentFeedUpdater(8, PER_HOST, 2, 20);
+        
+        long start = System.currentTimeMillis();
+        updater.updateSubscriptions(mgr.getGroupById(testGroup.getId()));
+        log.info("Updated " + FEEDS + " feeds in " + (System.currentTimeMillis() - start)
+                + " ms, max concurrent fetches per host " + maxInFlight);
+        TestUtils.endSession(true);
+        
+        assertEquals(FEEDS, requests.get());
+        assertEquals(2, maxInFlight.size(), "hosts: " + maxInFlight.keySet());
+        for (Map.Entry<String, AtomicInteger> host : maxInFlight.entrySet()) {
+            assertTrue(host.getValue().get() <= PER_HOST, "per host limit exceeded for " + host);
+        }
+        for (String id : subIds) {
+            Subscription sub = mgr.getSubscriptionById(id);
+            assertTrue(sub.getTitle().startsWith("Feed "), sub.getTitle());
+            assertNotNull(sub.getLastUpdated());
+            assertEquals(3, sub.getEntries().size());
+            // validators are kept with the subscription for the next refresh
+            assertNotNull(sub.getContentHash());
+        }
+        TestUtils.endSession(true);
+        
+        // feeds have not changed since, so they are either not modified or
+        // serve the same content, and nothing more gets written
+        RomeFeedFetcher fetcher = (RomeFeedFetcher) WebloggerFactory.getWeblogger().getFeedFetcher();
+        long notModified = (Long) fetcher.getStats().get("notModified");
+        long unchanged = (Long) fetcher.getStats().get("unchanged");
+        updater.updateSubscriptions(mgr.getGroupById(testGroup.getId()));
+        TestUtils.endSession(true);
+        assertEquals(2 * FEEDS, requests.get());
+        assertEquals(notModified + FEEDS * 3 / 4, fetcher.getStats().get("notModified"));
+        assertEquals(unchanged + FEEDS / 4, fetcher.getStats().get("unchanged"));
+        assertEquals(3, mgr.getSubscriptionById(subIds.get(0)).getEntries().size());
+        
+        // entries are merged, those still in the feed keep their ids
+        Map<String, String> ids = new HashMap<>();
+        for (SubscriptionEntry entry : mgr.getSubscriptionById(subIds.get(0)).getEntries()) {
+            ids.put(entry.getGuid(), entry.getId());
+        }
+        TestUtils.endSession(true);
+        revision.set(1);
+        updater.updateSubscriptions(mgr.getGroupById(testGroup.getId()));
+        TestUtils.endSession(true);
+        
+        Map<String, SubscriptionEntry> entries = new HashMap<>();
+        for (SubscriptionEntry entry : mgr.getSubscriptionById(subIds.get(0)).getEntries()) {
+            entries.put(entry.getGuid(), entry);
+        }
+        assertEquals(Set.of("urn:test:0:1", "urn:test:0:2", "urn:test:0:3"), entries.keySet());
+        assertEquals(ids.get("urn:test:0:1"), entries.get("urn:test:0:1").getId());
+        assertEquals("Entry 1 edited", entries.get("urn:test:0:1").getTitle());
+        assertEquals(ids.get("urn:test:0:2"), entries.get("urn:test:0:2").getId());
+        assertEquals("http://example.com/0/2-moved", entries.get("urn:test:0:2").getPermalink());
+        assertFalse(ids.containsValue(entries.get("urn:test:0:3").getId()));
+    }
+    
+    
+    // revision 1 drops entry 0, edits entry 1, moves entry 2 and adds entry 3
+    private static String rss(String id, int revision) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><rss version=\"2.0\"><channel>")
+                .append("<title>Feed ").append(id).append("</title>")
+                .append("<link>http://example.com/").append(id).append("</link>")
+                .append("<description>test feed</description>")
+                .append("<pubDate>Mon, 0").append(5 + revision).append(" Oct 2026 10:00:00 GMT</pubDate>");
+        for (int i = revision; i < 3 + revision; i++) {
+            String title = revision > 0 && i == 1 ? "Entry 1 edited" : "Entry " + i;
+            String link = "http://example.com/" + id + "/" + i + (revision > 0 && i == 2 ? "-moved" : "");
+            sb.append("<item><title>").append(title).append("</title>")
+                    .append("<link>").append(link).append("</link>")
+                    .append("<guid isPermaLink=\"false\">urn:test:").append(id).append(':').append(i).append("</guid>")
+                    .append("<description>entry ").append(i).append("</description>")
+                    .append("<pubDate>Mon, 0").append(i + 1).append(" Oct 2026 10:00:00 GMT</pubDate></item>");
+        }
+        return sb.append("</channel></rss>").toString();
+    }
+    
+}
@@ -28,7 +28,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -116,6 +119,46 @@ public class EntryFunctionalTests  {
         assertEquals(0, mgr.getEntries(group, new Date(), null, 0, 10).size());
     }
     
+    @Test
+    public void testGroupTimeline() throws Exception {
+        
+        PlanetManager mgr = WebloggerFactory.getWeblogger().getPlanetManager();
+        PlanetGroup group = mgr.getGroupById(testGroup1.getId());
+        assertEquals(3, mgr.getEntries(group, 0, 10).size());
+        
+        // a newer entry shows up first once the timeline is updated
+        Subscription sub = mgr.getSubscriptionById(testSub1.getId());
+        SubscriptionEntry newest = new SubscriptionEntry();
+        newest.setPermalink("entryFuncTestEntry4");
+        newest.setTitle("entryFuncTestEntry4");
+        newest.setPubTime(new Timestamp(System.currentTimeMillis() + 3600000));
+        sub.addEntry(newest);
+        mgr.saveEntry(newest);
+        WebloggerFactory.getWeblogger().flush();
+        mgr.updateTimelines(sub);
+        
+        List<SubscriptionEntry> entries = mgr.getEntries(group, 0, 10);
+        assertEquals(4, entries.size());
+        assertEquals(newest.getId(), entries.get(0).getId());
+        assertEquals(4, mgr.getEntries(group, null, new Date(System.currentTimeMillis() + 7200000), 0, 10).size());
+        
+        // paging by the last entry gives the same order as paging by offset
+        List<SubscriptionEntry> paged = new ArrayList<>(mgr.getEntries(group, 0, 2));
+        List<SubscriptionEntry> page;
+        do {
+            SubscriptionEntry last = paged.get(paged.size() - 1);
+            page = mgr.getEntriesBefore(group, last.getPubTime(), last.getId(), 2);
+            paged.addAll(page);
+        } while (!page.isEmpty());
+        assertEquals(entries, paged);
+        
+        // deleting entries drops them from the timeline
+        mgr.deleteEntries(mgr.getSubscriptionById(testSub2.getId()));
+        TestUtils.endSession(true);
+        group = mgr.getGroupById(testGroup1.getId());
+        assertEquals(2, mgr.getEntries(group, 0, 10).size());
+    }
+    
     @Test
     public void testDeleteEntries() throws Exception {
         
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.planet.business;
+
+import org.apache.roller.planet.business.updater.RefreshSchedule;
+import org.apache.roller.planet.pojos.Subscription;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the adaptive subscription refresh schedule.
+ */
+public class RefreshScheduleTest {
+    
+    private static final long MINUTE = 60 * 1000L;
+    
+    // an arbitrary point in time to start from
+    private static final long START = 1_790_000_000_000L;
+    
+    private final RefreshSchedule schedule = new RefreshSchedule(15 * MINUTE, 60 * MINUTE, 1440 * MINUTE);
+    
+    private final Subscription sub = subscription("sub");
+    
+    
+    @Test
+    public void testDormantFeedsArePolledLessOften() {
+        
+        long now = START;
+        
+        // first check uses the default interval, give or take jitter
+        schedule.unchanged(sub, now);
+        assertFalse(isDue(sub, now + 50 * MINUTE));
+        assertTrue(isDue(sub, now + 70 * MINUTE));
+        assertEquals(60, sub.getRefreshInterval());
+        
+        // every unchanged refresh stretches the interval, up to the maximum
+        for (int i = 0; i < 20; i++) {
+            now += 2000 * MINUTE;
+            schedule.unchanged(sub, now);
+        }
+        assertFalse(isDue(sub, now + 1200 * MINUTE));
+        assertTrue(isDue(sub, now + 1600 * MINUTE));
+        assertEquals(1440, sub.getRefreshInterval());
+    }
+    
+    
+    @Test
+    public void testBusyFeedsArePolledMoreOften() {
+        
+        // a feed changing every 20 minutes is polled at the minimum interval
+        long now = START;
+        for (int i = 0; i < 5; i++) {
+            schedule.changed(sub, now);
+            now += 20 * MINUTE;
+        }
+        now -= 20 * MINUTE;
+        assertFalse(isDue(sub, now + 13 * MINUTE));
+        assertTrue(isDue(sub, now + 17 * MINUTE));
+        assertEquals(15, sub.getRefreshInterval());
+    }
+    
+    
+    @Test
+    public void testFailuresBackOff() {
+        
+        long now = START;
+        schedule.failed(sub, now);
+        assertFalse(isDue(sub, now + 25 * MINUTE));
+        assertTrue(isDue(sub, now + 35 * MINUTE));
+        
+        now += 35 * MINUTE;
+        schedule.failed(sub, now);
+        assertFalse(isDue(sub, now + 50 * MINUTE));
+        assertTrue(isDue(sub, now + 70 * MINUTE));
+        assertEquals(2, sub.getFailures());
+        
+        // a good refresh resets the backoff
+        schedule.unchanged(sub, now);
+        assertEquals(0, sub.getFailures());
+    }
+    
+    
+    @Test
+    public void testUnscheduledSubscriptionsAreLeftAlone() {
+        
+        sub.setNextDue(null);
+        schedule.changed(sub, START);
+        schedule.unchanged(sub, START);
+        schedule.failed(sub, START);
+        assertNull(sub.getNextDue());
+        assertNull(sub.getLastChecked());
+        assertEquals(0, sub.getFailures());
+    }
+    
+    
+    private static boolean isDue(Subscription sub, long now) {
+        return sub.getNextDue().getTime() <= now;
+    }
+    
+    
+    private static Subscription subscription(String id) {
+        Subscription sub = new Subscription();
+        sub.setId(id);
+        sub.setFeedURL("http://example.com/" + id);
+        return sub;
+    }
+    
+}
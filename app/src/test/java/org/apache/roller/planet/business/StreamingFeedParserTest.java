@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.planet.business;
+
+import com.rometools.rome.feed.synd.SyndFeed;
+import com.rometools.rome.io.SyndFeedInput;
+import com.rometools.rome.io.XmlReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.planet.business.fetcher.StreamingFeedParser;
+import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.planet.pojos.SubscriptionEntry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the streaming feed parser against the common feed formats.
+ */
+public class StreamingFeedParserTest {
+    
+    public static Log log = LogFactory.getLog(StreamingFeedParserTest.class);
+    
+    
+    @Test
+    public void testRss20() throws Exception {
+        String rss = "<?xml version=\"1.0\"?>"
+                + "<rss version=\"2.0\" xmlns:dc=\"http://purl.org/dc/elements/1.1/\""
+                + " xmlns:content=\"http://purl.org/rss/1.0/modules/content/\"><channel>"
+                + "<title>Test Feed</title><link>http://example.com/</link>"
+                + "<description>about</description><dc:creator>Jane</dc:creator>"
+                + "<pubDate>Tue, 06 Oct 2026 10:00:00 GMT</pubDate>"
+                + "<item><title>First</title><link>http://example.com/1</link>"
+                + "<guid isPermaLink=\"false\">urn:1</guid><category>java</category><category>xml</category>"
+                + "<description>summary &amp; more</description>"
+                + "<content:encoded><![CDATA[<p>full text</p>]]></content:encoded>"
+                + "<pubDate>Mon, 05 Oct 2026 10:00:00 GMT</pubDate></item>"
+                + "<item><title>Second</title><guid>http://example.com/2</guid>"
+                + "<description>only a summary</description></item>"
+                + "<item><title>No link</title><guid isPermaLink=\"false\">urn:3</guid></item>"
+                + "</channel></rss>";
+        
+        Subscription sub = new Subscription();
+        List<SubscriptionEntry> entries = parse(rss, 10, sub);
+        
+        assertEquals("Test Feed", sub.getTitle());
+        assertEquals("http://example.com/", sub.getSiteURL());
+        assertEquals("Jane", sub.getAuthor());
+        assertNotNull(sub.getLastUpdated());
+        
+        assertEquals(2, entries.size());
+        SubscriptionEntry first = entries.get(0);
+        assertEquals("First", first.getTitle());
+        assertEquals("http://example.com/1", first.getPermalink());
+        assertEquals("urn:1", first.getGuid());
+        assertEquals("<p>full text</p>", first.getText());
+        assertTrue(first.inCategory("java"));
+        assertTrue(first.inCategory("xml"));
+        assertNotNull(first.getPubTime());
+        
+        // a permalink guid stands in for the link
+        SubscriptionEntry second = entries.get(1);
+        assertEquals("http://example.com/2", second.getPermalink());
+        assertEquals("only a summary", second.getText());
+        assertNull(second.getPubTime());
+    }
+    
+    
+    @Test
+    public void testAtom10() throws Exception {
+        String atom = "<?xml version=\"1.0\"?><feed xmlns=\"http://www.w3.org/2005/Atom\">"
+                + "<title>Atom Feed</title><link rel=\"self\" href=\"http://example.com/atom\"/>"
+                + "<link href=\"http://example.com/\"/><updated>2026-10-06T10:00:00Z</updated>"
+                + "<author><name>John</name><email>john@example.com</email></author>"
+                + "<entry><id>tag:example.com,2026:1</id><title>Entry</title>"
+                + "<link rel=\"edit\" href=\"http://example.com/edit/1\"/>"
+                + "<link rel=\"alternate\" href=\"http://example.com/1\"/>"
+                + "<published>2026-10-05T10:00:00Z</published><updated>2026-10-06T09:00:00Z</updated>"
+                + "<category term=\"news\"/><summary>short</summary>"
+                + "<content type=\"xhtml\"><div xmlns=\"http://www.w3.org/1999/xhtml\"><p>a &lt; b</p></div></content>"
+                + "</entry></feed>";
+        
+        Subscription sub = new Subscription();
+        List<SubscriptionEntry> entries = parse(atom, 10, sub);
+        
+        assertEquals("Atom Feed", sub.getTitle());
+        assertEquals("http://example.com/", sub.getSiteURL());
+        assertEquals("John", sub.getAuthor());
+        assertNotNull(sub.getLastUpdated());
+        
+        assertEquals(1, entries.size());
+        SubscriptionEntry entry = entries.get(0);
+        assertEquals("tag:example.com,2026:1", entry.getGuid());
+        assertEquals("http://example.com/1", entry.getPermalink());
+        assertTrue(entry.inCategory("news"));
+        assertEquals("<div><p>a &lt; b</p></div>", entry.getText());
+        assertTrue(entry.getPubTime().before(entry.getUpdateTime()));
+    }
+    
+    
+    @Test
+    public void testRss10() throws Exception {
+        String rdf = "<?xml version=\"1.0\"?>"
+                + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\""
+                + " xmlns=\"http://purl.org/rss/1.0/\" xmlns:dc=\"http://purl.org/dc/elements/1.1/\">"
+                + "<channel rdf:about=\"http://example.com/\"><title>RDF Feed</title>"
+                + "<link>http://example.com/</link><dc:date>2026-10-06T10:00:00Z</dc:date></channel>"
+                + "<item rdf:about=\"http://example.com/1\"><title>One</title>"
+                + "<link>http://example.com/1</link><dc:date>2026-10-05T10:00:00Z</dc:date>"
+                + "<dc:subject>misc</dc:subject></item></rdf:RDF>";
+        
+        Subscription sub = new Subscription();
+        List<SubscriptionEntry> entries = parse(rdf, 10, sub);
+        
+        assertEquals("RDF Feed", sub.getTitle());
+        assertNotNull(sub.getLastUpdated());
+        assertEquals(1, entries.size());
+        assertEquals("http://example.com/1", entries.get(0).getPermalink());
+        assertNotNull(entries.get(0).getPubTime());
+        assertTrue(entries.get(0).inCategory("misc"));
+    }
+    
+    
+    @Test
+    public void testRejectsDoctypeAndNonFeeds() {
+        String xxe = "<?xml version=\"1.0\"?><!DOCTYPE rss [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+                + "<rss><channel><title>&x;</title></channel></rss>";
+        assertThrows(Exception.class, () -> parse(xxe, 10, new Subscription()));
+        assertThrows(Exception.class, () -> parse("<html><body/></html>", 10, new Subscription()));
+    }
+    
+    
+    /**
+     * Compare memory allocated parsing a large feed with ROME and with the
+     * streaming parser keeping the newest 50 entries.
+     */
+    @Test
+    public void testStopsEarlyAndAllocatesLess() throws Exception {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\"?><rss version=\"2.0\"><channel>")
+                .append("<title>Big</title><link>http://example.com/</link>");
+        for (int i = 0; i < 2000; i++) {
+            sb.append("<item><title>Entry ").append(i).append("</title>")
+                    .append("<link>http://example.com/").append(i).append("</link>")
+                    .append("<description>").append("lorem ipsum dolor sit amet ".repeat(40))
+                    .append("</description></item>");
+        }
+        String items = sb.toString();
+        
+        // anything past the entries we keep is never read, even if broken
+        byte[] broken = (items + "<item><unclosed></channel></rss>").getBytes(StandardCharsets.UTF_8);
+        List<SubscriptionEntry> entries = parse(broken, 50, new Subscription());
+        assertEquals(50, entries.size());
+        assertEquals("Entry 49", entries.get(49).getTitle());
+        
+        byte[] valid = (items + "</channel></rss>").getBytes(StandardCharsets.UTF_8);
+        
+        // warm up both paths before measuring
+        for (int i = 0; i < 3; i++) {
+            parse(valid, 50, new Subscription());
+            parseWithRome(valid);
+        }
+        long streaming = allocated(() -> parse(valid, 50, new Subscription()));
+        long rome = allocated(() -> parseWithRome(valid));
+        log.info("Allocated per " + valid.length + " byte feed: streaming " + streaming
+                + " bytes, rome " + rome + " bytes");
+        if (streaming > 0 && rome > 0) {
+            assertTrue(streaming < rome, "streaming " + streaming + " rome " + rome);
+        }
+    }
+    
+    
+    private static List<SubscriptionEntry> parse(String feed, int maxItems, Subscription sub) throws Exception {
+        return parse(feed.getBytes(StandardCharsets.UTF_8), maxItems, sub);
+    }
+    
+    private static List<SubscriptionEntry> parse(byte[] feed, int maxItems, Subscription sub) throws Exception {
+        try (InputStream in = new ByteArrayInputStream(feed)) {
+            return new StreamingFeedParser(maxItems).parse(in, sub);
+        }
+    }
+    
+    private static SyndFeed parseWithRome(byte[] feed) throws Exception {
+        try (XmlReader reader = new XmlReader(new ByteArrayInputStream(feed))) {
+            return new SyndFeedInput().build(reader);
+        }
+    }
+    
+    
+    private interface Work {
+        Object run() throws Exception;
+    }
+    
+    // bytes allocated by this thread doing some work, or -1 if not supported
+    private static long allocated(Work work) throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        assertNotNull(work.run());
+        return threads.getThreadAllocatedBytes(id) - before;
+    }
+    
+}
@@ -16,6 +16,8 @@
 
 package org.apache.roller.planet.business;
 
+import java.util.Date;
+import java.util.Map;
 import org.apache.roller.planet.pojos.Planet;
 import org.apache.roller.planet.pojos.PlanetGroup;
 import org.apache.roller.planet.pojos.Subscription;
@@ -125,4 +127,33 @@ public class SubscriptionFunctionalTests  {
         assertEquals(0, group.getSubscriptions().size());
     }
     
+    @Test
+    public void testRefreshScheduleStats() throws Exception {
+        
+        PlanetManager mgr = WebloggerFactory.getWeblogger().getPlanetManager();
+        long minute = 60 * 1000L;
+        long now = System.currentTimeMillis();
+        
+        Subscription sub1 = mgr.getSubscriptionById(testSub1.getId());
+        sub1.setNextDue(new Date(now - minute));
+        sub1.setLastChecked(new Date(now - 90 * minute));
+        sub1.setRefreshInterval(60);
+        sub1.setFailures(2);
+        mgr.saveSubscription(sub1);
+        Subscription sub2 = mgr.getSubscriptionById(testSub2.getId());
+        sub2.setNextDue(new Date(now + 30 * minute));
+        sub2.setLastChecked(new Date(now - 10 * minute));
+        sub2.setRefreshInterval(40);
+        mgr.saveSubscription(sub2);
+        TestUtils.endSession(true);
+        
+        Map<String, Object> stats = mgr.getRefreshScheduleStats(new Date(now));
+        assertEquals(2L, stats.get("tracked"));
+        assertEquals(1L, stats.get("due"));
+        assertEquals(1L, stats.get("failing"));
+        assertEquals(0L, stats.get("nextDueMinutes"));
+        assertEquals(90L, stats.get("maxStalenessMinutes"));
+        assertEquals(50L, stats.get("avgIntervalMinutes"));
+    }
+    
 }
@@ -27,9 +27,13 @@ import org.apache.roller.weblogger.pojos.WeblogEntryComment.ApprovalStatus;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -191,6 +195,61 @@ public class CommentTest  {
     }
     
     
+    /**
+     * Test the set-based bulk comment operations.
+     */
+    @Test
+    public void testBulkCommentOperations() throws Exception {
+        
+        WeblogEntryManager mgr = WebloggerFactory.getWeblogger().getWeblogEntryManager();
+        
+        testEntry = TestUtils.getManagedWeblogEntry(testEntry);
+        WeblogEntryComment comment1 = TestUtils.setupComment("comment1", testEntry);
+        WeblogEntryComment comment2 = TestUtils.setupComment("comment2", testEntry);
+        WeblogEntryComment comment3 = TestUtils.setupComment("comment3", testEntry);
+        TestUtils.endSession(true);
+        
+        // mark two comments as spam in one batch
+        comment1 = mgr.getComment(comment1.getId());
+        comment2 = mgr.getComment(comment2.getId());
+        comment1.setStatus(ApprovalStatus.SPAM);
+        comment2.setStatus(ApprovalStatus.SPAM);
+        Set<WeblogEntry> touched = mgr.saveComments(Arrays.asList(comment1, comment2));
+        assertEquals(1, touched.size());
+        assertEquals(testEntry.getId(), touched.iterator().next().getId());
+        TestUtils.endSession(true);
+        
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        CommentSearchCriteria csc = new CommentSearchCriteria();
+        csc.setWeblog(testWeblog);
+        assertEquals(3, mgr.getCommentCount(csc));
+        csc.setStatus(ApprovalStatus.SPAM);
+        assertEquals(2, mgr.getCommentCount(csc));
+        
+        // purge spam
+        int deleted = mgr.removeMatchingComments(testWeblog, null, null, null, null,
+                ApprovalStatus.SPAM);
+        assertEquals(2, deleted);
+        TestUtils.endSession(true);
+        
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        csc.setWeblog(testWeblog);
+        assertEquals(0, mgr.getCommentCount(csc));
+        assertNull(mgr.getComment(comment1.getId()));
+        
+        // remove the remaining comment by id
+        touched = mgr.removeComments(Collections.singletonList(comment3.getId()));
+        assertEquals(1, touched.size());
+        TestUtils.endSession(true);
+        
+        assertNull(mgr.getComment(comment3.getId()));
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        csc = new CommentSearchCriteria();
+        csc.setWeblog(testWeblog);
+        assertEquals(0, mgr.getCommentCount(csc));
+    }
+    
+    
     /**
      * Test that when deleting parent objects of a comment that everything
      * down the chain is properly deleted as well.  i.e. deleting an entry
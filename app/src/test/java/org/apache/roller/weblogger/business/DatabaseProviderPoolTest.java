@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the pooled database configuration against an in-memory embedded Derby.
+ */
+public class DatabaseProviderPoolTest {
+
+    private static final String URL = "jdbc:derby:memory:pooltest;create=true";
+
+    private DatabaseProvider.PooledDataSource pool = null;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        pool = DatabaseProvider.createPooledDataSource(URL, null);
+        pool.setInitialSize(1);
+        pool.setMaxTotal(1);
+
+        try (Connection con = pool.getConnection(); Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE pooltest (id INT)");
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        try (Connection con = pool.getConnection(); Statement st = con.createStatement()) {
+            st.executeUpdate("DROP TABLE pooltest");
+        }
+        pool.close();
+    }
+
+
+    @Test
+    public void testUncommittedWorkIsRolledBackOnReturn() throws Exception {
+
+        try (Connection con = pool.getConnection(); Statement st = con.createStatement()) {
+            con.setAutoCommit(false);
+            st.executeUpdate("INSERT INTO pooltest VALUES (1)");
+        }
+
+        try (Connection con = pool.getConnection(); Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM pooltest")) {
+            assertTrue(con.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+
+    @Test
+    public void testConnectionStateIsResetForNextBorrower() throws Exception {
+
+        int isolation;
+        try (Connection con = pool.getConnection()) {
+            isolation = con.getTransactionIsolation();
+            con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            con.setReadOnly(true);
+        }
+        assertNotEquals(Connection.TRANSACTION_SERIALIZABLE, isolation);
+
+        try (Connection con = pool.getConnection()) {
+            assertEquals(isolation, con.getTransactionIsolation());
+            assertFalse(con.isReadOnly());
+        }
+    }
+
+
+    @Test
+    public void testUnwrapDoesNotExposePhysicalConnection() throws Exception {
+
+        try (Connection con = pool.getConnection()) {
+            con.unwrap(Connection.class).close();
+        }
+        assertEquals(0, pool.getNumActive());
+
+        try (Connection con = pool.getConnection(); Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM pooltest")) {
+            assertTrue(rs.next());
+        }
+        assertEquals(1L, pool.getStats().get("created"));
+    }
+
+
+    @Test
+    public void testAcquisitionsAreCountedInHistogram() throws Exception {
+
+        Map<String, Object> before = pool.getStats();
+        for (int i = 0; i < 3; i++) {
+            pool.getConnection().close();
+        }
+        Map<String, Object> after = pool.getStats();
+
+        long counted = 0;
+        for (String key : after.keySet()) {
+            if (key.startsWith("acquire") && !key.endsWith("Millis")) {
+                counted += (Long) after.get(key) - (Long) before.get(key);
+            }
+        }
+        assertEquals(3, counted);
+    }
+
+}
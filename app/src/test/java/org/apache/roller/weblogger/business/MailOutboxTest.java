@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the mail outbox against an in-process SMTP server.
+ */
+public class MailOutboxTest {
+
+    private static final String TEXT = "text/plain; charset=utf-8";
+
+    @TempDir
+    File dir;
+
+    private FakeSmtpServer server = null;
+    private MailProvider mailProvider = null;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new FakeSmtpServer();
+        mailProvider = new MailProvider("127.0.0.1", server.getPort(), null, null);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+
+    @Test
+    public void testMessagesShareConnectionAndRecipientsAreBatched() throws Exception {
+
+        MailOutbox outbox = new MailOutbox(mailProvider, dir, 2, 3, 60000, 60000);
+        outbox.enqueue("blog@example.org", new String[] {"owner@example.org"}, null, null, "one", "1", TEXT, null);
+        outbox.enqueue("blog@example.org", null, null,
+                new String[] {"a@example.org", "b@example.org", "c@example.org", "d@example.org", "e@example.org"},
+                "two", "2", TEXT, null);
+        outbox.enqueue("blog@example.org", new String[] {"owner@example.org"}, null, null, "three", "3", TEXT, null);
+
+        int connections = server.connections.get();
+        assertEquals(3, outbox.drain());
+        assertEquals(connections + 1, server.connections.get());
+
+        // in order, with the blind copies in batches
+        assertEquals(List.of(List.of("owner@example.org"),
+                List.of("a@example.org", "b@example.org"), List.of("c@example.org", "d@example.org"),
+                List.of("e@example.org"), List.of("owner@example.org")), server.recipients);
+        assertFalse(server.data.get(1).contains("Bcc:"));
+
+        // the outbox is empty now
+        assertEquals(0, outbox.drain());
+        assertEquals(0, dir.listFiles().length);
+    }
+
+
+    @Test
+    public void testFailedMessageIsRetriedAfterRestart() throws Exception {
+
+        MailOutbox outbox = new MailOutbox(mailProvider, dir, 50, 3, 200, 60000);
+        outbox.enqueue("blog@example.org", new String[] {"owner@example.org"}, null, null, "subject", "x", TEXT, null);
+
+        server.failData.set(1);
+        assertEquals(0, outbox.drain());
+        assertEquals(1, dir.listFiles().length);
+
+        // a new outbox on the same directory picks the message up once due
+        outbox = new MailOutbox(mailProvider, dir, 50, 3, 200, 60000);
+        assertEquals(0, outbox.drain());
+        Thread.sleep(300);
+        assertEquals(1, outbox.drain());
+        assertEquals(List.of(List.of("owner@example.org")), server.recipients);
+        assertTrue(server.data.get(0).contains("Subject: subject"));
+    }
+
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+
+        MailOutbox outbox = new MailOutbox(mailProvider, dir, 50, 2, 1, 60000);
+        outbox.enqueue("blog@example.org", new String[] {"owner@example.org"}, null, null, "subject", "x", TEXT, null);
+
+        server.failData.set(10);
+        assertEquals(0, outbox.drain());
+        assertEquals(1, dir.listFiles().length);
+        Thread.sleep(10);
+        assertEquals(0, outbox.drain());
+        assertEquals(0, dir.listFiles().length);
+        assertEquals(8, server.failData.get());
+    }
+
+
+    @Test
+    public void testRefusedRecipientsAreDropped() throws Exception {
+
+        MailOutbox outbox = new MailOutbox(mailProvider, dir, 50, 3, 60000, 60000);
+        outbox.enqueue("blog@example.org", null, null,
+                new String[] {"a@example.org", "refused@example.org", "b@example.org"}, "subject", "x", TEXT, null);
+
+        assertEquals(1, outbox.drain());
+        assertEquals(List.of(List.of("a@example.org", "b@example.org")), server.recipients);
+        assertEquals(0, dir.listFiles().length);
+    }
+
+
+    @Test
+    public void testNotificationsAreCoalesced() throws Exception {
+
+        MailOutbox outbox = new MailOutbox(mailProvider, dir, 50, 3, 60000, 1000);
+        assertTrue(outbox.enqueue("blog@example.org", null, null,
+                new String[] {"a@example.org", "b@example.org"}, "first", "1", TEXT, "comment:1"));
+        // added to the first one while it waits to be sent
+        assertTrue(outbox.enqueue("blog@example.org", null, null,
+                new String[] {"A@example.org", "c@example.org"}, "second", "2", TEXT, "comment:1"));
+        assertEquals(1, outbox.drain());
+        assertEquals(List.of(List.of("a@example.org", "b@example.org", "c@example.org")), server.recipients);
+        assertTrue(server.data.get(0).contains("----"));
+
+        // within the window later ones are held back together
+        assertTrue(outbox.enqueue("blog@example.org", null, null,
+                new String[] {"b@example.org"}, "third", "3", TEXT, "comment:1"));
+        assertTrue(outbox.enqueue("blog@example.org", null, null,
+                new String[] {"b@example.org", "d@example.org"}, "fourth", "4", TEXT, "comment:1"));
+        // other entries and messages without a key are not affected
+        assertTrue(outbox.enqueue("blog@example.org", null, null,
+                new String[] {"a@example.org"}, "other", "5", TEXT, "comment:2"));
+        assertTrue(outbox.enqueue("blog@example.org", null, null,
+                new String[] {"a@example.org"}, "unkeyed", "6", TEXT, null));
+        assertEquals(2, outbox.drain());
+
+        Thread.sleep(1100);
+        assertEquals(1, outbox.drain());
+        assertEquals(List.of(List.of("a@example.org", "b@example.org", "c@example.org"),
+                List.of("a@example.org"), List.of("a@example.org"),
+                List.of("b@example.org", "d@example.org")), server.recipients);
+    }
+
+
+    @Test
+    public void testDigestRecipientsAreBlindCopied() throws Exception {
+
+        MailOutbox outbox = new MailOutbox(mailProvider, dir, 50, 3, 60000, 60000);
+        String html = "text/html; charset=utf-8";
+        outbox.enqueue("blog@example.org", new String[] {"a@example.org"}, null, null, "first",
+                "<html><body style=\"background: white\">one</Body></html>", html, "approval:1");
+        outbox.enqueue("blog@example.org", new String[] {"b@example.org"}, null, null, "second",
+                "<html><body style=\"background: white\">two</Body></html>", html, "approval:1");
+        assertEquals(1, outbox.drain());
+
+        // the second recipient is not disclosed to the first
+        assertEquals(List.of(List.of("a@example.org", "b@example.org")), server.recipients);
+        String data = server.data.get(0);
+        assertTrue(data.contains("To: a@example.org"));
+        assertFalse(data.contains("b@example.org"));
+
+        // one html document with the parts in it
+        assertTrue(data.contains("one<hr />two</body></html>"));
+        assertEquals(1, data.split("(?i)<html").length - 1);
+    }
+
+
+    @Test
+    public void testMessagesAreSentInBackground() throws Exception {
+
+        MailOutbox outbox = new MailOutbox(mailProvider, dir, 50, 3, 60000, 60000);
+        outbox.start();
+        try {
+            outbox.enqueue("blog@example.org", new String[] {"owner@example.org"}, null, null, "subject", "x", TEXT,
+                    null);
+            for (int i = 0; i < 100 && server.recipients.isEmpty(); i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(List.of(List.of("owner@example.org")), server.recipients);
+        } finally {
+            outbox.shutdown();
+        }
+    }
+
+
+    /**
+     * Just enough of an SMTP server to accept mail, refusing recipients with
+     * "refused" in their address and failing a given number of messages.
+     */
+    private static final class FakeSmtpServer implements AutoCloseable {
+
+        private final ServerSocket socket;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger failData = new AtomicInteger();
+        private final List<List<String>> recipients = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> data = Collections.synchronizedList(new ArrayList<>());
+
+        FakeSmtpServer() throws IOException {
+            socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            executor.execute(this::accept);
+        }
+
+        int getPort() {
+            return socket.getLocalPort();
+        }
+
+        private void accept() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket connection = socket.accept();
+                    connections.incrementAndGet();
+                    executor.execute(() -> session(connection));
+                } catch (IOException ex) {
+                    return;
+                }
+            }
+        }
+
+        private void session(Socket connection) {
+            try (connection;
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+                    Writer out = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost fake SMTP");
+                List<String> rcpts = new ArrayList<>();
+                for (String line; (line = in.readLine()) != null;) {
+                    String command = line.toUpperCase(Locale.ROOT);
+                    if (command.startsWith("MAIL FROM")) {
+                        rcpts = new ArrayList<>();
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("RCPT TO")) {
+                        if (line.contains("refused")) {
+                            reply(out, "550 No such user");
+                        } else {
+                            rcpts.add(line.substring(line.indexOf('<') + 1, line.indexOf('>')));
+                            reply(out, "250 OK");
+                        }
+                    } else if (command.equals("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder message = new StringBuilder();
+                        for (String dataLine; !(dataLine = in.readLine()).equals(".");) {
+                            message.append(dataLine).append('\n');
+                        }
+                        if (failData.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                            reply(out, "451 Try again later");
+                        } else {
+                            recipients.add(rcpts);
+                            data.add(message.toString());
+                            reply(out, "250 OK");
+                        }
+                    } else if (command.equals("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        // EHLO, HELO, RSET, NOOP
+                        reply(out, "250 localhost");
+                    }
+                }
+            } catch (IOException ex) {
+                // client went away
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+            executor.shutdownNow();
+        }
+    }
+
+}
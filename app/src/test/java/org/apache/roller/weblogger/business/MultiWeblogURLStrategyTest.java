@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.roller.weblogger.TestUtils;
+import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
+import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test urls built from the precomputed weblog urls of MultiWeblogURLStrategy.
+ */
+public class MultiWeblogURLStrategyTest {
+
+    private String absoluteURL = null;
+    private String relativeURL = null;
+    private Weblog weblog = null;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        TestUtils.setupWeblogger();
+        absoluteURL = WebloggerRuntimeConfig.getAbsoluteContextURL();
+        relativeURL = WebloggerRuntimeConfig.getRelativeContextURL();
+        WebloggerRuntimeConfig.setAbsoluteContextURL("http://one.example.com/roller");
+        WebloggerRuntimeConfig.setRelativeContextURL("/roller");
+
+        weblog = new Weblog();
+        weblog.setHandle("urlweblog");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        WebloggerRuntimeConfig.setAbsoluteContextURL(absoluteURL);
+        WebloggerRuntimeConfig.setRelativeContextURL(relativeURL);
+    }
+
+
+    @Test
+    public void testWeblogURLsFollowSiteURL() throws Exception {
+
+        MultiWeblogURLStrategy strategy = new MultiWeblogURLStrategy();
+
+        assertEquals("http://one.example.com/roller/urlweblog/", strategy.getWeblogURL(weblog, null, true));
+        assertEquals("/roller/urlweblog/", strategy.getWeblogURL(weblog, null, false));
+        assertEquals("/roller/urlweblog/de/", strategy.getWeblogURL(weblog, "de", false));
+        assertEquals("/roller/urlweblog/feed/entries/atom?cat=a+b",
+                strategy.getWeblogFeedURL(weblog, null, "entries", "atom", "a b", null, null, false, false));
+
+        // changing the site url must not leave stale urls behind
+        WebloggerRuntimeConfig.setAbsoluteContextURL("http://two.example.com/roller");
+        assertEquals("http://two.example.com/roller/urlweblog/", strategy.getWeblogURL(weblog, null, true));
+        assertEquals("/roller/urlweblog/", strategy.getWeblogURL(weblog, null, false));
+    }
+
+
+    @Test
+    public void testEntryURLs() throws Exception {
+
+        MultiWeblogURLStrategy strategy = new MultiWeblogURLStrategy();
+
+        // the links of an archive page of 50 entries
+        List<WeblogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            WeblogEntry entry = new WeblogEntry();
+            entry.setWebsite(weblog);
+            entry.setAnchor("entry " + i + "/é");
+            entries.add(entry);
+        }
+        for (WeblogEntry entry : entries) {
+            String expected = "http://one.example.com/roller/urlweblog/entry/"
+                    + entry.getAnchor().replace(" ", "+").replace("/", "%2F").replace("é", "%C3%A9");
+            assertEquals(expected, strategy.getWeblogEntryURL(entry, null, true));
+            assertEquals(expected, strategy.getWeblogEntryURL(weblog, null, entry.getAnchor(), true));
+            assertSame(entry.getEncodedAnchor(), entry.getEncodedAnchor());
+        }
+
+        // a new anchor is encoded again
+        WeblogEntry entry = entries.get(0);
+        entry.setAnchor("renamed");
+        assertEquals("/roller/urlweblog/entry/renamed", strategy.getWeblogEntryURL(entry, null, false));
+
+        // preview urls keep their own format
+        URLStrategy preview = strategy.getPreviewURLStrategy("sometheme");
+        assertEquals(preview.getWeblogEntryURL(weblog, null, "renamed", false),
+                preview.getWeblogEntryURL(entry, null, false));
+    }
+
+}
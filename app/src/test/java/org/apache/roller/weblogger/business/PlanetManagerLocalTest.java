@@ -29,17 +29,24 @@ import org.apache.roller.weblogger.pojos.User;
 import org.apache.roller.weblogger.pojos.Weblog;
 import org.apache.roller.weblogger.pojos.WeblogEntry;
 import org.apache.roller.weblogger.pojos.WeblogEntry.PubStatus;
+import org.apache.roller.weblogger.pojos.WeblogEntrySearchCriteria;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -165,5 +172,124 @@ public class PlanetManagerLocalTest  {
         }
     }
 
-}
+    @Test
+    public void testAllGroupReadsWeblogsDirectly() throws Exception {
+        
+        PlanetManager planet = WebloggerFactory.getWeblogger().getPlanetManager();
+        
+        SyncWebsitesTask syncTask = new SyncWebsitesTask();
+        syncTask.init();
+        syncTask.runTask();
+        new RefreshRollerPlanetTask().runTask();
+        TestUtils.endSession(true);
+        
+        // the subscription stores no copies of the weblog's entries
+        Subscription sub = planet.getSubscription("weblogger:" + testWeblog.getHandle());
+        assertTrue(planet.getEntries(sub, 0, -1).isEmpty());
+        
+        Set<String> ids = new HashSet<>();
+        WeblogEntrySearchCriteria wesc = new WeblogEntrySearchCriteria();
+        wesc.setStatus(PubStatus.PUBLISHED);
+        for (WeblogEntry entry : WebloggerFactory.getWeblogger().getWeblogEntryManager().getWeblogEntries(wesc)) {
+            ids.add(entry.getId());
+        }
+        PlanetGroup group = planet.getGroup(planet.getWeblogger("default"), "all");
+        Set<String> aggIds = new HashSet<>();
+        for (SubscriptionEntry entry : planet.getEntries(group, 0, -1)) {
+            aggIds.add(entry.getId());
+            assertEquals(testWeblog.getName(), entry.getSubscription().getTitle());
+        }
+        assertEquals(ids, aggIds);
+        
+        // new entries show up without a refresh, paging works across them
+        TestUtils.setupWeblogEntry("entryTestEntry4", TestUtils.getManagedWebsite(testWeblog), testUser);
+        TestUtils.endSession(true);
+        group = planet.getGroup(planet.getWeblogger("default"), "all");
+        List<SubscriptionEntry> agg = planet.getEntries(group, 0, -1);
+        assertEquals(4, agg.size());
+        List<SubscriptionEntry> paged = new ArrayList<>(planet.getEntries(group, 0, 2));
+        SubscriptionEntry last = paged.get(paged.size() - 1);
+        paged.addAll(planet.getEntriesBefore(group, last.getPubTime(), last.getId(), 10));
+        assertEquals(agg, paged);
+    }
+
+    @Test
+    public void testAllGroupLeavesOutInactiveWeblogs() throws Exception {
+        
+        PlanetManager planet = WebloggerFactory.getWeblogger().getPlanetManager();
+        Weblog inactive = TestUtils.setupWeblog("inactivePlanetWeblog", testUser);
+        try {
+            String entryId = TestUtils.setupWeblogEntry("inactivePlanetEntry", inactive, testUser).getId();
+            inactive.setActive(Boolean.FALSE);
+            WebloggerFactory.getWeblogger().getWeblogManager().saveWeblog(inactive);
+            TestUtils.endSession(true);
+            
+            SyncWebsitesTask syncTask = new SyncWebsitesTask();
+            syncTask.init();
+            syncTask.runTask();
+            TestUtils.endSession(true);
+            
+            PlanetGroup group = planet.getGroup(planet.getWeblogger("default"), "all");
+            List<SubscriptionEntry> agg = planet.getEntries(group, 0, -1);
+            assertTrue(agg.size() >= 3);
+            for (SubscriptionEntry entry : agg) {
+                assertNotEquals(entryId, entry.getId());
+            }
+            
+            // pages past the first are read the same way
+            assertEquals(agg.subList(1, 3), planet.getEntries(group, 1, 2));
+        } finally {
+            TestUtils.teardownWeblog(inactive.getId());
+            TestUtils.endSession(true);
+        }
+    }
 
+    /**
+     * Times syncing and reading the "all" group with many local weblogs, run
+     * with -Dplanet.benchmark.weblogs=10000.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "planet.benchmark.weblogs", matches = "\\d+")
+    public void benchmarkAllGroup() throws Exception {
+        
+        int count = Integer.parseInt(System.getProperty("planet.benchmark.weblogs"));
+        List<String> weblogIds = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                Weblog weblog = TestUtils.setupWeblog("planetBenchWeblog" + i, testUser);
+                TestUtils.setupWeblogEntry("planetBenchEntry" + i, weblog, testUser);
+                weblogIds.add(weblog.getId());
+                if (i % 100 == 99) {
+                    TestUtils.endSession(true);
+                }
+            }
+            TestUtils.endSession(true);
+            
+            long start = System.currentTimeMillis();
+            SyncWebsitesTask syncTask = new SyncWebsitesTask();
+            syncTask.init();
+            syncTask.runTask();
+            log.info("Synced " + count + " weblogs in " + (System.currentTimeMillis() - start) + " ms");
+            
+            start = System.currentTimeMillis();
+            new RefreshRollerPlanetTask().runTask();
+            log.info("Refreshed " + count + " weblogs in " + (System.currentTimeMillis() - start) + " ms");
+            
+            PlanetManager planet = WebloggerFactory.getWeblogger().getPlanetManager();
+            PlanetGroup group = planet.getGroup(planet.getWeblogger("default"), "all");
+            start = System.currentTimeMillis();
+            for (int page = 0; page < 10; page++) {
+                assertTrue(planet.getEntries(group, page * 30, 30).size() <= 30);
+            }
+            log.info("Read 10 pages of the all group in " + (System.currentTimeMillis() - start) + " ms");
+            
+        } finally {
+            TestUtils.endSession(true);
+            for (String id : weblogIds) {
+                TestUtils.teardownWeblog(id);
+            }
+            TestUtils.endSession(true);
+        }
+    }
+
+}
@@ -21,6 +21,7 @@ package org.apache.roller.weblogger.business;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.roller.weblogger.TestUtils;
+import org.apache.roller.weblogger.config.WebloggerRuntimeConfig;
 import org.apache.roller.weblogger.pojos.RuntimeConfigProperty;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -92,4 +93,39 @@ public class PropertiesTest  {
         assertEquals("blahblah", props.get("site.description").getValue());
     }
     
+
+    @Test
+    public void testPropertyValueSnapshot() throws Exception {
+        
+        PropertiesManager mgr = WebloggerFactory.getWeblogger().getPropertiesManager();
+        String original = mgr.getPropertyValue("site.shortName");
+        assertEquals(original, WebloggerRuntimeConfig.getProperty("site.shortName"));
+        assertNull(mgr.getPropertyValue("no.such.property"));
+        
+        // saves which are rolled back are never seen
+        RuntimeConfigProperty prop = mgr.getProperty("site.shortName");
+        prop.setValue("rolledback");
+        mgr.saveProperty(prop);
+        assertEquals(original, WebloggerRuntimeConfig.getProperty("site.shortName"));
+        TestUtils.endSession(false);
+        assertEquals(original, WebloggerRuntimeConfig.getProperty("site.shortName"));
+        
+        // saved values are visible once committed
+        prop = mgr.getProperty("site.shortName");
+        prop.setValue("snapshot");
+        mgr.saveProperty(prop);
+        TestUtils.endSession(true);
+        assertEquals("snapshot", WebloggerRuntimeConfig.getProperty("site.shortName"));
+        
+        // and survive re-reading the snapshot from the database
+        mgr.reloadProperties();
+        assertEquals("snapshot", mgr.getPropertyValue("site.shortName"));
+        
+        prop = mgr.getProperty("site.shortName");
+        prop.setValue(original);
+        mgr.saveProperty(prop);
+        TestUtils.endSession(true);
+        assertEquals(original, mgr.getPropertyValue("site.shortName"));
+    }
+    
 }
@@ -997,6 +997,52 @@ public class WeblogEntryTest  {
     }
 
 
+    /**
+     * Test that prefetching for entry lists gives the same answers as lazy loading.
+     */
+    @Test
+    public void testPrefetchedEntryLists() throws Exception {
+
+        WeblogEntryManager mgr = WebloggerFactory.getWeblogger().getWeblogEntryManager();
+
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        testUser = TestUtils.getManagedUser(testUser);
+        WeblogEntry entry1 = TestUtils.setupWeblogEntry("prefetch1", testWeblog, testUser);
+        WeblogEntry entry2 = TestUtils.setupWeblogEntry("prefetch2", testWeblog, testUser);
+        entry1.addTag("prefetchtag");
+        mgr.saveWeblogEntry(entry1);
+        WeblogEntryComment comment1 = TestUtils.setupComment("comment1", entry1);
+        WeblogEntryComment comment2 = TestUtils.setupComment("comment2", entry1);
+        TestUtils.endSession(true);
+
+        try {
+            testWeblog = TestUtils.getManagedWebsite(testWeblog);
+            WeblogEntrySearchCriteria wesc = new WeblogEntrySearchCriteria();
+            wesc.setWeblog(testWeblog);
+            wesc.setPrefetch(EnumSet.allOf(WeblogEntrySearchCriteria.Prefetch.class));
+            List<WeblogEntry> results = mgr.getWeblogEntries(wesc);
+            assertEquals(2, results.size());
+
+            for (WeblogEntry entry : results) {
+                if (entry.getId().equals(entry1.getId())) {
+                    assertEquals(2, entry.getCommentCount());
+                    assertEquals(1, entry.getTags().size());
+                } else {
+                    assertEquals(0, entry.getCommentCount());
+                    assertEquals(0, entry.getTags().size());
+                }
+                assertEquals(entry.getComments().size(), entry.getCommentCount());
+            }
+        } finally {
+            TestUtils.teardownComment(comment1.getId());
+            TestUtils.teardownComment(comment2.getId());
+            TestUtils.teardownWeblogEntry(entry1.getId());
+            TestUtils.teardownWeblogEntry(entry2.getId());
+            TestUtils.endSession(true);
+        }
+    }
+
+
     @Test
     public void testWeblogStats() throws Exception {
 
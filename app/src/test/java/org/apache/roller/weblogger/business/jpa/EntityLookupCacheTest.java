@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business.jpa;
+
+import java.util.Map;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.roller.weblogger.TestUtils;
+import org.apache.roller.weblogger.business.UserManager;
+import org.apache.roller.weblogger.business.WeblogManager;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.pojos.ThemeTemplate.ComponentType;
+import org.apache.roller.weblogger.pojos.User;
+import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogPermission;
+import org.apache.roller.weblogger.pojos.WeblogTemplate;
+import org.apache.roller.weblogger.util.cache.CacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the entity lookup cache used by the JPA managers.
+ */
+public class EntityLookupCacheTest {
+
+    public static Log log = LogFactory.getLog(EntityLookupCacheTest.class);
+
+    User testUser = null;
+    Weblog testWeblog = null;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+
+        // setup weblogger
+        TestUtils.setupWeblogger();
+
+        try {
+            testUser = TestUtils.setupUser("entityCacheUser");
+            testWeblog = TestUtils.setupWeblog("entityCacheWeblog", testUser);
+            TestUtils.endSession(true);
+        } catch (Exception ex) {
+            log.error(ex);
+            throw new Exception("Test setup failed", ex);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+
+        try {
+            TestUtils.teardownWeblog(testWeblog.getId());
+            TestUtils.teardownUser(testUser.getUserName());
+            TestUtils.endSession(true);
+        } catch (Exception ex) {
+            log.error(ex);
+            throw new Exception("Test teardown failed", ex);
+        }
+    }
+
+
+    @Test
+    public void testWeblogAndUserLookupsAreCached() throws Exception {
+
+        WeblogManager wmgr = WebloggerFactory.getWeblogger().getWeblogManager();
+        UserManager umgr = WebloggerFactory.getWeblogger().getUserManager();
+
+        // prime the cache
+        assertNotNull(wmgr.getWeblogByHandle(testWeblog.getHandle()));
+        assertNotNull(umgr.getUserByUserName(testUser.getUserName()));
+        TestUtils.endSession(true);
+
+        double hitsBefore = getHits();
+        Weblog weblog = wmgr.getWeblogByHandle(testWeblog.getHandle());
+        User user = umgr.getUserByUserName(testUser.getUserName());
+        assertNotNull(weblog);
+        assertNotNull(user);
+        assertEquals(testWeblog.getId(), weblog.getId());
+        assertEquals(testUser.getId(), user.getId());
+        assertEquals(hitsBefore + 2, getHits());
+
+        // visibility is still honored on a cache hit
+        weblog.setVisible(Boolean.FALSE);
+        wmgr.saveWeblog(weblog);
+        TestUtils.endSession(true);
+        assertNull(wmgr.getWeblogByHandle(testWeblog.getHandle()));
+        assertNotNull(wmgr.getWeblogByHandle(testWeblog.getHandle(), null));
+    }
+
+
+    @Test
+    public void testTemplateLookupsFollowUpdates() throws Exception {
+
+        WeblogManager mgr = WebloggerFactory.getWeblogger().getWeblogManager();
+
+        WeblogTemplate template = new WeblogTemplate();
+        template.setAction(ComponentType.CUSTOM);
+        template.setName("cachedTemplate");
+        template.setDescription("Cached Template");
+        template.setLink("cachedLink");
+        template.setLastModified(new java.util.Date());
+        template.setWeblog(TestUtils.getManagedWebsite(testWeblog));
+        mgr.saveTemplate(template);
+        TestUtils.endSession(true);
+
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        template = mgr.getTemplateByName(testWeblog, "cachedTemplate");
+        assertNotNull(template);
+        assertNotNull(mgr.getTemplateByLink(testWeblog, "cachedLink"));
+
+        // rename, old keys must no longer resolve
+        template.setName("renamedTemplate");
+        template.setLink("renamedLink");
+        mgr.saveTemplate(template);
+        TestUtils.endSession(true);
+
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        assertNull(mgr.getTemplateByName(testWeblog, "cachedTemplate"));
+        assertNull(mgr.getTemplateByLink(testWeblog, "cachedLink"));
+        template = mgr.getTemplateByName(testWeblog, "renamedTemplate");
+        assertNotNull(template);
+
+        mgr.removeTemplate(template);
+        TestUtils.endSession(true);
+
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        assertNull(mgr.getTemplateByName(testWeblog, "renamedTemplate"));
+    }
+
+
+    @Test
+    public void testPermissionLookupsFollowRevoke() throws Exception {
+
+        UserManager umgr = WebloggerFactory.getWeblogger().getUserManager();
+
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        testUser = TestUtils.getManagedUser(testUser);
+        WeblogPermission perm = umgr.getWeblogPermission(testWeblog, testUser);
+        assertNotNull(perm);
+        assertTrue(perm.hasAction(WeblogPermission.ADMIN));
+        TestUtils.endSession(true);
+
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        testUser = TestUtils.getManagedUser(testUser);
+        umgr.revokeWeblogPermission(testWeblog, testUser, WeblogPermission.ALL_ACTIONS);
+        TestUtils.endSession(true);
+
+        testWeblog = TestUtils.getManagedWebsite(testWeblog);
+        testUser = TestUtils.getManagedUser(testUser);
+        assertNull(umgr.getWeblogPermission(testWeblog, testUser));
+    }
+
+
+    private static double getHits() {
+        Map<String, Object> stats = CacheManager.getStats().get(EntityLookupCache.CACHE_ID);
+        return (Double) stats.get("hits");
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business.jpa;
+
+import java.util.Map;
+import org.apache.roller.weblogger.TestUtils;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.pojos.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test per-request statement instrumentation, which is only enabled here.
+ */
+public class QueryMetricsTest {
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        TestUtils.setupWeblogger();
+        QueryMetrics.setEnabled(true);
+        QueryMetrics.clear();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        QueryMetrics.endRequest();
+        QueryMetrics.setEnabled(false);
+        TestUtils.endSession(true);
+    }
+
+
+    @Test
+    public void testRequestStatementsAreCounted() throws Exception {
+
+        QueryMetrics.startRequest();
+        WebloggerFactory.getWeblogger().getWeblogManager().getWeblogCount();
+        WebloggerFactory.getWeblogger().getWeblogManager().getWeblogCount();
+        WebloggerFactory.getWeblogger().getUserManager().getUserCount();
+        QueryMetrics.RequestStats stats = QueryMetrics.endRequest();
+
+        assertNotNull(stats);
+        assertEquals(3, stats.getQueryCount());
+        assertTrue(stats.getTopStatements(5).contains("Weblog.getCountAllDistinct x2"));
+
+        Map<String, Object> aggregate = QueryMetrics.getStats();
+        assertEquals(1L, aggregate.get("requests"));
+        assertEquals(3L, aggregate.get("avgQueriesPerRequest"));
+        assertNotNull(aggregate.get("top1"));
+
+        // nothing is attributed to a request once it has ended
+        assertNull(QueryMetrics.endRequest());
+    }
+
+
+    @Test
+    public void testWritesAreReportedApartFromQueries() throws Exception {
+
+        QueryMetrics.startRequest();
+        User user = TestUtils.setupUser("queryMetricsUser");
+        QueryMetrics.RequestStats stats = QueryMetrics.endRequest();
+        TestUtils.teardownUser(user.getUserName());
+
+        assertNotNull(stats);
+        assertTrue(stats.getWriteCount() >= 2);
+        assertTrue(stats.getTopWrites(5).contains("store User x1"));
+        assertTrue(stats.getTopWrites(5).contains("flush x1"));
+        assertFalse(stats.getTopStatements(5).contains("store"));
+        assertFalse(stats.getTopStatements(5).contains("flush"));
+
+        Map<String, Object> aggregate = QueryMetrics.getStats();
+        assertNotNull(aggregate.get("avgWritesPerRequest"));
+        assertNotNull(aggregate.get("topWrite1"));
+    }
+
+}
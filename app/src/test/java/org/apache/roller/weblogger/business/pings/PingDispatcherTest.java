@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business.pings;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.roller.weblogger.business.pings.PingDispatcher.Outcome;
+import org.apache.roller.weblogger.business.pings.PingDispatcher.Ping;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test dispatching pings against a local XML-RPC server with a fast, a slow
+ * and a failing ping target.
+ */
+public class PingDispatcherTest {
+
+    private static final String OK_RESPONSE = "<?xml version=\"1.0\"?><methodResponse><params><param><value><struct>"
+            + "<member><name>flerror</name><value><boolean>0</boolean></value></member>"
+            + "<member><name>message</name><value>Thanks for the ping.</value></member>"
+            + "</struct></value></param></params></methodResponse>";
+
+    private HttpServer server = null;
+    private ExecutorService serverExecutor = null;
+    private String baseUrl = null;
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final List<Long> fastArrivals = new ArrayList<>();
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String target = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(target, k -> new AtomicInteger()).incrementAndGet();
+            try {
+                exchange.getRequestBody().readAllBytes();
+                if (target.equals("/fast")) {
+                    synchronized (fastArrivals) {
+                        fastArrivals.add(System.nanoTime());
+                    }
+                } else if (target.equals("/slow")) {
+                    Thread.sleep(1500);
+                } else if (target.equals("/failing")) {
+                    exchange.sendResponseHeaders(500, -1);
+                    return;
+                }
+                byte[] body = OK_RESPONSE.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/xml");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+
+    @Test
+    public void testDuplicatePingsAreCoalesced() throws Exception {
+
+        PingDispatcher dispatcher = new PingDispatcher(4, 1000, 3, 60000);
+        List<Ping> pings = List.of(
+                ping("/fast", "blog1"), ping("/fast", "blog1"), ping("/fast", "blog2"), ping("/other", "blog1"));
+        dispatcher.dispatch(pings);
+
+        assertEquals(2, requests.get("/fast").get());
+        assertEquals(1, requests.get("/other").get());
+        for (Ping ping : pings) {
+            assertEquals(Outcome.SENT, ping.getOutcome());
+        }
+    }
+
+
+    @Test
+    public void testSlowTargetDoesNotHoldUpOthers() throws Exception {
+
+        PingDispatcher dispatcher = new PingDispatcher(4, 1000, 3, 60000);
+        List<Ping> pings = new ArrayList<>();
+        pings.add(ping("/slow", "blog0"));
+        pings.add(ping("/slow", "blog1"));
+        for (int i = 0; i < 10; i++) {
+            pings.add(ping("/fast", "blog" + i));
+        }
+
+        long start = System.nanoTime();
+        dispatcher.dispatch(pings);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        // the slow target's pings were sent one after the other
+        assertTrue(elapsedMillis >= 3000, "took " + elapsedMillis + "ms");
+        // while all pings to the fast target went out during the first one
+        assertEquals(10, fastArrivals.size());
+        for (long arrival : fastArrivals) {
+            assertTrue((arrival - start) / 1000000 < 1500);
+        }
+        for (Ping ping : pings) {
+            assertEquals(Outcome.SENT, ping.getOutcome());
+        }
+    }
+
+
+    @Test
+    public void testFailingTargetIsSkipped() throws Exception {
+
+        PingDispatcher dispatcher = new PingDispatcher(4, 1000, 2, 60000);
+        List<Ping> pings = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pings.add(ping("/failing", "blog" + i));
+        }
+        pings.add(ping("/fast", "blog0"));
+        dispatcher.dispatch(pings);
+
+        // the target is skipped once it failed twice in a row
+        assertEquals(2, requests.get("/failing").get());
+        assertEquals(Outcome.FAILED, pings.get(0).getOutcome());
+        assertNotNull(pings.get(0).getError());
+        assertEquals(Outcome.FAILED, pings.get(1).getOutcome());
+        assertEquals(Outcome.SKIPPED, pings.get(2).getOutcome());
+        assertEquals(Outcome.SKIPPED, pings.get(3).getOutcome());
+        assertEquals(Outcome.SENT, pings.get(4).getOutcome());
+
+        // and stays skipped in later passes until the cool down is over
+        Ping later = ping("/failing", "blog0");
+        dispatcher.dispatch(List.of(later));
+        assertEquals(Outcome.SKIPPED, later.getOutcome());
+        assertEquals(2, requests.get("/failing").get());
+
+        // without a cool down the target is never skipped
+        dispatcher = new PingDispatcher(4, 1000, 2, 0);
+        dispatcher.dispatch(List.of(ping("/failing", "blog0"), ping("/failing", "blog1"), ping("/failing", "blog2")));
+        assertEquals(5, requests.get("/failing").get());
+    }
+
+
+    @Test
+    public void testPingsToTargetAreRateLimited() throws Exception {
+
+        PingDispatcher dispatcher = new PingDispatcher(4, 10, 3, 60000);
+        List<Ping> pings = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pings.add(ping("/fast", "blog" + i));
+        }
+
+        long start = System.nanoTime();
+        dispatcher.dispatch(pings);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        // at 10 pings a second, 4 pings are spread over at least 300ms
+        assertTrue(elapsedMillis >= 300, "took " + elapsedMillis + "ms");
+        assertEquals(4, requests.get("/fast").get());
+    }
+
+
+    private Ping ping(String target, String weblog) {
+        return new Ping(null, baseUrl + target, weblog, "http://example.org/roller/" + weblog + "/");
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.business.runnable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.roller.weblogger.business.runnable.ManagedExecutor.Rejection;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the bounded, instrumented thread pools.
+ */
+public class ManagedExecutorTest {
+
+    @Test
+    public void testQueueIsBounded() throws Exception {
+
+        ManagedExecutor executor = new ManagedExecutor("test-abort", 1, 1, Rejection.ABORT);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        try {
+            executor.execute(() -> {
+                threads.add(Thread.currentThread().getName());
+                started.countDown();
+                await(release);
+            });
+            started.await();
+            executor.execute(() -> threads.add(Thread.currentThread().getName()));
+
+            // one running, one waiting, no room for more
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+            assertEquals(1, executor.getActiveCount());
+            assertEquals(1, executor.getQueuedCount());
+            assertEquals(1, executor.getRejectedCount());
+
+            release.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of("roller-test-abort-1", "roller-test-abort-1"), threads);
+        assertEquals(2, executor.getRunCount());
+        assertEquals(0, executor.getQueuedCount());
+        assertTrue(executor.getMaxRunMillis() >= executor.getAverageRunMillis());
+    }
+
+
+    @Test
+    public void testRejectionPolicies() throws Exception {
+
+        for (Rejection rejection : List.of(Rejection.CALLER_RUNS, Rejection.DISCARD)) {
+            ManagedExecutor executor = new ManagedExecutor("test-" + rejection, 1, 1, rejection);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            List<String> threads = new CopyOnWriteArrayList<>();
+            try {
+                executor.execute(() -> {
+                    started.countDown();
+                    await(release);
+                });
+                started.await();
+                executor.execute(() -> { });
+                executor.execute(() -> threads.add(Thread.currentThread().getName()));
+                release.countDown();
+            } finally {
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, executor.getRejectedCount());
+            if (rejection == Rejection.CALLER_RUNS) {
+                // run right away by the submitting thread, and counted
+                assertEquals(List.of(Thread.currentThread().getName()), threads);
+                assertEquals(3, executor.getRunCount());
+            } else {
+                assertEquals(List.of(), threads);
+                assertEquals(2, executor.getRunCount());
+            }
+        }
+    }
+
+
+    @Test
+    public void testExecutorsAreRegisteredUntilTerminated() throws Exception {
+
+        ManagedExecutor executor = new ManagedExecutor("test-registry", 1, 1, Rejection.ABORT);
+        assertTrue(ManagedExecutor.getExecutors().contains(executor));
+        assertTrue(executor.getGauges().startsWith("test-registry[active=0, queued=0, completed=0"));
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(ManagedExecutor.getExecutors().contains(executor));
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
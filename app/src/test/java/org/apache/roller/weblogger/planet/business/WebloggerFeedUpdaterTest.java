@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.planet.business;
+
+import java.util.List;
+import org.apache.roller.planet.business.PlanetManager;
+import org.apache.roller.planet.pojos.Subscription;
+import org.apache.roller.weblogger.TestUtils;
+import org.apache.roller.weblogger.business.WebloggerFactory;
+import org.apache.roller.weblogger.pojos.User;
+import org.apache.roller.weblogger.pojos.Weblog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test syncing local weblogs into the planet by their lastModified.
+ */
+public class WebloggerFeedUpdaterTest {
+
+    private User testUser = null;
+    private Weblog testWeblog1 = null;
+    private Weblog testWeblog2 = null;
+    private Subscription testSub1 = null;
+    private Subscription testSub2 = null;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        TestUtils.setupWeblogger();
+
+        testUser = TestUtils.setupUser("feedUpdaterTestUser");
+        testWeblog1 = TestUtils.setupWeblog("feedUpdaterTestWeblog1", testUser);
+        testWeblog2 = TestUtils.setupWeblog("feedUpdaterTestWeblog2", testUser);
+        TestUtils.setupWeblogEntry("feedUpdaterTestEntry1", testWeblog1, testUser);
+        TestUtils.setupWeblogEntry("feedUpdaterTestEntry2", testWeblog2, testUser);
+        testSub1 = TestUtils.setupSubscription("weblogger:" + testWeblog1.getHandle());
+        testSub2 = TestUtils.setupSubscription("weblogger:" + testWeblog2.getHandle());
+        TestUtils.endSession(true);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        TestUtils.teardownSubscription(testSub1.getId());
+        TestUtils.teardownSubscription(testSub2.getId());
+        TestUtils.teardownWeblog(testWeblog1.getId());
+        TestUtils.teardownWeblog(testWeblog2.getId());
+        TestUtils.teardownUser(testUser.getUserName());
+        TestUtils.endSession(true);
+    }
+
+
+    @Test
+    public void testOnlyModifiedWeblogsAreSynced() throws Exception {
+
+        WebloggerFeedUpdater updater = new WebloggerFeedUpdater();
+
+        // new subscriptions are synced with their weblogs
+        assertEquals(2, updater.updateLocalSubscriptions(getSubscriptions()));
+        TestUtils.endSession(true);
+        assertEquals(1, getSubscriptions().get(0).getEntries().size());
+
+        // nothing changed since
+        assertEquals(0, updater.updateLocalSubscriptions(getSubscriptions()));
+        TestUtils.endSession(true);
+
+        // a new entry modifies the weblog, only its subscription is synced
+        TestUtils.setupWeblogEntry("feedUpdaterTestEntry3", TestUtils.getManagedWebsite(testWeblog1), testUser);
+        TestUtils.endSession(true);
+        assertEquals(1, updater.updateLocalSubscriptions(getSubscriptions()));
+        TestUtils.endSession(true);
+
+        List<Subscription> subs = getSubscriptions();
+        assertEquals(2, subs.get(0).getEntries().size());
+        assertEquals(1, subs.get(1).getEntries().size());
+        assertEquals(TestUtils.getManagedWebsite(testWeblog1).getLastModified(), subs.get(0).getLastUpdated());
+    }
+
+
+    private List<Subscription> getSubscriptions() throws Exception {
+        PlanetManager pmgr = WebloggerFactory.getWeblogger().getPlanetManager();
+        return List.of(pmgr.getSubscriptionById(testSub1.getId()), pmgr.getSubscriptionById(testSub2.getId()));
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.pojos.wrapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.roller.weblogger.pojos.Weblog;
+import org.apache.roller.weblogger.pojos.WeblogEntry;
+import org.apache.roller.weblogger.pojos.WeblogEntryTag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the read-only wrapper lists and memoised nested wrappers.
+ */
+public class WrappedListTest {
+
+    @Test
+    public void testElementsAreWrappedOnceOnDemand() {
+
+        List<String> pojos = new ArrayList<>(List.of("a", "b", "c"));
+        AtomicInteger wrapped = new AtomicInteger();
+        List<StringBuilder> list = WrappedList.of(pojos, s -> {
+            wrapped.incrementAndGet();
+            return new StringBuilder(s);
+        });
+
+        assertEquals(3, list.size());
+        assertEquals(0, wrapped.get());
+        assertSame(list.get(1), list.get(1));
+        assertEquals(1, wrapped.get());
+        assertEquals("abc", String.join("", list));
+        assertEquals(3, wrapped.get());
+
+        assertThrows(UnsupportedOperationException.class, () -> list.add(new StringBuilder()));
+        assertThrows(UnsupportedOperationException.class, () -> list.remove(0));
+
+        Set<String> set = new LinkedHashSet<>(List.of("x", "y"));
+        assertEquals(List.of("X", "Y"), WrappedList.of(set, String::toUpperCase));
+        assertTrue(WrappedList.<String, String>of(null, String::toUpperCase).isEmpty());
+    }
+
+
+    @Test
+    public void testNestedWrappersAreMemoised() throws Exception {
+
+        Weblog weblog = new Weblog();
+        weblog.setHandle("wrapperweblog");
+        WeblogEntry entry = new WeblogEntry();
+        entry.setWebsite(weblog);
+        WeblogEntryTag tag1 = new WeblogEntryTag();
+        tag1.setName("zebra");
+        WeblogEntryTag tag2 = new WeblogEntryTag();
+        tag2.setName("aardvark");
+        entry.setTags(new LinkedHashSet<>(List.of(tag1, tag2)));
+
+        WeblogEntryWrapper wrapper = WeblogEntryWrapper.wrap(entry, null);
+        assertSame(wrapper.getWebsite(), wrapper.getWebsite());
+        assertEquals("wrapperweblog", wrapper.getWebsite().getHandle());
+
+        List<WeblogEntryTagWrapper> tags = wrapper.getTags();
+        assertSame(tags, wrapper.getTags());
+        assertEquals("aardvark", tags.get(0).getName());
+        assertEquals("zebra", tags.get(1).getName());
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.roller.weblogger.ui.rendering.RenderMetrics.Summary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test the per template render time aggregation.
+ */
+public class RenderMetricsTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(20000);
+
+
+    @BeforeEach
+    public void setUp() {
+        RenderMetrics.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RenderMetrics.clear();
+    }
+
+
+    @Test
+    public void testPercentilesPerTemplate() {
+
+        // 100 renders of 1 to 100 ms, and one cheap template
+        for (int i = 1; i <= 100; i++) {
+            RenderMetrics.record("weblog", "Weblog", TimeUnit.MILLISECONDS.toNanos(i), 1000, NOW);
+        }
+        RenderMetrics.record("css", "Stylesheet", TimeUnit.MICROSECONDS.toNanos(50), 10, NOW);
+
+        List<Summary> summaries = RenderMetrics.getSummaries(NOW);
+        assertEquals(2, summaries.size());
+
+        Summary weblog = summaries.get(0);
+        assertEquals("weblog", weblog.getId());
+        assertEquals("Weblog", weblog.getName());
+        assertEquals(100, weblog.getCount());
+        assertEquals(100000, weblog.getChars());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5050), weblog.getTotalNanos());
+
+        // estimates are upper bounds at most 25% above the real value
+        assertInRange(50, weblog.getPercentileMillis(50));
+        assertInRange(95, weblog.getPercentileMillis(95));
+        assertInRange(99, weblog.getPercentileMillis(99));
+
+        assertEquals(0.1, summaries.get(1).getPercentileMillis(99), 0.0001);
+    }
+
+
+    @Test
+    public void testSlidingWindow() {
+
+        long minute = TimeUnit.MINUTES.toMillis(1);
+        RenderMetrics.record("old", "Old", 1000, 1, NOW);
+        RenderMetrics.record("new", "New", 1000, 1, NOW + 4 * minute);
+        assertEquals(2, RenderMetrics.getSummaries(NOW + 4 * minute).size());
+
+        // with the default window of 5 minutes the first render drops out
+        List<Summary> summaries = RenderMetrics.getSummaries(NOW + 5 * minute);
+        assertEquals(1, summaries.size());
+        assertEquals("new", summaries.get(0).getId());
+
+        // and its slot is reused
+        RenderMetrics.record("newer", "Newer", 1000, 1, NOW + 5 * minute);
+        RenderMetrics.record("newer", "Newer", 1000, 1, NOW + 5 * minute);
+        summaries = RenderMetrics.getSummaries(NOW + 5 * minute);
+        assertEquals(2, summaries.size());
+        assertEquals("newer", summaries.get(0).getId());
+        assertEquals(2, summaries.get(0).getCount());
+    }
+
+
+    private static void assertInRange(double expected, double actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.25,
+                "expected about " + expected + " but was " + actual);
+    }
+
+}
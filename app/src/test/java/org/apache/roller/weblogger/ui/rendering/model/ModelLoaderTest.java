@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.roller.weblogger.WebloggerException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test shared and lazily initialized models.
+ */
+public class ModelLoaderTest {
+
+    private static final String MODELS = ConfigModel.class.getName() + ","
+            + CalendarModel.class.getName();
+
+    @Test
+    public void testSharedModelIsReused() throws Exception {
+
+        Map<String, Object> first = new ModelMap();
+        Map<String, Object> second = new ModelMap();
+        ModelLoader.loadModels(MODELS, first, new HashMap<>(), true);
+        ModelLoader.loadModels(MODELS, second, new HashMap<>(), true);
+
+        assertNotNull(first.get("config"));
+        assertSame(first.get("config"), second.get("config"));
+    }
+
+    @Test
+    public void testLazyModelIsInitializedOnLookup() throws Exception {
+
+        // CalendarModel needs a page request, without one it can't initialize
+        Map<String, Object> models = new ModelMap();
+        ModelLoader.loadModels(MODELS, models, new HashMap<>(), true);
+        assertTrue(models.containsKey("calendarModel"));
+        assertNull(models.get("calendarModel"));
+        assertTrue(models.containsKey("calendarModel"));
+
+        // with a plain map it is initialized right away
+        assertThrows(WebloggerException.class,
+                () -> ModelLoader.loadModels(MODELS, new HashMap<>(), new HashMap<>(), true));
+    }
+
+}
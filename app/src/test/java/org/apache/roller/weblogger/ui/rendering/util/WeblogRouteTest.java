@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test parsing of weblog urls.
+ */
+public class WeblogRouteTest {
+
+    @Test
+    public void testParse() {
+
+        assertNull(WeblogRoute.parse(null));
+        assertNull(WeblogRoute.parse("/"));
+
+        assertRoute(WeblogRoute.parse("/myblog"), "myblog", null, null, null, false);
+        assertRoute(WeblogRoute.parse("/myblog/"), "myblog", null, null, null, true);
+        assertRoute(WeblogRoute.parse("/myblog/en_US/"), "myblog", "en_US", null, null, true);
+        assertRoute(WeblogRoute.parse("/myblog/entry/an%20entry"), "myblog", null, "entry", "an%20entry", false);
+        assertRoute(WeblogRoute.parse("/myblog/de/entry/an_entry"), "myblog", "de", "entry", "an_entry", false);
+        assertRoute(WeblogRoute.parse("/myblog/tags/"), "myblog", null, "tags", null, true);
+        assertRoute(WeblogRoute.parse("/myblog/feed/entries/atom"), "myblog", null, "feed", "entries/atom", false);
+        assertRoute(WeblogRoute.parse("/myblog/fr/feed/entries/atom"), "myblog", "fr", "feed", "entries/atom", false);
+        assertRoute(WeblogRoute.parse("/myblog/entry//"), "myblog", null, "entry", "", true);
+    }
+
+    @Test
+    public void testIsLocale() {
+
+        assertTrue(WeblogRoute.isLocale("en"));
+        assertTrue(WeblogRoute.isLocale("en_US"));
+        assertFalse(WeblogRoute.isLocale(null));
+        assertFalse(WeblogRoute.isLocale("e_"));
+        assertFalse(WeblogRoute.isLocale("entry"));
+        assertFalse(WeblogRoute.isLocale("en_U_"));
+        assertFalse(WeblogRoute.isLocale("eng"));
+    }
+
+    private static void assertRoute(WeblogRoute route, String handle, String locale,
+            String context, String data, boolean trailingSlash) {
+        assertNotNull(route);
+        assertEquals(handle, route.getWeblogHandle());
+        assertEquals(locale, route.getLocale());
+        assertEquals(context, route.getContext());
+        assertEquals(data, route.getData());
+        assertEquals(trailingSlash, route.isTrailingSlash());
+    }
+
+}
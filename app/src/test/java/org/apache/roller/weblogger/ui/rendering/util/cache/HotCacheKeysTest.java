@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.ui.rendering.util.cache;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.roller.weblogger.ui.rendering.util.cache.HotCacheKeys.HotKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Test tracking of the most requested cache keys.
+ */
+public class HotCacheKeysTest {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void testMostRequestedKeysAreKept() {
+
+        HotCacheKeys keys = new HotCacheKeys(true, 3, null);
+
+        // a long tail of keys requested once and a few popular ones
+        for (int i = 0; i < 1000; i++) {
+            keys.record(WeblogPageCache.CACHE_ID, "tail" + i, "/tail/" + i);
+            if (i % 10 == 0) {
+                keys.record(WeblogPageCache.CACHE_ID, "hot1", "/hot/1");
+                keys.record(WeblogFeedCache.CACHE_ID, "hot2", "/hot/2?x=y");
+            }
+            if (i % 20 == 0) {
+                keys.record(SiteWideCache.CACHE_ID, "hot3", "/hot/3");
+            }
+        }
+
+        List<HotKey> hot = keys.getHotKeys();
+        assertEquals(3, hot.size());
+        assertEquals(List.of("hot1", "hot2", "hot3"),
+                List.of(hot.get(0).getKey(), hot.get(1).getKey(), hot.get(2).getKey()));
+        assertEquals(WeblogFeedCache.CACHE_ID, hot.get(1).getCacheId());
+        assertEquals("/hot/2?x=y", hot.get(1).getPath());
+        assertTrue(hot.get(0).getCount() >= 100);
+
+        keys.decay();
+        assertTrue(keys.getHotKeys().get(0).getCount() >= 50);
+        assertTrue(keys.getHotKeys().get(0).getCount() < 100);
+    }
+
+
+    @Test
+    public void testHotKeysSurviveRestart() throws Exception {
+
+        String file = tempDir.resolve("warmup/hotkeys.txt").toString();
+
+        HotCacheKeys keys = new HotCacheKeys(true, 10, file);
+        for (int i = 0; i < 5; i++) {
+            keys.record(WeblogPageCache.CACHE_ID, "page", "/weblog/");
+        }
+        keys.record(WeblogFeedCache.CACHE_ID, "feed", "/weblog/feed/entries/atom");
+        keys.record(WeblogPageCache.CACHE_ID, "bad\tkey", "/weblog/bad");
+        keys.save();
+        assertTrue(Files.exists(Path.of(file)));
+
+        HotCacheKeys restarted = new HotCacheKeys(true, 10, file);
+        List<HotKey> hot = restarted.getHotKeys();
+        assertEquals(2, hot.size());
+        assertEquals("page", hot.get(0).getKey());
+        assertEquals(5, hot.get(0).getCount());
+        assertEquals("/weblog/feed/entries/atom", hot.get(1).getPath());
+
+        // counts carry on from the saved ones
+        restarted.record(WeblogPageCache.CACHE_ID, "page", "/weblog/");
+        assertEquals(6, restarted.getHotKeys().get(0).getCount());
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  The ASF licenses this file to You
+ * under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.  For additional information regarding
+ * copyright in this work, please see the NOTICE file in the top level
+ * directory of this distribution.
+ */
+
+package org.apache.roller.weblogger.util.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test CachedContent streaming to a client while capturing.
+ */
+public class CachedContentTest {
+
+    @Test
+    public void testStreamsWhileCapturing() throws Exception {
+
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        CachedContent content = new CachedContent(16, "text/html", client);
+        content.getCachedWriter().print("héllo ");
+        content.getCachedWriter().flush();
+        assertEquals("héllo ", client.toString(UTF_8));
+
+        content.getCachedWriter().print("world");
+        content.close();
+        assertEquals("héllo world", client.toString(UTF_8));
+        assertEquals("héllo world", content.getContentAsString());
+        assertArrayEquals(client.toByteArray(), content.getContent());
+    }
+
+    @Test
+    public void testKeepsCapturingWhenClientFails() throws Exception {
+
+        OutputStream client = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        CachedContent content = new CachedContent(0, null, client);
+        content.getCachedWriter().print("still cached");
+        content.close();
+        assertEquals("still cached", content.getContentAsString());
+    }
+
+}